@@ -70,4 +70,36 @@ class DefaultFareServiceTest implements PlanTestConstants {
 
     assertEquals(Money.usDollars(2000), price);
   }
+
+  @Test
+  void getCostsOfSeveralItineraries() {
+    var service = new DefaultFareService();
+    service.addFareRules(
+      FareType.regular,
+      List.of(AIRPORT_TO_CITY_CENTER_SET, INSIDE_CITY_CENTER_SET)
+    );
+
+    var direct = newItinerary(Place.forStop(AIRPORT_STOP), T11_00)
+      .bus(1, T11_05, T11_12, Place.forStop(CITY_CENTER_A_STOP))
+      .build();
+    // The first ride is the same as the ride of the direct itinerary
+    var withTransfer = newItinerary(Place.forStop(AIRPORT_STOP), T11_00)
+      .bus(1, T11_05, T11_12, Place.forStop(CITY_CENTER_A_STOP))
+      .bus(2, T11_15, T11_20, Place.forStop(CITY_CENTER_B_STOP))
+      .build();
+    var noTransit = newItinerary(Place.forStop(AIRPORT_STOP), T11_00)
+      .walk(5, Place.forStop(CITY_CENTER_A_STOP))
+      .build();
+
+    var fares = service.getCosts(List.of(direct, withTransfer, noTransit));
+
+    assertEquals(3, fares.size());
+    assertEquals(Money.usDollars(1000), fares.get(0).getFare(FareType.regular));
+    assertEquals(Money.usDollars(2000), fares.get(1).getFare(FareType.regular));
+    assertNull(fares.get(2));
+    assertEquals(
+      service.getCost(withTransfer).getFare(FareType.regular),
+      fares.get(1).getFare(FareType.regular)
+    );
+  }
 }
@@ -0,0 +1,83 @@
+package org.opentripplanner.ext.fares.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.opentripplanner.ext.fares.impl.FareModelForTest.AIRPORT_TO_CITY_CENTER_SET;
+import static org.opentripplanner.ext.fares.impl.FareModelForTest.AIRPORT_ZONE;
+import static org.opentripplanner.ext.fares.impl.FareModelForTest.CITY_CENTER_ZONE;
+import static org.opentripplanner.ext.fares.impl.FareModelForTest.INSIDE_CITY_CENTER_SET;
+import static org.opentripplanner.ext.fares.impl.FareModelForTest.TEN_DOLLARS;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ext.fares.model.FareRuleSet;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+class FareRuleSetIndexTest {
+
+  private static final String FEED_ID = TEN_DOLLARS.getId().getFeedId();
+  private static final FeedScopedId ROUTE = id("route");
+  private static final FeedScopedId OTHER_ROUTE = id("other-route");
+  private static final FeedScopedId TRIP = id("trip");
+  private static final String AIRPORT = AIRPORT_ZONE.getId().getId();
+  private static final String CITY_CENTER = CITY_CENTER_ZONE.getId().getId();
+
+  private final FareRuleSet unrestricted = new FareRuleSet(TEN_DOLLARS);
+  private final FareRuleSet onRoute = new FareRuleSet(TEN_DOLLARS);
+  private final FareRuleSet containsCityCenter = new FareRuleSet(TEN_DOLLARS);
+
+  private final FareRuleSetIndex subject;
+
+  FareRuleSetIndexTest() {
+    onRoute.addRoute(ROUTE);
+    containsCityCenter.addContains(CITY_CENTER);
+    subject =
+      new FareRuleSetIndex(
+        List.of(
+          onRoute,
+          AIRPORT_TO_CITY_CENTER_SET,
+          unrestricted,
+          INSIDE_CITY_CENTER_SET,
+          containsCityCenter
+        )
+      );
+  }
+
+  @Test
+  void findCandidatesInRuleOrder() {
+    assertEquals(
+      List.of(onRoute, AIRPORT_TO_CITY_CENTER_SET, unrestricted),
+      subject.findCandidates(FEED_ID, ROUTE, TRIP, AIRPORT, Set.of(AIRPORT, CITY_CENTER))
+    );
+    assertEquals(
+      List.of(unrestricted, INSIDE_CITY_CENTER_SET, containsCityCenter),
+      subject.findCandidates(FEED_ID, OTHER_ROUTE, TRIP, CITY_CENTER, Set.of(CITY_CENTER))
+    );
+  }
+
+  @Test
+  void noCandidatesInOtherFeed() {
+    assertEquals(
+      List.of(),
+      subject.findCandidates("other-feed", ROUTE, TRIP, AIRPORT, Set.of(AIRPORT))
+    );
+  }
+
+  @Test
+  void originDestinationWithoutOrigin() {
+    var toAirport = new FareRuleSet(TEN_DOLLARS);
+    toAirport.addOriginDestination(null, AIRPORT);
+    var index = new FareRuleSetIndex(List.of(toAirport));
+
+    // A pair without an origin also matches rides starting in the destination zone
+    assertEquals(
+      List.of(toAirport),
+      index.findCandidates(FEED_ID, ROUTE, TRIP, AIRPORT, Set.of(AIRPORT))
+    );
+    assertEquals(
+      List.of(),
+      index.findCandidates(FEED_ID, ROUTE, TRIP, CITY_CENTER, Set.of(CITY_CENTER))
+    );
+  }
+}
@@ -0,0 +1,64 @@
+package org.opentripplanner.ext.geocoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.transit.service.TransitModel;
+import org.opentripplanner.transit.service.TransitService;
+
+class LuceneIndexTest {
+
+  private static final RegularStop ALEXANDERPLATZ = TransitModelForTest.stopForTest(
+    "Alexanderplatz",
+    52.5219,
+    13.4132
+  );
+
+  private final Graph graph = new Graph();
+  private final TransitService transitService = new DefaultTransitService(
+    new TransitModel(
+      StopModel.of().withRegularStop(ALEXANDERPLATZ).build(),
+      new Deduplicator()
+    )
+  );
+
+  @Test
+  void queryStopLocations() {
+    var subject = new LuceneIndex(graph, transitService);
+
+    assertEquals(
+      List.of(ALEXANDERPLATZ),
+      subject.queryStopLocations("Alexanderplatz", false).toList()
+    );
+    assertEquals(List.of(ALEXANDERPLATZ), subject.queryStopLocations("Alex", true).toList());
+  }
+
+  @Test
+  void writeAndLoad(@TempDir File dir) {
+    var source = new FileDataSource(new File(dir, "geocoder.bin"), FileType.GRAPH);
+
+    assertNull(LuceneIndex.load(source, graph, transitService));
+
+    LuceneIndex.buildAndWrite(graph, transitService, source);
+    var loaded = LuceneIndex.load(source, graph, transitService);
+
+    assertNotNull(loaded);
+    assertEquals(List.of(ALEXANDERPLATZ), loaded.queryStopLocations("Alex", true).toList());
+
+    // The index is not used with another graph
+    assertNull(LuceneIndex.load(source, new Graph(), transitService));
+  }
+}
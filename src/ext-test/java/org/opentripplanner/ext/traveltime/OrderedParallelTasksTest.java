@@ -0,0 +1,81 @@
+package org.opentripplanner.ext.traveltime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class OrderedParallelTasksTest {
+
+  @Test
+  void resultsAreInIndexOrder() {
+    var threadPool = Executors.newFixedThreadPool(4);
+    try {
+      var result = OrderedParallelTasks
+        .run(threadPool, 100, 8, i -> (i % 7) * 2 + i * 1000)
+        .toList();
+
+      assertEquals(100, result.size());
+      for (int i = 0; i < 100; ++i) {
+        assertEquals((i % 7) * 2 + i * 1000, result.get(i));
+      }
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  @Test
+  void onlyMaxPendingTasksAreSubmittedAhead() {
+    var threadPool = Executors.newFixedThreadPool(4);
+    var started = new AtomicInteger();
+    try {
+      var it = OrderedParallelTasks
+        .run(
+          threadPool,
+          100,
+          5,
+          i -> {
+            started.incrementAndGet();
+            return i;
+          }
+        )
+        .iterator();
+
+      assertEquals(0, it.next());
+      assertTrue(started.get() <= 5, "Started tasks: " + started.get());
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  @Test
+  void withoutThreadPool() {
+    assertEquals(List.of(0, 1, 4, 9), OrderedParallelTasks.run(null, 4, 2, i -> i * i).toList());
+  }
+
+  @Test
+  void exceptionsArePropagated() {
+    var threadPool = Executors.newFixedThreadPool(2);
+    try {
+      var stream = OrderedParallelTasks.run(
+        threadPool,
+        3,
+        2,
+        i -> {
+          if (i == 1) {
+            throw new IllegalStateException("Failed: " + i);
+          }
+          return i;
+        }
+      );
+      var ex = assertThrows(IllegalStateException.class, stream::toList);
+      assertEquals("Failed: 1", ex.getMessage());
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.opentripplanner.ext.traveltime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.TestServerContext;
+
+class TravelTimeBatchResourceTest {
+
+  /** The isochrones are written as (multi) polygons. */
+  private static final String POLYGON = "Polygon";
+
+  @Test
+  void ndjsonLinesInOriginOrder() throws Exception {
+    var model = ConstantsForTests.getInstance().getCachedPortlandGraph();
+    var serverContext = TestServerContext.createServerContext(model.graph(), model.transitModel());
+    var subject = new TravelTimeBatchResource(serverContext);
+
+    var body = new HashMap<String, List<String>>();
+    // The second origin is far outside the street network, and can not be linked
+    body.put("origins", List.of("45.5165,-122.6796", "10.0,10.0", "45.5230,-122.6765"));
+
+    var response = subject.getBatch(body, "2009-10-21T20:00:00Z", List.of("10m"), null, "ndjson");
+    assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+
+    var out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+    assertEquals(3, lines.length);
+    for (int i = 0; i < lines.length; i++) {
+      assertTrue(lines[i].startsWith("{\"origin\":" + i + ",\"isochrones\":"), lines[i]);
+    }
+    assertTrue(lines[0].contains(POLYGON), lines[0]);
+    assertFalse(lines[1].contains(POLYGON), lines[1]);
+    assertTrue(lines[2].contains(POLYGON), lines[2]);
+  }
+
+  @Test
+  void missingOrigins() {
+    var model = ConstantsForTests.getInstance().getCachedPortlandGraph();
+    var serverContext = TestServerContext.createServerContext(model.graph(), model.transitModel());
+
+    var response = new TravelTimeBatchResource(serverContext)
+      .getBatch(new HashMap<>(), null, List.of("10m"), null, "ndjson");
+
+    assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+  }
+}
@@ -0,0 +1,62 @@
+package org.opentripplanner.ext.traveltime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+class TravelTimeRasterBuilderTest {
+
+  private static final Coordinate CENTER = new Coordinate(10.75, 59.91);
+
+  private final TravelTimeRequest request = new TravelTimeRequest(
+    List.of(Duration.ofMinutes(30)),
+    Duration.ofMinutes(45)
+  );
+
+  @Test
+  void sampleAndClose() {
+    var subject = new TravelTimeRasterBuilder(CENTER, new Envelope(CENTER), request);
+    subject.addSample(CENTER, 100);
+    var raster = subject.build();
+
+    // The sample is added to the corners of its cell, with the time to walk to the corner
+    assertEquals(100, raster.getSeconds(0, 0));
+    assertEquals(300, raster.getSeconds(1, 0), 1);
+    assertEquals(383, raster.getSeconds(1, 1), 1);
+
+    // Closing cells are added until the off-road distance is too long
+    assertEquals(300, raster.getSeconds(-1, 0));
+    assertEquals(500, raster.getSeconds(-2, 0));
+    assertEquals(TravelTimeRaster.NO_DATA, raster.getSeconds(-3, 0));
+
+    // The raster is cropped to the reached cells
+    assertEquals(-2, raster.getXMin());
+    assertEquals(2, raster.getXMax());
+  }
+
+  @Test
+  void toSampleGrid() {
+    var subject = new TravelTimeRasterBuilder(CENTER, new Envelope(CENTER), request);
+    subject.addSample(CENTER, 100);
+    var raster = subject.build();
+
+    var sampleGrid = raster.toSampleGrid();
+
+    int reached = 0;
+    for (int x = raster.getXMin(); x <= raster.getXMax(); ++x) {
+      for (int y = raster.getYMin(); y <= raster.getYMax(); ++y) {
+        if (raster.getSeconds(x, y) != TravelTimeRaster.NO_DATA) {
+          ++reached;
+        }
+      }
+    }
+    assertEquals(reached, sampleGrid.size());
+    for (var point : sampleGrid) {
+      assertEquals(raster.getSeconds(point.getX(), point.getY()), point.getZ().wTime);
+    }
+  }
+}
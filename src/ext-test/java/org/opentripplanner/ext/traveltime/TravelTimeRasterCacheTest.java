@@ -0,0 +1,115 @@
+package org.opentripplanner.ext.traveltime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.framework.concurrent.RequestCancelledException;
+import org.opentripplanner.routing.graph.Graph;
+
+class TravelTimeRasterCacheTest {
+
+  private static final TravelTimeRasterCache.Key KEY = new TravelTimeRasterCache.Key(
+    "60,10",
+    Instant.parse("2022-10-01T12:00:00Z"),
+    Duration.ofMinutes(30),
+    "WALK,TRANSIT",
+    null
+  );
+
+  private final TravelTimeRasterCache subject = new TravelTimeRasterCache();
+
+  @Test
+  void concurrentRequestsShareOneSearch() throws Exception {
+    var searchCount = new AtomicInteger();
+    var searchStarted = new CountDownLatch(1);
+    var releaseSearch = new CountDownLatch(1);
+    ExecutorService threadPool = Executors.newFixedThreadPool(4);
+
+    try {
+      var results = new ArrayList<Future<TravelTimeRaster>>();
+      for (int i = 0; i < 4; i++) {
+        results.add(
+          threadPool.submit(() ->
+            subject.get(
+              KEY,
+              () -> {
+                searchCount.incrementAndGet();
+                searchStarted.countDown();
+                await(releaseSearch);
+                return raster();
+              }
+            )
+          )
+        );
+      }
+      searchStarted.await();
+      releaseSearch.countDown();
+
+      var raster = results.get(0).get();
+      for (var result : results) {
+        assertSame(raster, result.get());
+      }
+      assertEquals(1, searchCount.get());
+    } finally {
+      threadPool.shutdownNow();
+    }
+  }
+
+  @Test
+  void failedSearchIsNotCached() {
+    assertThrows(
+      RequestCancelledException.class,
+      () ->
+        subject.get(
+          KEY,
+          () -> {
+            throw new RequestCancelledException("Timeout");
+          }
+        )
+    );
+
+    var raster = raster();
+    assertSame(raster, subject.get(KEY, () -> raster));
+  }
+
+  @Test
+  void cacheIsOwnedByTheGraph() {
+    var graph = new Graph();
+    var cache = TravelTimeRasterCache.forGraph(graph);
+    assertSame(cache, graph.getTravelTimeRasterCache());
+    assertSame(cache, TravelTimeRasterCache.forGraph(graph));
+  }
+
+  private static TravelTimeRaster raster() {
+    return new TravelTimeRaster(
+      new Coordinate(10, 60),
+      0.001,
+      0.001,
+      0,
+      0,
+      1,
+      1,
+      new int[] { 60 },
+      new float[] { 0f }
+    );
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.opentripplanner.ext.traveltime.egress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+
+class StopEgressTableTest {
+
+  private static final int NOT_REACHED = Integer.MAX_VALUE;
+  private static final double WALK_SPEED = 1.0;
+  private static final RoutingPreferences PREFERENCES = new RoutingPreferences()
+    .copyOf()
+    .withWalk(it -> it.withSpeed(WALK_SPEED))
+    .build();
+
+  private final StopEgressTable subject = createTable();
+
+  private static StopEgressTable createTable() {
+    var builder = new StopEgressTable.Builder(PREFERENCES, 600, 5);
+    builder.addStop(1, new int[] { 0, 2, 3 }, new int[] { 60, 0, 120 });
+    builder.addStop(3, new int[] { 3, 4 }, new int[] { 0, 900 });
+    return builder.build();
+  }
+
+  @Test
+  void vertexIndexes() {
+    assertEquals(5, subject.size());
+    assertArrayEquals(new int[0], subject.vertexIndexes(0));
+    assertArrayEquals(new int[] { 0, 2, 3 }, subject.vertexIndexes(1));
+    assertArrayEquals(new int[0], subject.vertexIndexes(2));
+    assertArrayEquals(new int[] { 3, 4 }, subject.vertexIndexes(3));
+    assertArrayEquals(new int[0], subject.vertexIndexes(4));
+    assertArrayEquals(new int[0], subject.vertexIndexes(7));
+  }
+
+  @Test
+  void propagateKeepsTheEarliestTime() {
+    int[] seconds = notReached(5);
+
+    subject.propagate(1, 1000, WALK_SPEED, 2000, seconds);
+    subject.propagate(3, 1060, WALK_SPEED, 2000, seconds);
+
+    // The walk time to vertex 4 is capped at the max walk time of the table
+    assertArrayEquals(new int[] { 1060, NOT_REACHED, 1000, 1060, 1660 }, seconds);
+  }
+
+  @Test
+  void propagateWithMaxSeconds() {
+    int[] seconds = notReached(5);
+
+    subject.propagate(1, 1000, WALK_SPEED, 1100, seconds);
+    subject.propagate(3, 1200, WALK_SPEED, 1100, seconds);
+
+    assertArrayEquals(new int[] { 1060, NOT_REACHED, 1000, NOT_REACHED, NOT_REACHED }, seconds);
+  }
+
+  @Test
+  void propagateScalesTheWalkTimesByWalkSpeed() {
+    int[] seconds = notReached(5);
+
+    subject.propagate(1, 1000, 2 * WALK_SPEED, 2000, seconds);
+
+    assertArrayEquals(new int[] { 1030, NOT_REACHED, 1000, 1060, NOT_REACHED }, seconds);
+  }
+
+  @Test
+  void isValidFor() {
+    var request = new RouteRequest();
+    assertTrue(subject.isValidFor(request));
+
+    // The walk times are scaled to the walk speed of the request
+    request.withPreferences(p -> p.withWalk(it -> it.withSpeed(2 * WALK_SPEED)));
+    assertTrue(subject.isValidFor(request));
+
+    request.withPreferences(p -> p.withWalk(it -> it.withStairsTimeFactor(5.0)));
+    assertFalse(subject.isValidFor(request));
+
+    request = new RouteRequest();
+    request.setWheelchair(true);
+    assertFalse(subject.isValidFor(request));
+  }
+
+  @Test
+  void stopsMustBeAddedInOrder() {
+    var builder = new StopEgressTable.Builder(PREFERENCES, 600, 5);
+    builder.addStop(2, new int[] { 1 }, new int[] { 10 });
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> builder.addStop(1, new int[] { 1 }, new int[] { 10 })
+    );
+  }
+
+  private static int[] notReached(int size) {
+    int[] seconds = new int[size];
+    Arrays.fill(seconds, NOT_REACHED);
+    return seconds;
+  }
+}
@@ -0,0 +1,64 @@
+package org.opentripplanner.ext.traveltime.matrix;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class TravelTimeMatrixWriterTest {
+
+  private static final int N = TravelTimeMatrixRow.NOT_REACHED;
+
+  private final TravelTimeMatrixRow row0 = new TravelTimeMatrixRow(
+    0,
+    new int[] { 600, N },
+    new int[] { 0, N }
+  );
+  private final TravelTimeMatrixRow row1 = new TravelTimeMatrixRow(
+    1,
+    new int[] { 1200, 900 },
+    new int[] { 2, 1 }
+  );
+
+  @Test
+  void writeCsv() throws IOException {
+    var out = new ByteArrayOutputStream();
+
+    TravelTimeMatrixWriter.writeCsv(Stream.of(row0, row1), out);
+
+    assertEquals(
+      """
+      origin,destination,duration,transfers
+      0,0,600,0
+      1,0,1200,2
+      1,1,900,1
+      """,
+      out.toString(UTF_8)
+    );
+  }
+
+  @Test
+  void writeBinary() throws IOException {
+    var out = new ByteArrayOutputStream();
+
+    TravelTimeMatrixWriter.writeBinary(Stream.of(row0, row1), 2, 2, out);
+
+    var in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(2, in.readInt());
+    assertEquals(2, in.readInt());
+    assertEquals(600, in.readInt());
+    assertEquals(0, in.readShort());
+    assertEquals(N, in.readInt());
+    assertEquals(N, in.readShort());
+    assertEquals(1200, in.readInt());
+    assertEquals(2, in.readShort());
+    assertEquals(900, in.readInt());
+    assertEquals(1, in.readShort());
+    assertEquals(0, in.available());
+  }
+}
@@ -0,0 +1,94 @@
+package org.opentripplanner.ext.vectortiles;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.wdtinc.mapbox_vector_tile.VectorTile;
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.ext.vectortiles.VectorTileArchive.ArchivedLayer;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerType;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.config.routerconfig.VectorTileConfig;
+
+class VectorTileArchiveTest {
+
+  private static final LayerParameters STOPS = layer("stops", 0.25);
+  private static final byte[] TILE = { 1, 2, 3 };
+
+  private final Graph graph = new Graph();
+  private final VectorTileArchive subject = new VectorTileArchive(
+    graph.buildTime,
+    List.of(
+      new ArchivedLayer(STOPS, 10, 12, "en", Map.of(VectorTileArchive.tileKey(5, 7, 11), TILE))
+    )
+  );
+
+  @Test
+  void findTile() throws Exception {
+    assertArrayEquals(TILE, subject.findTile(STOPS, Locale.ENGLISH, 5, 7, 11));
+
+    // An empty layer is returned for tiles without features
+    var empty = VectorTile.Tile.parseFrom(subject.findTile(STOPS, Locale.ENGLISH, 5, 8, 11));
+    assertEquals(1, empty.getLayersCount());
+    assertEquals("stops", empty.getLayers(0).getName());
+    assertEquals(0, empty.getLayers(0).getFeaturesCount());
+  }
+
+  @Test
+  void tileNotInArchive() {
+    // Zoom level outside the pre-rendered range
+    assertNull(subject.findTile(STOPS, Locale.ENGLISH, 5, 7, 13));
+    // Language not pre-rendered
+    assertNull(subject.findTile(STOPS, Locale.GERMAN, 5, 7, 11));
+    // Layer rendered with other parameters
+    assertNull(subject.findTile(layer("stops", 0.5), Locale.ENGLISH, 5, 7, 11));
+    assertNull(subject.findTile(layer("otherStops", 0.25), Locale.ENGLISH, 5, 7, 11));
+  }
+
+  @Test
+  void writeAndLoad(@TempDir File dir) {
+    var source = new FileDataSource(new File(dir, "vectorTiles.bin"), FileType.GRAPH);
+
+    assertNull(VectorTileArchive.load(source, graph));
+
+    subject.write(source);
+    var loaded = VectorTileArchive.load(source, graph);
+
+    assertNotNull(loaded);
+    assertEquals(1, loaded.size());
+    assertArrayEquals(TILE, loaded.findTile(STOPS, Locale.ENGLISH, 5, 7, 11));
+
+    // The archive is not used with another graph
+    assertNull(VectorTileArchive.load(source, new Graph()));
+  }
+
+  @Test
+  void tileKey() {
+    long key = VectorTileArchive.tileKey(1_000_000, 123_456, 20);
+    assertEquals(1_000_000, VectorTileArchive.tileX(key));
+    assertEquals(123_456, VectorTileArchive.tileY(key));
+    assertEquals(20, VectorTileArchive.tileZ(key));
+  }
+
+  private static LayerParameters layer(String name, double expansionFactor) {
+    return new VectorTileConfig.Layer(
+      name,
+      LayerType.Stop,
+      "Digitransit",
+      20,
+      9,
+      600,
+      expansionFactor
+    );
+  }
+}
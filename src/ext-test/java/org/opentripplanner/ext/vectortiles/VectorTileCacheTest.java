@@ -0,0 +1,84 @@
+package org.opentripplanner.ext.vectortiles;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ext.vectortiles.VectorTileCache.TileKey;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerType;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.config.routerconfig.VectorTileConfig;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+
+class VectorTileCacheTest {
+
+  private static final LayerParameters STOPS = layer("stops", LayerType.Stop);
+  private static final LayerParameters RENTAL = layer("rental", LayerType.VehicleRental);
+  private static final LayerParameters PARKING = layer("parking", LayerType.VehicleParking);
+
+  private static final TileKey KEY = new TileKey("layers", 5, 7, 11, Locale.ENGLISH);
+
+  private final Graph graph = new Graph();
+  private final VectorTileCache subject = new VectorTileCache();
+  private final AtomicInteger renderCount = new AtomicInteger();
+  private final Supplier<byte[]> renderer = () ->
+    new byte[] { (byte) renderCount.incrementAndGet() };
+
+  @Test
+  void cachedTileIsNotRenderedAgain() {
+    var tile = subject.get(graph, KEY, List.of(STOPS), renderer);
+    assertArrayEquals(new byte[] { 1 }, tile.bytes());
+    assertEquals(600, tile.cacheMaxSeconds());
+
+    assertSame(tile, subject.get(graph, KEY, List.of(STOPS), renderer));
+    assertEquals(1, renderCount.get());
+
+    // Another tile is rendered
+    subject.get(graph, new TileKey("layers", 5, 8, 11, Locale.ENGLISH), List.of(STOPS), renderer);
+    assertEquals(2, renderCount.get());
+  }
+
+  @Test
+  void changedVehicleRentalIsRenderedAgain() {
+    var layers = List.of(STOPS, RENTAL);
+    var tile = subject.get(graph, KEY, layers, renderer);
+
+    // A parking update does not change the tile without parking
+    graph.getVehicleParkingService().updateVehicleParking(List.of(), List.of());
+    assertSame(tile, subject.get(graph, KEY, layers, renderer));
+
+    graph.getVehicleRentalService().removeVehicleRentalStation(TransitModelForTest.id("1"));
+    var updated = subject.get(graph, KEY, layers, renderer);
+    assertArrayEquals(new byte[] { 2 }, updated.bytes());
+    assertSame(updated, subject.get(graph, KEY, layers, renderer));
+  }
+
+  @Test
+  void changedVehicleParkingIsRenderedAgain() {
+    var layers = List.of(PARKING);
+    subject.get(graph, KEY, layers, renderer);
+
+    graph.getVehicleParkingService().updateVehicleParking(List.of(), List.of());
+    var updated = subject.get(graph, KEY, layers, renderer);
+
+    assertArrayEquals(new byte[] { 2 }, updated.bytes());
+    assertEquals(2, renderCount.get());
+  }
+
+  @Test
+  void cacheIsOwnedByTheGraph() {
+    var cache = VectorTileCache.forGraph(graph);
+    assertSame(cache, graph.getVectorTileCache());
+    assertSame(cache, VectorTileCache.forGraph(graph));
+  }
+
+  private static LayerParameters layer(String name, LayerType type) {
+    return new VectorTileConfig.Layer(name, type, "Digitransit", 20, 9, 600, 0.25);
+  }
+}
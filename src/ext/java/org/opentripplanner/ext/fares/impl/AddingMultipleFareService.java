@@ -1,6 +1,8 @@
 package org.opentripplanner.ext.fares.impl;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.core.FareType;
@@ -23,54 +25,72 @@ public class AddingMultipleFareService implements FareService, Serializable {
     ItineraryFares fare = null;
 
     for (FareService subService : subServices) {
-      ItineraryFares subFare = subService.getCost(itinerary);
-      if (subFare == null) {
-        // No fare, next one please
+      fare = add(fare, subService.getCost(itinerary));
+    }
+
+    // Can be null here if no sub-service has returned fare
+    return fare;
+  }
+
+  @Override
+  public List<ItineraryFares> getCosts(List<Itinerary> itineraries) {
+    List<ItineraryFares> fares = new ArrayList<>(Collections.nCopies(itineraries.size(), null));
+
+    for (FareService subService : subServices) {
+      List<ItineraryFares> subFares = subService.getCosts(itineraries);
+      for (int i = 0; i < fares.size(); ++i) {
+        fares.set(i, add(fares.get(i), subFares.get(i)));
+      }
+    }
+    return fares;
+  }
+
+  /**
+   * Add the fare of a sub-service to the fare of the previous sub-services.
+   */
+  private static ItineraryFares add(ItineraryFares fare, ItineraryFares subFare) {
+    if (subFare == null) {
+      // No fare, next one please
+      return fare;
+    }
+    if (fare == null) {
+      // Pick first defined fare
+      return new ItineraryFares(subFare);
+    }
+    // Merge subFare with existing fare
+    // Must use a temporary as we need to keep fare clean during the loop on FareType
+    ItineraryFares newFare = new ItineraryFares(fare);
+    for (FareType fareType : FareType.values()) {
+      Money cost = fare.getFare(fareType);
+      Money subCost = subFare.getFare(fareType);
+      if (cost == null && subCost == null) {
         continue;
       }
-      if (fare == null) {
-        // Pick first defined fare
-        fare = new ItineraryFares(subFare);
-      } else {
-        // Merge subFare with existing fare
-        // Must use a temporary as we need to keep fare clean during the loop on FareType
-        ItineraryFares newFare = new ItineraryFares(fare);
-        for (FareType fareType : FareType.values()) {
-          Money cost = fare.getFare(fareType);
-          Money subCost = subFare.getFare(fareType);
-          if (cost == null && subCost == null) {
-            continue;
-          }
-          if (cost != null && subCost == null) {
-            /*
-             * If for a given fare type we have partial data, we try to pickup the
-             * default "regular" cost to fill-in the missing information. For example,
-             * adding a bike fare which define only a "regular" cost, with some transit
-             * fare defining both "regular" and "student" costs. In that case, we
-             * probably want the "regular" bike fare to be added to the "student"
-             * transit fare too. Here we assume "regular" as a sane default value.
-             */
-            subCost = subFare.getFare(FareType.regular);
-          } else if (cost == null && subCost != null) {
-            /* Same, but the other way around. */
-            cost = fare.getFare(FareType.regular);
-          }
+      if (cost != null && subCost == null) {
+        /*
+         * If for a given fare type we have partial data, we try to pickup the
+         * default "regular" cost to fill-in the missing information. For example,
+         * adding a bike fare which define only a "regular" cost, with some transit
+         * fare defining both "regular" and "student" costs. In that case, we
+         * probably want the "regular" bike fare to be added to the "student"
+         * transit fare too. Here we assume "regular" as a sane default value.
+         */
+        subCost = subFare.getFare(FareType.regular);
+      } else if (cost == null && subCost != null) {
+        /* Same, but the other way around. */
+        cost = fare.getFare(FareType.regular);
+      }
 
-          if (cost != null && subCost != null) {
-            // Add sub cost to cost
-            newFare.addFare(fareType, new Money(cost.currency(), cost.cents() + subCost.cents()));
-          } else if (cost == null && subCost != null) {
-            // Add new cost
-            // Note: this should not happen often: only if a fare
-            // did not compute a "regular" fare.
-            newFare.addFare(fareType, subCost);
-          }
-        }
-        fare = newFare;
+      if (cost != null && subCost != null) {
+        // Add sub cost to cost
+        newFare.addFare(fareType, new Money(cost.currency(), cost.cents() + subCost.cents()));
+      } else if (cost == null && subCost != null) {
+        // Add new cost
+        // Note: this should not happen often: only if a fare
+        // did not compute a "regular" fare.
+        newFare.addFare(fareType, subCost);
       }
     }
-
-    // Can be null here if no sub-service has returned fare
-    return fare;
+    return newFare;
   }
 }
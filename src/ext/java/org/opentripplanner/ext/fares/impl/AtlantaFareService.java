@@ -355,7 +355,8 @@ public class AtlantaFareService extends DefaultFareService {
     Currency currency,
     FareType fareType,
     List<Leg> rides,
-    Collection<FareRuleSet> fareRules
+    Collection<FareRuleSet> fareRules,
+    FareCache cache
   ) {
     List<ATLTransfer> transfers = new ArrayList<>();
     for (var ride : rides) {
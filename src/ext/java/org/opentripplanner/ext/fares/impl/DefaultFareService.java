@@ -82,12 +82,18 @@ public class DefaultFareService implements FareService {
   /** For each fare type (regular, student, etc...) the collection of rules that apply. */
   protected Map<FareType, Collection<FareRuleSet>> fareRulesPerType;
 
+  /** For each fare type, the index of the rules in {@link #fareRulesPerType}. */
+  private final Map<FareType, FareRuleSetIndex> fareRuleIndexPerType;
+
   public DefaultFareService() {
     fareRulesPerType = new HashMap<>();
+    fareRuleIndexPerType = new HashMap<>();
   }
 
   public void addFareRules(FareType fareType, Collection<FareRuleSet> fareRules) {
-    fareRulesPerType.put(fareType, new ArrayList<>(fareRules));
+    var rules = new ArrayList<>(fareRules);
+    fareRulesPerType.put(fareType, rules);
+    fareRuleIndexPerType.put(fareType, new FareRuleSetIndex(rules));
   }
 
   public Map<FareType, Collection<FareRuleSet>> getFareRulesPerType() {
@@ -96,6 +102,23 @@ public class DefaultFareService implements FareService {
 
   @Override
   public ItineraryFares getCost(Itinerary itinerary) {
+    return getCost(itinerary, new FareCache());
+  }
+
+  /**
+   * The fares of the ride sequences shared by several itineraries are only calculated once.
+   */
+  @Override
+  public List<ItineraryFares> getCosts(List<Itinerary> itineraries) {
+    var cache = new FareCache();
+    var fares = new ArrayList<ItineraryFares>(itineraries.size());
+    for (Itinerary itinerary : itineraries) {
+      fares.add(getCost(itinerary, cache));
+    }
+    return fares;
+  }
+
+  private ItineraryFares getCost(Itinerary itinerary, FareCache cache) {
     var fareLegs = itinerary
       .getLegs()
       .stream()
@@ -121,7 +144,7 @@ public class DefaultFareService implements FareService {
         currency =
           Currency.getInstance(fareRules.iterator().next().getFareAttribute().getCurrencyType());
       }
-      hasFare = populateFare(fare, currency, fareType, fareLegs, fareRules);
+      hasFare = populateFare(fare, currency, fareType, fareLegs, fareRules, cache);
     }
     return hasFare ? fare : null;
   }
@@ -140,10 +163,24 @@ public class DefaultFareService implements FareService {
     List<Leg> rides,
     Collection<FareRuleSet> fareRules
   ) {
-    FareSearch r = performSearch(fareType, rides, fareRules);
+    FareSearch r = performSearch(fareType, rides, fareRules, new FareCache());
     return r.resultTable[0][rides.size() - 1];
   }
 
+  /**
+   * Builds the Fare object for the given currency, fareType and fareRules, without sharing the
+   * fares of the ride sequences with other itineraries.
+   */
+  protected final boolean populateFare(
+    ItineraryFares fare,
+    Currency currency,
+    FareType fareType,
+    List<Leg> legs,
+    Collection<FareRuleSet> fareRules
+  ) {
+    return populateFare(fare, currency, fareType, legs, fareRules, new FareCache());
+  }
+
   /**
    * Builds the Fare object for the given currency, fareType and fareRules.
    * <p>
@@ -159,15 +196,18 @@ public class DefaultFareService implements FareService {
    * <p>
    * If our only rule were A-B with a fare of 10, we would have no lowest fare, but we will still
    * have one fare detail with fare 10 for the route A-B. B-C will not just not be listed at all.
+   * <p>
+   * The fares of the ride sequences are looked up in, and added to, the cache of the request.
    */
   protected boolean populateFare(
     ItineraryFares fare,
     Currency currency,
     FareType fareType,
     List<Leg> legs,
-    Collection<FareRuleSet> fareRules
+    Collection<FareRuleSet> fareRules,
+    FareCache cache
   ) {
-    FareSearch r = performSearch(fareType, legs, fareRules);
+    FareSearch r = performSearch(fareType, legs, fareRules, cache);
 
     List<FareComponent> details = new ArrayList<>();
     int count = 0;
@@ -250,7 +290,8 @@ public class DefaultFareService implements FareService {
     Duration journeyTime = Duration.between(startTime, lastRideEndTime);
 
     // find the best fare that matches this set of rides
-    for (FareRuleSet ruleSet : fareRules) {
+    var candidates = findFareRules(fareType, fareRules, feedId, firstRide, startZone, zones);
+    for (FareRuleSet ruleSet : candidates) {
       FareAttribute attribute = ruleSet.getFareAttribute();
       // fares also don't really have an agency id, they will have the per-feed default id
       // check only if the fare is not mapped to an agency
@@ -289,6 +330,31 @@ public class DefaultFareService implements FareService {
     return new FareAndId(bestFare, bestAttribute == null ? null : bestAttribute.getId());
   }
 
+  /**
+   * Find the rule sets which may match a ride sequence. The index of the fare type is used if the
+   * given rules are the rules of the fare type, otherwise all the given rules are returned.
+   */
+  private Collection<FareRuleSet> findFareRules(
+    FareType fareType,
+    Collection<FareRuleSet> fareRules,
+    String feedId,
+    Leg firstRide,
+    String startZone,
+    Set<String> zones
+  ) {
+    FareRuleSetIndex index = fareRuleIndexPerType.get(fareType);
+    if (index == null || index.fareRules() != fareRules) {
+      return fareRules;
+    }
+    return index.findCandidates(
+      feedId,
+      firstRide.getRoute().getId(),
+      firstRide.getTrip().getId(),
+      startZone,
+      zones
+    );
+  }
+
   protected float getFarePrice(FareAttribute fare, FareType type) {
     switch (type) {
       case senior:
@@ -352,9 +418,11 @@ public class DefaultFareService implements FareService {
   private FareSearch performSearch(
     FareType fareType,
     List<Leg> rides,
-    Collection<FareRuleSet> fareRules
+    Collection<FareRuleSet> fareRules,
+    FareCache cache
   ) {
     FareSearch r = new FareSearch(rides.size());
+    FareCache.LegKey[] legKeys = FareCache.legKeys(rides);
 
     // Dynamic algorithm to calculate fare cost.
     // This is a modified Floyd-Warshall algorithm, a key thing to remember is that
@@ -363,7 +431,15 @@ public class DefaultFareService implements FareService {
     for (int i = 0; i < rides.size(); i++) {
       // each diagonal
       for (int j = 0; j < rides.size() - i; j++) {
-        FareAndId best = getBestFareAndId(fareType, rides.subList(j, j + i + 1), fareRules);
+        int from = j;
+        int to = j + i + 1;
+        FareAndId best = cache.get(
+          fareType,
+          legKeys,
+          from,
+          to,
+          () -> getBestFareAndId(fareType, rides.subList(from, to), fareRules)
+        );
         float cost = best.fare;
         if (cost < 0) {
           LOG.error("negative cost for a ride sequence");
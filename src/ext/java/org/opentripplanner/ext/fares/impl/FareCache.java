@@ -0,0 +1,69 @@
+package org.opentripplanner.ext.fares.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.opentripplanner.model.plan.Leg;
+import org.opentripplanner.routing.core.FareType;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+/**
+ * Cache the best fare of ride sequences while the fares of the itineraries of one routing request
+ * are calculated. Most itineraries of a response share some of their rides, so the same ride
+ * sequences are priced many times.
+ * <p>
+ * A ride sequence is identified by the trip, the boarding and alighting stops and the times of each
+ * ride. The fare rules of a fare type must not change while the cache is used. The cache is not
+ * thread-safe, create one for each request.
+ */
+public final class FareCache {
+
+  private final Map<Key, FareAndId> fares = new HashMap<>();
+
+  /**
+   * The key of each leg, in the same order as the legs. The key of a ride sequence is made from the
+   * keys of its legs.
+   */
+  static LegKey[] legKeys(List<Leg> legs) {
+    LegKey[] keys = new LegKey[legs.size()];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = LegKey.of(legs.get(i));
+    }
+    return keys;
+  }
+
+  /**
+   * Return the cached fare of the legs {@code [from, to)}, or calculate it if it is not cached.
+   */
+  FareAndId get(FareType fareType, LegKey[] legKeys, int from, int to, Supplier<FareAndId> fare) {
+    var key = new Key(fareType, List.of(Arrays.copyOfRange(legKeys, from, to)));
+    FareAndId result = fares.get(key);
+    if (result == null) {
+      result = fare.get();
+      fares.put(key, result);
+    }
+    return result;
+  }
+
+  private record Key(FareType fareType, List<LegKey> legs) {}
+
+  record LegKey(
+    FeedScopedId tripId,
+    FeedScopedId fromStopId,
+    FeedScopedId toStopId,
+    long startTime,
+    long endTime
+  ) {
+    static LegKey of(Leg leg) {
+      return new LegKey(
+        leg.getTrip().getId(),
+        leg.getFrom().stop.getId(),
+        leg.getTo().stop.getId(),
+        leg.getStartTime().toEpochSecond(),
+        leg.getEndTime().toEpochSecond()
+      );
+    }
+  }
+}
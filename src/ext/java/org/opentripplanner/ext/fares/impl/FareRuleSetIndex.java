@@ -0,0 +1,186 @@
+package org.opentripplanner.ext.fares.impl;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.opentripplanner.common.model.P2;
+import org.opentripplanner.ext.fares.model.FareRuleSet;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+/**
+ * Index the fare rule sets of one fare type, so the rule sets which may match a ride sequence are
+ * found without checking every rule set.
+ * <p>
+ * Each rule set is indexed by its most selective restriction: its routes, its trips, the origin
+ * zones of its origin/destination pairs, or the zones it contains. The candidates returned always
+ * include every rule set which {@link FareRuleSet#matches} the ride sequence, the caller still
+ * checks each candidate. The candidates are returned in the same order as the rule sets, so the
+ * first of several equally cheap fares is still the one chosen.
+ */
+class FareRuleSetIndex implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private static final int[] EMPTY = new int[0];
+
+  private final Collection<FareRuleSet> fareRules;
+  private final FareRuleSet[] fareRulesInOrder;
+  private final Map<String, FeedIndex> indexByFeedId = new HashMap<>();
+
+  FareRuleSetIndex(Collection<FareRuleSet> fareRules) {
+    this.fareRules = fareRules;
+    this.fareRulesInOrder = fareRules.toArray(FareRuleSet[]::new);
+
+    Map<String, FeedIndexBuilder> builders = new HashMap<>();
+    for (int i = 0; i < fareRulesInOrder.length; ++i) {
+      FareRuleSet ruleSet = fareRulesInOrder[i];
+      String feedId = ruleSet.getFareAttribute().getId().getFeedId();
+      builders.computeIfAbsent(feedId, k -> new FeedIndexBuilder()).add(i, ruleSet);
+    }
+    builders.forEach((feedId, builder) -> indexByFeedId.put(feedId, builder.build()));
+  }
+
+  /**
+   * The indexed rule sets. The index is only used for this collection, not for a copy of it.
+   */
+  Collection<FareRuleSet> fareRules() {
+    return fareRules;
+  }
+
+  /**
+   * Find the rule sets of the feed which may match a ride sequence.
+   *
+   * @param firstRoute the route of the first ride
+   * @param firstTrip  the trip of the first ride
+   * @param startZone  the zone the first ride starts in
+   * @param zones      the zones visited by all rides
+   */
+  List<FareRuleSet> findCandidates(
+    String feedId,
+    FeedScopedId firstRoute,
+    FeedScopedId firstTrip,
+    String startZone,
+    Set<String> zones
+  ) {
+    FeedIndex index = indexByFeedId.get(feedId);
+    if (index == null) {
+      return List.of();
+    }
+
+    int[][] buckets = {
+      index.byRoute.getOrDefault(firstRoute, EMPTY),
+      index.byTrip.getOrDefault(firstTrip, EMPTY),
+      index.byOriginZone.getOrDefault(startZone, EMPTY),
+      index.byContainedZones.getOrDefault(zones, EMPTY),
+      index.unrestricted,
+    };
+
+    int size = 0;
+    for (int[] bucket : buckets) {
+      size += bucket.length;
+    }
+    int[] positions = new int[size];
+    int offset = 0;
+    for (int[] bucket : buckets) {
+      System.arraycopy(bucket, 0, positions, offset, bucket.length);
+      offset += bucket.length;
+    }
+    // A rule set is in at most one of the buckets, sorting restores the order of the rule sets
+    Arrays.sort(positions);
+
+    List<FareRuleSet> candidates = new ArrayList<>(size);
+    for (int position : positions) {
+      candidates.add(fareRulesInOrder[position]);
+    }
+    return candidates;
+  }
+
+  /**
+   * The positions of the rule sets of one feed, by the value of the restriction they are indexed
+   * by.
+   */
+  private record FeedIndex(
+    Map<FeedScopedId, int[]> byRoute,
+    Map<FeedScopedId, int[]> byTrip,
+    Map<String, int[]> byOriginZone,
+    Map<Set<String>, int[]> byContainedZones,
+    int[] unrestricted
+  )
+    implements Serializable {}
+
+  private static class FeedIndexBuilder {
+
+    private final Map<FeedScopedId, List<Integer>> byRoute = new HashMap<>();
+    private final Map<FeedScopedId, List<Integer>> byTrip = new HashMap<>();
+    private final Map<String, List<Integer>> byOriginZone = new HashMap<>();
+    private final Map<Set<String>, List<Integer>> byContainedZones = new HashMap<>();
+    private final List<Integer> unrestricted = new ArrayList<>();
+
+    void add(int position, FareRuleSet ruleSet) {
+      if (!ruleSet.getRoutes().isEmpty()) {
+        // All routes ridden must be in the rule set, so the first one is
+        for (FeedScopedId route : ruleSet.getRoutes()) {
+          byRoute.computeIfAbsent(route, k -> new ArrayList<>()).add(position);
+        }
+      } else if (!ruleSet.getTrips().isEmpty()) {
+        for (FeedScopedId trip : ruleSet.getTrips()) {
+          byTrip.computeIfAbsent(trip, k -> new ArrayList<>()).add(position);
+        }
+      } else if (!ruleSet.getOriginDestinations().isEmpty()) {
+        for (String zone : originZones(ruleSet)) {
+          byOriginZone.computeIfAbsent(zone, k -> new ArrayList<>()).add(position);
+        }
+      } else if (!ruleSet.getContains().isEmpty()) {
+        byContainedZones
+          .computeIfAbsent(new HashSet<>(ruleSet.getContains()), k -> new ArrayList<>())
+          .add(position);
+      } else {
+        unrestricted.add(position);
+      }
+    }
+
+    FeedIndex build() {
+      return new FeedIndex(
+        toArrays(byRoute),
+        toArrays(byTrip),
+        toArrays(byOriginZone),
+        toArrays(byContainedZones),
+        toArray(unrestricted)
+      );
+    }
+
+    /**
+     * The start zones the origin/destination pairs of the rule set match, see
+     * {@link FareRuleSet#matches}. A pair without an origin also matches rides starting in its
+     * destination zone.
+     */
+    private static Set<String> originZones(FareRuleSet ruleSet) {
+      Set<String> zones = new HashSet<>();
+      for (P2<String> od : ruleSet.getOriginDestinations()) {
+        zones.add(od.first);
+        if (od.first == null) {
+          zones.add(od.second);
+        }
+      }
+      return zones;
+    }
+
+    private static <K> Map<K, int[]> toArrays(Map<K, List<Integer>> positions) {
+      Map<K, int[]> result = new HashMap<>();
+      positions.forEach((key, value) -> result.put(key, toArray(value)));
+      return result;
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+      return positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+}
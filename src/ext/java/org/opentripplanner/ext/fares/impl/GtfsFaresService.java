@@ -1,5 +1,7 @@
 package org.opentripplanner.ext.fares.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.core.ItineraryFares;
@@ -9,7 +11,21 @@ public record GtfsFaresService(DefaultFareService faresV1, GtfsFaresV2Service fa
   implements FareService {
   @Override
   public ItineraryFares getCost(Itinerary itinerary) {
-    var fare = Objects.requireNonNullElse(faresV1.getCost(itinerary), ItineraryFares.empty());
+    return addProducts(itinerary, faresV1.getCost(itinerary));
+  }
+
+  @Override
+  public List<ItineraryFares> getCosts(List<Itinerary> itineraries) {
+    var faresV1Costs = faresV1.getCosts(itineraries);
+    var result = new ArrayList<ItineraryFares>(itineraries.size());
+    for (int i = 0; i < itineraries.size(); ++i) {
+      result.add(addProducts(itineraries.get(i), faresV1Costs.get(i)));
+    }
+    return result;
+  }
+
+  private ItineraryFares addProducts(Itinerary itinerary, ItineraryFares faresV1Cost) {
+    var fare = Objects.requireNonNullElse(faresV1Cost, ItineraryFares.empty());
     var products = faresV2.getProducts(itinerary);
     fare.addItineraryProducts(products.itineraryProducts());
     if (products.itineraryProducts().isEmpty()) {
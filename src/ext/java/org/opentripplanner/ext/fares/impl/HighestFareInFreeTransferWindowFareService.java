@@ -49,7 +49,8 @@ public class HighestFareInFreeTransferWindowFareService extends DefaultFareServi
     Currency currency,
     FareType fareType,
     List<Leg> legs,
-    Collection<FareRuleSet> fareRules
+    Collection<FareRuleSet> fareRules,
+    FareCache cache
   ) {
     float cost = 0;
     float currentTransferWindowCost = 0;
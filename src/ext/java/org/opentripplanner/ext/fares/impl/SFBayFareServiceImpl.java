@@ -109,7 +109,8 @@ public class SFBayFareServiceImpl extends DefaultFareService {
     Currency currency,
     FareType fareType,
     List<Leg> rides,
-    Collection<FareRuleSet> fareRules
+    Collection<FareRuleSet> fareRules,
+    FareCache cache
   ) {
     float lowestCost = getLowestCost(fareType, rides, fareRules);
     if (lowestCost != Float.POSITIVE_INFINITY) {
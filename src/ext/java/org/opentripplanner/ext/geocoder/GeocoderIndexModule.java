@@ -0,0 +1,29 @@
+package org.opentripplanner.ext.geocoder;
+
+import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.TransitModel;
+
+/**
+ * Build the geocoder {@link LuceneIndex} when the graph is built, and save it next to the graph,
+ * so the server does not need to build it when it starts.
+ */
+public class GeocoderIndexModule implements GraphBuilderModule {
+
+  private final Graph graph;
+  private final TransitModel transitModel;
+  private final DataSource output;
+
+  public GeocoderIndexModule(Graph graph, TransitModel transitModel, DataSource output) {
+    this.graph = graph;
+    this.transitModel = transitModel;
+    this.output = output;
+  }
+
+  @Override
+  public void buildGraph() {
+    LuceneIndex.buildAndWrite(graph, new DefaultTransitService(transitModel), output);
+  }
+}
@@ -1,7 +1,14 @@
 package org.opentripplanner.ext.geocoder;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
@@ -35,6 +42,10 @@ import org.apache.lucene.search.suggest.document.ContextSuggestField;
 import org.apache.lucene.search.suggest.document.PrefixCompletionQuery;
 import org.apache.lucene.search.suggest.document.SuggestIndexSearcher;
 import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MMapDirectory;
+import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
@@ -43,9 +54,27 @@ import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.model.site.StopLocationsGroup;
 import org.opentripplanner.transit.service.TransitService;
+import org.opentripplanner.util.OtpAppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * The geocoder index of stops, stations and street vertices.
+ * <p>
+ * The index is built when the graph is built by the {@link GeocoderIndexModule}, and saved in its
+ * own file next to the graph. When the graph is loaded the index files are unpacked to a
+ * temporary directory, and opened read-only with a memory mapped directory, so the index does not
+ * use heap. If there is no saved index, it is built in memory when the server starts.
+ */
 public class LuceneIndex implements Serializable {
 
+  private static final Logger LOG = LoggerFactory.getLogger(LuceneIndex.class);
+
+  /** "OTGI" - OTP geocoder index */
+  private static final int MAGIC = 0x4f544749;
+  private static final int FORMAT_VERSION = 1;
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
   private static final String TYPE = "type";
   private static final String ID = "id";
   private static final String SUGGEST = "suggest";
@@ -59,22 +88,151 @@ public class LuceneIndex implements Serializable {
   private final Analyzer analyzer;
   private final SuggestIndexSearcher searcher;
 
+  /**
+   * Build the index in memory.
+   */
   public LuceneIndex(Graph graph, TransitService transitService) {
+    this(graph, transitService, buildIndex(graph, transitService));
+  }
+
+  private LuceneIndex(Graph graph, TransitService transitService, Directory directory) {
     this.graph = graph;
     this.transitService = transitService;
-    this.analyzer =
-      new PerFieldAnalyzerWrapper(
-        new StandardAnalyzer(),
-        Map.of(NAME, new SimpleAnalyzer(), SUGGEST, new CompletionAnalyzer(new StandardAnalyzer()))
+    this.analyzer = createAnalyzer();
+    try {
+      DirectoryReader indexReader = DirectoryReader.open(directory);
+      searcher = new SuggestIndexSearcher(indexReader);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static LuceneIndex forServer(OtpServerRequestContext serverContext) {
+    var existingIndex = serverContext.graph().getLuceneIndex();
+    if (existingIndex != null) {
+      return existingIndex;
+    }
+    return createForServer(serverContext);
+  }
+
+  /**
+   * Load the index saved next to the graph. {@code null} is returned if the source does not exist,
+   * or if the index was built together with another graph than the given one.
+   */
+  @Nullable
+  public static LuceneIndex load(DataSource source, Graph graph, TransitService transitService) {
+    if (!source.exists()) {
+      return null;
+    }
+    LOG.info("Reading geocoder index from '{}'", source.path());
+
+    try (var in = new DataInputStream(new BufferedInputStream(source.asInputStream()))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        LOG.warn("Unsupported geocoder index, the index is built when the server starts.");
+        return null;
+      }
+      var buildTime = Instant.ofEpochSecond(in.readLong(), in.readInt());
+      if (!buildTime.equals(graph.buildTime)) {
+        LOG.warn(
+          "The geocoder index is not built with the loaded graph, the index is built when the " +
+          "server starts. Index built: {}, graph built: {}",
+          buildTime,
+          graph.buildTime
+        );
+        return null;
+      }
+
+      // Lucene can only memory map files, so the index files are unpacked to a local directory
+      Path dir = Files.createTempDirectory("otp-geocoder-");
+      dir.toFile().deleteOnExit();
+      int nFiles = in.readInt();
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      for (int i = 0; i < nFiles; ++i) {
+        Path file = dir.resolve(in.readUTF());
+        file.toFile().deleteOnExit();
+        long remaining = in.readLong();
+        try (var out = Files.newOutputStream(file)) {
+          while (remaining > 0) {
+            int n = (int) Math.min(buffer.length, remaining);
+            in.readFully(buffer, 0, n);
+            out.write(buffer, 0, n);
+            remaining -= n;
+          }
+        }
+      }
+      var index = new LuceneIndex(graph, transitService, new MMapDirectory(dir));
+      LOG.info("Geocoder index read. {} files mapped from {}", nFiles, dir);
+      return index;
+    } catch (IOException e) {
+      throw new OtpAppException(
+        "Unable to read geocoder index: " + source.path() + ", " + e.getMessage()
       );
+    }
+  }
 
+  /**
+   * Build the index, and save it to the given target together with the build time of the graph.
+   */
+  static void buildAndWrite(Graph graph, TransitService transitService, DataSource target) {
+    var directory = buildIndex(graph, transitService);
+    LOG.info("Writing geocoder index to '{}'", target.path());
+
+    try (var out = new DataOutputStream(new BufferedOutputStream(target.asOutputStream()))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(graph.buildTime.getEpochSecond());
+      out.writeInt(graph.buildTime.getNano());
+
+      String[] files = directory.listAll();
+      out.writeInt(files.length);
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      for (String file : files) {
+        try (var input = directory.openInput(file, IOContext.READONCE)) {
+          out.writeUTF(file);
+          long remaining = input.length();
+          out.writeLong(remaining);
+          while (remaining > 0) {
+            int n = (int) Math.min(buffer.length, remaining);
+            input.readBytes(buffer, 0, n);
+            out.write(buffer, 0, n);
+            remaining -= n;
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new OtpAppException(
+        "Unable to write geocoder index: " + target.path() + ", " + e.getMessage()
+      );
+    }
+  }
+
+  private static synchronized LuceneIndex createForServer(OtpServerRequestContext serverContext) {
+    var graph = serverContext.graph();
+    var existingIndex = graph.getLuceneIndex();
+    if (existingIndex != null) {
+      return existingIndex;
+    }
+
+    var newIndex = new LuceneIndex(graph, serverContext.transitService());
+    graph.setLuceneIndex(newIndex);
+    return newIndex;
+  }
+
+  private static Analyzer createAnalyzer() {
+    return new PerFieldAnalyzerWrapper(
+      new StandardAnalyzer(),
+      Map.of(NAME, new SimpleAnalyzer(), SUGGEST, new CompletionAnalyzer(new StandardAnalyzer()))
+    );
+  }
+
+  private static Directory buildIndex(Graph graph, TransitService transitService) {
     var directory = new ByteBuffersDirectory();
 
     try {
       try (
         var directoryWriter = new IndexWriter(
           directory,
-          iwcWithSuggestField(analyzer, Set.of(SUGGEST))
+          iwcWithSuggestField(createAnalyzer(), Set.of(SUGGEST))
         )
       ) {
         transitService
@@ -122,24 +280,21 @@ public class LuceneIndex implements Serializable {
             )
           );
       }
-
-      DirectoryReader indexReader = DirectoryReader.open(directory);
-      searcher = new SuggestIndexSearcher(indexReader);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    return directory;
   }
 
-  public static synchronized LuceneIndex forServer(OtpServerRequestContext serverContext) {
-    var graph = serverContext.graph();
-    var existingIndex = graph.getLuceneIndex();
-    if (existingIndex != null) {
-      return existingIndex;
+  /**
+   * Run a query of each kind, so the index files are read before the first request.
+   */
+  public void warmUp() {
+    for (boolean autocomplete : new boolean[] { true, false }) {
+      queryStopLocations("a", autocomplete).toList();
+      findStopLocationGroups("a", autocomplete).toList();
+      queryStreetVertices("a", autocomplete).toList();
     }
-
-    var newIndex = new LuceneIndex(graph, serverContext.transitService());
-    graph.setLuceneIndex(newIndex);
-    return newIndex;
   }
 
   public Stream<StopLocation> queryStopLocations(String query, boolean autocomplete) {
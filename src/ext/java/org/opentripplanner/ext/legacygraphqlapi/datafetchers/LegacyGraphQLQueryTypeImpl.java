@@ -38,6 +38,7 @@ import org.opentripplanner.ext.legacygraphqlapi.LegacyGraphQLRequestContext;
 import org.opentripplanner.ext.legacygraphqlapi.LegacyGraphQLUtils;
 import org.opentripplanner.ext.legacygraphqlapi.generated.LegacyGraphQLDataFetchers;
 import org.opentripplanner.ext.legacygraphqlapi.generated.LegacyGraphQLTypes;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.gtfs.mapping.DirectionMapper;
 import org.opentripplanner.model.GenericLocation;
@@ -785,6 +786,10 @@ public class LegacyGraphQLQueryTypeImpl
         "locale",
         (String v) -> request.setLocale(LegacyGraphQLUtils.getLocale(environment, v))
       );
+      // The client connection is not known here, so only the request timeout applies
+      request.setCancellationToken(
+        CancellationToken.of(context.getServerContext().routerConfig().requestTimeout())
+      );
       RoutingResponse res = context.getRoutingService().route(request);
       return DataFetcherResult
         .<RoutingResponse>newResult()
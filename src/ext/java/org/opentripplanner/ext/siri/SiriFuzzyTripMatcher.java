@@ -3,21 +3,15 @@ package org.opentripplanner.ext.siri;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import org.opentripplanner.transit.model.basic.TransitMode;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
-import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripOnServiceDate;
-import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.transit.service.TransitService;
+import org.opentripplanner.updater.TripMatcherIndex;
 import org.opentripplanner.util.time.ServiceDateUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import uk.org.siri.siri20.EstimatedCall;
 import uk.org.siri.siri20.EstimatedVehicleJourney;
 import uk.org.siri.siri20.MonitoredVehicleJourneyStructure;
@@ -36,17 +30,15 @@ import uk.org.siri.siri20.VehicleModesEnumeration;
  * <p>
  * The same instance of this SiriFuzzyTripMatcher may appear in different SIRI updaters. Be sure
  * to fetch the instance at during the setup of the updaters, the initialization is not thread-safe.
+ * The trips are looked up in a {@link TripMatcherIndex} built when the matcher is created, so
+ * matching is thread-safe.
  */
 public class SiriFuzzyTripMatcher {
 
-  private static final Logger LOG = LoggerFactory.getLogger(SiriFuzzyTripMatcher.class);
-
   private static SiriFuzzyTripMatcher instance;
 
-  private final Map<String, Set<Trip>> internalPlanningCodeCache = new HashMap<>();
-  private final Map<String, Set<Trip>> startStopTripCache = new HashMap<>();
   private final TransitService transitService;
-  private boolean initialized = false;
+  private final TripMatcherIndex index;
 
   /**
    * Factory method used to create only one instance.
@@ -63,7 +55,7 @@ public class SiriFuzzyTripMatcher {
 
   private SiriFuzzyTripMatcher(TransitService transitService) {
     this.transitService = transitService;
-    initCache(this.transitService);
+    this.index = TripMatcherIndex.of(transitService);
   }
 
   /**
@@ -200,45 +192,6 @@ public class SiriFuzzyTripMatcher {
     return null;
   }
 
-  private void initCache(TransitService index) {
-    if (!initialized) {
-      for (Trip trip : index.getAllTrips()) {
-        TripPattern tripPattern = index.getPatternForTrip(trip);
-
-        if (tripPattern == null) {
-          continue;
-        }
-
-        if (tripPattern.getRoute().getMode().equals(TransitMode.RAIL)) {
-          String internalPlanningCode = trip.getNetexInternalPlanningCode();
-          if (internalPlanningCode != null) {
-            internalPlanningCodeCache
-              .computeIfAbsent(internalPlanningCode, key -> new HashSet<>())
-              .add(trip);
-          }
-        }
-        String lastStopId = tripPattern.lastStop().getId().getId();
-
-        TripTimes tripTimes = tripPattern.getScheduledTimetable().getTripTimes(trip);
-        if (tripTimes != null) {
-          int arrivalTime = tripTimes.getArrivalTime(tripTimes.getNumStops() - 1);
-
-          String key = createStartStopKey(lastStopId, arrivalTime);
-          startStopTripCache.computeIfAbsent(key, k -> new HashSet<>()).add(trip);
-        }
-      }
-
-      LOG.info("Built internalPlanningCode-cache [{}].", internalPlanningCodeCache.size());
-      LOG.info("Built start-stop-cache [{}].", startStopTripCache.size());
-    }
-
-    initialized = true;
-  }
-
-  private static String createStartStopKey(String lastStopId, int lastStopArrivalTime) {
-    return lastStopId + ":" + lastStopArrivalTime;
-  }
-
   private static String resolveDatedVehicleJourneyRef(EstimatedVehicleJourney journey) {
     if (journey.getFramedVehicleJourneyRef() != null) {
       return journey.getFramedVehicleJourneyRef().getDatedVehicleJourneyRef();
@@ -265,33 +218,25 @@ public class SiriFuzzyTripMatcher {
       transitService.getTimeZone()
     );
 
-    Set<Trip> trips = startStopTripCache.get(
-      createStartStopKey(lastStopPoint, secondsSinceMidnight)
-    );
-    if (trips == null) {
+    Set<Trip> trips = index.findTripsByLastStopArrival(lastStopPoint, secondsSinceMidnight);
+    if (trips.isEmpty()) {
       //Attempt to fetch trips that started yesterday - i.e. add 24 hours to arrival-time
-      trips =
-        startStopTripCache.get(createStartStopKey(lastStopPoint, secondsSinceMidnightYesterday));
+      trips = index.findTripsByLastStopArrival(lastStopPoint, secondsSinceMidnightYesterday);
     }
 
-    if (trips == null || trips.isEmpty()) {
+    if (trips.isEmpty()) {
       //SIRI-data may report other platform, but still on the same Parent-stop
       var stop = transitService.getRegularStop(new FeedScopedId(feedId, lastStopPoint));
       if (stop != null && stop.isPartOfStation()) {
         // TODO OTP2 resolve stop-station split
         var allQuays = stop.getParentStation().getChildStops();
+        Set<Trip> tripsOnQuays = new HashSet<>();
         for (var quay : allQuays) {
-          Set<Trip> tripSet = startStopTripCache.get(
-            createStartStopKey(quay.getId().getId(), secondsSinceMidnight)
+          tripsOnQuays.addAll(
+            index.findTripsByLastStopArrival(quay.getId().getId(), secondsSinceMidnight)
           );
-          if (tripSet != null) {
-            if (trips == null) {
-              trips = tripSet;
-            } else {
-              trips.addAll(tripSet);
-            }
-          }
         }
+        trips = tripsOnQuays;
       }
     }
     return trips;
@@ -301,6 +246,6 @@ public class SiriFuzzyTripMatcher {
     if (internalPlanningCode == null) {
       return null;
     }
-    return internalPlanningCodeCache.getOrDefault(internalPlanningCode, new HashSet<>());
+    return index.findRailTripsByInternalPlanningCode(internalPlanningCode);
   }
 }
@@ -19,6 +19,8 @@ import org.opentripplanner.ext.transmodelapi.model.TransportModeSlack;
 import org.opentripplanner.ext.transmodelapi.model.plan.ItineraryFiltersInputType;
 import org.opentripplanner.ext.transmodelapi.support.DataFetcherDecorator;
 import org.opentripplanner.ext.transmodelapi.support.GqlUtil;
+import org.opentripplanner.framework.concurrent.CancellationToken;
+import org.opentripplanner.framework.concurrent.RequestCancelledException;
 import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.routing.algorithm.mapping.TripPlanMapper;
 import org.opentripplanner.routing.api.request.RequestModes;
@@ -49,6 +51,10 @@ public class TransmodelGraphQLPlanner {
     RouteRequest request = null;
     try {
       request = createRequest(environment);
+      // The client connection is not known here, so only the request timeout applies
+      request.setCancellationToken(
+        CancellationToken.of(serverContext.routerConfig().requestTimeout())
+      );
       RoutingResponse res = ctx.getRoutingService().route(request);
 
       response.plan = res.getTripPlan();
@@ -57,6 +63,10 @@ public class TransmodelGraphQLPlanner {
       response.debugOutput = res.getDebugTimingAggregator().finishedRendering();
       response.previousPageCursor = res.getPreviousPageCursor();
       response.nextPageCursor = res.getNextPageCursor();
+    } catch (RequestCancelledException e) {
+      LOG.info("Request cancelled: {} Request: {}", e.getMessage(), request);
+      response.plan = TripPlanMapper.mapTripPlan(request, List.of());
+      response.messages.add(new RoutingError(RoutingErrorCode.SYSTEM_ERROR, null));
     } catch (Exception e) {
       LOG.error("System error: " + e.getMessage(), e);
       response.plan = TripPlanMapper.mapTripPlan(request, List.of());
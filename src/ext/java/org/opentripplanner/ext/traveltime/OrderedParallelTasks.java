@@ -0,0 +1,109 @@
+package org.opentripplanner.ext.traveltime;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
+
+/**
+ * Run a task for each index in {@code [0, size)} on a thread pool, and return the results in index
+ * order as they are consumed. Only a limited number of tasks are submitted ahead of the consumer,
+ * so the results of a large batch are not all kept in memory at the same time. If there is no
+ * thread pool the tasks are run lazily in the calling thread.
+ * <p>
+ * Closing the returned stream cancels the tasks not consumed yet.
+ */
+public final class OrderedParallelTasks {
+
+  /** The default number of tasks submitted ahead of the consumer. */
+  public static final int DEFAULT_MAX_PENDING = 4 * Runtime.getRuntime().availableProcessors();
+
+  private OrderedParallelTasks() {}
+
+  public static <T> Stream<T> run(
+    @Nullable ExecutorService threadPool,
+    int size,
+    int maxPending,
+    IntFunction<T> task
+  ) {
+    if (threadPool == null) {
+      return IntStream.range(0, size).mapToObj(task);
+    }
+    var results = new ResultIterator<>(threadPool, size, maxPending, task);
+    return StreamSupport
+      .stream(
+        Spliterators.spliterator(results, size, Spliterator.ORDERED | Spliterator.NONNULL),
+        false
+      )
+      .onClose(results::cancel);
+  }
+
+  private static class ResultIterator<T> implements Iterator<T> {
+
+    private final ExecutorService threadPool;
+    private final int size;
+    private final int maxPending;
+    private final IntFunction<T> task;
+    private final Deque<Future<T>> pending = new ArrayDeque<>();
+    private int next = 0;
+
+    private ResultIterator(
+      ExecutorService threadPool,
+      int size,
+      int maxPending,
+      IntFunction<T> task
+    ) {
+      this.threadPool = threadPool;
+      this.size = size;
+      this.maxPending = Math.max(1, maxPending);
+      this.task = task;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < size || !pending.isEmpty();
+    }
+
+    @Override
+    public T next() {
+      while (next < size && pending.size() < maxPending) {
+        int i = next++;
+        pending.add(threadPool.submit(() -> task.apply(i)));
+      }
+      if (pending.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      return await(pending.poll());
+    }
+
+    private void cancel() {
+      pending.forEach(it -> it.cancel(true));
+      pending.clear();
+      next = size;
+    }
+
+    private static <T> T await(Future<T> future) {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException re) {
+          throw re;
+        }
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package org.opentripplanner.ext.traveltime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.annotation.Nullable;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.geotools.data.geojson.GeoJSONWriter;
+import org.geotools.feature.DefaultFeatureCollection;
+import org.opentripplanner.api.common.LocationStringParser;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.error.RoutingValidationException;
+import org.opentripplanner.standalone.api.OtpServerRequestContext;
+
+/**
+ * Calculate the isochrones or the travel time surfaces of many origins in one request. The
+ * origins are passed in the request body as JSON: {@code {"origins": ["lat,lon", ...]}}, the other
+ * parameters are the same as for a single origin, see {@link TravelTimeResource}.
+ * <p>
+ * The transit data and the street vertices of the stops are prepared once and shared by all
+ * origins. The origins are calculated in parallel if the Raptor thread pool is configured, and the
+ * results are streamed in the same order as the origins:
+ * <ul>
+ *   <li>{@code ndjson}: one line for each origin, with the index of the origin and the isochrones
+ *   as a GeoJSON feature collection.</li>
+ *   <li>{@code geotiff}: a zip file with one GeoTIFF surface for each origin, named by the index of
+ *   the origin. Origins which do not reach any place are left out.</li>
+ * </ul>
+ */
+@Path("/traveltime/batch")
+public class TravelTimeBatchResource {
+
+  private static final String FORMAT_NDJSON = "ndjson";
+  private static final String FORMAT_GEOTIFF = "geotiff";
+  private static final String NDJSON_TYPE = "application/x-ndjson";
+  private static final String ZIP_TYPE = "application/zip";
+
+  /**
+   * The batches run on their own pool with the size of the Raptor thread pool, so a large batch
+   * does not delay the heuristic searches and the transfer optimization of the trip planning
+   * requests. The pool is shared by all batch requests, and created with the first one.
+   */
+  private static ExecutorService batchThreadPool;
+
+  private final OtpServerRequestContext serverContext;
+
+  public TravelTimeBatchResource(@Context OtpServerRequestContext serverContext) {
+    this.serverContext = serverContext;
+  }
+
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces({ NDJSON_TYPE, ZIP_TYPE })
+  public Response getBatch(
+    HashMap<String, List<String>> body,
+    @QueryParam("time") String time,
+    @QueryParam("cutoff") @DefaultValue("60m") List<String> cutoffs,
+    @QueryParam("modes") String modes,
+    @QueryParam("format") @DefaultValue(FORMAT_NDJSON) String format
+  ) {
+    if (body == null || !body.containsKey("origins")) {
+      return badRequest("The 'origins' must be given in the request body.");
+    }
+    if (!FORMAT_NDJSON.equals(format) && !FORMAT_GEOTIFF.equals(format)) {
+      return badRequest("Unknown format: " + format);
+    }
+
+    List<GenericLocation> origins = body
+      .get("origins")
+      .stream()
+      .map(LocationStringParser::fromOldStyleString)
+      .toList();
+
+    var calculator = TravelTimeResource.createCalculator(serverContext, time, cutoffs, modes);
+    var threadPool = batchThreadPool(
+      serverContext.routerConfig().raptorTuningParameters().searchThreadPoolSize()
+    );
+
+    if (FORMAT_NDJSON.equals(format)) {
+      StreamingOutput out = outputStream -> {
+        try (
+          var lines = OrderedParallelTasks.run(
+            threadPool,
+            origins.size(),
+            OrderedParallelTasks.DEFAULT_MAX_PENDING,
+            i -> toNdjsonLine(i, calculate(calculator, origins.get(i)), calculator)
+          )
+        ) {
+          for (var it = lines.iterator(); it.hasNext();) {
+            outputStream.write(it.next());
+          }
+        }
+      };
+      return Response.ok(out, NDJSON_TYPE).build();
+    }
+
+    StreamingOutput out = outputStream -> {
+      try (
+        var surfaces = OrderedParallelTasks.run(
+          threadPool,
+          origins.size(),
+          OrderedParallelTasks.DEFAULT_MAX_PENDING,
+          i -> toGeoTiff(calculate(calculator, origins.get(i)))
+        );
+        var zip = new ZipOutputStream(outputStream)
+      ) {
+        int i = 0;
+        for (var it = surfaces.iterator(); it.hasNext(); ++i) {
+          byte[] surface = it.next();
+          if (surface.length > 0) {
+            zip.putNextEntry(new ZipEntry(i + ".tif"));
+            zip.write(surface);
+            zip.closeEntry();
+          }
+        }
+      }
+    };
+    return Response.ok(out, ZIP_TYPE).build();
+  }
+
+  /**
+   * Calculate the raster of an origin, or return {@code null} if the origin is not linked to the
+   * street network.
+   */
+  @Nullable
+  private static TravelTimeRaster calculate(
+    TravelTimeCalculator calculator,
+    GenericLocation origin
+  ) {
+    try {
+      return calculator.calculate(origin);
+    } catch (RoutingValidationException e) {
+      return null;
+    }
+  }
+
+  private static byte[] toNdjsonLine(
+    int index,
+    @Nullable TravelTimeRaster raster,
+    TravelTimeCalculator calculator
+  ) {
+    var features = raster == null || raster.isEmpty()
+      ? new DefaultFeatureCollection(null, TravelTimeResource.makeContourSchema())
+      : TravelTimeResource.makeContourFeatures(raster, calculator.traveltimeRequest());
+
+    try (var out = new ByteArrayOutputStream()) {
+      out.write(("{\"origin\":" + index + ",\"isochrones\":").getBytes(UTF_8));
+      try (var geoJSONWriter = new GeoJSONWriter(out)) {
+        geoJSONWriter.writeFeatureCollection(features);
+      }
+      out.write("}\n".getBytes(UTF_8));
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Encode the raster as a GeoTIFF file, or return an empty array if no place is reached. */
+  private static byte[] toGeoTiff(@Nullable TravelTimeRaster raster) {
+    if (raster == null || raster.isEmpty()) {
+      return new byte[0];
+    }
+    try (var out = new ByteArrayOutputStream()) {
+      TravelTimeResource.writeGeoTiff(raster, out);
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Nullable
+  private static synchronized ExecutorService batchThreadPool(int size) {
+    if (size <= 0) {
+      return null;
+    }
+    if (batchThreadPool == null) {
+      batchThreadPool =
+        Executors.newFixedThreadPool(
+          size,
+          new ThreadFactoryBuilder().setNameFormat("TravelTimeBatch-%d").setDaemon(true).build()
+        );
+    }
+    return batchThreadPool;
+  }
+
+  private static Response badRequest(String message) {
+    return Response
+      .status(Response.Status.BAD_REQUEST)
+      .type(MediaType.TEXT_PLAIN_TYPE)
+      .entity(message)
+      .build();
+  }
+}
@@ -0,0 +1,289 @@
+package org.opentripplanner.ext.traveltime;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.opentripplanner.ext.traveltime.egress.StopEgressTable;
+import org.opentripplanner.ext.traveltime.spt.CompactShortestPathTree;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressRouter;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.DefaultAccessEgress;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.AccessEgressMapper;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRoutingRequestTransitData;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RouteRequestTransitDataProviderFilter;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.AStarRequest;
+import org.opentripplanner.routing.core.AStarRequestMapper;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.StateData;
+import org.opentripplanner.routing.core.TemporaryVerticesContainer;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.spt.DominanceFunction;
+import org.opentripplanner.standalone.api.OtpServerRequestContext;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.raptor.RaptorService;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.response.RaptorResponse;
+import org.opentripplanner.transit.raptor.api.response.StopArrivals;
+import org.opentripplanner.transit.raptor.api.transit.RaptorAccessEgress;
+import org.opentripplanner.transit.service.TransitService;
+import org.opentripplanner.util.time.ServiceDateUtils;
+
+/**
+ * Calculate the travel time raster from an origin: a best time Raptor search from the stops
+ * reached by the access, followed by a street search from the origin and all stops reached by
+ * transit.
+ * <p>
+ * The request-scoped Raptor transit data and the street vertex of each stop are prepared once, and
+ * shared by the searches of all origins with the same departure time, modes and cutoffs. The
+ * searches of different origins can run in parallel.
+ * <p>
+ * If the graph has a {@link StopEgressTable}, the egress mode is walk and the table is valid for
+ * the request, the street search is only done from the origin, and the transit arrival times are
+ * propagated to the streets with the precomputed walk times from the stops.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+class TravelTimeCalculator {
+
+  private final RouteRequest routingRequest;
+  private final TravelTimeRequest traveltimeRequest;
+  private final Graph graph;
+  private final TransitService transitService;
+  private final RaptorService<TripSchedule> raptorService;
+  private final RaptorRoutingRequestTransitData requestTransitDataProvider;
+  private final Instant startTime;
+  private final Instant endTime;
+  private final ZonedDateTime startOfTime;
+
+  /** The index and street vertex of each stop, where the street search continues after transit. */
+  private final int[] stopIndexes;
+  private final Vertex[] stopVertices;
+
+  /**
+   * The precomputed walk times from the stops, if they are in the graph, the egress mode is walk
+   * and the table is valid for the request. If {@code null}, the street search continues from all
+   * stops reached by transit.
+   */
+  @Nullable
+  private final StopEgressTable egressTable;
+
+  TravelTimeCalculator(
+    OtpServerRequestContext serverContext,
+    RouteRequest routingRequest,
+    TravelTimeRequest traveltimeRequest
+  ) {
+    this.routingRequest = routingRequest;
+    this.traveltimeRequest = traveltimeRequest;
+    this.graph = serverContext.graph();
+    this.transitService = serverContext.transitService();
+    this.raptorService = new RaptorService<>(serverContext.raptorConfig());
+
+    startTime = routingRequest.dateTime();
+    endTime = startTime.plus(traveltimeRequest.maxCutoff);
+
+    ZoneId zoneId = transitService.getTimeZone();
+    LocalDate startDate = LocalDate.ofInstant(startTime, zoneId);
+    LocalDate endDate = LocalDate.ofInstant(endTime, zoneId);
+    startOfTime = ServiceDateUtils.asStartOfService(startDate, zoneId);
+
+    requestTransitDataProvider =
+      new RaptorRoutingRequestTransitData(
+        transitService.getRealtimeTransitLayer(),
+        startOfTime,
+        0,
+        (int) Period.between(startDate, endDate).get(ChronoUnit.DAYS),
+        new RouteRequestTransitDataProviderFilter(routingRequest, transitService),
+        routingRequest
+      );
+
+    // TODO - Add a method to return all Stops, not StopLocations
+    var stops = new ArrayList<RegularStop>();
+    var vertices = new ArrayList<Vertex>();
+    for (RegularStop stop : transitService.listRegularStops()) {
+      Vertex v = graph.getStopVertexForStopId(stop.getId());
+      if (v != null) {
+        stops.add(stop);
+        vertices.add(v);
+      }
+    }
+    stopIndexes = stops.stream().mapToInt(RegularStop::getIndex).toArray();
+    stopVertices = vertices.toArray(Vertex[]::new);
+
+    var table = graph.getStopEgressTable();
+    boolean useTable =
+      table != null &&
+      routingRequest.journey().egress().mode() == StreetMode.WALK &&
+      table.isValidFor(routingRequest);
+    egressTable = useTable ? table : null;
+  }
+
+  TravelTimeRequest traveltimeRequest() {
+    return traveltimeRequest;
+  }
+
+  /**
+   * Calculate the travel times from the given origin.
+   */
+  TravelTimeRaster calculate(GenericLocation origin) {
+    final RouteRequest accessRequest = routingRequest.clone();
+    accessRequest.setFrom(origin);
+
+    accessRequest.withPreferences(preferences ->
+      preferences.withStreet(it ->
+        it.withMaxAccessEgressDuration(traveltimeRequest.maxAccessDuration, Map.of())
+      )
+    );
+
+    try (
+      var temporaryVertices = new TemporaryVerticesContainer(
+        graph,
+        accessRequest,
+        accessRequest.journey().access().mode(),
+        StreetMode.NOT_SET
+      )
+    ) {
+      final Collection<DefaultAccessEgress> accessList = getAccess(
+        accessRequest,
+        temporaryVertices
+      );
+
+      var arrivals = route(accessList).getArrivals();
+
+      var spt = AStarBuilder
+        .allDirectionsMaxDuration(traveltimeRequest.maxCutoff)
+        .setRequest(routingRequest)
+        .setStreetRequest(accessRequest.journey().access())
+        .setVerticesContainer(temporaryVertices)
+        .setDominanceFunction(new DominanceFunction.EarliestArrival())
+        .setInitialStates(getInitialStates(arrivals, temporaryVertices))
+        .getShortestPathTree();
+
+      // Only the best time of each vertex is kept, the states of the search are released
+      var compactSpt = egressTable == null
+        ? CompactShortestPathTree.of(spt, graph)
+        : CompactShortestPathTree.of(
+          spt,
+          graph,
+          routingRequest.preferences(),
+          propagateEgress(arrivals),
+          TraverseMode.WALK
+        );
+      return TravelTimeRasterBuilder.build(compactSpt, traveltimeRequest);
+    }
+  }
+
+  private Collection<DefaultAccessEgress> getAccess(
+    RouteRequest accessRequest,
+    TemporaryVerticesContainer temporaryVertices
+  ) {
+    final Collection<NearbyStop> accessStops = AccessEgressRouter.streetSearch(
+      accessRequest,
+      temporaryVertices,
+      transitService,
+      routingRequest.journey().access(),
+      null,
+      false
+    );
+    return new AccessEgressMapper().mapNearbyStops(accessStops, false);
+  }
+
+  private List<State> getInitialStates(
+    StopArrivals arrivals,
+    TemporaryVerticesContainer temporaryVertices
+  ) {
+    List<State> initialStates = new ArrayList<>();
+
+    AStarRequest aStarRequest = AStarRequestMapper
+      .map(routingRequest)
+      .withMode(routingRequest.journey().egress().mode())
+      .withArriveBy(false)
+      .build();
+
+    StateData stateData = StateData.getInitialStateData(aStarRequest);
+
+    for (var vertex : temporaryVertices.getFromVertices()) {
+      // TODO StateData should be of direct mode here
+      initialStates.add(new State(vertex, startTime, stateData, aStarRequest));
+    }
+
+    if (egressTable != null) {
+      // The walk times from the stops are merged in after the street search
+      return initialStates;
+    }
+
+    for (int i = 0; i < stopIndexes.length; ++i) {
+      int index = stopIndexes[i];
+      if (arrivals.reachedByTransit(index)) {
+        final int arrivalTime = arrivals.bestTransitArrivalTime(index);
+        Instant time = startOfTime.plusSeconds(arrivalTime).toInstant();
+        State s = new State(stopVertices[i], time, stateData.clone(), aStarRequest);
+        s.weight = startTime.until(time, ChronoUnit.SECONDS);
+        initialStates.add(s);
+      }
+    }
+    return initialStates;
+  }
+
+  /**
+   * Propagate the transit arrival times onto the street vertices with the precomputed walk times.
+   * The walk from a stop is limited to the max walk duration of the table, even if the cutoff is
+   * later.
+   *
+   * @return the elapsed time of each vertex, indexed by vertex index
+   */
+  private int[] propagateEgress(StopArrivals arrivals) {
+    int[] secondsByVertexIndex = new int[graph.countVertexIndexes()];
+    Arrays.fill(secondsByVertexIndex, Integer.MAX_VALUE);
+
+    int departureTime = ServiceDateUtils.secondsSinceStartOfTime(startOfTime, startTime);
+    int maxSeconds = (int) traveltimeRequest.maxCutoff.toSeconds();
+    double walkSpeed = routingRequest.preferences().walk().speed();
+
+    for (int index : stopIndexes) {
+      if (arrivals.reachedByTransit(index)) {
+        egressTable.propagate(
+          index,
+          arrivals.bestTransitArrivalTime(index) - departureTime,
+          walkSpeed,
+          maxSeconds,
+          secondsByVertexIndex
+        );
+      }
+    }
+    return secondsByVertexIndex;
+  }
+
+  private RaptorResponse<TripSchedule> route(Collection<? extends RaptorAccessEgress> accessList) {
+    final RaptorRequest<TripSchedule> request = new RaptorRequestBuilder<TripSchedule>()
+      .profile(RaptorProfile.BEST_TIME)
+      .searchParams()
+      .earliestDepartureTime(ServiceDateUtils.secondsSinceStartOfTime(startOfTime, startTime))
+      .latestArrivalTime(ServiceDateUtils.secondsSinceStartOfTime(startOfTime, endTime))
+      .addAccessPaths(accessList)
+      .searchOneIterationOnly()
+      .timetableEnabled(false)
+      .allowEmptyEgressPaths(true)
+      .constrainedTransfersEnabled(false) // TODO: Not compatible with best times
+      .build();
+
+    return raptorService.route(request, requestTransitDataProvider);
+  }
+}
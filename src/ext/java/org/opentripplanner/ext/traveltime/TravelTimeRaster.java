@@ -0,0 +1,139 @@
+package org.opentripplanner.ext.traveltime;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.ext.traveltime.geometry.SparseMatrixZSampleGrid;
+import org.opentripplanner.ext.traveltime.geometry.ZSampleGrid;
+
+/**
+ * A regular grid of travel times, in seconds, with one value per cell in a primitive array.
+ * <p>
+ * The grid uses the same equirectangular projection as {@link ZSampleGrid}: the cell {@code (x,y)}
+ * is at {@code center + (x * dX, y * dY)}. The cells are stored row by row, starting with the cell
+ * {@code (xMin, yMin)}. A cell without a travel time has the value {@link #NO_DATA}.
+ * <p>
+ * Besides the travel time, each cell has the off-road distance to the closest street sample used
+ * to compute it, needed to draw the isochrones.
+ * <p>
+ * THIS CLASS IS IMMUTABLE
+ */
+public class TravelTimeRaster {
+
+  public static final int NO_DATA = Integer.MIN_VALUE;
+
+  private final Coordinate center;
+  private final double dX;
+  private final double dY;
+  private final int xMin;
+  private final int yMin;
+  private final int width;
+  private final int height;
+  private final int[] seconds;
+  private final float[] offRoadDistances;
+
+  TravelTimeRaster(
+    Coordinate center,
+    double dX,
+    double dY,
+    int xMin,
+    int yMin,
+    int width,
+    int height,
+    int[] seconds,
+    float[] offRoadDistances
+  ) {
+    this.center = center;
+    this.dX = dX;
+    this.dY = dY;
+    this.xMin = xMin;
+    this.yMin = yMin;
+    this.width = width;
+    this.height = height;
+    this.seconds = seconds;
+    this.offRoadDistances = offRoadDistances;
+  }
+
+  public Coordinate getCenter() {
+    return center;
+  }
+
+  /** The cell size, in degrees longitude (x) and latitude (y). */
+  public Coordinate getCellSize() {
+    return new Coordinate(dX, dY);
+  }
+
+  public int getXMin() {
+    return xMin;
+  }
+
+  public int getYMin() {
+    return yMin;
+  }
+
+  public int getXMax() {
+    return xMin + width - 1;
+  }
+
+  public int getYMax() {
+    return yMin + height - 1;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /** Return {@code true} if no cell is reached. */
+  public boolean isEmpty() {
+    return seconds.length == 0;
+  }
+
+  /**
+   * The travel time of the cell, or {@link #NO_DATA} if the cell is not reached.
+   */
+  public int getSeconds(int x, int y) {
+    if (x < xMin || y < yMin || x >= xMin + width || y >= yMin + height) {
+      return NO_DATA;
+    }
+    return seconds[(y - yMin) * width + (x - xMin)];
+  }
+
+  /**
+   * Copy the travel times of one row of cells, from {@code xMin} to {@code xMax}.
+   */
+  public void getRow(int y, int[] target) {
+    System.arraycopy(seconds, (y - yMin) * width, target, 0, width);
+  }
+
+  /** The approximate size of the raster in memory, in bytes. */
+  public int sizeInBytes() {
+    return seconds.length * (Integer.BYTES + Float.BYTES);
+  }
+
+  /**
+   * Create a sample grid of the reached cells, to draw the isochrones with the
+   * {@link IsochroneRenderer}.
+   */
+  public ZSampleGrid<WTWD> toSampleGrid() {
+    int size = 0;
+    for (int value : seconds) {
+      if (value != NO_DATA) {
+        ++size;
+      }
+    }
+    var sampleGrid = new SparseMatrixZSampleGrid<WTWD>(16, size, dX, dY, center);
+    for (int i = 0; i < seconds.length; ++i) {
+      if (seconds[i] == NO_DATA) {
+        continue;
+      }
+      WTWD z = new WTWD();
+      z.w = 1.0;
+      z.wTime = seconds[i];
+      z.d = offRoadDistances[i];
+      sampleGrid.getOrCreate(xMin + i % width, yMin + i / width).setZ(z);
+    }
+    return sampleGrid;
+  }
+}
@@ -0,0 +1,407 @@
+package org.opentripplanner.ext.traveltime;
+
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.ext.traveltime.spt.CompactShortestPathTree;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sample the travel times of a street search into a {@link TravelTimeRaster}.
+ * <p>
+ * The street edges between reached vertices are split in steps shorter than half the cell size,
+ * and the travel time of each step is added to the four corners of the cell it is in. Each sample
+ * is weighted by the inverse of the squared distance to the corner plus the cell size, so the
+ * samples closest to a corner count the most, and an off-road walk from the sample to the corner
+ * is added to its time. The reached cells are then surrounded by closing cells, so the isochrones
+ * drawn from the raster are closed.
+ * <p>
+ * The samples are accumulated in primitive arrays covering the extent of the reached streets.
+ */
+class TravelTimeRasterBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TravelTimeRasterBuilder.class);
+
+  /** The off-road walk speed, in m/s. */
+  private static final double OFF_ROAD_WALK_SPEED_MPS = 1.0;
+
+  private final Coordinate center;
+  private final double dX;
+  private final double dY;
+  private final double cosLat;
+  private final double gridSizeMeters;
+  private final double offRoadDistanceMeters;
+
+  private final int xMin;
+  private final int yMin;
+  private final int width;
+  private final int height;
+
+  /** The sum of the weights of the samples of each cell. */
+  private final float[] weights;
+
+  /** The sum of the weighted travel times of the samples of each cell. */
+  private final float[] weightedSeconds;
+
+  /** The off-road distance from each cell to the closest sample. */
+  private final float[] offRoadDistances;
+
+  /**
+   * @param center   the center of the grid, the cell {@code (0,0)}
+   * @param envelope the extent of all samples which will be added
+   */
+  TravelTimeRasterBuilder(Coordinate center, Envelope envelope, TravelTimeRequest request) {
+    this.center = center;
+    this.gridSizeMeters = request.precisionMeters;
+    this.offRoadDistanceMeters = request.offRoadDistanceMeters;
+    this.cosLat = Math.cos(Math.toRadians(center.y));
+    this.dY = Math.toDegrees(gridSizeMeters / SphericalDistanceLibrary.RADIUS_OF_EARTH_IN_M);
+    this.dX = dY / cosLat;
+
+    // Leave room for the closing cells around the samples
+    int margin = (int) Math.ceil(offRoadDistanceMeters / gridSizeMeters) + 2;
+    this.xMin = lowerLeftX(envelope.getMinX()) - margin;
+    this.yMin = lowerLeftY(envelope.getMinY()) - margin;
+    this.width = lowerLeftX(envelope.getMaxX()) + 1 + margin - xMin + 1;
+    this.height = lowerLeftY(envelope.getMaxY()) + 1 + margin - yMin + 1;
+
+    this.weights = new float[width * height];
+    this.weightedSeconds = new float[width * height];
+    this.offRoadDistances = new float[width * height];
+    Arrays.fill(offRoadDistances, Float.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Sample the street edges between the vertices reached by the search.
+   */
+  static TravelTimeRaster build(CompactShortestPathTree spt, TravelTimeRequest request) {
+    long t0 = System.currentTimeMillis();
+    if (spt.size() == 0) {
+      return new TravelTimeRasterBuilder(new Coordinate(0, 0), new Envelope(0, 0, 0, 0), request)
+        .build();
+    }
+
+    var envelope = new Envelope();
+    forEachStreetEdge(
+      spt,
+      (edge, geometry, to, from) -> envelope.expandToInclude(geometry.getEnvelopeInternal())
+    );
+    for (int i = 0; i < spt.size(); ++i) {
+      envelope.expandToInclude(spt.vertex(i).getCoordinate());
+    }
+
+    var builder = new TravelTimeRasterBuilder(spt.vertex(0).getCoordinate(), envelope, request);
+    int maxSeconds = (int) request.maxCutoff.toSeconds();
+    forEachStreetEdge(
+      spt,
+      (edge, geometry, to, from) -> builder.sampleEdge(spt, edge, geometry, to, from, maxSeconds)
+    );
+    var raster = builder.build();
+
+    LOG.info(
+      "Computed {}x{} travel time raster from {} vertices in {}msec",
+      raster.getWidth(),
+      raster.getHeight(),
+      spt.size(),
+      System.currentTimeMillis() - t0
+    );
+    return raster;
+  }
+
+  /**
+   * Add a sample to the four corners of the cell the coordinate is in.
+   */
+  void addSample(Coordinate c, double seconds) {
+    int x = lowerLeftX(c.x);
+    int y = lowerLeftY(c.y);
+    addSample(c, seconds, x, y);
+    addSample(c, seconds, x + 1, y);
+    addSample(c, seconds, x, y + 1);
+    addSample(c, seconds, x + 1, y + 1);
+  }
+
+  /**
+   * Close the raster, and crop it to the reached cells.
+   */
+  TravelTimeRaster build() {
+    // The samples are not needed anymore, the weighted sum is replaced by the mean
+    float[] times = weightedSeconds;
+    for (int i = 0; i < times.length; ++i) {
+      times[i] = weights[i] > 0 ? times[i] / weights[i] : Float.NaN;
+    }
+    close(times);
+
+    int cropXMin = Integer.MAX_VALUE, cropYMin = Integer.MAX_VALUE;
+    int cropXMax = Integer.MIN_VALUE, cropYMax = Integer.MIN_VALUE;
+    for (int i = 0; i < times.length; ++i) {
+      if (!Float.isNaN(times[i])) {
+        cropXMin = Math.min(cropXMin, i % width);
+        cropXMax = Math.max(cropXMax, i % width);
+        cropYMin = Math.min(cropYMin, i / width);
+        cropYMax = Math.max(cropYMax, i / width);
+      }
+    }
+    if (cropXMin > cropXMax) {
+      return new TravelTimeRaster(center, dX, dY, 0, 0, 0, 0, new int[0], new float[0]);
+    }
+
+    int cropWidth = cropXMax - cropXMin + 1;
+    int cropHeight = cropYMax - cropYMin + 1;
+    int[] seconds = new int[cropWidth * cropHeight];
+    float[] distances = new float[cropWidth * cropHeight];
+    for (int y = 0; y < cropHeight; ++y) {
+      for (int x = 0; x < cropWidth; ++x) {
+        int source = (y + cropYMin) * width + x + cropXMin;
+        int target = y * cropWidth + x;
+        seconds[target] =
+          Float.isNaN(times[source]) ? TravelTimeRaster.NO_DATA : (int) times[source];
+        distances[target] = offRoadDistances[source];
+      }
+    }
+    return new TravelTimeRaster(
+      center,
+      dX,
+      dY,
+      xMin + cropXMin,
+      yMin + cropYMin,
+      cropWidth,
+      cropHeight,
+      seconds,
+      distances
+    );
+  }
+
+  private void sampleEdge(
+    CompactShortestPathTree spt,
+    StreetEdge edge,
+    LineString geometry,
+    int to,
+    int from,
+    int maxSeconds
+  ) {
+    int toSeconds = spt.elapsedSeconds(to);
+    int fromSeconds = spt.elapsedSeconds(from);
+
+    /*
+     * Compute effective speed, taking into account end state mode (car, bike,
+     * walk...) and edge properties (car max speed, slope, etc...)
+     */
+    TraverseMode mode = spt.mode(to);
+    double speed = edge.calculateSpeed(spt.preferences(), mode, spt.isBackWalkingBike(to));
+    if (mode != TraverseMode.CAR) {
+      speed *= edge.getEffectiveBikeDistance() / edge.getDistanceMeters();
+    }
+    double avgSpeed = edge.getDistanceMeters() / Math.abs(toSeconds - fromSeconds);
+    if (avgSpeed < 1e-10) {
+      avgSpeed = 1e-10;
+    }
+    /*
+     * We can't go faster than the average speed on the edge. We can go slower
+     * however, that simply means that one end vertice has a time higher than
+     * the other end vertice + time to traverse the edge (can happen due to
+     * max walk clamping).
+     */
+    if (speed > avgSpeed) {
+      speed = avgSpeed;
+    }
+
+    double length = SphericalDistanceLibrary.fastLength(geometry);
+    Coordinate toCoordinate = spt.vertex(to).getCoordinate();
+    Coordinate fromCoordinate = spt.vertex(from).getCoordinate();
+    sampleStep(toCoordinate, toSeconds, fromSeconds, 0.0, length, speed, maxSeconds);
+    sampleStep(fromCoordinate, toSeconds, fromSeconds, length, 0.0, speed, maxSeconds);
+
+    // Split the geometry in steps, slightly shorter than the grid size for best results
+    double stepDistance = gridSizeMeters * 0.5;
+    if (length <= stepDistance) {
+      return;
+    }
+    Coordinate[] points = geometry.getCoordinates();
+    boolean reverse = fromCoordinate.equals(points[0]);
+    int startSeconds = reverse ? fromSeconds : toSeconds;
+    int endSeconds = reverse ? toSeconds : fromSeconds;
+
+    int nSteps = (int) Math.floor(length / stepDistance) + 1;
+    double stepLength = length / nSteps;
+    double startLength = 0;
+    double currentLength = stepLength;
+    int n = 1;
+    for (int i = 0; i < points.length - 1; i++) {
+      Coordinate p0 = points[i];
+      Coordinate p1 = points[i + 1];
+      double segmentLength = SphericalDistanceLibrary.fastDistance(p0, p1);
+      while (currentLength - startLength < segmentLength) {
+        double k = (currentLength - startLength) / segmentLength;
+        Coordinate p = new Coordinate(p0.x * (1 - k) + p1.x * k, p0.y * (1 - k) + p1.y * k);
+        sampleStep(
+          p,
+          startSeconds,
+          endSeconds,
+          currentLength,
+          length - currentLength,
+          speed,
+          maxSeconds
+        );
+        currentLength += stepLength;
+        n++;
+      }
+      startLength += segmentLength;
+      if (n >= nSteps) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Add the sample of a point on an edge, using the fastest way to get there from either end of the
+   * edge.
+   */
+  private void sampleStep(
+    Coordinate c,
+    int seconds0,
+    int seconds1,
+    double distance0,
+    double distance1,
+    double speed,
+    int maxSeconds
+  ) {
+    double t0 = seconds0 + distance0 / speed;
+    double t1 = seconds1 + distance1 / speed;
+    if (t0 >= maxSeconds && t1 >= maxSeconds) {
+      return;
+    }
+    if (!Double.isInfinite(t0) || !Double.isInfinite(t1)) {
+      addSample(c, t0 < t1 ? t0 : t1);
+    }
+  }
+
+  private void addSample(Coordinate c, double seconds, int x, int y) {
+    int i = index(x, y);
+    if (i < 0) {
+      return;
+    }
+    Coordinate corner = new Coordinate(x * dX + center.x, y * dY + center.y);
+    double d = SphericalDistanceLibrary.fastDistance(c, corner, cosLat);
+    /*
+     * The weight function to distance here is somehow arbitrary. Its only purpose is to weight
+     * the samples when there is various samples within the same "cell", giving more weight to
+     * the closest samples to the cell corner.
+     */
+    double w = 1 / ((d + gridSizeMeters) * (d + gridSizeMeters));
+    weights[i] += w;
+    weightedSeconds[i] += w * (seconds + d / OFF_ROAD_WALK_SPEED_MPS);
+    if (d < offRoadDistances[i]) {
+      offRoadDistances[i] = (float) d;
+    }
+  }
+
+  /**
+   * Surround all reached cells by a layer of closing cells. A closing cell takes as off-road
+   * distance the minimum of its neighbours plus the grid size, and as time the minimum of its
+   * neighbours plus the time to walk the grid size off-road. New layers are added until the
+   * off-road distance is larger than the maximum. All this is an approximation, and the result
+   * depends on the order in which the cells are closed.
+   */
+  private void close(float[] times) {
+    var cells = new TIntArrayList();
+    for (int i = 0; i < times.length; ++i) {
+      if (!Float.isNaN(times[i])) {
+        cells.add(i);
+      }
+    }
+    int n = 0;
+    while (!cells.isEmpty()) {
+      var nextCells = new TIntArrayList(cells.size());
+      for (int c = 0; c < cells.size(); ++c) {
+        int x = cells.getQuick(c) % width;
+        int y = cells.getQuick(c) / width;
+        n += closeCell(times, x + 1, y, nextCells);
+        n += closeCell(times, x - 1, y, nextCells);
+        n += closeCell(times, x, y + 1, nextCells);
+        n += closeCell(times, x, y - 1, nextCells);
+      }
+      cells = nextCells;
+    }
+    LOG.debug("Added {} closing cells.", n);
+  }
+
+  /**
+   * Close the cell, if it is not reached. The cell is added to the next cells to process, unless
+   * it is further off-road than the maximum off-road distance.
+   *
+   * @return the number of cells closed, 0 or 1
+   */
+  private int closeCell(float[] times, int x, int y, TIntArrayList nextCells) {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      return 0;
+    }
+    int i = y * width + x;
+    if (!Float.isNaN(times[i])) {
+      return 0;
+    }
+    float dMin = Float.MAX_VALUE;
+    float tMin = Float.MAX_VALUE;
+    for (int[] neighbour : new int[][] { { x, y + 1 }, { x, y - 1 }, { x + 1, y }, { x - 1, y } }) {
+      int j = index(xMin + neighbour[0], yMin + neighbour[1]);
+      if (j >= 0 && !Float.isNaN(times[j])) {
+        dMin = Math.min(dMin, offRoadDistances[j]);
+        tMin = Math.min(tMin, times[j]);
+      }
+    }
+    times[i] = (float) (tMin + gridSizeMeters / OFF_ROAD_WALK_SPEED_MPS);
+    offRoadDistances[i] = (float) (dMin + gridSizeMeters);
+    if (dMin <= offRoadDistanceMeters) {
+      nextCells.add(i);
+    }
+    return 1;
+  }
+
+  private int lowerLeftX(double lon) {
+    return (int) Math.round((lon - center.x - dX / 2) / dX);
+  }
+
+  private int lowerLeftY(double lat) {
+    return (int) Math.round((lat - center.y - dY / 2) / dY);
+  }
+
+  /** The index of the cell in the arrays, or {@code -1} if it is outside the raster. */
+  private int index(int x, int y) {
+    int column = x - xMin;
+    int row = y - yMin;
+    if (column < 0 || row < 0 || column >= width || row >= height) {
+      return -1;
+    }
+    return row * width + column;
+  }
+
+  /**
+   * Call the visitor for each street edge between two vertices reached by the search.
+   */
+  private static void forEachStreetEdge(CompactShortestPathTree spt, StreetEdgeVisitor visitor) {
+    for (int to = 0; to < spt.size(); ++to) {
+      for (Edge edge : spt.vertex(to).getIncoming()) {
+        if (!(edge instanceof StreetEdge streetEdge) || edge.getFromVertex() == null) {
+          continue;
+        }
+        int from = spt.positionOf(edge.getFromVertex());
+        LineString geometry = edge.getGeometry();
+        if (from < 0 || geometry == null) {
+          continue;
+        }
+        visitor.visit(streetEdge, geometry, to, from);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface StreetEdgeVisitor {
+    void visit(StreetEdge edge, LineString geometry, int to, int from);
+  }
+}
@@ -0,0 +1,84 @@
+package org.opentripplanner.ext.traveltime;
+
+import com.google.common.cache.Cache;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.graph.Graph;
+
+/**
+ * A short-lived cache of travel time rasters, owned by the graph the searches are done in. A client
+ * usually fetches the isochrones and the surface of the same search one after the other, the
+ * second request reuses the raster of the first one.
+ * <p>
+ * The rasters are kept for a short time only. They are cached together with the transit layer used
+ * by the search, so a raster is not used after the realtime updaters have published new data.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+public class TravelTimeRasterCache {
+
+  private static final Duration TIME_TO_LIVE = Duration.ofMinutes(2);
+
+  private static final long MAX_CACHED_BYTES = 256L * 1024 * 1024;
+
+  private final Cache<Key, TravelTimeRaster> rasters = CacheBuilder
+    .newBuilder()
+    .expireAfterWrite(TIME_TO_LIVE)
+    .maximumWeight(MAX_CACHED_BYTES)
+    .weigher((Key key, TravelTimeRaster raster) -> raster.sizeInBytes())
+    .build();
+
+  TravelTimeRasterCache() {}
+
+  static TravelTimeRasterCache forGraph(Graph graph) {
+    var existingCache = graph.getTravelTimeRasterCache();
+    if (existingCache != null) {
+      return existingCache;
+    }
+    return createForGraph(graph);
+  }
+
+  /**
+   * Return the cached raster, or compute and cache it if it is missing. Concurrent requests for
+   * the same key wait for a single search.
+   */
+  TravelTimeRaster get(Key key, Supplier<TravelTimeRaster> search) {
+    try {
+      return rasters.get(key, search::get);
+    } catch (UncheckedExecutionException e) {
+      // Let the request fail with the exception of the search, like a timeout
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static synchronized TravelTimeRasterCache createForGraph(Graph graph) {
+    var existingCache = graph.getTravelTimeRasterCache();
+    if (existingCache != null) {
+      return existingCache;
+    }
+
+    var newCache = new TravelTimeRasterCache();
+    graph.setTravelTimeRasterCache(newCache);
+    return newCache;
+  }
+
+  /**
+   * The parameters of a travel time search. The transit layer is compared by identity.
+   */
+  record Key(
+    String location,
+    Instant time,
+    Duration maxCutoff,
+    String modes,
+    TransitLayer transitLayer
+  ) {}
+}
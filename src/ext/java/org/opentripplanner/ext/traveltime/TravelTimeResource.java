@@ -3,16 +3,10 @@ package org.opentripplanner.ext.traveltime;
 import static javax.imageio.ImageWriteParam.MODE_EXPLICIT;
 
 import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import javax.media.jai.RasterFactory;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -46,52 +40,23 @@ import org.opengis.parameter.GeneralParameterValue;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opentripplanner.api.common.LocationStringParser;
 import org.opentripplanner.api.parameter.QualifiedModeSet;
-import org.opentripplanner.ext.traveltime.geometry.ZSampleGrid;
-import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
-import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressRouter;
-import org.opentripplanner.routing.algorithm.raptoradapter.transit.DefaultAccessEgress;
-import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
-import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.AccessEgressMapper;
-import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRoutingRequestTransitData;
-import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RouteRequestTransitDataProviderFilter;
+import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.routing.api.request.RouteRequest;
-import org.opentripplanner.routing.api.request.StreetMode;
-import org.opentripplanner.routing.core.AStarRequest;
-import org.opentripplanner.routing.core.AStarRequestMapper;
-import org.opentripplanner.routing.core.State;
-import org.opentripplanner.routing.core.StateData;
-import org.opentripplanner.routing.core.TemporaryVerticesContainer;
-import org.opentripplanner.routing.graph.Graph;
-import org.opentripplanner.routing.graph.Vertex;
-import org.opentripplanner.routing.graphfinder.NearbyStop;
-import org.opentripplanner.routing.spt.DominanceFunction;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
-import org.opentripplanner.transit.model.site.RegularStop;
-import org.opentripplanner.transit.raptor.RaptorService;
-import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
-import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
-import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
-import org.opentripplanner.transit.raptor.api.response.RaptorResponse;
-import org.opentripplanner.transit.raptor.api.response.StopArrivals;
-import org.opentripplanner.transit.raptor.api.transit.RaptorAccessEgress;
-import org.opentripplanner.transit.service.TransitService;
 import org.opentripplanner.util.time.DurationUtils;
-import org.opentripplanner.util.time.ServiceDateUtils;
 
 @Path("/traveltime")
 public class TravelTimeResource {
 
   private static final SimpleFeatureType contourSchema = makeContourSchema();
 
+  private final OtpServerRequestContext serverContext;
+  private final GenericLocation origin;
   private final RouteRequest routingRequest;
-  private final RaptorRoutingRequestTransitData requestTransitDataProvider;
-  private final Instant startTime;
-  private final Instant endTime;
-  private final ZonedDateTime startOfTime;
   private final TravelTimeRequest traveltimeRequest;
-  private final RaptorService<TripSchedule> raptorService;
-  private final Graph graph;
-  private final TransitService transitService;
+
+  /** The key of the raster in the cache, {@code null} if the raster is not cached. */
+  private final TravelTimeRasterCache.Key rasterCacheKey;
 
   public TravelTimeResource(
     @Context OtpServerRequestContext serverContext,
@@ -100,60 +65,30 @@ public class TravelTimeResource {
     @QueryParam("cutoff") @DefaultValue("60m") List<String> cutoffs,
     @QueryParam("modes") String modes
   ) {
-    this.graph = serverContext.graph();
-    this.transitService = serverContext.transitService();
-    routingRequest = serverContext.defaultRouteRequest();
-    routingRequest.setFrom(LocationStringParser.fromOldStyleString(location));
-    if (modes != null) {
-      routingRequest.journey().setModes(new QualifiedModeSet(modes).getRequestModes());
-    }
-
-    traveltimeRequest =
-      new TravelTimeRequest(
-        cutoffs.stream().map(DurationUtils::duration).toList(),
-        routingRequest
-          .preferences()
-          .street()
-          .maxAccessEgressDuration()
-          .valueOf(routingRequest.journey().access().mode())
-      );
-
-    if (time != null) {
-      startTime = Instant.parse(time);
-    } else {
-      startTime = Instant.now();
-    }
-
-    routingRequest.setDateTime(startTime);
-    endTime = startTime.plus(traveltimeRequest.maxCutoff);
-
-    ZoneId zoneId = transitService.getTimeZone();
-    LocalDate startDate = LocalDate.ofInstant(startTime, zoneId);
-    LocalDate endDate = LocalDate.ofInstant(endTime, zoneId);
-    startOfTime = ServiceDateUtils.asStartOfService(startDate, zoneId);
-
-    requestTransitDataProvider =
-      new RaptorRoutingRequestTransitData(
-        transitService.getRealtimeTransitLayer(),
-        startOfTime,
-        0,
-        (int) Period.between(startDate, endDate).get(ChronoUnit.DAYS),
-        new RouteRequestTransitDataProviderFilter(routingRequest, transitService),
-        routingRequest
-      );
-
-    raptorService = new RaptorService<>(serverContext.raptorConfig());
+    this.serverContext = serverContext;
+    this.origin = LocationStringParser.fromOldStyleString(location);
+    // The calculator is created when the raster is computed, a cached raster needs no transit data
+    this.routingRequest = createRouteRequest(serverContext, time, modes);
+    this.traveltimeRequest = createTravelTimeRequest(routingRequest, cutoffs);
+
+    // A search from the current time is not cached, it is not repeated with the same time
+    rasterCacheKey =
+      time == null
+        ? null
+        : new TravelTimeRasterCache.Key(
+          location,
+          Instant.parse(time),
+          traveltimeRequest.maxCutoff,
+          modes,
+          serverContext.transitService().getRealtimeTransitLayer()
+        );
   }
 
   @GET
   @Path("/isochrone")
   @Produces(MediaType.APPLICATION_JSON)
   public Response getIsochrones() {
-    ZSampleGrid<WTWD> sampleGrid = getSampleGrid();
-
-    var isochrones = IsochroneRenderer.renderIsochrones(sampleGrid, traveltimeRequest);
-
-    var features = makeContourFeatures(isochrones);
+    var features = makeContourFeatures(getRaster(), traveltimeRequest);
 
     StreamingOutput out = outputStream -> {
       try (final GeoJSONWriter geoJSONWriter = new GeoJSONWriter(outputStream)) {
@@ -168,158 +103,116 @@ public class TravelTimeResource {
   @Path("/surface")
   @Produces("image/tiff")
   public Response getSurface() {
-    ZSampleGrid<WTWD> sampleGrid = getSampleGrid();
-
-    int minX = sampleGrid.getXMin();
-    int minY = sampleGrid.getYMin();
-    int maxY = sampleGrid.getYMax();
-
-    int width = sampleGrid.getXMax() - minX + 1;
-    int height = maxY - minY + 1;
-
-    Coordinate center = sampleGrid.getCenter();
-
-    double resX = sampleGrid.getCellSize().x;
-    double resY = sampleGrid.getCellSize().y;
-
-    var raster = RasterFactory.createBandedRaster(DataBuffer.TYPE_INT, width, height, 1, null);
-    var dataBuffer = raster.getDataBuffer();
-
-    // Initialize with NO DATA value
-    for (int i = 0; i < dataBuffer.getSize(); i++) {
-      dataBuffer.setElem(i, Integer.MIN_VALUE);
-    }
-
-    for (var s : sampleGrid) {
-      final WTWD z = s.getZ();
-      raster.setSample(s.getX() - minX, maxY - s.getY(), 0, z.wTime / z.w);
-    }
-
-    Envelope2D geom = new GridGeometry2D(
-      new GridEnvelope2D(0, 0, width, height),
-      new AffineTransform2D(resX, 0, 0, resY, center.x + resX * minX, center.y + resY * minY),
-      DefaultGeographicCRS.WGS84
-    )
-      .getEnvelope2D();
-
-    GridCoverage2D gridCoverage = new GridCoverageFactory().create("traveltime", raster, geom);
-
-    GeoTiffWriteParams wp = new GeoTiffWriteParams();
-    wp.setCompressionMode(MODE_EXPLICIT);
-    wp.setCompressionType("LZW");
-    ParameterValueGroup params = new GeoTiffFormat().getWriteParameters();
-    params.parameter(AbstractGridFormat.GEOTOOLS_WRITE_PARAMS.getName().toString()).setValue(wp);
+    TravelTimeRaster travelTimes = getRaster();
     StreamingOutput streamingOutput = outputStream -> {
-      GeoTiffWriter writer = new GeoTiffWriter(outputStream);
-      writer.write(gridCoverage, params.values().toArray(new GeneralParameterValue[1]));
-      writer.dispose();
+      writeGeoTiff(travelTimes, outputStream);
       outputStream.close();
     };
     return Response.ok().entity(streamingOutput).build();
   }
 
-  private ZSampleGrid<WTWD> getSampleGrid() {
-    final RouteRequest accessRequest = routingRequest.clone();
-
-    accessRequest.withPreferences(preferences ->
-      preferences.withStreet(it ->
-        it.withMaxAccessEgressDuration(traveltimeRequest.maxAccessDuration, Map.of())
-      )
-    );
-
-    try (
-      var temporaryVertices = new TemporaryVerticesContainer(
-        graph,
-        accessRequest,
-        accessRequest.journey().access().mode(),
-        StreetMode.NOT_SET
-      )
-    ) {
-      final Collection<DefaultAccessEgress> accessList = getAccess(
-        accessRequest,
-        temporaryVertices
-      );
+  private TravelTimeRaster getRaster() {
+    if (rasterCacheKey == null) {
+      return computeRaster();
+    }
+    return TravelTimeRasterCache
+      .forGraph(serverContext.graph())
+      .get(rasterCacheKey, this::computeRaster);
+  }
 
-      var arrivals = route(accessList).getArrivals();
+  private TravelTimeRaster computeRaster() {
+    return new TravelTimeCalculator(serverContext, routingRequest, traveltimeRequest)
+      .calculate(origin);
+  }
 
-      var spt = AStarBuilder
-        .allDirectionsMaxDuration(traveltimeRequest.maxCutoff)
-        .setRequest(routingRequest)
-        .setStreetRequest(accessRequest.journey().access())
-        .setVerticesContainer(temporaryVertices)
-        .setDominanceFunction(new DominanceFunction.EarliestArrival())
-        .setInitialStates(getInitialStates(arrivals, temporaryVertices))
-        .getShortestPathTree();
+  /**
+   * Create the calculator of a travel time request. The request parameters are the same for a
+   * single origin and for a batch of origins.
+   */
+  static TravelTimeCalculator createCalculator(
+    OtpServerRequestContext serverContext,
+    String time,
+    List<String> cutoffs,
+    String modes
+  ) {
+    RouteRequest routingRequest = createRouteRequest(serverContext, time, modes);
+    return new TravelTimeCalculator(
+      serverContext,
+      routingRequest,
+      createTravelTimeRequest(routingRequest, cutoffs)
+    );
+  }
 
-      return SampleGridRenderer.getSampleGrid(spt, traveltimeRequest);
+  private static RouteRequest createRouteRequest(
+    OtpServerRequestContext serverContext,
+    String time,
+    String modes
+  ) {
+    RouteRequest routingRequest = serverContext.defaultRouteRequest();
+    if (modes != null) {
+      routingRequest.journey().setModes(new QualifiedModeSet(modes).getRequestModes());
     }
+    routingRequest.setDateTime(time == null ? Instant.now() : Instant.parse(time));
+    return routingRequest;
   }
 
-  private Collection<DefaultAccessEgress> getAccess(
-    RouteRequest accessRequest,
-    TemporaryVerticesContainer temporaryVertices
+  private static TravelTimeRequest createTravelTimeRequest(
+    RouteRequest routingRequest,
+    List<String> cutoffs
   ) {
-    final Collection<NearbyStop> accessStops = AccessEgressRouter.streetSearch(
-      accessRequest,
-      temporaryVertices,
-      transitService,
-      routingRequest.journey().access(),
-      null,
-      false
+    return new TravelTimeRequest(
+      cutoffs.stream().map(DurationUtils::duration).toList(),
+      routingRequest
+        .preferences()
+        .street()
+        .maxAccessEgressDuration()
+        .valueOf(routingRequest.journey().access().mode())
     );
-    return new AccessEgressMapper().mapNearbyStops(accessStops, false);
   }
 
-  private List<State> getInitialStates(
-    StopArrivals arrivals,
-    TemporaryVerticesContainer temporaryVertices
-  ) {
-    List<State> initialStates = new ArrayList<>();
+  /**
+   * Write the raster as a GeoTIFF file with a single 32-bit int band. The cells without a travel
+   * time have the NO DATA value {@link TravelTimeRaster#NO_DATA}.
+   */
+  static void writeGeoTiff(TravelTimeRaster travelTimes, OutputStream outputStream)
+    throws IOException {
+    int minX = travelTimes.getXMin();
+    int minY = travelTimes.getYMin();
+    int maxY = travelTimes.getYMax();
 
-    AStarRequest aStarRequest = AStarRequestMapper
-      .map(routingRequest)
-      .withMode(routingRequest.journey().egress().mode())
-      .withArriveBy(false)
-      .build();
+    int width = travelTimes.getWidth();
+    int height = travelTimes.getHeight();
 
-    StateData stateData = StateData.getInitialStateData(aStarRequest);
+    Coordinate center = travelTimes.getCenter();
 
-    for (var vertex : temporaryVertices.getFromVertices()) {
-      // TODO StateData should be of direct mode here
-      initialStates.add(new State(vertex, startTime, stateData, aStarRequest));
-    }
+    double resX = travelTimes.getCellSize().x;
+    double resY = travelTimes.getCellSize().y;
 
-    // TODO - Add a method to return all Stops, not StopLocations
-    for (RegularStop stop : transitService.listRegularStops()) {
-      int index = stop.getIndex();
-      if (arrivals.reachedByTransit(index)) {
-        final int arrivalTime = arrivals.bestTransitArrivalTime(index);
-        Vertex v = graph.getStopVertexForStopId(stop.getId());
-        if (v != null) {
-          Instant time = startOfTime.plusSeconds(arrivalTime).toInstant();
-          State s = new State(v, time, stateData.clone(), aStarRequest);
-          s.weight = startTime.until(time, ChronoUnit.SECONDS);
-          initialStates.add(s);
-        }
-      }
+    var raster = RasterFactory.createBandedRaster(DataBuffer.TYPE_INT, width, height, 1, null);
+
+    int[] row = new int[width];
+    for (int y = minY; y <= maxY; y++) {
+      travelTimes.getRow(y, row);
+      raster.setSamples(0, maxY - y, width, 1, 0, row);
     }
-    return initialStates;
-  }
 
-  private RaptorResponse<TripSchedule> route(Collection<? extends RaptorAccessEgress> accessList) {
-    final RaptorRequest<TripSchedule> request = new RaptorRequestBuilder<TripSchedule>()
-      .profile(RaptorProfile.BEST_TIME)
-      .searchParams()
-      .earliestDepartureTime(ServiceDateUtils.secondsSinceStartOfTime(startOfTime, startTime))
-      .latestArrivalTime(ServiceDateUtils.secondsSinceStartOfTime(startOfTime, endTime))
-      .addAccessPaths(accessList)
-      .searchOneIterationOnly()
-      .timetableEnabled(false)
-      .allowEmptyEgressPaths(true)
-      .constrainedTransfersEnabled(false) // TODO: Not compatible with best times
-      .build();
+    Envelope2D geom = new GridGeometry2D(
+      new GridEnvelope2D(0, 0, width, height),
+      new AffineTransform2D(resX, 0, 0, resY, center.x + resX * minX, center.y + resY * minY),
+      DefaultGeographicCRS.WGS84
+    )
+      .getEnvelope2D();
+
+    GridCoverage2D gridCoverage = new GridCoverageFactory().create("traveltime", raster, geom);
 
-    return raptorService.route(request, requestTransitDataProvider);
+    GeoTiffWriteParams wp = new GeoTiffWriteParams();
+    wp.setCompressionMode(MODE_EXPLICIT);
+    wp.setCompressionType("LZW");
+    ParameterValueGroup params = new GeoTiffFormat().getWriteParameters();
+    params.parameter(AbstractGridFormat.GEOTOOLS_WRITE_PARAMS.getName().toString()).setValue(wp);
+    GeoTiffWriter writer = new GeoTiffWriter(outputStream);
+    writer.write(gridCoverage, params.values().toArray(new GeneralParameterValue[1]));
+    writer.dispose();
   }
 
   static SimpleFeatureType makeContourSchema() {
@@ -335,10 +228,14 @@ public class TravelTimeResource {
   }
 
   /**
-   * Create a geotools feature collection from a list of isochrones in the OTPA internal format.
-   * Once in a FeatureCollection, they can for example be exported as GeoJSON.
+   * Create a geotools feature collection of the isochrones of a raster, one for each cutoff. Once
+   * in a FeatureCollection, they can for example be exported as GeoJSON.
    */
-  private static SimpleFeatureCollection makeContourFeatures(List<IsochroneData> isochrones) {
+  static SimpleFeatureCollection makeContourFeatures(
+    TravelTimeRaster raster,
+    TravelTimeRequest traveltimeRequest
+  ) {
+    var isochrones = IsochroneRenderer.renderIsochrones(raster.toSampleGrid(), traveltimeRequest);
     DefaultFeatureCollection featureCollection = new DefaultFeatureCollection(null, contourSchema);
     SimpleFeatureBuilder fbuilder = new SimpleFeatureBuilder(contourSchema);
     for (IsochroneData isochrone : isochrones) {
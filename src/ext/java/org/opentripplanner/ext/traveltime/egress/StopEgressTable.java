@@ -0,0 +1,206 @@
+package org.opentripplanner.ext.traveltime.egress;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+
+/**
+ * The walk time from each stop to the street vertices around it, precomputed when the graph is
+ * built. Propagating the transit arrival times from the stops onto the street network is then a
+ * min-plus merge of arrays, instead of a street search from all reached stops.
+ * <p>
+ * The table is stored in compressed sparse row format: the entries of a stop are in
+ * {@code [offsets[stopIndex], offsets[stopIndex + 1])}, sorted by vertex index. The walk times are
+ * in seconds, at the walk speed used when the table was built, see {@link #walkSpeed()}.
+ * <p>
+ * The vertices are identified by their index in the graph, so the table is only valid for the
+ * graph it is built for and is stored with it. The walk times are found with the default routing
+ * preferences, without wheelchair accessibility, see {@link #isValidFor(RouteRequest)}.
+ * <p>
+ * THIS CLASS IS IMMUTABLE
+ */
+public class StopEgressTable implements Serializable {
+
+  /** The largest walk time which can be stored, the times are stored as unsigned 16-bit values. */
+  public static final int MAX_WALK_SECONDS = Character.MAX_VALUE;
+
+  private final double walkSpeed;
+  private final WalkTimePreferences walkTimePreferences;
+  private final int maxWalkSeconds;
+  private final int[] offsets;
+  private final int[] vertexIndexes;
+  private final char[] walkSeconds;
+
+  StopEgressTable(
+    double walkSpeed,
+    WalkTimePreferences walkTimePreferences,
+    int maxWalkSeconds,
+    int[] offsets,
+    int[] vertexIndexes,
+    char[] walkSeconds
+  ) {
+    this.walkSpeed = walkSpeed;
+    this.walkTimePreferences = walkTimePreferences;
+    this.maxWalkSeconds = maxWalkSeconds;
+    this.offsets = offsets;
+    this.vertexIndexes = vertexIndexes;
+    this.walkSeconds = walkSeconds;
+  }
+
+  /** The walk speed used to calculate the walk times, in m/s. */
+  public double walkSpeed() {
+    return walkSpeed;
+  }
+
+  /**
+   * Whether the walk times of the table are the same as those of a street search with the request.
+   * The walk speed may differ, the walk times are scaled to it. The other preferences which change
+   * the walk times must be the same as when the table was built, and the request must not require
+   * wheelchair accessibility, as the table is built without the accessibility restrictions.
+   */
+  public boolean isValidFor(RouteRequest request) {
+    return (
+      !request.wheelchair() &&
+      walkTimePreferences.equals(WalkTimePreferences.of(request.preferences()))
+    );
+  }
+
+  /** The walk times are included up to this limit, at the walk speed of the table. */
+  public int maxWalkSeconds() {
+    return maxWalkSeconds;
+  }
+
+  /** The number of stop to vertex entries in the table. */
+  public int size() {
+    return vertexIndexes.length;
+  }
+
+  /**
+   * The vertices reached from the stop, sorted by index, or an empty array if the stop is not in
+   * the table.
+   */
+  public int[] vertexIndexes(int stopIndex) {
+    if (!contains(stopIndex)) {
+      return new int[0];
+    }
+    return Arrays.copyOfRange(vertexIndexes, offsets[stopIndex], offsets[stopIndex + 1]);
+  }
+
+  /**
+   * Propagate the arrival time at a stop to the vertices reached from it. The time of each vertex
+   * in {@code secondsByVertexIndex} is set to the arrival time plus the walk time to the vertex,
+   * if it is earlier than the current time and not later than {@code maxSeconds}.
+   *
+   * @param arrivalSeconds       the arrival time at the stop
+   * @param walkSpeed            the walk speed of the request, the walk times of the table are
+   *                             scaled accordingly.
+   * @param secondsByVertexIndex the time of each vertex, indexed by vertex index. Vertices not
+   *                             reached have a time larger than {@code maxSeconds}.
+   */
+  public void propagate(
+    int stopIndex,
+    int arrivalSeconds,
+    double walkSpeed,
+    int maxSeconds,
+    int[] secondsByVertexIndex
+  ) {
+    if (!contains(stopIndex) || arrivalSeconds > maxSeconds) {
+      return;
+    }
+    double factor = this.walkSpeed / walkSpeed;
+    int end = offsets[stopIndex + 1];
+    for (int i = offsets[stopIndex]; i < end; ++i) {
+      int seconds = arrivalSeconds + (int) Math.round(walkSeconds[i] * factor);
+      int vertexIndex = vertexIndexes[i];
+      if (
+        seconds <= maxSeconds &&
+        vertexIndex < secondsByVertexIndex.length &&
+        seconds < secondsByVertexIndex[vertexIndex]
+      ) {
+        secondsByVertexIndex[vertexIndex] = seconds;
+      }
+    }
+  }
+
+  private boolean contains(int stopIndex) {
+    return stopIndex >= 0 && stopIndex + 1 < offsets.length;
+  }
+
+  /**
+   * Collect the entries of the table, one stop at a time, in stop index order.
+   */
+  static class Builder {
+
+    private final double walkSpeed;
+    private final WalkTimePreferences walkTimePreferences;
+    private final int maxWalkSeconds;
+    private final int[] offsets;
+    private int[] vertexIndexes = new int[1024];
+    private char[] walkSeconds = new char[1024];
+    private int size = 0;
+    private int nextStopIndex = 0;
+
+    /**
+     * @param preferences the routing preferences of the street searches from the stops.
+     */
+    Builder(RoutingPreferences preferences, int maxWalkSeconds, int stopIndexSize) {
+      if (maxWalkSeconds > MAX_WALK_SECONDS) {
+        throw new IllegalArgumentException(
+          "The max walk time " + maxWalkSeconds + "s is larger than " + MAX_WALK_SECONDS + "s."
+        );
+      }
+      this.walkSpeed = preferences.walk().speed();
+      this.walkTimePreferences = WalkTimePreferences.of(preferences);
+      this.maxWalkSeconds = maxWalkSeconds;
+      this.offsets = new int[stopIndexSize + 1];
+    }
+
+    /**
+     * Add the walk times of a stop. The stops must be added in increasing stop index order.
+     *
+     * @param vertexIndexes the vertices reached, sorted by index.
+     * @param walkSeconds   the walk time to each vertex.
+     */
+    void addStop(int stopIndex, int[] vertexIndexes, int[] walkSeconds) {
+      if (stopIndex < nextStopIndex) {
+        throw new IllegalArgumentException("The stops must be added in stop index order.");
+      }
+      closeStopsUpTo(stopIndex);
+      ensureCapacity(size + vertexIndexes.length);
+      for (int i = 0; i < vertexIndexes.length; ++i) {
+        this.vertexIndexes[size] = vertexIndexes[i];
+        this.walkSeconds[size] = (char) Math.min(walkSeconds[i], maxWalkSeconds);
+        ++size;
+      }
+      nextStopIndex = stopIndex + 1;
+    }
+
+    StopEgressTable build() {
+      closeStopsUpTo(offsets.length - 1);
+      return new StopEgressTable(
+        walkSpeed,
+        walkTimePreferences,
+        maxWalkSeconds,
+        offsets,
+        Arrays.copyOf(vertexIndexes, size),
+        Arrays.copyOf(walkSeconds, size)
+      );
+    }
+
+    /** Set the start offset of the stops without entries, up to and including the given stop. */
+    private void closeStopsUpTo(int stopIndex) {
+      for (int i = nextStopIndex; i <= stopIndex; ++i) {
+        offsets[i] = size;
+      }
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > vertexIndexes.length) {
+        int newCapacity = Math.max(capacity, vertexIndexes.length * 2);
+        vertexIndexes = Arrays.copyOf(vertexIndexes, newCapacity);
+        walkSeconds = Arrays.copyOf(walkSeconds, newCapacity);
+      }
+    }
+  }
+}
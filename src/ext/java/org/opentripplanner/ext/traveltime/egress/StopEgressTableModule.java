@@ -0,0 +1,119 @@
+package org.opentripplanner.ext.traveltime.egress;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.DominanceFunction;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+import org.opentripplanner.util.logging.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculate the walk time from each stop to the street vertices around it, and store the
+ * {@link StopEgressTable} in the graph. The stops are searched in parallel.
+ */
+public class StopEgressTableModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StopEgressTableModule.class);
+
+  private final Graph graph;
+  private final StopEgressTableParameters parameters;
+
+  public StopEgressTableModule(Graph graph, StopEgressTableParameters parameters) {
+    this.graph = graph;
+    this.parameters = parameters;
+  }
+
+  @Override
+  public void buildGraph() {
+    var request = new RouteRequest();
+
+    List<TransitStopVertex> stops = graph
+      .getVerticesOfType(TransitStopVertex.class)
+      .stream()
+      .sorted(Comparator.comparingInt(it -> it.getStop().getIndex()))
+      .toList();
+
+    ProgressTracker progress = ProgressTracker.track(
+      "Calculate walk times from stops to streets",
+      1000,
+      stops.size()
+    );
+    LOG.info(progress.startMessage());
+
+    long[][] entriesByStop = new long[stops.size()][];
+    IntStream
+      .range(0, stops.size())
+      .parallel()
+      .forEach(i -> {
+        entriesByStop[i] = findEntries(stops.get(i), request);
+        progress.step(m -> LOG.info(m));
+      });
+
+    int stopIndexSize = stops.isEmpty() ? 0 : stops.get(stops.size() - 1).getStop().getIndex() + 1;
+    var builder = new StopEgressTable.Builder(
+      request.preferences(),
+      (int) parameters.maxWalkDuration().toSeconds(),
+      stopIndexSize
+    );
+    for (int i = 0; i < stops.size(); ++i) {
+      long[] entries = entriesByStop[i];
+      int[] vertexIndexes = new int[entries.length];
+      int[] walkSeconds = new int[entries.length];
+      for (int j = 0; j < entries.length; ++j) {
+        vertexIndexes[j] = (int) (entries[j] >>> 32);
+        walkSeconds[j] = (int) entries[j];
+      }
+      builder.addStop(stops.get(i).getStop().getIndex(), vertexIndexes, walkSeconds);
+      entriesByStop[i] = null;
+    }
+    var table = builder.build();
+    graph.setStopEgressTable(table);
+
+    LOG.info(progress.completeMessage());
+    LOG.info("Stop egress table has {} entries for {} stops.", table.size(), stops.size());
+  }
+
+  @Override
+  public void checkInputs() {
+    // No inputs
+  }
+
+  /**
+   * Find the walk time to each vertex reached from the stop. Each entry is the vertex index in the
+   * upper 32 bits and the walk time in the lower 32 bits, so sorting the entries sorts them by
+   * vertex index.
+   */
+  private long[] findEntries(TransitStopVertex stop, RouteRequest request) {
+    ShortestPathTree spt = AStarBuilder
+      .allDirectionsMaxDuration(parameters.maxWalkDuration())
+      .setDominanceFunction(new DominanceFunction.EarliestArrival())
+      .setRequest(request)
+      .setStreetRequest(new StreetRequest(StreetMode.WALK))
+      .setFrom(stop)
+      .getShortestPathTree();
+
+    long[] entries = new long[spt.getVertexCount()];
+    int size = 0;
+    for (Vertex vertex : spt.getVertices()) {
+      State state = spt.getState(vertex);
+      if (state != null && vertex.getIndex() >= 0) {
+        entries[size++] = ((long) vertex.getIndex() << 32) | state.getElapsedTimeSeconds();
+      }
+    }
+    entries = Arrays.copyOf(entries, size);
+    Arrays.sort(entries);
+    return entries;
+  }
+}
@@ -0,0 +1,24 @@
+package org.opentripplanner.ext.traveltime.egress;
+
+import java.time.Duration;
+
+/**
+ * Parameters for precomputing the {@link StopEgressTable} when the graph is built.
+ *
+ * @param maxWalkDuration the walk times from each stop are included up to this duration, at the
+ *                        default walk speed. The size of the table grows with the square of this.
+ */
+public record StopEgressTableParameters(Duration maxWalkDuration) {
+  public static final Duration MAX_WALK_DURATION = Duration.ofMinutes(10);
+
+  public StopEgressTableParameters {
+    if (
+      maxWalkDuration.isNegative() ||
+      maxWalkDuration.toSeconds() > StopEgressTable.MAX_WALK_SECONDS
+    ) {
+      throw new IllegalArgumentException(
+        "The stop egress table maxWalkDuration is out of range: " + maxWalkDuration
+      );
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package org.opentripplanner.ext.traveltime.egress;
+
+import java.io.Serializable;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.routing.core.intersection_model.DrivingDirection;
+import org.opentripplanner.routing.core.intersection_model.IntersectionTraversalModel;
+
+/**
+ * The preferences, other than the walk speed, which change the walk times of a street search. The
+ * costs are not included, they do not change the earliest arrival times.
+ */
+record WalkTimePreferences(
+  double stairsTimeFactor,
+  int elevatorBoardTime,
+  int elevatorHopTime,
+  IntersectionTraversalModel intersectionTraversalModel,
+  DrivingDirection drivingDirection
+)
+  implements Serializable {
+  static WalkTimePreferences of(RoutingPreferences preferences) {
+    var street = preferences.street();
+    return new WalkTimePreferences(
+      preferences.walk().stairsTimeFactor(),
+      street.elevator().boardTime(),
+      street.elevator().hopTime(),
+      street.intersectionTraversalModel(),
+      street.drivingDirection()
+    );
+  }
+}
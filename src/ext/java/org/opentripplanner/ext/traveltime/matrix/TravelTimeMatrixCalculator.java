@@ -0,0 +1,250 @@
+package org.opentripplanner.ext.traveltime.matrix;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.opentripplanner.ext.traveltime.OrderedParallelTasks;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressRouter;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.DefaultAccessEgress;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.SlackProvider;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.AccessEgressMapper;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRoutingRequestTransitData;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RouteRequestTransitDataProviderFilter;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.TemporaryVerticesContainer;
+import org.opentripplanner.routing.error.RoutingValidationException;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.api.OtpServerRequestContext;
+import org.opentripplanner.transit.raptor.RaptorService;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.response.StopArrivals;
+import org.opentripplanner.transit.service.TransitService;
+import org.opentripplanner.util.time.ServiceDateUtils;
+
+/**
+ * Calculate the transit travel time from a set of origins to a set of destinations. The
+ * request-scoped Raptor transit data (including the transfers) and the egress street searches are
+ * prepared once and shared by the Raptor searches for all origins. No paths or itineraries are
+ * created, only the travel time and the number of transfers for the earliest arrival at each
+ * destination is kept.
+ * <p>
+ * A standard (not multi-criteria) Raptor search is performed for each origin. The searches are
+ * run in parallel on the Raptor thread pool, if the pool is configured (see
+ * {@code transit.searchThreadPoolSize}), if not the searches are run sequentially as the rows are
+ * consumed. Only a limited number of rows are calculated ahead of the consumer.
+ * <p>
+ * The travel time is measured from the requested departure time to the arrival at the
+ * destination. Only travel by transit is included, a destination reachable only by walking is
+ * reported as not reached.
+ */
+public class TravelTimeMatrixCalculator {
+
+  private final RouteRequest request;
+  private final Graph graph;
+  private final TransitService transitService;
+  private final RaptorService<TripSchedule> raptorService;
+  private final ExecutorService threadPool;
+  private final RaptorRoutingRequestTransitData transitData;
+  private final List<GenericLocation> origins;
+  private final int nDestinations;
+  private final int earliestDepartureTime;
+  private final int latestArrivalTime;
+
+  /**
+   * The egress paths for each destination, indexed by destination index.
+   */
+  private final List<Collection<DefaultAccessEgress>> egressByDestination;
+
+  public TravelTimeMatrixCalculator(
+    OtpServerRequestContext serverContext,
+    RouteRequest request,
+    Duration maxDuration,
+    List<GenericLocation> origins,
+    List<GenericLocation> destinations
+  ) {
+    this.request = request;
+    this.graph = serverContext.graph();
+    this.transitService = serverContext.transitService();
+    this.raptorService = new RaptorService<>(serverContext.raptorConfig());
+    this.threadPool = serverContext.raptorConfig().threadPool();
+    this.origins = origins;
+    this.nDestinations = destinations.size();
+
+    Instant startTime = request.dateTime();
+    Instant endTime = startTime.plus(maxDuration);
+    ZoneId zoneId = transitService.getTimeZone();
+    LocalDate startDate = LocalDate.ofInstant(startTime, zoneId);
+    LocalDate endDate = LocalDate.ofInstant(endTime, zoneId);
+    ZonedDateTime startOfTime = ServiceDateUtils.asStartOfService(startDate, zoneId);
+
+    this.earliestDepartureTime = ServiceDateUtils.secondsSinceStartOfTime(startOfTime, startTime);
+    this.latestArrivalTime = ServiceDateUtils.secondsSinceStartOfTime(startOfTime, endTime);
+
+    this.transitData =
+      new RaptorRoutingRequestTransitData(
+        transitService.getRealtimeTransitLayer(),
+        startOfTime,
+        0,
+        (int) Period.between(startDate, endDate).get(ChronoUnit.DAYS),
+        new RouteRequestTransitDataProviderFilter(request, transitService),
+        request
+      );
+
+    this.egressByDestination =
+      inParallel(nDestinations, i -> findEgress(destinations.get(i))).toList();
+  }
+
+  /**
+   * Calculate one row in the matrix for each origin. The rows are returned in the same order as
+   * the origins.
+   */
+  public Stream<TravelTimeMatrixRow> calculate() {
+    return inParallel(origins.size(), this::calculateRow);
+  }
+
+  public int numberOfDestinations() {
+    return nDestinations;
+  }
+
+  private TravelTimeMatrixRow calculateRow(int originIndex) {
+    var row = TravelTimeMatrixRow.notReached(originIndex, nDestinations);
+
+    Collection<DefaultAccessEgress> access = findAccess(origins.get(originIndex));
+    if (access.isEmpty()) {
+      return row;
+    }
+
+    StopArrivals arrivals = raptorService.route(raptorRequest(access), transitData).stopArrivals();
+
+    for (int i = 0; i < nDestinations; ++i) {
+      for (DefaultAccessEgress egress : egressByDestination.get(i)) {
+        int stop = egress.stop();
+        if (!arrivals.reachedByTransit(stop)) {
+          continue;
+        }
+        int arrivalTime = arrivals.bestTransitArrivalTime(stop) + egress.durationInSeconds();
+        if (arrivalTime > latestArrivalTime) {
+          continue;
+        }
+        int duration = arrivalTime - earliestDepartureTime;
+        if (!row.isReached(i) || duration < row.durations()[i]) {
+          row.durations()[i] = duration;
+          row.transfers()[i] = arrivals.smallestNumberOfTransfers(stop);
+        }
+      }
+    }
+    return row;
+  }
+
+  private Collection<DefaultAccessEgress> findAccess(GenericLocation origin) {
+    RouteRequest accessRequest = request.clone();
+    accessRequest.setFrom(origin);
+    accessRequest.journey().rental().setAllowArrivingInRentedVehicleAtDestination(false);
+
+    try (
+      var temporaryVertices = new TemporaryVerticesContainer(
+        graph,
+        accessRequest,
+        accessRequest.journey().access().mode(),
+        StreetMode.NOT_SET
+      )
+    ) {
+      var nearbyStops = AccessEgressRouter.streetSearch(
+        accessRequest,
+        temporaryVertices,
+        transitService,
+        accessRequest.journey().access(),
+        null,
+        false
+      );
+      return new AccessEgressMapper().mapNearbyStops(nearbyStops, false);
+    } catch (RoutingValidationException e) {
+      // The origin is not linked to the street network
+      return List.of();
+    }
+  }
+
+  private Collection<DefaultAccessEgress> findEgress(GenericLocation destination) {
+    RouteRequest egressRequest = request.clone();
+    egressRequest.setTo(destination);
+
+    try (
+      var temporaryVertices = new TemporaryVerticesContainer(
+        graph,
+        egressRequest,
+        StreetMode.NOT_SET,
+        egressRequest.journey().egress().mode()
+      )
+    ) {
+      var nearbyStops = AccessEgressRouter.streetSearch(
+        egressRequest,
+        temporaryVertices,
+        transitService,
+        egressRequest.journey().egress(),
+        null,
+        true
+      );
+      return new AccessEgressMapper().mapNearbyStops(nearbyStops, true);
+    } catch (RoutingValidationException e) {
+      // The destination is not linked to the street network
+      return List.of();
+    }
+  }
+
+  private RaptorRequest<TripSchedule> raptorRequest(Collection<DefaultAccessEgress> access) {
+    var preferences = request.preferences();
+    var builder = new RaptorRequestBuilder<TripSchedule>();
+
+    builder.slackProvider(
+      new SlackProvider(
+        preferences.transfer().slack(),
+        preferences.transit().boardSlack(),
+        preferences.transit().alightSlack()
+      )
+    );
+
+    if (preferences.transfer().maxTransfers() != null) {
+      builder.searchParams().maxNumberOfTransfers(preferences.transfer().maxTransfers());
+    }
+
+    return builder
+      .profile(RaptorProfile.STANDARD)
+      .cancellationToken(request.cancellationToken())
+      .searchParams()
+      .earliestDepartureTime(earliestDepartureTime)
+      .latestArrivalTime(latestArrivalTime)
+      .addAccessPaths(access)
+      .searchOneIterationOnly()
+      .timetableEnabled(false)
+      .allowEmptyEgressPaths(true)
+      .constrainedTransfersEnabled(false)
+      .build();
+  }
+
+  /**
+   * Run the given task for each index on the Raptor thread pool, or lazily in the calling thread
+   * if no pool exist. The results are returned in index order.
+   */
+  private <T> Stream<T> inParallel(int size, IntFunction<T> task) {
+    return OrderedParallelTasks.run(
+      threadPool,
+      size,
+      OrderedParallelTasks.DEFAULT_MAX_PENDING,
+      task
+    );
+  }
+}
@@ -0,0 +1,99 @@
+package org.opentripplanner.ext.traveltime.matrix;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.opentripplanner.api.common.LocationStringParser;
+import org.opentripplanner.api.parameter.QualifiedModeSet;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.standalone.api.OtpServerRequestContext;
+import org.opentripplanner.util.time.DurationUtils;
+
+/**
+ * Calculate a many-to-many transit travel time matrix. The origins and destinations are passed in
+ * the request body as JSON: {@code {"origins": ["lat,lon", ...], "destinations": [...]}}. The
+ * result is streamed as CSV or as a compact binary matrix, see {@link TravelTimeMatrixWriter}.
+ */
+@Path("/traveltime/matrix")
+public class TravelTimeMatrixResource {
+
+  private static final String FORMAT_CSV = "csv";
+  private static final String FORMAT_BINARY = "binary";
+
+  private final OtpServerRequestContext serverContext;
+
+  public TravelTimeMatrixResource(@Context OtpServerRequestContext serverContext) {
+    this.serverContext = serverContext;
+  }
+
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces({ "text/csv", MediaType.APPLICATION_OCTET_STREAM })
+  public Response getMatrix(
+    HashMap<String, List<String>> body,
+    @QueryParam("time") String time,
+    @QueryParam("maxDuration") @DefaultValue("2h") String maxDuration,
+    @QueryParam("modes") String modes,
+    @QueryParam("format") @DefaultValue(FORMAT_CSV) String format
+  ) {
+    if (body == null || !body.containsKey("origins") || !body.containsKey("destinations")) {
+      return badRequest("Both 'origins' and 'destinations' must be given in the request body.");
+    }
+    if (!FORMAT_CSV.equals(format) && !FORMAT_BINARY.equals(format)) {
+      return badRequest("Unknown format: " + format);
+    }
+
+    List<GenericLocation> origins = parseLocations(body.get("origins"));
+    List<GenericLocation> destinations = parseLocations(body.get("destinations"));
+
+    RouteRequest request = serverContext.defaultRouteRequest();
+    request.setDateTime(time == null ? Instant.now() : Instant.parse(time));
+    if (modes != null) {
+      request.journey().setModes(new QualifiedModeSet(modes).getRequestModes());
+    }
+
+    var calculator = new TravelTimeMatrixCalculator(
+      serverContext,
+      request,
+      DurationUtils.duration(maxDuration),
+      origins,
+      destinations
+    );
+
+    StreamingOutput out = FORMAT_CSV.equals(format)
+      ? outputStream -> TravelTimeMatrixWriter.writeCsv(calculator.calculate(), outputStream)
+      : outputStream ->
+        TravelTimeMatrixWriter.writeBinary(
+          calculator.calculate(),
+          origins.size(),
+          destinations.size(),
+          outputStream
+        );
+
+    var type = FORMAT_CSV.equals(format) ? "text/csv" : MediaType.APPLICATION_OCTET_STREAM;
+    return Response.ok(out, type).build();
+  }
+
+  private static List<GenericLocation> parseLocations(List<String> locations) {
+    return locations.stream().map(LocationStringParser::fromOldStyleString).toList();
+  }
+
+  private static Response badRequest(String message) {
+    return Response
+      .status(Response.Status.BAD_REQUEST)
+      .type(MediaType.TEXT_PLAIN_TYPE)
+      .entity(message)
+      .build();
+  }
+}
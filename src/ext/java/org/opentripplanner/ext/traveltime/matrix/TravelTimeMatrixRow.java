@@ -0,0 +1,24 @@
+package org.opentripplanner.ext.traveltime.matrix;
+
+import java.util.Arrays;
+
+/**
+ * The travel times and number of transfers from one origin to all destinations. The arrays are
+ * indexed by the destination index. Unreachable destinations have the value
+ * {@link #NOT_REACHED}.
+ */
+public record TravelTimeMatrixRow(int originIndex, int[] durations, int[] transfers) {
+  public static final int NOT_REACHED = -1;
+
+  static TravelTimeMatrixRow notReached(int originIndex, int nDestinations) {
+    int[] durations = new int[nDestinations];
+    int[] transfers = new int[nDestinations];
+    Arrays.fill(durations, NOT_REACHED);
+    Arrays.fill(transfers, NOT_REACHED);
+    return new TravelTimeMatrixRow(originIndex, durations, transfers);
+  }
+
+  public boolean isReached(int destinationIndex) {
+    return durations[destinationIndex] != NOT_REACHED;
+  }
+}
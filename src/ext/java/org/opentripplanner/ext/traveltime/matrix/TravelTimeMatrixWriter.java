@@ -0,0 +1,100 @@
+package org.opentripplanner.ext.traveltime.matrix;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.stream.Stream;
+
+/**
+ * Write the travel time matrix rows to a stream as they are calculated. Two formats are
+ * supported:
+ * <ul>
+ *   <li>
+ *     CSV - One line per reached origin/destination pair:
+ *     {@code originIndex,destinationIndex,durationSeconds,transfers}.
+ *     Pairs not reached are left out.
+ *   </li>
+ *   <li>
+ *     Binary - Big-endian: a header with the number of origins and destinations as {@code int}s,
+ *     followed by one record per origin/destination pair in row-major order: the duration in
+ *     seconds as an {@code int} and the number of transfers as a {@code short}. Pairs not reached
+ *     have the value {@code -1}.
+ *   </li>
+ * </ul>
+ */
+public class TravelTimeMatrixWriter {
+
+  private static final String CSV_HEADER = "origin,destination,duration,transfers\n";
+
+  public static void writeCsv(Stream<TravelTimeMatrixRow> rows, OutputStream out)
+    throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    writer.write(CSV_HEADER);
+    try {
+      rows.forEach(row -> {
+        try {
+          writeCsvRow(row, writer);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.flush();
+  }
+
+  public static void writeBinary(
+    Stream<TravelTimeMatrixRow> rows,
+    int nOrigins,
+    int nDestinations,
+    OutputStream out
+  ) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(nOrigins);
+    data.writeInt(nDestinations);
+    try {
+      rows.forEach(row -> {
+        try {
+          writeBinaryRow(row, data);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    data.flush();
+  }
+
+  private static void writeCsvRow(TravelTimeMatrixRow row, Writer writer) throws IOException {
+    for (int i = 0; i < row.durations().length; ++i) {
+      if (row.isReached(i)) {
+        writer
+          .append(Integer.toString(row.originIndex()))
+          .append(',')
+          .append(Integer.toString(i))
+          .append(',')
+          .append(Integer.toString(row.durations()[i]))
+          .append(',')
+          .append(Integer.toString(row.transfers()[i]))
+          .append('\n');
+      }
+    }
+  }
+
+  private static void writeBinaryRow(TravelTimeMatrixRow row, DataOutputStream data)
+    throws IOException {
+    for (int i = 0; i < row.durations().length; ++i) {
+      data.writeInt(row.durations()[i]);
+      data.writeShort(row.transfers()[i]);
+    }
+  }
+}
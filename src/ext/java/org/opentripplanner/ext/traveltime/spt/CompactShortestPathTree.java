@@ -0,0 +1,200 @@
+package org.opentripplanner.ext.traveltime.spt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+
+/**
+ * The vertices reached by a one-to-many street search, with the travel time to each vertex and the
+ * mode used to reach it, stored in primitive arrays.
+ * <p>
+ * Only the best final state of each vertex is kept, the other states of the search are not
+ * referenced, so the {@link ShortestPathTree} can be released as soon as this is created. The
+ * vertices reached by walking from the stops can be merged in from precomputed walk times. The
+ * vertices are looked up by their index in the graph. Temporary vertices have no index, they are
+ * looked up in a small map instead.
+ */
+public class CompactShortestPathTree {
+
+  private static final int NOT_REACHED = -1;
+
+  private final RoutingPreferences preferences;
+  private final Vertex[] vertices;
+  private final int[] elapsedSeconds;
+  private final TraverseMode[] modes;
+  private final boolean[] backWalkingBike;
+
+  /** The position of each reached vertex in the arrays above, by the index of the vertex. */
+  private final int[] positionByVertexIndex;
+  private final Map<Vertex, Integer> positionByTemporaryVertex;
+
+  private CompactShortestPathTree(
+    RoutingPreferences preferences,
+    Vertex[] vertices,
+    int[] elapsedSeconds,
+    TraverseMode[] modes,
+    boolean[] backWalkingBike,
+    int vertexIndexSize
+  ) {
+    this.preferences = preferences;
+    this.vertices = vertices;
+    this.elapsedSeconds = elapsedSeconds;
+    this.modes = modes;
+    this.backWalkingBike = backWalkingBike;
+    this.positionByVertexIndex = new int[vertexIndexSize];
+    this.positionByTemporaryVertex = new IdentityHashMap<>();
+    Arrays.fill(positionByVertexIndex, NOT_REACHED);
+
+    for (int i = 0; i < vertices.length; ++i) {
+      int index = vertices[i].getIndex();
+      if (index >= 0 && index < vertexIndexSize) {
+        positionByVertexIndex[index] = i;
+      } else {
+        positionByTemporaryVertex.put(vertices[i], i);
+      }
+    }
+  }
+
+  /**
+   * Keep the best final state of each vertex of the shortest path tree.
+   */
+  public static CompactShortestPathTree of(ShortestPathTree spt, Graph graph) {
+    return of(spt, graph, null, new int[0], null);
+  }
+
+  /**
+   * Merge the best final states of the shortest path tree with the vertices reached by walking
+   * from the stops, see {@code StopEgressTable}. The earliest of the two is kept for each vertex.
+   *
+   * @param preferences          used if the shortest path tree has no states
+   * @param egressSecondsByIndex the elapsed time of the vertices reached from the stops, indexed
+   *                             by vertex index. Vertices not reached have the value
+   *                             {@link Integer#MAX_VALUE}.
+   * @param egressMode           the mode used to reach the vertices from the stops
+   */
+  public static CompactShortestPathTree of(
+    ShortestPathTree spt,
+    Graph graph,
+    RoutingPreferences preferences,
+    int[] egressSecondsByIndex,
+    TraverseMode egressMode
+  ) {
+    int vertexIndexSize = graph.countVertexIndexes();
+    int[] egressSeconds = Arrays.copyOf(egressSecondsByIndex, vertexIndexSize);
+    if (egressSecondsByIndex.length < vertexIndexSize) {
+      Arrays.fill(egressSeconds, egressSecondsByIndex.length, vertexIndexSize, Integer.MAX_VALUE);
+    }
+
+    List<State> states = new ArrayList<>(spt.getVertexCount());
+    for (Vertex vertex : spt.getVertices()) {
+      State state = spt.getState(vertex);
+      if (state == null || !state.isFinal()) {
+        continue;
+      }
+      preferences = state.getPreferences();
+      int index = vertex.getIndex();
+      if (index >= 0 && index < vertexIndexSize) {
+        if (egressSeconds[index] <= state.getElapsedTimeSeconds()) {
+          continue;
+        }
+        // The state is earlier, the vertex is not added again from the egress times
+        egressSeconds[index] = Integer.MAX_VALUE;
+      }
+      states.add(state);
+    }
+
+    int nEgress = 0;
+    for (int index = 0; index < vertexIndexSize; ++index) {
+      if (egressSeconds[index] == Integer.MAX_VALUE) {
+        continue;
+      }
+      if (graph.getVertexByIndex(index) == null) {
+        // The vertex is removed from the graph
+        egressSeconds[index] = Integer.MAX_VALUE;
+      } else {
+        ++nEgress;
+      }
+    }
+
+    int size = states.size() + nEgress;
+    Vertex[] vertices = new Vertex[size];
+    int[] elapsedSeconds = new int[size];
+    TraverseMode[] modes = new TraverseMode[size];
+    boolean[] backWalkingBike = new boolean[size];
+
+    int i = 0;
+    for (State state : states) {
+      vertices[i] = state.getVertex();
+      elapsedSeconds[i] = (int) state.getElapsedTimeSeconds();
+      modes[i] = state.getNonTransitMode();
+      backWalkingBike[i] = state.isBackWalkingBike();
+      ++i;
+    }
+    for (int index = 0; index < vertexIndexSize; ++index) {
+      if (egressSeconds[index] != Integer.MAX_VALUE) {
+        vertices[i] = graph.getVertexByIndex(index);
+        elapsedSeconds[i] = egressSeconds[index];
+        modes[i] = egressMode;
+        ++i;
+      }
+    }
+
+    return new CompactShortestPathTree(
+      preferences,
+      vertices,
+      elapsedSeconds,
+      modes,
+      backWalkingBike,
+      vertexIndexSize
+    );
+  }
+
+  /**
+   * The preferences of the search, used to calculate the speed along the streets.
+   */
+  public RoutingPreferences preferences() {
+    return preferences;
+  }
+
+  /** The number of vertices reached. */
+  public int size() {
+    return vertices.length;
+  }
+
+  /**
+   * The position of the vertex, or {@code -1} if it is not reached.
+   */
+  public int positionOf(Vertex vertex) {
+    int index = vertex.getIndex();
+    if (index >= 0 && index < positionByVertexIndex.length) {
+      return positionByVertexIndex[index];
+    }
+    return positionByTemporaryVertex.getOrDefault(vertex, NOT_REACHED);
+  }
+
+  public Vertex vertex(int position) {
+    return vertices[position];
+  }
+
+  /** The travel time from the start of the search to the vertex. */
+  public int elapsedSeconds(int position) {
+    return elapsedSeconds[position];
+  }
+
+  /** The street mode used when the vertex is reached. */
+  public TraverseMode mode(int position) {
+    return modes[position];
+  }
+
+  public boolean isBackWalkingBike(int position) {
+    return backWalkingBike[position];
+  }
+}
@@ -0,0 +1,271 @@
+package org.opentripplanner.ext.vectortiles;
+
+import com.wdtinc.mapbox_vector_tile.VectorTile;
+import com.wdtinc.mapbox_vector_tile.build.MvtLayerBuild;
+import com.wdtinc.mapbox_vector_tile.build.MvtLayerParams;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerType;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.util.OtpAppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The encoded vector tiles of the static layers, rendered when the graph is built by the
+ * {@link VectorTilePyramidModule}. The archive is saved in its own file next to the graph and
+ * loaded together with it. Each tile is stored as an encoded MVT tile with one layer, so the
+ * tiles of several layers can be joined by concatenating the bytes.
+ * <p>
+ * All tiles inside the zoom range of a layer are covered by the archive; a tile without any
+ * features is not stored, an empty layer is returned for it instead.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+public class VectorTileArchive {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VectorTileArchive.class);
+
+  /** "OTVT" - OTP vector tiles */
+  private static final int MAGIC = 0x4f545654;
+  private static final int FORMAT_VERSION = 1;
+
+  private final Instant graphBuildTime;
+  private final List<ArchivedLayer> layers;
+
+  VectorTileArchive(Instant graphBuildTime, List<ArchivedLayer> layers) {
+    this.graphBuildTime = graphBuildTime;
+    this.layers = List.copyOf(layers);
+  }
+
+  /**
+   * Load the archive from the given source. {@code null} is returned if the source does not
+   * exist, or if the archive was built together with another graph than the given one.
+   */
+  @Nullable
+  public static VectorTileArchive load(DataSource source, Graph graph) {
+    if (!source.exists()) {
+      return null;
+    }
+    LOG.info("Reading vector tiles from '{}'", source.path());
+
+    try (var in = new DataInputStream(new BufferedInputStream(source.asInputStream()))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        LOG.warn("Unsupported vector tile archive, the tiles are rendered on request.");
+        return null;
+      }
+      var buildTime = Instant.ofEpochSecond(in.readLong(), in.readInt());
+      if (!buildTime.equals(graph.buildTime)) {
+        LOG.warn(
+          "The vector tile archive is not built with the loaded graph, the tiles are rendered " +
+          "on request. Archive built: {}, graph built: {}",
+          buildTime,
+          graph.buildTime
+        );
+        return null;
+      }
+      int nLayers = in.readInt();
+      List<ArchivedLayer> layers = new ArrayList<>(nLayers);
+      for (int i = 0; i < nLayers; ++i) {
+        layers.add(ArchivedLayer.read(in));
+      }
+      var archive = new VectorTileArchive(buildTime, layers);
+      LOG.info("Vector tiles read. {} tiles in {} layers.", archive.size(), layers.size());
+      return archive;
+    } catch (IOException e) {
+      throw new OtpAppException(
+        "Unable to read vector tiles: " + source.path() + ", " + e.getMessage()
+      );
+    }
+  }
+
+  /**
+   * Find the encoded tile for the given layer. The layer parameters must match the parameters the
+   * tile was rendered with.
+   *
+   * @return {@code null} if the tile is not part of the archive.
+   */
+  @Nullable
+  byte[] findTile(LayerParameters layer, Locale locale, int x, int y, int z) {
+    if (locale == null) {
+      return null;
+    }
+    var language = locale.getLanguage().toLowerCase();
+
+    for (ArchivedLayer it : layers) {
+      if (it.matches(layer, language, z)) {
+        return it.tiles.getOrDefault(tileKey(x, y, z), it.emptyTile);
+      }
+    }
+    return null;
+  }
+
+  void write(DataSource target) {
+    LOG.info("Writing {} vector tiles to '{}'", size(), target.path());
+
+    try (var out = new DataOutputStream(new BufferedOutputStream(target.asOutputStream()))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(graphBuildTime.getEpochSecond());
+      out.writeInt(graphBuildTime.getNano());
+      out.writeInt(layers.size());
+      for (ArchivedLayer layer : layers) {
+        layer.write(out);
+      }
+    } catch (IOException e) {
+      throw new OtpAppException(
+        "Unable to write vector tiles: " + target.path() + ", " + e.getMessage()
+      );
+    }
+  }
+
+  int size() {
+    return layers.stream().mapToInt(it -> it.tiles.size()).sum();
+  }
+
+  static long tileKey(int x, int y, int z) {
+    return ((long) z << 48) | ((long) x << 24) | y;
+  }
+
+  static int tileX(long key) {
+    return (int) ((key >> 24) & 0xFFFFFF);
+  }
+
+  static int tileY(long key) {
+    return (int) (key & 0xFFFFFF);
+  }
+
+  static int tileZ(long key) {
+    return (int) (key >> 48);
+  }
+
+  /**
+   * The tiles of one layer in one language. The name, type, mapper and expansion factor are the
+   * parameters the tiles are rendered with.
+   */
+  static class ArchivedLayer {
+
+    private final String name;
+    private final LayerType type;
+    private final String mapper;
+    private final double expansionFactor;
+    private final int minZoom;
+    private final int maxZoom;
+    private final String language;
+    private final Map<Long, byte[]> tiles;
+    private final byte[] emptyTile;
+
+    ArchivedLayer(
+      LayerParameters layer,
+      int minZoom,
+      int maxZoom,
+      String language,
+      Map<Long, byte[]> tiles
+    ) {
+      this(
+        layer.name(),
+        layer.type(),
+        layer.mapper(),
+        layer.expansionFactor(),
+        minZoom,
+        maxZoom,
+        language,
+        tiles
+      );
+    }
+
+    private ArchivedLayer(
+      String name,
+      LayerType type,
+      String mapper,
+      double expansionFactor,
+      int minZoom,
+      int maxZoom,
+      String language,
+      Map<Long, byte[]> tiles
+    ) {
+      this.name = name;
+      this.type = type;
+      this.mapper = mapper;
+      this.expansionFactor = expansionFactor;
+      this.minZoom = minZoom;
+      this.maxZoom = maxZoom;
+      this.language = language;
+      this.tiles = Map.copyOf(tiles);
+      this.emptyTile =
+        VectorTile.Tile
+          .newBuilder()
+          .addLayers(MvtLayerBuild.newLayerBuilder(name, MvtLayerParams.DEFAULT).build())
+          .build()
+          .toByteArray();
+    }
+
+    private boolean matches(LayerParameters layer, String language, int z) {
+      return (
+        minZoom <= z &&
+        z <= maxZoom &&
+        this.language.equals(language) &&
+        name.equals(layer.name()) &&
+        type == layer.type() &&
+        mapper.equals(layer.mapper()) &&
+        expansionFactor == layer.expansionFactor()
+      );
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeUTF(name);
+      out.writeUTF(type.name());
+      out.writeUTF(mapper);
+      out.writeDouble(expansionFactor);
+      out.writeInt(minZoom);
+      out.writeInt(maxZoom);
+      out.writeUTF(language);
+      out.writeInt(tiles.size());
+      for (Map.Entry<Long, byte[]> tile : tiles.entrySet()) {
+        out.writeLong(tile.getKey());
+        out.writeInt(tile.getValue().length);
+        out.write(tile.getValue());
+      }
+    }
+
+    private static ArchivedLayer read(DataInputStream in) throws IOException {
+      var name = in.readUTF();
+      var type = LayerType.valueOf(in.readUTF());
+      var mapper = in.readUTF();
+      var expansionFactor = in.readDouble();
+      var minZoom = in.readInt();
+      var maxZoom = in.readInt();
+      var language = in.readUTF();
+      int nTiles = in.readInt();
+      Map<Long, byte[]> tiles = new HashMap<>();
+      for (int i = 0; i < nTiles; ++i) {
+        long key = in.readLong();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        tiles.put(key, bytes);
+      }
+      return new ArchivedLayer(
+        name,
+        type,
+        mapper,
+        expansionFactor,
+        minZoom,
+        maxZoom,
+        language,
+        tiles
+      );
+    }
+  }
+}
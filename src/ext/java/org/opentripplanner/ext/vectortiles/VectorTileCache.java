@@ -0,0 +1,142 @@
+package org.opentripplanner.ext.vectortiles;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerType;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.server.EtagRequestFilter;
+
+/**
+ * Cache of encoded vector tiles, owned by the graph the tiles are rendered from. A tile is cached
+ * together with its ETag, so a request with a matching {@code If-None-Match} header can be
+ * answered without rendering or hashing the tile.
+ * <p>
+ * Tiles with only static layers, like stops and stations, are kept as long as the graph is in use,
+ * unless evicted because the cache is full. Tiles with vehicle rental or vehicle parking layers
+ * are stored with the version of the realtime data they were rendered from, and rendered again
+ * when the updaters have changed the data.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+public class VectorTileCache {
+
+  private static final long MAX_CACHED_BYTES = 256L * 1024 * 1024;
+
+  private final Cache<TileKey, Tile> tiles = CacheBuilder
+    .newBuilder()
+    .maximumWeight(MAX_CACHED_BYTES)
+    .weigher((TileKey key, Tile tile) -> tile.bytes().length)
+    .build();
+
+  VectorTileCache() {}
+
+  static VectorTileCache forGraph(Graph graph) {
+    var existingCache = graph.getVectorTileCache();
+    if (existingCache != null) {
+      return existingCache;
+    }
+    return createForGraph(graph);
+  }
+
+  /**
+   * Return the cached tile, or render and cache it if it is missing or rendered from outdated
+   * realtime data.
+   *
+   * @param graph    the graph the tile is rendered from, used to find the realtime data version
+   * @param layers   the layers included in the tile
+   * @param renderer render and encode the tile, called only if the cached tile can not be used
+   */
+  Tile get(
+    Graph graph,
+    TileKey key,
+    Collection<LayerParameters> layers,
+    Supplier<byte[]> renderer
+  ) {
+    var version = realtimeVersion(graph, layers);
+    var tile = tiles.getIfPresent(key);
+
+    if (tile != null && tile.realtimeVersion().equals(version)) {
+      return tile;
+    }
+    tile = createTile(renderer.get(), layers, version);
+    tiles.put(key, tile);
+    return tile;
+  }
+
+  private static synchronized VectorTileCache createForGraph(Graph graph) {
+    var existingCache = graph.getVectorTileCache();
+    if (existingCache != null) {
+      return existingCache;
+    }
+
+    var newCache = new VectorTileCache();
+    graph.setVectorTileCache(newCache);
+    return newCache;
+  }
+
+  private static RealtimeVersion realtimeVersion(Graph graph, Collection<LayerParameters> layers) {
+    long vehicleRental = -1;
+    long vehicleParking = -1;
+
+    for (LayerParameters layer : layers) {
+      if (isVehicleRental(layer.type())) {
+        vehicleRental = graph.getVehicleRentalService().getVersion();
+      } else if (isVehicleParking(layer.type())) {
+        vehicleParking = graph.getVehicleParkingService().getVersion();
+      }
+    }
+    return new RealtimeVersion(vehicleRental, vehicleParking);
+  }
+
+  private static Tile createTile(
+    byte[] bytes,
+    Collection<LayerParameters> layers,
+    RealtimeVersion version
+  ) {
+    int cacheMaxSeconds = layers
+      .stream()
+      .mapToInt(LayerParameters::cacheMaxSeconds)
+      .min()
+      .orElse(Integer.MAX_VALUE);
+
+    return new Tile(
+      bytes,
+      EtagRequestFilter.generateETagHeaderValue(bytes),
+      cacheMaxSeconds,
+      version
+    );
+  }
+
+  private static boolean isVehicleRental(LayerType type) {
+    return switch (type) {
+      case VehicleRental, VehicleRentalStation, VehicleRentalVehicle -> true;
+      default -> false;
+    };
+  }
+
+  private static boolean isVehicleParking(LayerType type) {
+    return switch (type) {
+      case VehicleParking, VehicleParkingGroup -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * The layers are the comma separated list of layer names in the request. The locale is part of
+   * the key, since translatable fields are translated when the tile is rendered.
+   */
+  record TileKey(String layers, int x, int y, int z, Locale locale) {}
+
+  /**
+   * @param cacheMaxSeconds the lowest {@code cacheMaxSeconds} of the included layers, or
+   *                        {@link Integer#MAX_VALUE} if no layers are included.
+   */
+  record Tile(byte[] bytes, String etag, int cacheMaxSeconds, RealtimeVersion realtimeVersion) {}
+
+  /** The version of the realtime data in a tile, {@code -1} is used if not included. */
+  record RealtimeVersion(long vehicleRental, long vehicleParking) {}
+}
@@ -0,0 +1,195 @@
+package org.opentripplanner.ext.vectortiles;
+
+import com.wdtinc.mapbox_vector_tile.VectorTile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.ext.vectortiles.VectorTileArchive.ArchivedLayer;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerType;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.transit.model.basic.WgsCoordinate;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.model.site.Station;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.TransitModel;
+import org.opentripplanner.transit.service.TransitService;
+import org.opentripplanner.util.logging.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Render all tiles of the static vector tile layers, stops and stations, when the graph is built.
+ * The content of these layers only change when a new graph is built, so the tiles can be served
+ * from the {@link VectorTileArchive} without rendering them on each request.
+ * <p>
+ * Only tiles close enough to a stop or station to include it are rendered, the rest of the
+ * pyramid is empty. The tiles are rendered in parallel.
+ */
+public class VectorTilePyramidModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VectorTilePyramidModule.class);
+
+  /**
+   * The tiles are selected in the tile coordinate space, where the latitude is not linear within a
+   * tile. This margin, as a fraction of the tile size, makes sure all tiles including a feature in
+   * the expanded query envelope are rendered.
+   */
+  private static final double TILE_MARGIN = 0.1;
+
+  private final Graph graph;
+  private final TransitModel transitModel;
+  private final VectorTilePyramidParameters parameters;
+  private final DataSource output;
+
+  public VectorTilePyramidModule(
+    Graph graph,
+    TransitModel transitModel,
+    VectorTilePyramidParameters parameters,
+    @Nullable DataSource output
+  ) {
+    this.graph = graph;
+    this.transitModel = transitModel;
+    this.parameters = parameters;
+    this.output = output;
+  }
+
+  @Override
+  public void buildGraph() {
+    /* Initialize transit model index which is needed by the stop layer */
+    if (transitModel.getTransitModelIndex() == null) {
+      transitModel.index();
+    }
+    TransitService transitService = new DefaultTransitService(transitModel);
+    List<ArchivedLayer> layers = new ArrayList<>();
+
+    for (LayerParameters layer : parameters.layers()) {
+      if (!isStatic(layer.type())) {
+        LOG.warn(
+          "The vector tile layer {} of type {} is not static and can not be pre-rendered.",
+          layer.name(),
+          layer.type()
+        );
+        continue;
+      }
+      int minZoom = Math.max(parameters.minZoom(), layer.minZoom());
+      int maxZoom = Math.min(parameters.maxZoom(), layer.maxZoom());
+      if (minZoom > maxZoom) {
+        continue;
+      }
+      var coordinates = coordinates(layer.type(), transitService);
+      Set<Long> tileKeys = findTiles(coordinates, layer, minZoom, maxZoom);
+
+      for (String language : parameters.languages()) {
+        var tiles = renderTiles(layer, tileKeys, new Locale(language), transitService);
+        layers.add(new ArchivedLayer(layer, minZoom, maxZoom, language, tiles));
+      }
+    }
+
+    var archive = new VectorTileArchive(graph.buildTime, layers);
+    graph.setVectorTileArchive(archive);
+
+    if (output != null) {
+      archive.write(output);
+    }
+  }
+
+  @Override
+  public void checkInputs() {
+    // No inputs
+  }
+
+  static boolean isStatic(LayerType type) {
+    return type == LayerType.Stop || type == LayerType.Station;
+  }
+
+  private Map<Long, byte[]> renderTiles(
+    LayerParameters layer,
+    Set<Long> tileKeys,
+    Locale locale,
+    TransitService transitService
+  ) {
+    ProgressTracker progress = ProgressTracker.track(
+      "Render vector tiles for layer " + layer.name() + " (" + locale.getLanguage() + ")",
+      1000,
+      tileKeys.size()
+    );
+    LOG.info(progress.startMessage());
+
+    Map<Long, byte[]> tiles = new ConcurrentHashMap<>();
+
+    tileKeys
+      .parallelStream()
+      .forEach(key -> {
+        int x = VectorTileArchive.tileX(key);
+        int y = VectorTileArchive.tileY(key);
+        int z = VectorTileArchive.tileZ(key);
+
+        // The layer builder is not thread-safe, create one for each tile
+        VectorTile.Tile.Layer tileLayer = VectorTilesResource
+          .createLayerBuilder(layer, graph, transitService, locale)
+          .build(VectorTilesResource.tileEnvelope(x, y, z), layer);
+
+        if (tileLayer.getFeaturesCount() > 0) {
+          tiles.put(key, VectorTile.Tile.newBuilder().addLayers(tileLayer).build().toByteArray());
+        }
+        //noinspection Convert2MethodRef
+        progress.step(m -> LOG.info(m));
+      });
+
+    LOG.info(progress.completeMessage());
+    return tiles;
+  }
+
+  /**
+   * Find all tiles in the zoom range which may include one of the given coordinates, when the tile
+   * is expanded with the layer expansion factor.
+   */
+  private static Set<Long> findTiles(
+    List<WgsCoordinate> coordinates,
+    LayerParameters layer,
+    int minZoom,
+    int maxZoom
+  ) {
+    double margin = layer.expansionFactor() + TILE_MARGIN;
+    Set<Long> tileKeys = new HashSet<>();
+
+    for (int z = minZoom; z <= maxZoom; ++z) {
+      int n = 1 << z;
+      for (WgsCoordinate c : coordinates) {
+        double lat = Math.toRadians(c.latitude());
+        double x = (c.longitude() + 180) / 360 * n;
+        double y = (1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2 * n;
+
+        int maxX = Math.min(n - 1, (int) Math.floor(x + margin));
+        int maxY = Math.min(n - 1, (int) Math.floor(y + margin));
+
+        for (int i = Math.max(0, (int) Math.floor(x - margin)); i <= maxX; ++i) {
+          for (int j = Math.max(0, (int) Math.floor(y - margin)); j <= maxY; ++j) {
+            tileKeys.add(VectorTileArchive.tileKey(i, j, z));
+          }
+        }
+      }
+    }
+    return tileKeys;
+  }
+
+  private static List<WgsCoordinate> coordinates(LayerType type, TransitService transitService) {
+    return switch (type) {
+      case Stop -> transitService
+        .listRegularStops()
+        .stream()
+        .map(RegularStop::getCoordinate)
+        .toList();
+      case Station -> transitService.getStations().stream().map(Station::getCoordinate).toList();
+      default -> throw new IllegalArgumentException("Not a static layer: " + type);
+    };
+  }
+}
@@ -0,0 +1,37 @@
+package org.opentripplanner.ext.vectortiles;
+
+import java.util.List;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+
+/**
+ * Parameters for pre-rendering the static vector tile layers when the graph is built, see
+ * {@link VectorTilePyramidModule}.
+ *
+ * @param minZoom   the lowest zoom level to render, layers with a higher {@code minZoom} start at
+ *                  their own minimum zoom level.
+ * @param maxZoom   the highest zoom level to render, layers with a lower {@code maxZoom} stop at
+ *                  their own maximum zoom level.
+ * @param languages the tiles are rendered once for each language, since the translatable fields
+ *                  are translated when rendered.
+ * @param layers    the layers to render, only static layers are supported.
+ */
+public record VectorTilePyramidParameters(
+  int minZoom,
+  int maxZoom,
+  List<String> languages,
+  List<LayerParameters> layers
+) {
+  public static final int MIN_ZOOM = LayerParameters.MIN_ZOOM;
+  public static final int MAX_ZOOM = 16;
+  public static final List<String> LANGUAGES = List.of("en");
+
+  public VectorTilePyramidParameters {
+    if (minZoom > maxZoom) {
+      throw new IllegalArgumentException(
+        "The vector tile pyramid minZoom(" + minZoom + ") is larger than maxZoom(" + maxZoom + ")"
+      );
+    }
+    languages = List.copyOf(languages);
+    layers = List.copyOf(layers);
+  }
+}
@@ -1,6 +1,7 @@
 package org.opentripplanner.ext.vectortiles;
 
 import com.wdtinc.mapbox_vector_tile.VectorTile;
+import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -11,6 +12,7 @@ import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -33,6 +35,7 @@ import org.opentripplanner.ext.vectortiles.layers.vehiclerental.VehicleRentalSta
 import org.opentripplanner.ext.vectortiles.layers.vehiclerental.VehicleRentalVehiclesLayerBuilder;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
+import org.opentripplanner.standalone.server.EtagRequestFilter;
 import org.opentripplanner.transit.service.TransitService;
 import org.opentripplanner.util.WorldEnvelope;
 
@@ -112,46 +115,56 @@ public class VectorTilesResource {
     @PathParam("x") int x,
     @PathParam("y") int y,
     @PathParam("z") int z,
-    @PathParam("layers") String requestedLayers
+    @PathParam("layers") String requestedLayers,
+    @HeaderParam(EtagRequestFilter.HEADER_IF_NONE_MATCH) String ifNoneMatch
   ) {
-    VectorTile.Tile.Builder mvtBuilder = VectorTile.Tile.newBuilder();
-
     if (z < LayerParameters.MIN_ZOOM) {
-      return Response.status(Response.Status.OK).entity(mvtBuilder.build().toByteArray()).build();
+      return Response
+        .status(Response.Status.OK)
+        .entity(VectorTile.Tile.newBuilder().build().toByteArray())
+        .build();
     }
 
-    Envelope2D env = WebMercatorTile.tile2Envelope(x, y, z);
-    Envelope envelope = new Envelope(env.getMaxX(), env.getMinX(), env.getMaxY(), env.getMinY());
-
     List<String> layers = Arrays.asList(requestedLayers.split(","));
 
-    int cacheMaxSeconds = Integer.MAX_VALUE;
-
-    for (LayerParameters layerParameters : serverContext
+    List<LayerParameters> layersInTile = serverContext
       .routerConfig()
       .vectorTileLayers()
-      .layers()) {
-      if (
-        layers.contains(layerParameters.name()) &&
-        layerParameters.minZoom() <= z &&
-        z <= layerParameters.maxZoom()
-      ) {
-        cacheMaxSeconds = Math.min(cacheMaxSeconds, layerParameters.cacheMaxSeconds());
-        mvtBuilder.addLayers(
-          VectorTilesResource.layers
-            .get(layerParameters.type())
-            .create(serverContext.graph(), serverContext.transitService(), layerParameters, locale)
-            .build(envelope, layerParameters)
-        );
-      }
-    }
+      .layers()
+      .stream()
+      .filter(it -> layers.contains(it.name()) && it.minZoom() <= z && z <= it.maxZoom())
+      .toList();
+
+    var graph = serverContext.graph();
+    var tile = VectorTileCache
+      .forGraph(graph)
+      .get(
+        graph,
+        new VectorTileCache.TileKey(requestedLayers, x, y, z, locale),
+        layersInTile,
+        () -> renderTile(x, y, z, layersInTile)
+      );
 
     CacheControl cacheControl = new CacheControl();
-    if (cacheMaxSeconds != Integer.MAX_VALUE) {
-      cacheControl.setMaxAge(cacheMaxSeconds);
+    if (tile.cacheMaxSeconds() != Integer.MAX_VALUE) {
+      cacheControl.setMaxAge(tile.cacheMaxSeconds());
+    }
+
+    // The tile is not modified, answer without sending it again
+    if (tile.etag().equals(ifNoneMatch)) {
+      return Response
+        .status(Response.Status.NOT_MODIFIED)
+        .cacheControl(cacheControl)
+        .header(EtagRequestFilter.HEADER_ETAG, tile.etag())
+        .build();
     }
-    byte[] bytes = mvtBuilder.build().toByteArray();
-    return Response.status(Response.Status.OK).cacheControl(cacheControl).entity(bytes).build();
+
+    return Response
+      .status(Response.Status.OK)
+      .cacheControl(cacheControl)
+      .header(EtagRequestFilter.HEADER_ETAG, tile.etag())
+      .entity(tile.bytes())
+      .build();
   }
 
   @GET
@@ -171,6 +184,55 @@ public class VectorTilesResource {
     );
   }
 
+  /**
+   * Create a builder for the given layer. A new builder must be created for each tile.
+   */
+  static LayerBuilder<?> createLayerBuilder(
+    LayerParameters layerParameters,
+    Graph graph,
+    TransitService transitService,
+    Locale locale
+  ) {
+    return layers
+      .get(layerParameters.type())
+      .create(graph, transitService, layerParameters, locale);
+  }
+
+  static Envelope tileEnvelope(int x, int y, int z) {
+    Envelope2D env = WebMercatorTile.tile2Envelope(x, y, z);
+    return new Envelope(env.getMaxX(), env.getMinX(), env.getMaxY(), env.getMinY());
+  }
+
+  /**
+   * Render the tile, using the pre-rendered tiles of the static layers if available. An encoded
+   * tile with one layer is itself a valid tile, so the layers are joined by concatenating the
+   * encoded tiles.
+   */
+  private byte[] renderTile(int x, int y, int z, List<LayerParameters> layersInTile) {
+    var out = new ByteArrayOutputStream();
+    VectorTileArchive archive = serverContext.graph().getVectorTileArchive();
+
+    for (LayerParameters layerParameters : layersInTile) {
+      byte[] archived = archive == null
+        ? null
+        : archive.findTile(layerParameters, locale, x, y, z);
+
+      if (archived != null) {
+        out.writeBytes(archived);
+      } else {
+        var layer = createLayerBuilder(
+          layerParameters,
+          serverContext.graph(),
+          serverContext.transitService(),
+          locale
+        )
+          .build(tileEnvelope(x, y, z), layerParameters);
+        out.writeBytes(VectorTile.Tile.newBuilder().addLayers(layer).build().toByteArray());
+      }
+    }
+    return out.toByteArray();
+  }
+
   private String getBaseAddress(UriInfo uri, HttpHeaders headers) {
     String protocol;
     if (headers.getRequestHeader("X-Forwarded-Proto") != null) {
@@ -40,6 +40,7 @@ public class StationsLayerBuilder extends LayerBuilder<Station> {
     return transitModel
       .getStations()
       .stream()
+      .filter(station -> query.contains(station.getCoordinate().asJtsCoordinate()))
       .map(station -> {
         Coordinate coordinate = station.getCoordinate().asJtsCoordinate();
         Point point = GeometryUtils.getGeometryFactory().createPoint(coordinate);
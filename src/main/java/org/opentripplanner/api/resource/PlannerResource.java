@@ -9,6 +9,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.GenericCloseListener;
 import org.glassfish.grizzly.http.server.Request;
 import org.opentripplanner.api.common.Message;
 import org.opentripplanner.api.common.RoutingResource;
@@ -16,6 +18,8 @@ import org.opentripplanner.api.mapping.PlannerErrorMapper;
 import org.opentripplanner.api.mapping.TripPlanMapper;
 import org.opentripplanner.api.mapping.TripSearchMetadataMapper;
 import org.opentripplanner.api.model.error.PlannerError;
+import org.opentripplanner.framework.concurrent.CancellationToken;
+import org.opentripplanner.framework.concurrent.RequestCancelledException;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.response.RoutingResponse;
@@ -68,7 +72,7 @@ public class PlannerResource extends RoutingResource {
       request = super.buildRequest(uriInfo.getQueryParameters());
 
       // Route
-      res = serverContext.routingService().route(request);
+      res = route(request, grizzlyRequest);
 
       // Map to API
       // TODO VIA (Leonard) - we should store the default showIntermediateStops somewhere
@@ -93,6 +97,9 @@ public class PlannerResource extends RoutingResource {
       response.elevationMetadata.geoidElevation = request.preferences().system().geoidElevation();
 
       response.debugOutput = res.getDebugTimingAggregator().finishedRendering();
+    } catch (RequestCancelledException e) {
+      LOG.info("Request cancelled: {} Request: {}", e.getMessage(), request);
+      response.setError(new PlannerError(Message.REQUEST_TIMEOUT));
     } catch (Exception e) {
       LOG.error("System error", e);
       PlannerError error = new PlannerError(Message.SYSTEM_ERROR);
@@ -105,6 +112,28 @@ public class PlannerResource extends RoutingResource {
     return response;
   }
 
+  /**
+   * Route the request with a cancellation token. The token is cancelled if the request timeout is
+   * exceeded or if the client closes the connection, this stops the search and release the
+   * worker thread.
+   */
+  private RoutingResponse route(RouteRequest request, Request grizzlyRequest) {
+    var cancellationToken = CancellationToken.of(serverContext.routerConfig().requestTimeout());
+    request.setCancellationToken(cancellationToken);
+
+    Connection<?> connection = grizzlyRequest.getContext().getConnection();
+    GenericCloseListener closeListener = (closeable, type) ->
+      cancellationToken.cancel("The client closed the connection.");
+
+    // The connection may be kept alive and reused, so we need to remove the listener
+    connection.addCloseListener(closeListener);
+    try {
+      return serverContext.routingService().route(request);
+    } finally {
+      connection.removeCloseListener(closeListener);
+    }
+  }
+
   private void logRequest(
     Request grizzlyRequest,
     RouteRequest request,
@@ -21,6 +21,11 @@ public class TransitTimingOutput {
    */
   public final long raptorSearchTime;
 
+  /**
+   * Time taken for the transfer optimization of the raptor paths in nanoseconds.
+   */
+  public final long transferOptimizationTime;
+
   /**
    * Time taken for mapping from the raptor paths to itinerary objects in nanoseconds.
    */
@@ -30,11 +35,13 @@ public class TransitTimingOutput {
     long tripPatternFilterTime,
     long accessEgressTime,
     long raptorSearchTime,
+    long transferOptimizationTime,
     long itineraryCreationTime
   ) {
     this.tripPatternFilterTime = tripPatternFilterTime;
     this.accessEgressTime = accessEgressTime;
     this.raptorSearchTime = raptorSearchTime;
+    this.transferOptimizationTime = transferOptimizationTime;
     this.itineraryCreationTime = itineraryCreationTime;
   }
 }
@@ -0,0 +1,192 @@
+package org.opentripplanner.common.geometry;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * A thread-safe version of the {@link HashGridSpatialIndex}, for indexes updated while they are
+ * queried, like the realtime edge index updated by the graph writer while requests are linked to
+ * the street graph.
+ * <p>
+ * Each bin is an immutable array, which is replaced with a new copy when an item is inserted or
+ * removed. The bins are published through a {@link ConcurrentHashMap}, so a reader sees either the
+ * old or the new content of a bin, never a bin in the middle of an update. Readers are never
+ * blocked. Writes are serialized, and are expected to be few compared to the reads.
+ * <p>
+ * Since a query reads the bins one by one, a query done while an item is inserted or removed may
+ * see the item in some of the bins only. As for the {@link HashGridSpatialIndex}, it is up to the
+ * client to filter out false positives, and to check that the returned items are still valid.
+ *
+ * @param <T> Type of objects to be spatial indexed.
+ */
+public class CopyOnWriteHashGridSpatialIndex<T> {
+
+  private static final Object[] EMPTY_BIN = new Object[0];
+
+  /* Size of bin in X and Y direction, in coordinates units. */
+  private final double xBinSize, yBinSize;
+
+  /* The map of all bins, the key is the same as in the HashGridSpatialIndex. */
+  private final Map<Long, Object[]> bins = new ConcurrentHashMap<>();
+
+  private volatile int nObjects = 0;
+
+  public CopyOnWriteHashGridSpatialIndex(double xBinSize, double yBinSize) {
+    if (xBinSize <= 0 || yBinSize <= 0) {
+      throw new IllegalStateException("bin size must be positive.");
+    }
+    this.xBinSize = xBinSize;
+    this.yBinSize = yBinSize;
+  }
+
+  /** Create a HashGrid with the default grid dimensions. */
+  public CopyOnWriteHashGridSpatialIndex() {
+    this(HashGridSpatialIndex.DEFAULT_X_BIN_SIZE, HashGridSpatialIndex.DEFAULT_Y_BIN_SIZE);
+  }
+
+  public synchronized void insert(Envelope envelope, T item) {
+    HashGridSpatialIndex.forEachBinKey(envelope, xBinSize, yBinSize, key -> addToBin(key, item));
+    nObjects++;
+  }
+
+  /** Insert the item in all bins touching one of the line segments. */
+  public synchronized void insert(LineString geom, T item) {
+    Coordinate[] coord = geom.getCoordinates();
+    final TLongSet keys = new TLongHashSet(coord.length * 8);
+    for (int i = 0; i < coord.length - 1; i++) {
+      Envelope env = new Envelope(coord[i], coord[i + 1]);
+      HashGridSpatialIndex.forEachBinKey(env, xBinSize, yBinSize, keys::add);
+    }
+    keys.forEach(key -> {
+      addToBin(key, item);
+      return true;
+    });
+    nObjects++;
+  }
+
+  /**
+   * Remove the item from all bins touching the envelope.
+   *
+   * @return true if the item was found in at least one bin.
+   */
+  public synchronized boolean remove(Envelope envelope, Object item) {
+    final boolean[] removed = { false };
+    HashGridSpatialIndex.forEachBinKey(
+      envelope,
+      xBinSize,
+      yBinSize,
+      key -> {
+        Object[] bin = bins.get(key);
+        if (bin == null) {
+          return;
+        }
+        Object[] newBin = without(bin, item);
+        if (newBin != bin) {
+          removed[0] = true;
+          if (newBin.length == 0) {
+            bins.remove(key);
+          } else {
+            bins.put(key, newBin);
+          }
+        }
+      }
+    );
+    if (removed[0]) {
+      nObjects--;
+    }
+    return removed[0];
+  }
+
+  /**
+   * Return all items in the bins touching the envelope, without duplicates. The result may contain
+   * items outside the envelope.
+   */
+  public List<T> query(Envelope envelope) {
+    final List<T> ret = new ArrayList<>();
+    visitItems(envelope, ret::add);
+    return ret;
+  }
+
+  /** See {@link HashGridSpatialIndex#visitItems(Envelope, Consumer)}. */
+  public void visitItems(Envelope envelope, Consumer<? super T> visitor) {
+    HashGridSpatialIndex.forEachBinKey(
+      envelope,
+      xBinSize,
+      yBinSize,
+      new HashGridSpatialIndex.DistinctItemVisitor<>(this::bin, visitor)
+    );
+  }
+
+  /** See {@link HashGridSpatialIndex#findNearest(Coordinate, double, int, ToDoubleFunction)}. */
+  public List<T> findNearest(
+    Coordinate center,
+    double maxDistance,
+    int k,
+    ToDoubleFunction<? super T> distance
+  ) {
+    return HashGridSpatialIndex.findNearest(
+      center,
+      maxDistance,
+      k,
+      distance,
+      xBinSize,
+      yBinSize,
+      this::bin
+    );
+  }
+
+  public int size() {
+    return nObjects;
+  }
+
+  public String toString() {
+    return String.format(
+      Locale.ROOT,
+      "CopyOnWriteHashGridSpatialIndex %f x %f, %d bins allocated, %d objs",
+      xBinSize,
+      yBinSize,
+      bins.size(),
+      nObjects
+    );
+  }
+
+  /** A read-only view of the bin, or {@code null} if the bin is empty. */
+  @SuppressWarnings("unchecked")
+  private List<T> bin(long key) {
+    Object[] bin = bins.get(key);
+    return bin == null ? null : (List<T>) (List<?>) Arrays.asList(bin);
+  }
+
+  private void addToBin(long key, T item) {
+    Object[] bin = bins.getOrDefault(key, EMPTY_BIN);
+    Object[] newBin = Arrays.copyOf(bin, bin.length + 1);
+    newBin[bin.length] = item;
+    bins.put(key, newBin);
+  }
+
+  /**
+   * Return a copy of the bin without the item, or the same bin if the item is not in it.
+   */
+  private static Object[] without(Object[] bin, Object item) {
+    for (int i = 0; i < bin.length; ++i) {
+      if (bin[i].equals(item)) {
+        Object[] newBin = new Object[bin.length - 1];
+        System.arraycopy(bin, 0, newBin, 0, i);
+        System.arraycopy(bin, i + 1, newBin, i, bin.length - i - 1);
+        return newBin;
+      }
+    }
+    return bin;
+  }
+}
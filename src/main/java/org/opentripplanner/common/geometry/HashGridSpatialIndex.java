@@ -5,11 +5,17 @@ import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.ToDoubleFunction;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
@@ -41,11 +47,11 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
 
   /* Computation done based on geographical coordinates. */
   // private static final double DEFAULT_Y_BIN_SIZE = 0.010; // ~1km
-  private static final double DEFAULT_Y_BIN_SIZE = 0.005; // ~500m
+  static final double DEFAULT_Y_BIN_SIZE = 0.005; // ~500m
 
   /* Computation done based on geographical coordinates at ~45 degree lat */
   // private static final double DEFAULT_X_BIN_SIZE = 0.007; // ~1km
-  private static final double DEFAULT_X_BIN_SIZE = 0.0035; // ~500m
+  static final double DEFAULT_X_BIN_SIZE = 0.0035; // ~500m
 
   /* Size of bin in X and Y direction, in coordinates units. */
   private final double xBinSize, yBinSize;
@@ -83,9 +89,9 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
         /*
          * Note: here we can end-up having several time the same object in the same bin, if
          * the client insert multiple times the same object with different envelopes.
-         * However we do filter duplicated when querying, so apart for memory/performance
-         * reasons it should work. If this becomes a problem, we can use a set instead of a
-         * list.
+         * Duplicates in different bins are filtered when querying, but an object inserted
+         * twice in the same bin may be returned twice. If this becomes a problem, we can use
+         * a set instead of a list.
          */
         bin.add((T) item);
         nEntries++;
@@ -97,25 +103,42 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
 
   @Override
   public final List<T> query(Envelope envelope) {
-    final Set<T> ret = new HashSet<>(1024);
-    visit(
-      envelope,
-      false,
-      (bin, mapKey) -> {
-        ret.addAll(bin);
-        return false;
-      }
-    );
-    return new ArrayList<>(ret);
+    final List<T> ret = new ArrayList<>();
+    visitItems(envelope, ret::add);
+    return ret;
   }
 
   @Override
   public final void query(Envelope envelope, ItemVisitor visitor) {
-    // We are cheating a bit here... But who cares? Never called in OTP.
-    List<T> tlist = query(envelope);
-    for (T t : tlist) {
-      visitor.visitItem(t);
-    }
+    visitItems(envelope, visitor::visitItem);
+  }
+
+  /**
+   * Visit the items in all bins touching the envelope, each item once, without collecting them
+   * first. As for {@link #query(Envelope)} the items may be outside the envelope.
+   * <p>
+   * An item is only visited twice if it is inserted several times in the same bin.
+   */
+  public final void visitItems(Envelope envelope, Consumer<? super T> visitor) {
+    forEachBinKey(envelope, xBinSize, yBinSize, new DistinctItemVisitor<>(bins::get, visitor));
+  }
+
+  /**
+   * Find the {@code k} items closest to the center, sorted by increasing distance. The bins are
+   * searched in expanding rings around the center, until the k closest items are found or the
+   * {@code maxDistance} is reached.
+   *
+   * @param maxDistance the max distance in degrees latitude, items farther away are not returned.
+   * @param distance    the distance from the center to an item, in degrees latitude on a local
+   *                    equirectangular projection. Return {@link Double#NaN} to skip an item.
+   */
+  public final List<T> findNearest(
+    Coordinate center,
+    double maxDistance,
+    int k,
+    ToDoubleFunction<? super T> distance
+  ) {
+    return findNearest(center, maxDistance, k, distance, xBinSize, yBinSize, bins::get);
   }
 
   @Override
@@ -232,6 +255,38 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
    * @param binVisitor    The callback to call for each visited bin.
    */
   private void visit(Envelope envelope, boolean createIfEmpty, final BinVisitor<T> binVisitor) {
+    forEachBinKey(
+      envelope,
+      xBinSize,
+      yBinSize,
+      mapKey -> {
+        ArrayList<T> bin = bins.get(mapKey);
+        if (createIfEmpty && bin == null) {
+          bin = new ArrayList<>();
+          bins.put(mapKey, bin);
+          nBins++;
+        }
+        if (bin != null) {
+          boolean modified = binVisitor.visit(bin, mapKey);
+          if (modified && bin.isEmpty()) {
+            bins.remove(mapKey);
+            nBins--;
+          }
+        }
+      }
+    );
+  }
+
+  /**
+   * Call the given callback with the key of each bin touching the envelope. The keys are shared
+   * with {@link CopyOnWriteHashGridSpatialIndex}.
+   */
+  static void forEachBinKey(
+    Envelope envelope,
+    double xBinSize,
+    double yBinSize,
+    LongConsumer callback
+  ) {
     Coordinate min = new Coordinate(envelope.getMinX(), envelope.getMinY());
     Coordinate max = new Coordinate(envelope.getMaxX(), envelope.getMaxY());
 
@@ -251,21 +306,124 @@ public class HashGridSpatialIndex<T> implements SpatialIndex, Serializable {
          * xKey in order to have a well-behaving long hash, fitting in an int, because the
          * default implementation is: hashInt = (int)(value ^ (value >>> 32));
          */
-        long mapKey = (yKey << 32) | ((xKey & 0xFFFF) << 16) | ((xKey >> 16) & 0xFFFF);
-        ArrayList<T> bin = bins.get(mapKey);
-        if (createIfEmpty && bin == null) {
-          bin = new ArrayList<>();
-          bins.put(mapKey, bin);
-          nBins++;
-        }
-        if (bin != null) {
-          boolean modified = binVisitor.visit(bin, mapKey);
-          if (modified && bin.isEmpty()) {
-            bins.remove(mapKey);
-            nBins--;
+        callback.accept(binKey(xKey, yKey));
+      }
+    }
+  }
+
+  /**
+   * Find the k items closest to the center, see {@link #findNearest(Coordinate, double, int,
+   * ToDoubleFunction)}. This is shared with {@link CopyOnWriteHashGridSpatialIndex}.
+   */
+  static <T> List<T> findNearest(
+    Coordinate center,
+    double maxDistance,
+    int k,
+    ToDoubleFunction<? super T> distance,
+    double xBinSize,
+    double yBinSize,
+    LongFunction<? extends List<T>> binLookup
+  ) {
+    if (k < 1 || !(maxDistance >= 0) || Double.isInfinite(maxDistance)) {
+      throw new IllegalArgumentException("k must be positive and maxDistance finite.");
+    }
+    Coordinate c = clamp(center);
+    double xScale = Math.cos(Math.toRadians(c.y));
+    long cxKey = Math.round(c.x / xBinSize);
+    long cyKey = Math.round(c.y / yBinSize);
+
+    // The closest items found so far, the farthest first
+    PriorityQueue<Candidate<T>> closest = new PriorityQueue<>(
+      Comparator.comparingDouble(Candidate<T>::distance).reversed()
+    );
+    Set<T> visited = new HashSet<>();
+
+    for (long r = 0;; r++) {
+      // Visit the bins in the ring at distance r from the center bin
+      for (long xKey = cxKey - r; xKey <= cxKey + r; xKey++) {
+        boolean fullColumn = r == 0 || xKey == cxKey - r || xKey == cxKey + r;
+        for (long yKey = cyKey - r; yKey <= cyKey + r; yKey += fullColumn ? 1 : 2 * r) {
+          List<T> bin = binLookup.apply(binKey(xKey, yKey));
+          if (bin == null) {
+            continue;
+          }
+          for (T item : bin) {
+            if (!visited.add(item)) {
+              continue;
+            }
+            double d = distance.applyAsDouble(item);
+            if (d <= maxDistance && (closest.size() < k || d < closest.peek().distance())) {
+              closest.add(new Candidate<>(item, d));
+              if (closest.size() > k) {
+                closest.poll();
+              }
+            }
           }
         }
       }
+      // All items closer than this are in one of the visited bins
+      double searched = Math.min(
+        xScale * Math.min(c.x - (cxKey - r - 0.5) * xBinSize, (cxKey + r + 0.5) * xBinSize - c.x),
+        Math.min(c.y - (cyKey - r - 0.5) * yBinSize, (cyKey + r + 0.5) * yBinSize - c.y)
+      );
+      if (
+        searched >= maxDistance || (closest.size() == k && closest.peek().distance() <= searched)
+      ) {
+        break;
+      }
+    }
+
+    List<Candidate<T>> result = new ArrayList<>(closest);
+    result.sort(Comparator.comparingDouble(Candidate::distance));
+    return result.stream().map(Candidate::item).toList();
+  }
+
+  /**
+   * We need to swap the two words (MSB and LSB) of xKey in order to have a well-behaving long
+   * hash, see {@link #forEachBinKey(Envelope, double, double, LongConsumer)}.
+   */
+  private static long binKey(long xKey, long yKey) {
+    return (yKey << 32) | ((xKey & 0xFFFF) << 16) | ((xKey >> 16) & 0xFFFF);
+  }
+
+  private record Candidate<T>(T item, double distance) {}
+
+  /**
+   * Visit the items of each bin, skipping items already visited in another bin. The items of the
+   * first non-empty bin are visited directly, a set of visited items is only created when the
+   * envelope touches more than one non-empty bin.
+   */
+  static class DistinctItemVisitor<T> implements LongConsumer {
+
+    private final LongFunction<? extends List<T>> binLookup;
+    private final Consumer<? super T> visitor;
+    private List<T> firstBin = null;
+    private Set<T> visited = null;
+
+    DistinctItemVisitor(LongFunction<? extends List<T>> binLookup, Consumer<? super T> visitor) {
+      this.binLookup = binLookup;
+      this.visitor = visitor;
+    }
+
+    @Override
+    public void accept(long mapKey) {
+      List<T> bin = binLookup.apply(mapKey);
+      if (bin == null || bin.isEmpty()) {
+        return;
+      }
+      if (firstBin == null) {
+        firstBin = bin;
+        bin.forEach(visitor);
+        return;
+      }
+      if (visited == null) {
+        visited = new HashSet<>(firstBin);
+      }
+      for (T item : bin) {
+        if (visited.add(item)) {
+          visitor.accept(item);
+        }
+      }
     }
   }
 
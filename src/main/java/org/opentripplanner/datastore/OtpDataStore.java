@@ -47,6 +47,8 @@ import org.opentripplanner.routing.graph.SerializedGraphObject;
 public class OtpDataStore {
 
   public static final String BUILD_REPORT_DIR = "report";
+  public static final String VECTOR_TILES_FILENAME = "vectorTiles.bin";
+  public static final String GEOCODER_INDEX_FILENAME = "geocoder.bin";
   private static final String STREET_GRAPH_FILENAME = "streetGraph.obj";
   private static final String GRAPH_FILENAME = "graph.obj";
 
@@ -59,6 +61,8 @@ public class OtpDataStore {
   /* Named resources available for both reading and writing. */
   private DataSource streetGraph;
   private DataSource graph;
+  private DataSource vectorTiles;
+  private DataSource geocoderIndex;
   private CompositeDataSource buildReportDir;
   private boolean opened = false;
 
@@ -102,9 +106,13 @@ public class OtpDataStore {
 
     streetGraph = findSingleSource(config.streetGraph(), STREET_GRAPH_FILENAME, GRAPH);
     graph = findSingleSource(config.graph(), GRAPH_FILENAME, GRAPH);
+    vectorTiles =
+      findSingleSource(siblingOfGraph(VECTOR_TILES_FILENAME), VECTOR_TILES_FILENAME, GRAPH);
+    geocoderIndex =
+      findSingleSource(siblingOfGraph(GEOCODER_INDEX_FILENAME), GEOCODER_INDEX_FILENAME, GRAPH);
     buildReportDir = findCompositeSource(config.reportDirectory(), BUILD_REPORT_DIR, REPORT);
 
-    addAll(Arrays.asList(streetGraph, graph, buildReportDir));
+    addAll(Arrays.asList(streetGraph, graph, vectorTiles, geocoderIndex, buildReportDir));
 
     // Also read in unknown sources in case the data input source is miss-spelled,
     // We look for files on the local-file-system, other repositories ignore this call.
@@ -146,6 +154,24 @@ public class OtpDataStore {
     return graph;
   }
 
+  /**
+   * The pre-rendered vector tiles, stored next to the graph.
+   */
+  @Nonnull
+  public DataSource getVectorTiles() {
+    assertDataStoreIsOpened();
+    return vectorTiles;
+  }
+
+  /**
+   * The geocoder index, stored next to the graph.
+   */
+  @Nonnull
+  public DataSource getGeocoderIndex() {
+    assertDataStoreIsOpened();
+    return geocoderIndex;
+  }
+
   @Nonnull
   public CompositeDataSource getBuildReportDir() {
     assertDataStoreIsOpened();
@@ -188,6 +214,15 @@ public class OtpDataStore {
     return localRepository.findSource(filename, type);
   }
 
+  /**
+   * Files saved together with the graph are stored in the same location as the graph. Return
+   * {@code null} if the graph is stored in the base directory.
+   */
+  @Nullable
+  private URI siblingOfGraph(String filename) {
+    return config.graph() == null ? null : config.graph().resolve(filename);
+  }
+
   private CompositeDataSource findCompositeSource(
     @Nullable URI uri,
     @Nonnull String filename,
@@ -1,6 +1,8 @@
 package org.opentripplanner.datastore.file;
 
 import static org.opentripplanner.datastore.OtpDataStore.BUILD_REPORT_DIR;
+import static org.opentripplanner.datastore.OtpDataStore.GEOCODER_INDEX_FILENAME;
+import static org.opentripplanner.datastore.OtpDataStore.VECTOR_TILES_FILENAME;
 import static org.opentripplanner.datastore.api.FileType.CONFIG;
 import static org.opentripplanner.datastore.api.FileType.DEM;
 import static org.opentripplanner.datastore.api.FileType.GRAPH;
@@ -188,7 +190,11 @@ public class FileDataSourceRepository implements LocalDataSourceRepository {
     if (demLocalFilePattern.matcher(name).find()) {
       return DEM;
     }
-    if (name.matches("(?i)(street)?graph.*\\.obj")) {
+    if (
+      name.matches("(?i)(street)?graph.*\\.obj") ||
+      name.equals(VECTOR_TILES_FILENAME) ||
+      name.equals(GEOCODER_INDEX_FILENAME)
+    ) {
       return GRAPH;
     }
     if (name.equals(BUILD_REPORT_DIR)) {
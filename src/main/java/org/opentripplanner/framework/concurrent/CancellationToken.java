@@ -0,0 +1,87 @@
+package org.opentripplanner.framework.concurrent;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+import org.opentripplanner.util.lang.ToStringBuilder;
+
+/**
+ * A request scoped token used to stop long-running searches cooperatively. The token is cancelled
+ * when the deadline is passed, or when {@link #cancel(String)} is called - for example because the
+ * client closed the connection. Algorithms poll {@link #isCancelled()} or
+ * {@link #checkForCancellation()} at points where they can stop in a consistent state; polling
+ * is cheap, but avoid doing it in the innermost loops.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
+public final class CancellationToken {
+
+  private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  /**
+   * A token which is never cancelled. Calling {@link #cancel(String)} on this instance has no
+   * effect, so it is safe to share.
+   */
+  public static final CancellationToken NONE = new CancellationToken(NO_DEADLINE);
+
+  /** Epoch time in milliseconds. */
+  private final long deadline;
+
+  private volatile String reason = null;
+
+  private CancellationToken(long deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Create a new token with a deadline relative to now. If the timeout is {@code null}, zero or
+   * negative the token has no deadline, but it can still be cancelled.
+   */
+  public static CancellationToken of(@Nullable Duration timeout) {
+    if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+      return new CancellationToken(NO_DEADLINE);
+    }
+    return new CancellationToken(System.currentTimeMillis() + timeout.toMillis());
+  }
+
+  /**
+   * Cancel the request. Only the first reason given is kept.
+   */
+  public void cancel(String reason) {
+    if (this == NONE || this.reason != null) {
+      return;
+    }
+    this.reason = reason;
+  }
+
+  /**
+   * Return {@code true} if the token is cancelled or the deadline is passed.
+   */
+  public boolean isCancelled() {
+    if (reason != null) {
+      return true;
+    }
+    if (deadline != NO_DEADLINE && System.currentTimeMillis() > deadline) {
+      cancel("The request deadline is exceeded.");
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @throws RequestCancelledException if the token is cancelled or the deadline is passed.
+   */
+  public void checkForCancellation() {
+    if (isCancelled()) {
+      throw new RequestCancelledException(reason);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(CancellationToken.class)
+      .addBoolIfTrue("noDeadline", deadline == NO_DEADLINE)
+      .addStr("reason", reason)
+      .toString();
+  }
+}
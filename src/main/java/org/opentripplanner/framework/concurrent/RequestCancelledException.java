@@ -0,0 +1,13 @@
+package org.opentripplanner.framework.concurrent;
+
+/**
+ * Thrown by a search when the {@link CancellationToken} of the request is cancelled or the request
+ * deadline is exceeded. The exception does not fill in the stacktrace, it is used to unwind the
+ * call stack and is expected to be caught and mapped to a timeout error at the API level.
+ */
+public class RequestCancelledException extends RuntimeException {
+
+  public RequestCancelledException(String message) {
+    super(message, null, false, false);
+  }
+}
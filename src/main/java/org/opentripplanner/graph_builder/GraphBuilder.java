@@ -9,6 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import org.opentripplanner.ext.geocoder.GeocoderIndexModule;
+import org.opentripplanner.ext.traveltime.egress.StopEgressTableModule;
+import org.opentripplanner.ext.vectortiles.VectorTilePyramidModule;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
 import org.opentripplanner.graph_builder.module.configure.DaggerGraphBuilderFactory;
 import org.opentripplanner.routing.graph.Graph;
@@ -151,6 +154,27 @@ public class GraphBuilder implements Runnable {
       graphBuilder.addModuleOptional(factory.dataOverlayFactory());
     }
 
+    if (OTPFeature.SandboxAPIMapboxVectorTilesApi.isOn() && config.vectorTiles != null) {
+      graphBuilder.addModule(
+        new VectorTilePyramidModule(
+          graph,
+          transitModel,
+          config.vectorTiles,
+          dataSources.getOutputVectorTiles()
+        )
+      );
+    }
+
+    if (OTPFeature.SandboxAPITravelTime.isOn() && config.travelTimeEgress != null) {
+      graphBuilder.addModule(new StopEgressTableModule(graph, config.travelTimeEgress));
+    }
+
+    if (OTPFeature.SandboxAPIGeocoder.isOn() && dataSources.getOutputGeocoderIndex() != null) {
+      graphBuilder.addModule(
+        new GeocoderIndexModule(graph, transitModel, dataSources.getOutputGeocoderIndex())
+      );
+    }
+
     return graphBuilder;
   }
 
@@ -6,11 +6,14 @@ import static org.opentripplanner.datastore.api.FileType.NETEX;
 import static org.opentripplanner.datastore.api.FileType.OSM;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import java.io.File;
 import java.net.URI;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.opentripplanner.datastore.OtpDataStore;
@@ -55,6 +58,9 @@ public class GraphBuilderDataSources {
   private final Set<FileType> includeTypes = EnumSet.complementOf(EnumSet.of(FileType.UNKNOWN));
   private final File cacheDirectory;
   private final DataSource outputGraph;
+  private final DataSource outputVectorTiles;
+  private final DataSource outputGeocoderIndex;
+  private final DataSource inputStreetGraph;
   private final BuildConfig buildConfig;
   private final File baseDirectory;
 
@@ -73,6 +79,9 @@ public class GraphBuilderDataSources {
     this.buildConfig = bc;
     this.cacheDirectory = cli.cacheDirectory;
     this.outputGraph = getOutputGraph(cli);
+    this.outputVectorTiles = cli.doSaveGraph() ? store.getVectorTiles() : null;
+    this.outputGeocoderIndex = cli.doSaveGraph() ? store.getGeocoderIndex() : null;
+    this.inputStreetGraph = cli.doLoadStreetGraph() ? store.getStreetGraph() : null;
     this.baseDirectory = baseDirectory;
 
     // Select which files to import
@@ -95,6 +104,24 @@ public class GraphBuilderDataSources {
     return outputGraph;
   }
 
+  /**
+   * The pre-rendered vector tiles are saved together with the graph, {@code null} is returned if
+   * the graph is not saved.
+   */
+  @Nullable
+  public DataSource getOutputVectorTiles() {
+    return outputVectorTiles;
+  }
+
+  /**
+   * The geocoder index is saved together with the graph, {@code null} is returned if the graph is
+   * not saved.
+   */
+  @Nullable
+  public DataSource getOutputGeocoderIndex() {
+    return outputGeocoderIndex;
+  }
+
   /**
    * @return {@code true} if and only if the data source exist, proper command line parameters is
    * set and not disabled by the loaded configuration files.
@@ -199,6 +226,34 @@ public class GraphBuilderDataSources {
     return cacheDirectory;
   }
 
+  /**
+   * Describe the input data the street graph is made of: the street graph file if it is loaded,
+   * or the OSM and elevation files. Each file is described by its URI, size and last modified
+   * time, so the description changes if a file is changed.
+   *
+   * @return {@code null} if the size or last modified time of a file is unknown.
+   */
+  @Nullable
+  public String getStreetDataFingerprint() {
+    var buf = new StringBuilder();
+    Iterable<DataSource> sources = inputStreetGraph != null
+      ? List.of(inputStreetGraph)
+      : Iterables.concat(inputData.get(OSM), inputData.get(DEM));
+    for (DataSource source : sources) {
+      if (source.size() == DataSource.UNKNOWN || source.lastModified() == DataSource.UNKNOWN) {
+        return null;
+      }
+      buf
+        .append(source.uri())
+        .append(' ')
+        .append(source.size())
+        .append(' ')
+        .append(source.lastModified())
+        .append('\n');
+    }
+    return buf.toString();
+  }
+
   /* private methods */
 
   private boolean hasOneOf(FileType... types) {
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.StopNotLinkedForTransfers;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
@@ -15,7 +16,6 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
-import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.routing.vertextype.TransitStopVertex;
 import org.opentripplanner.transit.model.site.RegularStop;
@@ -34,6 +34,9 @@ import org.slf4j.LoggerFactory;
  * <p>
  * It will use the street network if OSM data has already been loaded into the graph. Otherwise it
  * will use straight-line distance between stops.
+ * <p>
+ * If a {@link TransferCache} is given, the nearby stops found for each stop are reused from the
+ * previous build where the stops and the streets around them are unchanged.
  */
 public class DirectTransferGenerator implements GraphBuilderModule {
 
@@ -46,18 +49,33 @@ public class DirectTransferGenerator implements GraphBuilderModule {
   private final TransitModel transitModel;
   private final DataImportIssueStore issueStore;
 
+  @Nullable
+  private final TransferCache transferCache;
+
   public DirectTransferGenerator(
     Graph graph,
     TransitModel transitModel,
     DataImportIssueStore issueStore,
     Duration radiusByDuration,
     List<RouteRequest> transferRequests
+  ) {
+    this(graph, transitModel, issueStore, radiusByDuration, transferRequests, null);
+  }
+
+  public DirectTransferGenerator(
+    Graph graph,
+    TransitModel transitModel,
+    DataImportIssueStore issueStore,
+    Duration radiusByDuration,
+    List<RouteRequest> transferRequests,
+    @Nullable TransferCache transferCache
   ) {
     this.graph = graph;
     this.transitModel = transitModel;
     this.issueStore = issueStore;
     this.radiusByDuration = radiusByDuration;
     this.transferRequests = transferRequests;
+    this.transferCache = transferCache;
   }
 
   @Override
@@ -81,6 +99,10 @@ public class DirectTransferGenerator implements GraphBuilderModule {
         "Creating direct transfer edges between stops using straight line distance (not streets)..."
       );
     }
+    boolean useTransferCache = transferCache != null && nearbyStopFinder.useStreets;
+    if (useTransferCache) {
+      transferCache.load(graph, transitModel.getStopModel(), radiusByDuration);
+    }
 
     List<TransitStopVertex> stops = graph.getVerticesOfType(TransitStopVertex.class);
 
@@ -113,10 +135,13 @@ public class DirectTransferGenerator implements GraphBuilderModule {
 
         LOG.debug("Linking stop '{}' {}", stop, ts0);
 
-        for (RouteRequest transferProfile : transferRequests) {
+        for (int i = 0; i < transferRequests.size(); i++) {
+          RouteRequest transferProfile = transferRequests.get(i);
           for (NearbyStop sd : findNearbyStops(
             nearbyStopFinder,
+            useTransferCache,
             ts0,
+            i,
             transferProfile,
             transferProfile.journey().transfer(),
             false
@@ -138,7 +163,9 @@ public class DirectTransferGenerator implements GraphBuilderModule {
             // from Stops to AreaStops and between Stops are already covered above.
             for (NearbyStop sd : findNearbyStops(
               nearbyStopFinder,
+              useTransferCache,
               ts0,
+              i,
               transferProfile,
               transferProfile.journey().transfer(),
               true
@@ -180,6 +207,10 @@ public class DirectTransferGenerator implements GraphBuilderModule {
 
     transitModel.addAllTransfersByStops(transfersByStop);
 
+    if (useTransferCache) {
+      transferCache.save();
+    }
+
     LOG.info(progress.completeMessage());
     LOG.info(
       "Done connecting stops to one another. Created a total of {} transfers from {} stops.",
@@ -193,13 +224,27 @@ public class DirectTransferGenerator implements GraphBuilderModule {
     // No inputs
   }
 
-  private static Iterable<NearbyStop> findNearbyStops(
+  private Iterable<NearbyStop> findNearbyStops(
     NearbyStopFinder nearbyStopFinder,
-    Vertex vertex,
+    boolean useTransferCache,
+    TransitStopVertex vertex,
+    int requestIndex,
     RouteRequest request,
     StreetRequest streetRequest,
     boolean reverseDirection
   ) {
+    if (useTransferCache && !reverseDirection && TransferCache.isCacheable(request)) {
+      List<NearbyStop> nearbyStops = transferCache.findNearbyStops(
+        vertex,
+        requestIndex,
+        request,
+        streetRequest,
+        () -> nearbyStopFinder.findNearbyStops(vertex, request, streetRequest, false)
+      );
+      return OTPFeature.ConsiderPatternsForDirectTransfers.isOn()
+        ? nearbyStopFinder.findClosestStopOnEachPattern(nearbyStops, false)
+        : nearbyStops;
+    }
     return OTPFeature.ConsiderPatternsForDirectTransfers.isOn()
       ? nearbyStopFinder.findNearbyStopsConsideringPatterns(
         vertex,
@@ -0,0 +1,345 @@
+package org.opentripplanner.graph_builder.module;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.AStarRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.ElevatorEdge;
+import org.opentripplanner.routing.edgetype.FreeEdge;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTransitEntityLink;
+import org.opentripplanner.routing.edgetype.StreetTransitEntranceLink;
+import org.opentripplanner.routing.edgetype.StreetTransitStopLink;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+
+/**
+ * Find the street islands of one traverse mode for {@link PruneNoThruIslands}. The street graph is
+ * reduced to arrays of vertex index pairs, and the islands are found with union-find passes over
+ * these arrays. Two sets of islands are found:
+ * <ol>
+ *   <li>The connected components of the graph, including noThruTraffic edges.</li>
+ *   <li>The components connected without noThruTraffic edges, each expanded with the vertices
+ *   only reachable by noThruTraffic edges, without passing through another component. These
+ *   islands can overlap. In addition the components only connected by noThruTraffic edges, and
+ *   not connected to any other component.</li>
+ * </ol>
+ * Only the size is kept for large islands, the member vertices are only collected for islands
+ * small enough to be pruned.
+ * <p>
+ * The graph is only read, so the islands of several modes can be found in parallel.
+ */
+class IslandFinder {
+
+  private final Graph graph;
+  private final TraverseMode traverseMode;
+  private final int maxIslandSize;
+
+  /**
+   * @param maxIslandSize the members are collected for islands with fewer street vertices than
+   *                      this.
+   */
+  IslandFinder(Graph graph, TraverseMode traverseMode, int maxIslandSize) {
+    this.graph = graph;
+    this.traverseMode = traverseMode;
+    this.maxIslandSize = maxIslandSize;
+  }
+
+  Result find() {
+    int n = graph.countVertexIndexes();
+    // Vertex index pairs [from, to, from, to, ...]
+    TIntArrayList thruEdges = new TIntArrayList();
+    TIntArrayList noThruEdges = new TIntArrayList();
+    collectEdges(thruEdges, noThruEdges);
+
+    BitSet connected = new BitSet(n);
+    BitSet thruConnected = new BitSet(n);
+    int[] components = UnionFind.create(n);
+    int[] thruComponents = UnionFind.create(n);
+
+    for (int i = 0; i < thruEdges.size(); i += 2) {
+      int u = thruEdges.getQuick(i);
+      int v = thruEdges.getQuick(i + 1);
+      connected.set(u);
+      connected.set(v);
+      thruConnected.set(u);
+      thruConnected.set(v);
+      UnionFind.union(components, u, v);
+      UnionFind.union(thruComponents, u, v);
+    }
+    for (int i = 0; i < noThruEdges.size(); i += 2) {
+      int u = noThruEdges.getQuick(i);
+      int v = noThruEdges.getQuick(i + 1);
+      connected.set(u);
+      connected.set(v);
+      UnionFind.union(components, u, v);
+    }
+
+    // The vertices only reachable by noThruTraffic edges are singletons in the thru components,
+    // join them into noThruTraffic components. Then find the noThruTraffic components next to
+    // each thru component, these can be entered from the thru component.
+    TLongHashSet adjacent = new TLongHashSet();
+    for (int i = 0; i < noThruEdges.size(); i += 2) {
+      int u = noThruEdges.getQuick(i);
+      int v = noThruEdges.getQuick(i + 1);
+      boolean uThru = thruConnected.get(u);
+      boolean vThru = thruConnected.get(v);
+      if (!uThru && !vThru) {
+        UnionFind.union(thruComponents, u, v);
+      }
+    }
+    for (int i = 0; i < noThruEdges.size(); i += 2) {
+      int u = noThruEdges.getQuick(i);
+      int v = noThruEdges.getQuick(i + 1);
+      if (thruConnected.get(u) != thruConnected.get(v)) {
+        int thru = thruConnected.get(u) ? u : v;
+        int noThru = thruConnected.get(u) ? v : u;
+        adjacent.add(
+          pair(UnionFind.find(thruComponents, thru), UnionFind.find(thruComponents, noThru))
+        );
+      }
+    }
+
+    Components all = new Components(components, connected);
+    Components thru = new Components(thruComponents, connected);
+
+    // Connect each thru component to its adjacent noThruTraffic components
+    List<TIntArrayList> noThruNeighbours = new ArrayList<>(thru.size());
+    BitSet noThruWithNeighbour = new BitSet(thru.size());
+    for (int i = 0; i < thru.size(); i++) {
+      noThruNeighbours.add(null);
+    }
+    adjacent.forEach(key -> {
+      int thruIndex = thru.indexOfRoot((int) (key >>> 32));
+      int noThruIndex = thru.indexOfRoot((int) key);
+      if (noThruNeighbours.get(thruIndex) == null) {
+        noThruNeighbours.set(thruIndex, new TIntArrayList());
+      }
+      noThruNeighbours.get(thruIndex).add(noThruIndex);
+      noThruWithNeighbour.set(noThruIndex);
+      return true;
+    });
+
+    List<Island> islands = new ArrayList<>(all.size());
+    for (int i = 0; i < all.size(); i++) {
+      islands.add(all.island(i));
+    }
+
+    List<Island> expandedIslands = new ArrayList<>();
+    int nThruComponents = 0;
+    for (int i = 0; i < thru.size(); i++) {
+      if (thruConnected.get(thru.firstVertex(i))) {
+        expandedIslands.add(thru.expandedIsland(i, noThruNeighbours.get(i)));
+        nThruComponents++;
+      }
+    }
+    int nNoThruComponents = 0;
+    for (int i = 0; i < thru.size(); i++) {
+      if (!thruConnected.get(thru.firstVertex(i)) && !noThruWithNeighbour.get(i)) {
+        expandedIslands.add(thru.island(i));
+        nNoThruComponents++;
+      }
+    }
+    return new Result(islands, expandedIslands, nThruComponents, nNoThruComponents);
+  }
+
+  /**
+   * Collect the street edges traversable in the mode, split into edges with and without
+   * noThruTraffic. Only the StreetEdges can be noThruTraffic.
+   */
+  private void collectEdges(TIntArrayList thruEdges, TIntArrayList noThruEdges) {
+    StreetMode streetMode =
+      switch (traverseMode) {
+        case WALK -> StreetMode.WALK;
+        case BICYCLE -> StreetMode.BIKE;
+        case CAR -> StreetMode.CAR;
+        default -> throw new IllegalArgumentException();
+      };
+
+    AStarRequest request = AStarRequest.of().withMode(streetMode).build();
+
+    for (Vertex gv : graph.getVertices()) {
+      if (!(gv instanceof StreetVertex)) {
+        continue;
+      }
+      State s0 = new State(gv, request);
+      for (Edge e : gv.getOutgoing()) {
+        if (
+          !(
+            e instanceof StreetEdge ||
+            e instanceof StreetTransitStopLink ||
+            e instanceof StreetTransitEntranceLink ||
+            e instanceof ElevatorEdge ||
+            e instanceof FreeEdge ||
+            e instanceof StreetTransitEntityLink
+          )
+        ) {
+          continue;
+        }
+        State s1 = e.traverse(s0);
+        if (s1 == null || s1.getVertex().getIndex() < 0) {
+          continue;
+        }
+        boolean noThru = e instanceof StreetEdge se && se.isNoThruTraffic(traverseMode);
+        TIntArrayList edges = noThru ? noThruEdges : thruEdges;
+        edges.add(gv.getIndex());
+        edges.add(s1.getVertex().getIndex());
+      }
+    }
+  }
+
+  private static long pair(int a, int b) {
+    return ((long) a << 32) | (b & 0xFFFFFFFFL);
+  }
+
+  /**
+   * @param islands         The connected components including noThruTraffic edges.
+   * @param expandedIslands The thru components expanded with the vertices only reachable by
+   *                        noThruTraffic edges, and the noThruTraffic only components.
+   */
+  record Result(
+    List<Island> islands,
+    List<Island> expandedIslands,
+    int nThruComponents,
+    int nNoThruComponents
+  ) {}
+
+  /**
+   * An island in the street graph. The stops are counted separately from the other vertices.
+   *
+   * @param vertices the vertex indexes of the members, {@code null} if the island is too large to
+   *                 be pruned.
+   */
+  record Island(int streetSize, int stopSize, @Nullable int[] vertices) {}
+
+  /**
+   * The components of a union-find array, restricted to the given vertices. The components are
+   * numbered in the order of their first vertex.
+   */
+  private class Components {
+
+    private final TIntIntHashMap indexByRoot = new TIntIntHashMap();
+    private final TIntArrayList firstVertex = new TIntArrayList();
+    private final TIntArrayList streetSize = new TIntArrayList();
+    private final TIntArrayList stopSize = new TIntArrayList();
+    private final List<TIntArrayList> members = new ArrayList<>();
+
+    Components(int[] uf, BitSet vertices) {
+      for (int v = vertices.nextSetBit(0); v >= 0; v = vertices.nextSetBit(v + 1)) {
+        int root = UnionFind.find(uf, v);
+        int index;
+        if (indexByRoot.containsKey(root)) {
+          index = indexByRoot.get(root);
+        } else {
+          index = firstVertex.size();
+          indexByRoot.put(root, index);
+          firstVertex.add(v);
+          streetSize.add(0);
+          stopSize.add(0);
+          members.add(new TIntArrayList());
+        }
+        if (graph.getVertexByIndex(v) instanceof TransitStopVertex) {
+          stopSize.setQuick(index, stopSize.getQuick(index) + 1);
+        } else {
+          streetSize.setQuick(index, streetSize.getQuick(index) + 1);
+        }
+        TIntArrayList list = members.get(index);
+        if (list != null) {
+          list.add(v);
+          // Stop collecting the members of a component too large to be pruned
+          if (streetSize.getQuick(index) >= maxIslandSize) {
+            members.set(index, null);
+          }
+        }
+      }
+    }
+
+    int size() {
+      return firstVertex.size();
+    }
+
+    int indexOfRoot(int root) {
+      return indexByRoot.get(root);
+    }
+
+    int firstVertex(int index) {
+      return firstVertex.getQuick(index);
+    }
+
+    Island island(int index) {
+      TIntArrayList list = members.get(index);
+      return new Island(
+        streetSize.getQuick(index),
+        stopSize.getQuick(index),
+        list == null ? null : list.toArray()
+      );
+    }
+
+    /** The island of the component, including the given adjacent components. */
+    Island expandedIsland(int index, @Nullable TIntArrayList adjacent) {
+      if (adjacent == null) {
+        return island(index);
+      }
+      int streets = streetSize.getQuick(index);
+      int stops = stopSize.getQuick(index);
+      boolean small = members.get(index) != null;
+      for (int i = 0; i < adjacent.size(); i++) {
+        int other = adjacent.getQuick(i);
+        streets += streetSize.getQuick(other);
+        stops += stopSize.getQuick(other);
+        small &= members.get(other) != null;
+      }
+      if (!small || streets >= maxIslandSize) {
+        return new Island(streets, stops, null);
+      }
+      TIntArrayList list = new TIntArrayList(members.get(index));
+      for (int i = 0; i < adjacent.size(); i++) {
+        list.addAll(members.get(adjacent.getQuick(i)));
+      }
+      return new Island(streets, stops, list.toArray());
+    }
+  }
+
+  /** Union-find with path halving, on an array of parent vertex indexes. */
+  private static class UnionFind {
+
+    static int[] create(int n) {
+      int[] parent = new int[n];
+      for (int i = 0; i < n; i++) {
+        parent[i] = i;
+      }
+      return parent;
+    }
+
+    static int find(int[] parent, int v) {
+      while (parent[v] != v) {
+        parent[v] = parent[parent[v]];
+        v = parent[v];
+      }
+      return v;
+    }
+
+    static void union(int[] parent, int u, int v) {
+      int ru = find(parent, u);
+      int rv = find(parent, v);
+      if (ru != rv) {
+        // Keep the lowest index as root, so the result does not depend on the edge order
+        if (ru < rv) {
+          parent[rv] = ru;
+        } else {
+          parent[ru] = rv;
+        }
+      }
+    }
+  }
+}
@@ -103,6 +103,21 @@ public class NearbyStopFinder {
     RouteRequest routingRequest,
     StreetRequest streetRequest,
     boolean reverseDirection
+  ) {
+    /* Find nearby stops via the street network or using straight-line distance, depending on the graph. */
+    return findClosestStopOnEachPattern(
+      findNearbyStops(vertex, routingRequest, streetRequest, reverseDirection),
+      reverseDirection
+    );
+  }
+
+  /**
+   * Keep the closest of the given nearby stops on each pattern and flex trip. The nearby stops
+   * must be found in the given direction.
+   */
+  public Set<NearbyStop> findClosestStopOnEachPattern(
+    Collection<NearbyStop> nearbyStops,
+    boolean reverseDirection
   ) {
     /* Track the closest stop on each pattern passing nearby. */
     MinMap<TripPattern, NearbyStop> closestStopForPattern = new MinMap<>();
@@ -110,13 +125,7 @@ public class NearbyStopFinder {
     /* Track the closest stop on each flex trip nearby. */
     MinMap<FlexTrip<?, ?>, NearbyStop> closestStopForFlexTrip = new MinMap<>();
 
-    /* Iterate over nearby stops via the street network or using straight-line distance, depending on the graph. */
-    for (NearbyStop nearbyStop : findNearbyStops(
-      vertex,
-      routingRequest,
-      streetRequest,
-      reverseDirection
-    )) {
+    for (NearbyStop nearbyStop : nearbyStops) {
       StopLocation ts1 = nearbyStop.stop;
 
       if (ts1 instanceof RegularStop) {
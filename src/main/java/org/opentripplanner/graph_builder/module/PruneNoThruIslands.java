@@ -3,26 +3,20 @@ package org.opentripplanner.graph_builder.module;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import org.opentripplanner.common.geometry.Subgraph;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.GraphConnectivity;
 import org.opentripplanner.graph_builder.issues.GraphIsland;
 import org.opentripplanner.graph_builder.issues.IsolatedStop;
 import org.opentripplanner.graph_builder.issues.PrunedIslandStop;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
-import org.opentripplanner.routing.api.request.StreetMode;
-import org.opentripplanner.routing.core.AStarRequest;
-import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.TraverseMode;
-import org.opentripplanner.routing.edgetype.ElevatorEdge;
-import org.opentripplanner.routing.edgetype.FreeEdge;
 import org.opentripplanner.routing.edgetype.StreetEdge;
-import org.opentripplanner.routing.edgetype.StreetTransitEntityLink;
 import org.opentripplanner.routing.edgetype.StreetTransitEntranceLink;
 import org.opentripplanner.routing.edgetype.StreetTransitStopLink;
 import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
@@ -47,6 +41,13 @@ public class PruneNoThruIslands implements GraphBuilderModule {
 
   private static final Logger LOG = LoggerFactory.getLogger(PruneNoThruIslands.class);
 
+  /** The modes are pruned in this order. */
+  private static final List<TraverseMode> PRUNED_MODES = List.of(
+    TraverseMode.BICYCLE,
+    TraverseMode.WALK,
+    TraverseMode.CAR
+  );
+
   private static final int islandCounter = 0;
   private final Graph graph;
   private final TransitModel transitModel;
@@ -63,6 +64,9 @@ public class PruneNoThruIslands implements GraphBuilderModule {
    */
   private int pruningThresholdIslandWithStops;
 
+  /** The number of links between stops and streets removed while pruning. */
+  private int removedStopLinks = 0;
+
   public PruneNoThruIslands(
     Graph graph,
     TransitModel transitModel,
@@ -80,31 +84,38 @@ public class PruneNoThruIslands implements GraphBuilderModule {
     LOG.info("Pruning islands and areas isolated by nothru edges in street network");
 
     var vertexLinker = graph.getLinkerSafe(transitModel.getStopModel());
-
-    pruneNoThruIslands(
-      graph,
-      vertexLinker,
-      pruningThresholdIslandWithoutStops,
-      pruningThresholdIslandWithStops,
-      issueStore,
-      TraverseMode.BICYCLE
-    );
-    pruneNoThruIslands(
-      graph,
-      vertexLinker,
+    int maxIslandSize = Math.max(
       pruningThresholdIslandWithoutStops,
-      pruningThresholdIslandWithStops,
-      issueStore,
-      TraverseMode.WALK
-    );
-    pruneNoThruIslands(
-      graph,
-      vertexLinker,
-      pruningThresholdIslandWithoutStops,
-      pruningThresholdIslandWithStops,
-      issueStore,
-      TraverseMode.CAR
+      pruningThresholdIslandWithStops
     );
+
+    // The islands of each mode are found in parallel, pruning one mode does not change the
+    // islands of the others. The exception is the stop links removed when pruning WALK islands,
+    // which can be traversed by car. If any are removed, the CAR islands are found again.
+    Map<TraverseMode, IslandFinder.Result> results = PRUNED_MODES
+      .parallelStream()
+      .collect(
+        Collectors.toMap(
+          mode -> mode,
+          mode -> new IslandFinder(graph, mode, maxIslandSize).find()
+        )
+      );
+
+    for (TraverseMode mode : PRUNED_MODES) {
+      var result = results.get(mode);
+      if (mode == TraverseMode.CAR && removedStopLinks > 0) {
+        result = new IslandFinder(graph, mode, maxIslandSize).find();
+      }
+      pruneNoThruIslands(
+        graph,
+        vertexLinker,
+        result,
+        pruningThresholdIslandWithoutStops,
+        pruningThresholdIslandWithStops,
+        issueStore,
+        mode
+      );
+    }
     // reconnect stops that got disconnected
     if (streetLinkerModule != null) {
       LOG.info("Reconnecting stops");
@@ -152,45 +163,30 @@ public class PruneNoThruIslands implements GraphBuilderModule {
        3  Relax connectivity even more: generate islands by allowing jumps between islands. Find out unreachable edges of small islands.
        4. Analyze small expanded islands (from step 2). Convert edges which are reachable only via noThruTraffic edges
           to noThruTraffic state. Remove traversal mode specific access from unreachable edges. Removed unconnected edges.
+     The islands are found by the IslandFinder, steps 3 and 4 are done here.
      */
 
-  private static void pruneNoThruIslands(
+  private void pruneNoThruIslands(
     Graph graph,
     VertexLinker vertexLinker,
+    IslandFinder.Result result,
     int maxIslandSize,
     int islandWithStopMaxSize,
     DataImportIssueStore issueStore,
     TraverseMode traverseMode
   ) {
     LOG.debug("nothru pruning");
-    Map<Vertex, Subgraph> subgraphs = new HashMap<>();
-    Map<Vertex, Subgraph> extgraphs = new HashMap<>();
-    Map<Vertex, ArrayList<Vertex>> neighborsForVertex = new HashMap<>();
-    Map<Edge, Boolean> isolated = new HashMap<>();
-    ArrayList<Subgraph> islands = new ArrayList<>();
+    Set<Edge> isolated = new HashSet<>();
     int count;
 
-    /* establish vertex neighbourhood without currently relevant noThruTrafficEdges */
-    collectNeighbourVertices(graph, neighborsForVertex, traverseMode, false);
-
-    /* associate each connected vertex with a subgraph */
-    count = collectSubGraphs(graph, neighborsForVertex, subgraphs, null, null);
-    LOG.info("Islands without {} noThruTraffic edges: {}", traverseMode, count);
-
-    /* Expand vertex neighbourhood with relevant noThruTrafficEdges
-           Note that we can reuse the original neighbour map here
-           and simply process a smaller set of noThruTrafficEdges */
-    collectNeighbourVertices(graph, neighborsForVertex, traverseMode, true);
-
-    /* Next: generate subgraphs without considering access limitations */
-    count = collectSubGraphs(graph, neighborsForVertex, extgraphs, null, islands);
-    LOG.info("Islands with {} noThruTraffic edges: {}", traverseMode, count);
+    LOG.info("Islands without {} noThruTraffic edges: {}", traverseMode, result.nThruComponents());
+    LOG.info("Islands with {} noThruTraffic edges: {}", traverseMode, result.islands().size());
 
-    /* collect unreachable edges to a map */
+    /* collect unreachable edges to a set */
     processIslands(
       graph,
       vertexLinker,
-      islands,
+      result.islands(),
       isolated,
       true,
       maxIslandSize,
@@ -199,26 +195,16 @@ public class PruneNoThruIslands implements GraphBuilderModule {
       traverseMode
     );
 
-    extgraphs = new HashMap<>(); // let old map go
-    islands = new ArrayList<>(); // reset this too
+    LOG.info("{} noThruTraffic island count: {}", traverseMode, result.nNoThruComponents());
 
-    /* Recompute expanded subgraphs by accepting noThruTraffic edges in graph expansion.
-           However, expansion is not allowed to jump from an original island to another one
-         */
-    collectSubGraphs(graph, neighborsForVertex, extgraphs, subgraphs, islands);
-
-    /* Next round: generate purely noThruTraffic islands if such ones exist */
-    count = collectSubGraphs(graph, neighborsForVertex, extgraphs, null, islands);
-    LOG.info("{} noThruTraffic island count: {}", traverseMode, count);
-
-    LOG.info("Total {} sub graphs found", islands.size());
+    LOG.info("Total {} sub graphs found", result.expandedIslands().size());
 
     /* remove all tiny subgraphs and large subgraphs without stops */
     count =
       processIslands(
         graph,
         vertexLinker,
-        islands,
+        result.expandedIslands(),
         isolated,
         false,
         maxIslandSize,
@@ -229,11 +215,11 @@ public class PruneNoThruIslands implements GraphBuilderModule {
     LOG.info("Modified {} islands", count);
   }
 
-  private static int processIslands(
+  private int processIslands(
     Graph graph,
     VertexLinker vertexLinker,
-    ArrayList<Subgraph> islands,
-    Map<Edge, Boolean> isolated,
+    List<IslandFinder.Island> islands,
+    Set<Edge> isolated,
     boolean markIsolated,
     int maxIslandSize,
     int islandWithStopMaxSize,
@@ -247,45 +233,37 @@ public class PruneNoThruIslands implements GraphBuilderModule {
     stats.put("noThru", 0);
     stats.put("restricted", 0);
 
+    // The islands can overlap, so look up the vertices before any of them are removed
+    List<List<Vertex>> members = new ArrayList<>(islands.size());
+    for (IslandFinder.Island island : islands) {
+      members.add(prunable(island, maxIslandSize, islandWithStopMaxSize) ? vertices(island) : null);
+    }
+
     int count = 0;
     int islandsWithStops = 0;
     int islandsWithStopsChanged = 0;
-    for (Subgraph island : islands) {
-      boolean changed = false;
+    for (int i = 0; i < islands.size(); i++) {
+      IslandFinder.Island island = islands.get(i);
       if (island.stopSize() > 0) {
         //for islands with stops
         islandsWithStops++;
-        if (island.streetSize() < islandWithStopMaxSize) {
-          restrictOrRemove(
-            graph,
-            vertexLinker,
-            island,
-            isolated,
-            stats,
-            markIsolated,
-            traverseMode,
-            issueStore
-          );
-          changed = true;
+      }
+      if (members.get(i) != null) {
+        restrictOrRemove(
+          graph,
+          vertexLinker,
+          island,
+          members.get(i),
+          isolated,
+          stats,
+          markIsolated,
+          traverseMode,
+          issueStore
+        );
+        if (island.stopSize() > 0) {
           islandsWithStopsChanged++;
-          count++;
-        }
-      } else {
-        //for islands without stops
-        if (island.streetSize() < maxIslandSize) {
-          restrictOrRemove(
-            graph,
-            vertexLinker,
-            island,
-            isolated,
-            stats,
-            markIsolated,
-            traverseMode,
-            issueStore
-          );
-          changed = true;
-          count++;
         }
+        count++;
       }
     }
     if (markIsolated) {
@@ -311,129 +289,55 @@ public class PruneNoThruIslands implements GraphBuilderModule {
     return count;
   }
 
-  private static void collectNeighbourVertices(
-    Graph graph,
-    Map<Vertex, ArrayList<Vertex>> neighborsForVertex,
-    TraverseMode traverseMode,
-    boolean shouldMatchNoThruType
+  private static boolean prunable(
+    IslandFinder.Island island,
+    int maxIslandSize,
+    int islandWithStopMaxSize
   ) {
-    StreetMode streetMode =
-      switch (traverseMode) {
-        case WALK -> StreetMode.WALK;
-        case BICYCLE -> StreetMode.BIKE;
-        case CAR -> StreetMode.CAR;
-        default -> throw new IllegalArgumentException();
-      };
-
-    AStarRequest request = AStarRequest.of().withMode(streetMode).build();
-
-    for (Vertex gv : graph.getVertices()) {
-      if (!(gv instanceof StreetVertex)) {
-        continue;
-      }
-      State s0 = new State(gv, request);
-      for (Edge e : gv.getOutgoing()) {
-        if (
-          !(
-            e instanceof StreetEdge ||
-            e instanceof StreetTransitStopLink ||
-            e instanceof StreetTransitEntranceLink ||
-            e instanceof ElevatorEdge ||
-            e instanceof FreeEdge ||
-            e instanceof StreetTransitEntityLink
-          )
-        ) {
-          continue;
-        }
-        if (
-          e instanceof StreetEdge &&
-          shouldMatchNoThruType != ((StreetEdge) e).isNoThruTraffic(traverseMode)
-        ) {
-          continue;
-        }
-        State s1 = e.traverse(s0);
-        if (s1 == null) {
-          continue;
-        }
-        Vertex out = s1.getVertex();
-
-        ArrayList<Vertex> vertexList = neighborsForVertex.get(gv);
-        if (vertexList == null) {
-          vertexList = new ArrayList<>();
-          neighborsForVertex.put(gv, vertexList);
-        }
-        vertexList.add(out);
-
-        vertexList = neighborsForVertex.get(out);
-        if (vertexList == null) {
-          vertexList = new ArrayList<>();
-          neighborsForVertex.put(out, vertexList);
-        }
-        vertexList.add(gv);
-      }
-    }
+    int maxSize = island.stopSize() > 0 ? islandWithStopMaxSize : maxIslandSize;
+    return island.streetSize() < maxSize;
   }
 
-  private static int collectSubGraphs(
-    Graph graph,
-    Map<Vertex, ArrayList<Vertex>> neighborsForVertex,
-    Map<Vertex, Subgraph> newgraphs, // put new subgraphs here
-    Map<Vertex, Subgraph> subgraphs, // optional isolation map from a previous round
-    ArrayList<Subgraph> islands
-  ) { // final list of islands or null
-    int count = 0;
-    for (Vertex gv : graph.getVertices()) {
-      if (!(gv instanceof StreetVertex)) {
-        continue;
-      }
-
-      if (subgraphs != null && !subgraphs.containsKey(gv)) {
-        // do not start new graph generation from non-classified vertex
-        continue;
-      }
-      if (newgraphs.containsKey(gv)) { // already processed
-        continue;
-      }
-      if (!neighborsForVertex.containsKey(gv)) {
-        continue;
-      }
-      Subgraph subgraph = computeConnectedSubgraph(neighborsForVertex, gv, subgraphs);
-      if (subgraph != null) {
-        for (Iterator<Vertex> vIter = subgraph.streetIterator(); vIter.hasNext();) {
-          Vertex subnode = vIter.next();
-          newgraphs.put(subnode, subgraph);
-        }
-        if (islands != null) {
-          islands.add(subgraph);
-        }
-        count++;
+  /**
+   * The vertices of the island still in the graph. Vertices pruned by another mode are left out,
+   * they have no edges left.
+   */
+  private List<Vertex> vertices(IslandFinder.Island island) {
+    List<Vertex> vertices = new ArrayList<>(island.vertices().length);
+    for (int index : island.vertices()) {
+      Vertex v = graph.getVertexByIndex(index);
+      if (v != null) {
+        vertices.add(v);
       }
     }
-    return count;
+    return vertices;
   }
 
-  private static void restrictOrRemove(
+  private void restrictOrRemove(
     Graph graph,
     VertexLinker vertexLinker,
-    Subgraph island,
-    Map<Edge, Boolean> isolated,
+    IslandFinder.Island island,
+    List<Vertex> members,
+    Set<Edge> isolated,
     Map<String, Integer> stats,
     boolean markIsolated,
     TraverseMode traverseMode,
     DataImportIssueStore issueStore
   ) {
     //iterate over the street vertex of the subgraph
-    for (Iterator<Vertex> vIter = island.streetIterator(); vIter.hasNext();) {
-      Vertex v = vIter.next();
+    for (Vertex v : members) {
+      if (v instanceof TransitStopVertex) {
+        continue;
+      }
       Collection<Edge> outgoing = new ArrayList<>(v.getOutgoing());
       for (Edge e : outgoing) {
         if (e instanceof StreetEdge) {
           if (markIsolated) {
-            isolated.put(e, true);
+            isolated.add(e);
             stats.put("isolated", stats.get("isolated") + 1);
           } else {
             StreetEdge pse = (StreetEdge) e;
-            if (!isolated.containsKey(e)) {
+            if (!isolated.contains(e)) {
               // not a true island edge but has limited access
               // so convert to noThruTraffic
               if (traverseMode == TraverseMode.CAR) {
@@ -471,8 +375,14 @@ public class PruneNoThruIslands implements GraphBuilderModule {
       return;
     }
 
-    for (Iterator<Vertex> vIter = island.streetIterator(); vIter.hasNext();) {
-      Vertex v = vIter.next();
+    Vertex representative = null;
+    for (Vertex v : members) {
+      if (v instanceof TransitStopVertex) {
+        continue;
+      }
+      if (representative == null) {
+        representative = v;
+      }
       if (v.getDegreeOut() + v.getDegreeIn() == 0) {
         graph.remove(v);
       }
@@ -482,50 +392,23 @@ public class PruneNoThruIslands implements GraphBuilderModule {
     if (traverseMode == TraverseMode.WALK) {
       // note: do not unlink stop if only CAR mode is pruned
       // maybe this needs more logic for flex routing cases
-      for (Iterator<Vertex> vIter = island.stopIterator(); vIter.hasNext();) {
-        Vertex v = vIter.next();
+      for (Vertex v : members) {
+        if (!(v instanceof TransitStopVertex)) {
+          continue;
+        }
         Collection<Edge> edges = new ArrayList<>(v.getOutgoing());
         edges.addAll(v.getIncoming());
         for (Edge e : edges) {
           if (e instanceof StreetTransitStopLink || e instanceof StreetTransitEntranceLink) {
             graph.removeEdge(e);
+            removedStopLinks++;
           }
         }
         issueStore.add(new PrunedIslandStop(v));
       }
     }
-    issueStore.add(new GraphIsland(island.getRepresentativeVertex(), island.streetSize()));
-  }
-
-  private static Subgraph computeConnectedSubgraph(
-    Map<Vertex, ArrayList<Vertex>> neighborsForVertex,
-    Vertex startVertex,
-    Map<Vertex, Subgraph> anchors
-  ) {
-    Subgraph subgraph = new Subgraph();
-    Queue<Vertex> q = new LinkedList<>();
-    Subgraph anchor = null;
-
-    if (anchors != null) {
-      // anchor subgraph expansion to this subgraph
-      anchor = anchors.get(startVertex);
-    }
-    q.add(startVertex);
-    while (!q.isEmpty()) {
-      Vertex vertex = q.poll();
-      for (Vertex neighbor : neighborsForVertex.get(vertex)) {
-        if (!subgraph.contains(neighbor)) {
-          if (anchor != null) {
-            Subgraph compare = anchors.get(neighbor);
-            if (compare != null && compare != anchor) { // do not enter a new island
-              continue;
-            }
-          }
-          subgraph.addVertex(neighbor);
-          q.add(neighbor);
-        }
-      }
+    if (representative != null) {
+      issueStore.add(new GraphIsland(representative, island.streetSize()));
     }
-    return subgraph;
   }
 }
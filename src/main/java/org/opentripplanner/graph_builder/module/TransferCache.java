@@ -0,0 +1,501 @@
+package org.opentripplanner.graph_builder.module;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Envelope;
+import org.opentripplanner.common.geometry.HashGridSpatialIndex;
+import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.routing.core.AStarRequest;
+import org.opentripplanner.routing.core.AStarRequestMapper;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.intersection_model.IntersectionTraversalCalculator;
+import org.opentripplanner.routing.edgetype.PathwayEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.vertextype.TransitBoardingAreaVertex;
+import org.opentripplanner.routing.vertextype.TransitEntranceVertex;
+import org.opentripplanner.routing.vertextype.TransitPathwayNodeVertex;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.util.OTPFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file cache of the nearby stops found by the {@link DirectTransferGenerator}, so a build with
+ * new transit data on an unchanged street network only searches the streets around the stops that
+ * changed.
+ * <p>
+ * The cache is discarded if the street input data or the build config is not the same as when the
+ * cache was written, see the input fingerprint. For each stop and transfer request the cache holds
+ * the street path to each nearby stop, as the type and end coordinate of each edge. The cached
+ * nearby stops of a stop are reused if:
+ * <ul>
+ *   <li>The stop is at the same location.</li>
+ *   <li>The stops within reach of the transfer search are the same, at the same locations.</li>
+ *   <li>The entrances, pathway nodes, boarding areas and pathways within reach are the same, with
+ *   the same locations, traversal times and lengths.</li>
+ *   <li>Each path can be followed edge by edge in the new graph, within the duration limit.</li>
+ * </ul>
+ * Between builds the street graph only changes where stops are linked to it, the street edges are
+ * split. A path which can not be followed because an edge is split differently is searched again.
+ * The states along a reused path are computed again by traversing the edges, so the nearby stops
+ * are the same as those found by a new search.
+ * <p>
+ * The nearby stops are cached before they are filtered by trip pattern, so the patterns may change
+ * between builds.
+ */
+public class TransferCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TransferCache.class);
+
+  private static final int MAGIC = 0x4f545054; // "OTPT"
+  private static final int VERSION = 2;
+
+  private final File file;
+  private final String fingerprint;
+
+  private Map<Key, Entry> cachedEntries = Map.of();
+  private final Map<Key, Entry> newEntries = new ConcurrentHashMap<>();
+  private final AtomicInteger nReused = new AtomicInteger();
+  private final AtomicInteger nSearched = new AtomicInteger();
+
+  private StopModel stopModel;
+  private Duration durationLimit;
+
+  /**
+   * The vertices created from the transit data, other than the stops, and the stops with pathways.
+   * These are part of the neighbourhood of a stop.
+   */
+  private HashGridSpatialIndex<Vertex> transitVertexIndex;
+
+  /**
+   * @param inputFingerprint a description of the street input data and the build config, the
+   *                         cache is not used if this changes.
+   */
+  public TransferCache(File file, String inputFingerprint) {
+    this.file = file;
+    this.fingerprint =
+      Hashing.sha256().hashString(inputFingerprint, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * The nearby stops of a transfer request can be cached if the search does not depend on the
+   * transit data.
+   */
+  static boolean isCacheable(RouteRequest request) {
+    return (
+      OTPFeature.FlexRouting.isOff() &&
+      (
+        OTPFeature.VehicleToStopHeuristics.isOff() ||
+        request.journey().access().mode() == StreetMode.WALK
+      )
+    );
+  }
+
+  /** Read the cache file, if it exists. */
+  void load(Graph graph, StopModel stopModel, Duration durationLimit) {
+    this.stopModel = stopModel;
+    this.durationLimit = durationLimit;
+    this.transitVertexIndex = indexTransitVertices(graph);
+
+    if (!file.exists()) {
+      return;
+    }
+    try {
+      cachedEntries = read();
+      LOG.info("Read {} cached transfer searches from {}", cachedEntries.size(), file);
+    } catch (IOException e) {
+      LOG.warn("Failed to read the transfer cache {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Return the nearby stops of the origin stop from the cache, or search for them if the cached
+   * stops can not be reused.
+   *
+   * @param requestIndex the index of the request among the transfer requests.
+   */
+  List<NearbyStop> findNearbyStops(
+    TransitStopVertex origin,
+    int requestIndex,
+    RouteRequest request,
+    StreetRequest streetRequest,
+    Supplier<List<NearbyStop>> search
+  ) {
+    var stop = origin.getStop();
+    var key = new Key(stop.getId().toString(), requestIndex);
+    long neighbourhood = neighbourhood(stop, streetRequest.mode(), request.preferences());
+
+    List<NearbyStop> result = null;
+    Entry entry = cachedEntries.get(key);
+    if (
+      entry != null &&
+      entry.lat == stop.getLat() &&
+      entry.lon == stop.getLon() &&
+      entry.neighbourhood == neighbourhood
+    ) {
+      result = follow(origin, entry.paths, request, streetRequest);
+    }
+    if (result == null) {
+      result = search.get();
+      nSearched.incrementAndGet();
+    } else {
+      nReused.incrementAndGet();
+    }
+    newEntries.put(key, toEntry(stop, neighbourhood, result));
+    return result;
+  }
+
+  /**
+   * Replace the cache file with the transfer searches of this build. The searches of stops which
+   * are no longer in the build are dropped.
+   */
+  void save() {
+    LOG.info(
+      "Reused the cached nearby stops of {} transfer searches, searched {}.",
+      nReused,
+      nSearched
+    );
+    try {
+      write();
+      LOG.info("Wrote {} transfer searches to the transfer cache {}", newEntries.size(), file);
+    } catch (IOException e) {
+      LOG.warn("Failed to write the transfer cache {}: {}", file, e.getMessage());
+    }
+  }
+
+  int countReused() {
+    return nReused.get();
+  }
+
+  int countSearched() {
+    return nSearched.get();
+  }
+
+  /**
+   * Follow the cached paths from the origin, and find the nearby stops at the end of them. Returns
+   * {@code null} if a path can not be followed.
+   */
+  @Nullable
+  private List<NearbyStop> follow(
+    TransitStopVertex origin,
+    List<CachedPath> paths,
+    RouteRequest request,
+    StreetRequest streetRequest
+  ) {
+    // Set up the initial state the same way as the street search does
+    AStarRequest aStarRequest = AStarRequestMapper
+      .map(request)
+      .withMode(streetRequest.mode())
+      .withArriveBy(false)
+      .build();
+    var initialStates = State.getInitialStates(Set.of(origin), aStarRequest);
+    if (initialStates.size() != 1) {
+      return null;
+    }
+    var streetPreferences = request.preferences().street();
+    aStarRequest.setIntersectionTraversalCalculator(
+      IntersectionTraversalCalculator.create(
+        streetPreferences.intersectionTraversalModel(),
+        streetPreferences.drivingDirection()
+      )
+    );
+    State initialState = initialStates.iterator().next();
+
+    List<NearbyStop> result = new ArrayList<>(paths.size());
+    for (CachedPath path : paths) {
+      State state = initialState;
+      Vertex vertex = origin;
+      for (int i = 0; i < path.edgeTypes.length; i++) {
+        Edge edge = findEdge(vertex, path, i);
+        if (edge == null) {
+          return null;
+        }
+        state = edge.traverse(state);
+        if (state == null) {
+          return null;
+        }
+        vertex = edge.getToVertex();
+      }
+      if (
+        !(vertex instanceof TransitStopVertex stopVertex) ||
+        !stopVertex.getStop().getId().toString().equals(path.stopId) ||
+        !state.isFinal() ||
+        state.getElapsedTimeSeconds() > durationLimit.toSeconds()
+      ) {
+        return null;
+      }
+      result.add(
+        path.edgeTypes.length == 0
+          ? new NearbyStop(stopVertex.getStop(), 0, List.of(), state)
+          : NearbyStop.nearbyStopForState(state, stopVertex.getStop())
+      );
+    }
+    return result;
+  }
+
+  /** Find the only outgoing edge matching the i-th edge of the path. */
+  @Nullable
+  private static Edge findEdge(Vertex vertex, CachedPath path, int i) {
+    Edge match = null;
+    for (Edge edge : vertex.getOutgoing()) {
+      Vertex to = edge.getToVertex();
+      if (
+        edge.getClass().getName().equals(path.edgeTypes[i]) &&
+        to.getX() == path.coordinates[2 * i] &&
+        to.getY() == path.coordinates[2 * i + 1]
+      ) {
+        if (match != null) {
+          return null;
+        }
+        match = edge;
+      }
+    }
+    return match;
+  }
+
+  /**
+   * A hash of the stops, entrances, pathway nodes, boarding areas and pathways which may be reached
+   * from the stop, within the straight line distance of the duration limit.
+   */
+  private long neighbourhood(RegularStop stop, StreetMode mode, RoutingPreferences preferences) {
+    double speed =
+      switch (mode) {
+        case WALK -> preferences.walk().speed();
+        case BIKE -> preferences.bike().speed();
+        case CAR -> preferences.car().speed();
+        default -> Math.max(
+          preferences.walk().speed(),
+          Math.max(preferences.bike().speed(), preferences.car().speed())
+        );
+      };
+    double radiusMeters = durationLimit.toSeconds() * speed;
+    var envelope = new Envelope(stop.getCoordinate().asJtsCoordinate());
+    envelope.expandBy(
+      SphericalDistanceLibrary.metersToLonDegrees(radiusMeters, stop.getLat()),
+      SphericalDistanceLibrary.metersToDegrees(radiusMeters)
+    );
+
+    var hasher = Hashing.murmur3_128().newHasher();
+    stopModel
+      .findRegularStops(envelope)
+      .stream()
+      .sorted(Comparator.comparing(s -> s.getId().toString()))
+      .forEach(s ->
+        hasher
+          .putString(s.getId().toString(), StandardCharsets.UTF_8)
+          .putDouble(s.getLat())
+          .putDouble(s.getLon())
+      );
+    transitVertexIndex
+      .query(envelope)
+      .stream()
+      .filter(v -> envelope.contains(v.getX(), v.getY()))
+      .sorted(Comparator.comparing(Vertex::getLabel))
+      .forEach(v -> {
+        hasher
+          .putString(v.getLabel(), StandardCharsets.UTF_8)
+          .putDouble(v.getX())
+          .putDouble(v.getY());
+        pathways(v.getOutgoing()).forEach(e -> hashPathway(hasher, e, e.getToVertex()));
+        pathways(v.getIncoming()).forEach(e -> hashPathway(hasher, e, e.getFromVertex()));
+      });
+    return hasher.hash().asLong();
+  }
+
+  private static HashGridSpatialIndex<Vertex> indexTransitVertices(Graph graph) {
+    var index = new HashGridSpatialIndex<Vertex>();
+    for (Vertex v : graph.getVertices()) {
+      if (
+        v instanceof TransitEntranceVertex ||
+        v instanceof TransitPathwayNodeVertex ||
+        v instanceof TransitBoardingAreaVertex ||
+        (
+          v instanceof TransitStopVertex &&
+          (!pathways(v.getOutgoing()).isEmpty() || !pathways(v.getIncoming()).isEmpty())
+        )
+      ) {
+        index.insert(new Envelope(v.getCoordinate()), v);
+      }
+    }
+    return index;
+  }
+
+  /** The pathways among the edges, in a stable order. */
+  private static List<PathwayEdge> pathways(Collection<Edge> edges) {
+    return edges
+      .stream()
+      .filter(PathwayEdge.class::isInstance)
+      .map(PathwayEdge.class::cast)
+      .sorted(
+        Comparator
+          .comparing((PathwayEdge e) -> e.getFromVertex().getLabel())
+          .thenComparing(e -> e.getToVertex().getLabel())
+          .thenComparing(e -> String.valueOf(e.getId()))
+      )
+      .toList();
+  }
+
+  private static void hashPathway(Hasher hasher, PathwayEdge edge, Vertex other) {
+    hasher
+      .putString(String.valueOf(edge.getId()), StandardCharsets.UTF_8)
+      .putString(other.getLabel(), StandardCharsets.UTF_8)
+      .putInt(edge.getDistanceIndependentTime())
+      .putDouble(edge.getDistanceMeters())
+      .putInt(edge.getSteps())
+      .putBoolean(edge.isWheelchairAccessible())
+      .putString(String.valueOf(edge.getMode()), StandardCharsets.UTF_8);
+  }
+
+  private static Entry toEntry(RegularStop stop, long neighbourhood, List<NearbyStop> nearbyStops) {
+    List<CachedPath> paths = new ArrayList<>(nearbyStops.size());
+    for (NearbyStop nearbyStop : nearbyStops) {
+      int n = nearbyStop.edges.size();
+      String[] edgeTypes = new String[n];
+      double[] coordinates = new double[2 * n];
+      for (int i = 0; i < n; i++) {
+        Edge edge = nearbyStop.edges.get(i);
+        edgeTypes[i] = edge.getClass().getName();
+        coordinates[2 * i] = edge.getToVertex().getX();
+        coordinates[2 * i + 1] = edge.getToVertex().getY();
+      }
+      paths.add(new CachedPath(nearbyStop.stop.getId().toString(), edgeTypes, coordinates));
+    }
+    return new Entry(stop.getLat(), stop.getLon(), neighbourhood, paths);
+  }
+
+  private Map<Key, Entry> read() throws IOException {
+    try (
+      var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))
+    ) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LOG.warn("The file {} is not a transfer cache of the current version.", file);
+        return Map.of();
+      }
+      if (!fingerprint.equals(in.readUTF())) {
+        LOG.info("The street data or build config has changed, the transfer cache is not used.");
+        return Map.of();
+      }
+      String[] edgeTypes = new String[in.readInt()];
+      for (int i = 0; i < edgeTypes.length; i++) {
+        edgeTypes[i] = in.readUTF();
+      }
+      int size = in.readInt();
+      Map<Key, Entry> entries = new HashMap<>(size);
+      for (int i = 0; i < size; i++) {
+        var key = new Key(in.readUTF(), in.readInt());
+        double lat = in.readDouble();
+        double lon = in.readDouble();
+        long neighbourhood = in.readLong();
+        int nPaths = in.readInt();
+        List<CachedPath> paths = new ArrayList<>(nPaths);
+        for (int j = 0; j < nPaths; j++) {
+          String stopId = in.readUTF();
+          int nEdges = in.readInt();
+          String[] types = new String[nEdges];
+          double[] coordinates = new double[2 * nEdges];
+          for (int k = 0; k < nEdges; k++) {
+            types[k] = edgeTypes[in.readUnsignedShort()];
+            coordinates[2 * k] = in.readDouble();
+            coordinates[2 * k + 1] = in.readDouble();
+          }
+          paths.add(new CachedPath(stopId, types, coordinates));
+        }
+        entries.put(key, new Entry(lat, lon, neighbourhood, paths));
+      }
+      return entries;
+    }
+  }
+
+  private void write() throws IOException {
+    Map<String, Integer> edgeTypeIndex = new HashMap<>();
+    for (Entry entry : newEntries.values()) {
+      for (CachedPath path : entry.paths) {
+        for (String type : path.edgeTypes) {
+          edgeTypeIndex.putIfAbsent(type, edgeTypeIndex.size());
+        }
+      }
+    }
+    String[] edgeTypes = new String[edgeTypeIndex.size()];
+    edgeTypeIndex.forEach((type, index) -> edgeTypes[index] = type);
+
+    File tmpFile = new File(file.getPath() + ".tmp");
+    try (
+      var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))
+    ) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(fingerprint);
+      out.writeInt(edgeTypes.length);
+      for (String type : edgeTypes) {
+        out.writeUTF(type);
+      }
+      out.writeInt(newEntries.size());
+      for (var it : newEntries.entrySet()) {
+        out.writeUTF(it.getKey().stopId);
+        out.writeInt(it.getKey().requestIndex);
+        Entry entry = it.getValue();
+        out.writeDouble(entry.lat);
+        out.writeDouble(entry.lon);
+        out.writeLong(entry.neighbourhood);
+        out.writeInt(entry.paths.size());
+        for (CachedPath path : entry.paths) {
+          out.writeUTF(path.stopId);
+          out.writeInt(path.edgeTypes.length);
+          for (int k = 0; k < path.edgeTypes.length; k++) {
+            out.writeShort(edgeTypeIndex.get(path.edgeTypes[k]));
+            out.writeDouble(path.coordinates[2 * k]);
+            out.writeDouble(path.coordinates[2 * k + 1]);
+          }
+        }
+      }
+    }
+    Files.move(
+      tmpFile.toPath(),
+      file.toPath(),
+      StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE
+    );
+  }
+
+  private record Key(String stopId, int requestIndex) {}
+
+  private record Entry(double lat, double lon, long neighbourhood, List<CachedPath> paths) {}
+
+  /**
+   * A path to a nearby stop, the type of each edge and the coordinate [x, y] at the end of each
+   * edge.
+   */
+  private record CachedPath(String stopId, String[] edgeTypes, double[] coordinates) {}
+}
@@ -8,6 +8,7 @@ import java.io.File;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import javax.inject.Singleton;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.ext.dataoverlay.EdgeUpdaterModule;
@@ -20,6 +21,7 @@ import org.opentripplanner.graph_builder.GraphBuilderDataSources;
 import org.opentripplanner.graph_builder.module.DirectTransferGenerator;
 import org.opentripplanner.graph_builder.module.PruneNoThruIslands;
 import org.opentripplanner.graph_builder.module.StreetLinkerModule;
+import org.opentripplanner.graph_builder.module.TransferCache;
 import org.opentripplanner.graph_builder.module.ned.DegreeGridNEDTileSource;
 import org.opentripplanner.graph_builder.module.ned.ElevationModule;
 import org.opentripplanner.graph_builder.module.ned.GeotiffGridCoverageFactoryImpl;
@@ -38,6 +40,8 @@ import org.opentripplanner.routing.api.request.preference.WalkPreferences;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.transit.service.TransitModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Configure all modules witch is not simple enough to be injected.
@@ -45,6 +49,8 @@ import org.opentripplanner.transit.service.TransitModel;
 @Module
 public class GraphBuilderModules {
 
+  private static final Logger LOG = LoggerFactory.getLogger(GraphBuilderModules.class);
+
   @Provides
   @Singleton
   static OpenStreetMapModule provideOpenStreetMapModule(
@@ -198,6 +204,7 @@ public class GraphBuilderModules {
   @Singleton
   static DirectTransferGenerator provideDirectTransferGenerator(
     BuildConfig config,
+    GraphBuilderDataSources dataSources,
     Graph graph,
     TransitModel transitModel,
     DataImportIssueStore issueStore
@@ -208,7 +215,8 @@ public class GraphBuilderModules {
       transitModel,
       issueStore,
       maxTransferDuration,
-      config.transferRequests
+      config.transferRequests,
+      createTransferCache(config, dataSources)
     );
   }
 
@@ -288,7 +296,7 @@ public class GraphBuilderModules {
     OpenStreetMapModule osmModule,
     File cacheDirectory
   ) {
-    var cachedElevationsFile = new File(cacheDirectory, "cached_elevations.obj");
+    var cachedElevationsFile = new File(cacheDirectory, "cached_elevations.bin");
 
     return new ElevationModule(
       it,
@@ -305,6 +313,25 @@ public class GraphBuilderModules {
     );
   }
 
+  @Nullable
+  private static TransferCache createTransferCache(
+    BuildConfig config,
+    GraphBuilderDataSources dataSources
+  ) {
+    if (!config.cacheTransfers) {
+      return null;
+    }
+    String streetDataFingerprint = dataSources.getStreetDataFingerprint();
+    if (streetDataFingerprint == null) {
+      LOG.warn("The street input data can not be fingerprinted, the transfers are not cached.");
+      return null;
+    }
+    return new TransferCache(
+      new File(dataSources.getCacheDirectory(), "cached_transfers.bin"),
+      streetDataFingerprint + config.toJson()
+    );
+  }
+
   private static ElevationGridCoverageFactory createGeotiffGridCoverageFactoryImpl(
     DataSource demSource,
     double elevationUnitMultiplier
@@ -0,0 +1,318 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file cache of elevation profiles, keyed by a 64-bit hash of the street edge geometry.
+ * <p>
+ * The file is memory mapped when loaded, and a profile is only decoded when it is looked up, so
+ * loading the cache is instant and the cache uses no heap. The lookup is thread-safe.
+ * <p>
+ * The file is laid out like this:
+ * <pre>
+ *   header:  magic, version, distance between samples, number of entries
+ *   keys:    the geometry hashes, sorted
+ *   offsets: the offset of each entry in the data section
+ *   data:    the entries
+ * </pre>
+ * The distance along the edge of each sample is not stored for regular profiles, where all samples
+ * except the last are a multiple of the distance between samples. Only the length of the edge is
+ * stored. The elevations are stored as unsigned 16-bit offsets from the lowest elevation of the
+ * profile, in centimeters, or in decimeters if the elevation range of the profile is more than
+ * 655 m.
+ */
+final class ElevationCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ElevationCache.class);
+
+  private static final int MAGIC = 0x4f545045; // "OTPE"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+  private static final int FLAG_DECIMETERS = 1;
+  private static final int FLAG_EXPLICIT_DISTANCES = 2;
+
+  private static final double CENTIMETERS = 100.0;
+  private static final double DECIMETERS = 10.0;
+  private static final int MAX_OFFSET = 0xFFFF;
+
+  private final ByteBuffer buffer;
+  private final double distanceBetweenSamplesM;
+  private final int size;
+  private final int offsetsStart;
+  private final int dataStart;
+
+  private ElevationCache(ByteBuffer buffer, double distanceBetweenSamplesM, int size) {
+    this.buffer = buffer;
+    this.distanceBetweenSamplesM = distanceBetweenSamplesM;
+    this.size = size;
+    this.offsetsStart = HEADER_SIZE + size * Long.BYTES;
+    this.dataStart = offsetsStart + size * Integer.BYTES;
+  }
+
+  /**
+   * Map the cache file into memory.
+   *
+   * @return {@code null} if the file is not an elevation cache, or if it was written with another
+   * distance between samples.
+   */
+  @Nullable
+  static ElevationCache load(File file, double distanceBetweenSamplesM) throws IOException {
+    ByteBuffer buffer;
+    try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (
+      buffer.capacity() < HEADER_SIZE ||
+      buffer.getInt(0) != MAGIC ||
+      buffer.getInt(4) != VERSION
+    ) {
+      LOG.warn("The file {} is not an elevation cache of the current version.", file);
+      return null;
+    }
+    double cachedDistance = buffer.getDouble(8);
+    if (cachedDistance != distanceBetweenSamplesM) {
+      LOG.warn(
+        "The elevation cache is made with {} m between samples, not {} m. It is not used.",
+        cachedDistance,
+        distanceBetweenSamplesM
+      );
+      return null;
+    }
+    var cache = new ElevationCache(buffer, distanceBetweenSamplesM, buffer.getInt(16));
+    if (cache.size < 0 || cache.dataStart > buffer.capacity()) {
+      LOG.warn("The elevation cache {} is truncated.", file);
+      return null;
+    }
+    return cache;
+  }
+
+  /** The hash of the geometry used as the cache key. */
+  static long key(LineString geometry) {
+    CoordinateSequence cs = geometry.getCoordinateSequence();
+    long h = cs.size();
+    for (int i = 0; i < cs.size(); ++i) {
+      h = mix(h ^ Double.doubleToLongBits(cs.getX(i)));
+      h = mix(h ^ Double.doubleToLongBits(cs.getY(i)));
+    }
+    return h;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /** Return the cached profile of the geometry, or {@code null} if it is not in the cache. */
+  @Nullable
+  PackedCoordinateSequence get(LineString geometry) {
+    int index = indexOf(key(geometry));
+    if (index < 0) {
+      return null;
+    }
+    int pos = dataStart + buffer.getInt(offsetsStart + index * Integer.BYTES);
+
+    int flags = buffer.get(pos);
+    int n = Short.toUnsignedInt(buffer.getShort(pos + 1));
+    double minElevation = buffer.getFloat(pos + 3);
+    double scale = (flags & FLAG_DECIMETERS) != 0 ? DECIMETERS : CENTIMETERS;
+    pos += 7;
+
+    double[] coordinates = new double[2 * n];
+    if ((flags & FLAG_EXPLICIT_DISTANCES) != 0) {
+      for (int i = 0; i < n; ++i, pos += Float.BYTES) {
+        coordinates[2 * i] = buffer.getFloat(pos);
+      }
+    } else {
+      for (int i = 0; i < n - 1; ++i) {
+        coordinates[2 * i] = i * distanceBetweenSamplesM;
+      }
+      coordinates[2 * (n - 1)] = buffer.getFloat(pos);
+      pos += Float.BYTES;
+    }
+    for (int i = 0; i < n; ++i, pos += Short.BYTES) {
+      int offset = Short.toUnsignedInt(buffer.getShort(pos));
+      coordinates[2 * i + 1] = minElevation + offset / scale;
+    }
+    return new PackedCoordinateSequence.Double(coordinates, 2, 0);
+  }
+
+  private int indexOf(long key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midKey = buffer.getLong(HEADER_SIZE + mid * Long.BYTES);
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /** The murmur3 64-bit finalizer. */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * Collect elevation profiles, and write them to a new cache file. The entries are encoded when
+   * they are added. The writer is not thread-safe.
+   */
+  static class Writer {
+
+    private final double distanceBetweenSamplesM;
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private final DataOutputStream dataOut = new DataOutputStream(data);
+    private long[] keys = new long[1024];
+    private int[] offsets = new int[1024];
+    private int size = 0;
+
+    Writer(double distanceBetweenSamplesM) {
+      this.distanceBetweenSamplesM = distanceBetweenSamplesM;
+    }
+
+    void add(LineString geometry, PackedCoordinateSequence profile) throws IOException {
+      int n = profile.size();
+      if (n == 0 || n > MAX_OFFSET) {
+        return;
+      }
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < n; ++i) {
+        min = Math.min(min, profile.getY(i));
+        max = Math.max(max, profile.getY(i));
+      }
+      if (!Double.isFinite(min) || !Double.isFinite(max)) {
+        return;
+      }
+      // Round down, so the offsets are not negative
+      float minElevation = (float) min;
+      if (minElevation > min) {
+        minElevation = Math.nextDown(minElevation);
+      }
+      int flags = 0;
+      double scale = CENTIMETERS;
+      if (Math.round((max - minElevation) * CENTIMETERS) > MAX_OFFSET) {
+        flags |= FLAG_DECIMETERS;
+        scale = DECIMETERS;
+        if (Math.round((max - minElevation) * DECIMETERS) > MAX_OFFSET) {
+          return;
+        }
+      }
+      boolean regular = isRegular(profile);
+      if (!regular) {
+        flags |= FLAG_EXPLICIT_DISTANCES;
+      }
+
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      keys[size] = key(geometry);
+      offsets[size] = dataOut.size();
+      ++size;
+
+      dataOut.writeByte(flags);
+      dataOut.writeShort(n);
+      dataOut.writeFloat(minElevation);
+      if (regular) {
+        dataOut.writeFloat((float) profile.getX(n - 1));
+      } else {
+        for (int i = 0; i < n; ++i) {
+          dataOut.writeFloat((float) profile.getX(i));
+        }
+      }
+      for (int i = 0; i < n; ++i) {
+        dataOut.writeShort((int) Math.round((profile.getY(i) - minElevation) * scale));
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    /**
+     * Write the cache to a temporary file, and then replace the given file with it. The file may
+     * be mapped by the cache loaded at the start of the build, replacing it does not change the
+     * mapped content.
+     */
+    void write(File file) throws IOException {
+      // Sort the entries by key, the first entry of duplicated keys is kept
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; ++i) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+
+      File tmpFile = new File(file.getPath() + ".tmp");
+      int count = 0;
+      try (
+        var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))
+      ) {
+        int[] unique = new int[size];
+        for (int i = 0; i < size; ++i) {
+          if (count == 0 || keys[order[i]] != keys[unique[count - 1]]) {
+            unique[count++] = order[i];
+          }
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeDouble(distanceBetweenSamplesM);
+        out.writeInt(count);
+        for (int i = 0; i < count; ++i) {
+          out.writeLong(keys[unique[i]]);
+        }
+        for (int i = 0; i < count; ++i) {
+          out.writeInt(offsets[unique[i]]);
+        }
+        data.writeTo(out);
+      }
+      Files.move(
+        tmpFile.toPath(),
+        file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE
+      );
+      LOG.info("Wrote {} elevation profiles to the elevation cache {}", count, file);
+    }
+
+    /**
+     * A regular profile has samples at every multiple of the distance between samples, except the
+     * last sample at the end of the edge.
+     */
+    private boolean isRegular(PackedCoordinateSequence profile) {
+      for (int i = 0; i < profile.size() - 1; ++i) {
+        if (Math.abs(profile.getX(i) - i * distanceBetweenSamplesM) > 1e-6) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
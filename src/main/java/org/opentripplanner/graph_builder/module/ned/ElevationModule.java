@@ -3,13 +3,8 @@ package org.opentripplanner.graph_builder.module.ned;
 import static org.opentripplanner.graph_builder.DataImportIssueStore.noopIssueStore;
 import static org.opentripplanner.util.ElevationUtils.computeEllipsoidToGeoidDifference;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
@@ -21,7 +16,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.geotools.geometry.DirectPosition2D;
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
 import org.opengis.coverage.Coverage;
 import org.opengis.coverage.PointOutsideCoverageException;
@@ -38,7 +33,6 @@ import org.opentripplanner.routing.edgetype.StreetElevationExtension;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
-import org.opentripplanner.util.PolylineEncoder;
 import org.opentripplanner.util.geometry.GeometryUtils;
 import org.opentripplanner.util.logging.ProgressTracker;
 import org.opentripplanner.util.time.DurationUtils;
@@ -90,12 +84,12 @@ public class ElevationModule implements GraphBuilderModule {
   private final ThreadLocal<Coverage> coverageInterpolatorThreadLocal = new ThreadLocal<>();
   private final DataImportIssueStore issueStore;
   /**
-   * A map of PackedCoordinateSequence values identified by Strings of encoded polylines.
+   * The elevation profiles of a previous build, identified by the edge geometries.
    * <p>
-   * Note: Since this map has a key of only the encoded polylines, it is assumed that all other
-   * inputs are the same as those that occurred in the graph build that produced this data.
+   * Note: Since the cache is keyed by the geometry only, it is assumed that all other inputs are
+   * the same as those that occurred in the graph build that produced this data.
    */
-  private HashMap<String, PackedCoordinateSequence> cachedElevations;
+  private ElevationCache cachedElevations;
   // the first coordinate in the first StreetWithElevationEdge which is used for initializing coverage instances
   private Coordinate examplarCoordinate;
   /** Used only when the ElevationModule is requested to be ran with a single thread */
@@ -159,10 +153,11 @@ public class ElevationModule implements GraphBuilderModule {
     if (readCachedElevations) {
       // try to load in the cached elevation data
       try {
-        ObjectInputStream in = new ObjectInputStream(new FileInputStream(cachedElevationsFile));
-        cachedElevations = (HashMap<String, PackedCoordinateSequence>) in.readObject();
-        LOG.info("Cached elevation data loaded into memory!");
-      } catch (IOException | ClassNotFoundException e) {
+        cachedElevations = ElevationCache.load(cachedElevationsFile, distanceBetweenSamplesM);
+        if (cachedElevations != null) {
+          LOG.info("Cached elevation data mapped, {} profiles.", cachedElevations.size());
+        }
+      } catch (IOException e) {
         issueStore.add(
           new Graphwide(
             String.format(
@@ -245,19 +240,12 @@ public class ElevationModule implements GraphBuilderModule {
     if (writeCachedElevations) {
       // write information from edgesWithElevation to a new cache file for subsequent graph builds
       LOG.info("Writing elevation cache");
-      HashMap<String, PackedCoordinateSequence> newCachedElevations = new HashMap<>();
-      for (StreetEdge streetEdge : edgesWithCalculatedElevations) {
-        newCachedElevations.put(
-          PolylineEncoder.encodeGeometry(streetEdge.getGeometry()).points(),
-          streetEdge.getElevationProfile()
-        );
-      }
       try {
-        ObjectOutputStream out = new ObjectOutputStream(
-          new BufferedOutputStream(new FileOutputStream(cachedElevationsFile))
-        );
-        out.writeObject(newCachedElevations);
-        out.close();
+        var newCachedElevations = new ElevationCache.Writer(distanceBetweenSamplesM);
+        for (StreetEdge streetEdge : edgesWithCalculatedElevations) {
+          newCachedElevations.add(streetEdge.getGeometry(), streetEdge.getElevationProfile());
+        }
+        newCachedElevations.write(cachedElevationsFile);
       } catch (IOException e) {
         issueStore.add(new Graphwide("Failed to write cached elevation file: " + e.getMessage()));
       }
@@ -381,11 +369,9 @@ public class ElevationModule implements GraphBuilderModule {
     }
 
     // first try to find a cached value if possible
-    Geometry edgeGeometry = ee.getGeometry();
+    LineString edgeGeometry = ee.getGeometry();
     if (cachedElevations != null) {
-      PackedCoordinateSequence coordinateSequence = cachedElevations.get(
-        PolylineEncoder.encodeGeometry(edgeGeometry).points()
-      );
+      PackedCoordinateSequence coordinateSequence = cachedElevations.get(edgeGeometry);
       if (coordinateSequence != null) {
         // found a cached value! Set the elevation profile with the pre-calculated data.
         setEdgeElevationProfile(ee, coordinateSequence);
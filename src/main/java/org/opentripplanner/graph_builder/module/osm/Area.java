@@ -3,7 +3,6 @@ package org.opentripplanner.graph_builder.module.osm;
 import com.google.common.collect.ArrayListMultimap;
 import gnu.trove.list.TLongList;
 import gnu.trove.list.array.TLongArrayList;
-import gnu.trove.map.TLongObjectMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -11,7 +10,7 @@ import java.util.List;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.TopologyException;
-import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.graph_builder.module.osm.nodestore.OsmNodeStore;
 import org.opentripplanner.openstreetmap.model.OSMWay;
 import org.opentripplanner.openstreetmap.model.OSMWithTags;
 import org.opentripplanner.util.geometry.GeometryUtils;
@@ -32,7 +31,7 @@ class Area {
     OSMWithTags parent,
     List<OSMWay> outerRingWays,
     List<OSMWay> innerRingWays,
-    TLongObjectMap<OSMNode> nodes
+    OsmNodeStore nodes
   ) {
     this.parent = parent;
     // ring assignment
@@ -35,6 +35,8 @@ import org.opentripplanner.graph_builder.issues.TurnRestrictionBad;
 import org.opentripplanner.graph_builder.issues.TurnRestrictionException;
 import org.opentripplanner.graph_builder.issues.TurnRestrictionUnknown;
 import org.opentripplanner.graph_builder.module.osm.TurnRestrictionTag.Direction;
+import org.opentripplanner.graph_builder.module.osm.nodestore.OsmNodeStore;
+import org.opentripplanner.graph_builder.module.osm.nodestore.OsmNodeStoreType;
 import org.opentripplanner.openstreetmap.model.OSMLevel;
 import org.opentripplanner.openstreetmap.model.OSMLevel.Source;
 import org.opentripplanner.openstreetmap.model.OSMNode;
@@ -58,7 +60,7 @@ public class OSMDatabase {
   private final DataImportIssueStore issueStore;
 
   /* Map of all nodes used in ways/areas keyed by their OSM ID */
-  private final TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
+  private final OsmNodeStore nodesById;
 
   /* Map of all bike parking nodes, keyed by their OSM ID */
   private final TLongObjectMap<OSMNode> bikeParkingNodes = new TLongObjectHashMap<>();
@@ -130,8 +132,17 @@ public class OSMDatabase {
   private final Set<String> boardingAreaRefTags;
 
   public OSMDatabase(DataImportIssueStore issueStore, Set<String> boardingAreaRefTags) {
+    this(issueStore, boardingAreaRefTags, OsmNodeStoreType.HEAP);
+  }
+
+  public OSMDatabase(
+    DataImportIssueStore issueStore,
+    Set<String> boardingAreaRefTags,
+    OsmNodeStoreType nodeStoreType
+  ) {
     this.issueStore = issueStore;
     this.boardingAreaRefTags = boardingAreaRefTags;
+    this.nodesById = nodeStoreType.create();
   }
 
   public OSMNode getNode(Long nodeId) {
@@ -150,7 +161,7 @@ public class OSMDatabase {
     return areaWayIds.contains(wayId);
   }
 
-  public int nodeCount() {
+  public long nodeCount() {
     return nodesById.size();
   }
 
@@ -210,6 +221,15 @@ public class OSMDatabase {
     return waysNodeIds.contains(nodeId);
   }
 
+  /**
+   * Return {@code true} if the node is used by one of the ways or areas loaded. This is only
+   * reading the state set up in the second phase, so it is safe to call from more than one thread
+   * while the nodes are loaded.
+   */
+  public boolean isNodeReferenced(long nodeId) {
+    return waysNodeIds.contains(nodeId) || areaNodeIds.contains(nodeId);
+  }
+
   public void addNode(OSMNode node) {
     if (node.isBikeParking()) {
       bikeParkingNodes.put(node.getId(), node);
@@ -227,10 +247,10 @@ public class OSMDatabase {
       return;
     }
 
-    if (nodesById.containsKey(node.getId())) {
+    if (nodesById.contains(node.getId())) {
       return;
     }
-    nodesById.put(node.getId(), node);
+    nodesById.add(node);
   }
 
   public void addWay(OSMWay way) {
@@ -364,6 +384,13 @@ public class OSMDatabase {
     processSingleWayAreas();
   }
 
+  /**
+   * Release the resources held by the node store. The nodes can not be retrieved after this.
+   */
+  public void close() {
+    nodesById.close();
+  }
+
   /**
    * After all loading is done (from multiple OSM sources), post-process.
    */
@@ -688,7 +715,7 @@ public class OSMDatabase {
     node.setId(virtualNodeId);
     virtualNodeId--;
     waysNodeIds.add(node.getId());
-    nodesById.put(node.getId(), node);
+    nodesById.add(node);
     return node;
   }
 
@@ -737,7 +764,7 @@ public class OSMDatabase {
       TLongIterator longIterator = way.getNodeRefs().iterator();
       while (longIterator.hasNext()) {
         long nodeRef = longIterator.next();
-        if (!nodesById.containsKey(nodeRef)) {
+        if (!nodesById.contains(nodeRef)) {
           continue AREA;
         }
       }
@@ -792,7 +819,7 @@ public class OSMDatabase {
         TLongIterator wayNodeIterator = way.getNodeRefs().iterator();
         while (wayNodeIterator.hasNext()) {
           long nodeId = wayNodeIterator.next();
-          if (nodesById.containsKey(nodeId)) {
+          if (nodesById.contains(nodeId)) {
             MapUtils.addToMapSet(areasForNode, nodeId, way);
           } else {
             // this area is missing some nodes, perhaps because it is on
@@ -1140,7 +1167,7 @@ public class OSMDatabase {
         } else {
           issueStore.add(new TooManyAreasInRelation(relation.getId()));
         }
-      } else if ("node".equals(member.getType()) && nodesById.containsKey(member.getRef())) {
+      } else if ("node".equals(member.getType()) && nodesById.contains(member.getRef())) {
         platformsNodes.add(nodesById.get(member.getRef()));
       }
     }
@@ -26,6 +26,7 @@ import org.opentripplanner.graph_builder.issues.Graphwide;
 import org.opentripplanner.graph_builder.issues.StreetCarSpeedZero;
 import org.opentripplanner.graph_builder.issues.TurnRestrictionBad;
 import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.graph_builder.module.osm.nodestore.OsmNodeStoreType;
 import org.opentripplanner.graph_builder.module.osm.tagmapping.OsmTagMapper;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
 import org.opentripplanner.model.StreetNote;
@@ -106,6 +107,10 @@ public class OpenStreetMapModule implements GraphBuilderModule {
    */
   public boolean staticBikeParkAndRide;
   public int maxAreaNodes = 500;
+  /**
+   * Where to keep the OSM nodes while building the street graph.
+   */
+  public OsmNodeStoreType osmNodeStore = OsmNodeStoreType.HEAP;
   /**
    * Whether ways tagged foot/bicycle=discouraged should be marked as inaccessible
    */
@@ -150,22 +155,27 @@ public class OpenStreetMapModule implements GraphBuilderModule {
     this.banDiscouragedWalking = config.banDiscouragedWalking;
     this.banDiscouragedBiking = config.banDiscouragedBiking;
     this.maxAreaNodes = config.maxAreaNodes;
+    this.osmNodeStore = config.osmNodeStore;
   }
 
   @Override
   public void buildGraph() {
-    OSMDatabase osmdb = new OSMDatabase(issueStore, boardingAreaRefTags);
-    Handler handler = new Handler(graph, osmdb);
-    for (OpenStreetMapProvider provider : providers) {
-      LOG.info("Gathering OSM from provider: {}", provider);
-      provider.readOSM(osmdb);
-    }
-    osmdb.postLoad();
+    OSMDatabase osmdb = new OSMDatabase(issueStore, boardingAreaRefTags, osmNodeStore);
+    try {
+      Handler handler = new Handler(graph, osmdb);
+      for (OpenStreetMapProvider provider : providers) {
+        LOG.info("Gathering OSM from provider: {}", provider);
+        provider.readOSM(osmdb);
+      }
+      osmdb.postLoad();
 
-    LOG.info("Using OSM way configuration from {}.", osmTagMapper.getClass().getSimpleName());
+      LOG.info("Using OSM way configuration from {}.", osmTagMapper.getClass().getSimpleName());
 
-    LOG.info("Building street graph from OSM");
-    handler.buildGraph();
+      LOG.info("Building street graph from OSM");
+      handler.buildGraph();
+    } finally {
+      osmdb.close();
+    }
     graph.hasStreets = true;
     //Calculates envelope for OSM
     graph.calculateEnvelope();
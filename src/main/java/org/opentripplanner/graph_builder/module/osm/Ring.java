@@ -1,7 +1,6 @@
 package org.opentripplanner.graph_builder.module.osm;
 
 import gnu.trove.list.TLongList;
-import gnu.trove.map.TLongObjectMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -15,6 +14,7 @@ import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.Polygon;
 import org.opentripplanner.api.resource.CoordinateArrayListSequence;
+import org.opentripplanner.graph_builder.module.osm.nodestore.OsmNodeStore;
 import org.opentripplanner.openstreetmap.model.OSMNode;
 import org.opentripplanner.util.geometry.GeometryUtils;
 
@@ -43,7 +43,7 @@ public class Ring {
     jtsPolygon = calculateJtsPolygon();
   }
 
-  public Ring(TLongList osmNodes, TLongObjectMap<OSMNode> _nodes) {
+  public Ring(TLongList osmNodes, OsmNodeStore _nodes) {
     ArrayList<Coordinate> vertices = new ArrayList<>();
     nodes = new ArrayList<>(osmNodes.size());
     osmNodes.forEach(nodeId -> {
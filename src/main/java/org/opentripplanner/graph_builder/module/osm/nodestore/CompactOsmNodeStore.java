@@ -0,0 +1,287 @@
+package org.opentripplanner.graph_builder.module.osm.nodestore;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A node store keeping only the id and coordinate of untagged nodes, outside the heap. Each
+ * untagged node is stored as a 16 byte record: the id as a {@code long} and the latitude and
+ * longitude as {@code int} fixed-point numbers with 7 decimals, the precision used by OSM. The
+ * records are kept in fixed size chunks of direct or memory-mapped buffers. A new
+ * {@link OSMNode} is created each time a node is retrieved.
+ * <p>
+ * The nodes in a PBF file are normally sorted on id, so the records are appended in sorted runs,
+ * one for each OSM file, and a node is found using binary search. A node arriving out of order,
+ * like the virtual nodes created during the build, is kept on the heap together with the tagged
+ * nodes.
+ */
+class CompactOsmNodeStore implements OsmNodeStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompactOsmNodeStore.class);
+
+  private static final int RECORD_SIZE = 16;
+  private static final int LAT_OFFSET = 8;
+  private static final int LON_OFFSET = 12;
+  private static final int RECORDS_PER_CHUNK = 1 << 20;
+  private static final int CHUNK_SIZE = RECORDS_PER_CHUNK * RECORD_SIZE;
+  private static final double FIXED_POINT_FACTOR = 10_000_000d;
+
+  private final ChunkAllocator allocator;
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private final List<Run> runs = new ArrayList<>();
+  private final TLongObjectMap<OSMNode> heapNodes = new TLongObjectHashMap<>();
+  private long nRecords = 0;
+
+  private CompactOsmNodeStore(ChunkAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  static CompactOsmNodeStore offHeap() {
+    return new CompactOsmNodeStore(new ChunkAllocator.OffHeap());
+  }
+
+  static CompactOsmNodeStore memoryMapped() {
+    return new CompactOsmNodeStore(new ChunkAllocator.MemoryMapped());
+  }
+
+  @Override
+  public void add(OSMNode node) {
+    if (node.getTags() != null && !node.getTags().isEmpty()) {
+      heapNodes.put(node.getId(), node);
+      return;
+    }
+
+    Run run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+
+    if (run == null || run.provider != node.getOsmProvider()) {
+      run = new Run(nRecords, node.getOsmProvider());
+      runs.add(run);
+    } else if (node.getId() <= run.lastId) {
+      heapNodes.put(node.getId(), node);
+      return;
+    }
+    append(node);
+    run.add(node.getId());
+  }
+
+  @Override
+  public OSMNode get(long nodeId) {
+    OSMNode node = heapNodes.get(nodeId);
+    if (node != null) {
+      return node;
+    }
+    for (int i = runs.size() - 1; i >= 0; --i) {
+      Run run = runs.get(i);
+      long index = run.find(nodeId);
+      if (index >= 0) {
+        return createNode(index, run.provider);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean contains(long nodeId) {
+    if (heapNodes.containsKey(nodeId)) {
+      return true;
+    }
+    for (Run run : runs) {
+      if (run.find(nodeId) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public long size() {
+    return heapNodes.size() + nRecords;
+  }
+
+  @Override
+  public void close() {
+    LOG.info(
+      "Closing OSM node store with {} compact and {} heap nodes in {} runs.",
+      nRecords,
+      heapNodes.size(),
+      runs.size()
+    );
+    chunks.clear();
+    runs.clear();
+    heapNodes.clear();
+    nRecords = 0;
+    allocator.close();
+  }
+
+  private void append(OSMNode node) {
+    if (nRecords == (long) chunks.size() * RECORDS_PER_CHUNK) {
+      chunks.add(allocator.allocate(chunks.size()));
+    }
+    ByteBuffer chunk = chunk(nRecords);
+    int offset = offset(nRecords);
+    chunk.putLong(offset, node.getId());
+    chunk.putInt(offset + LAT_OFFSET, toFixedPoint(node.lat));
+    chunk.putInt(offset + LON_OFFSET, toFixedPoint(node.lon));
+    ++nRecords;
+  }
+
+  private OSMNode createNode(long index, OSMProvider provider) {
+    ByteBuffer chunk = chunk(index);
+    int offset = offset(index);
+    OSMNode node = new OSMNode();
+    node.setId(chunk.getLong(offset));
+    node.lat = fromFixedPoint(chunk.getInt(offset + LAT_OFFSET));
+    node.lon = fromFixedPoint(chunk.getInt(offset + LON_OFFSET));
+    node.setOsmProvider(provider);
+    return node;
+  }
+
+  private long idAt(long index) {
+    return chunk(index).getLong(offset(index));
+  }
+
+  private ByteBuffer chunk(long index) {
+    return chunks.get((int) (index / RECORDS_PER_CHUNK));
+  }
+
+  private static int offset(long index) {
+    return (int) (index % RECORDS_PER_CHUNK) * RECORD_SIZE;
+  }
+
+  private static int toFixedPoint(double value) {
+    return (int) Math.round(value * FIXED_POINT_FACTOR);
+  }
+
+  private static double fromFixedPoint(int value) {
+    return value / FIXED_POINT_FACTOR;
+  }
+
+  /**
+   * A range of records sorted on id, all from the same OSM provider.
+   */
+  private class Run {
+
+    private final long start;
+    private final OSMProvider provider;
+    private long end;
+    private long firstId;
+    private long lastId;
+
+    private Run(long start, OSMProvider provider) {
+      this.start = start;
+      this.end = start;
+      this.provider = provider;
+    }
+
+    private void add(long id) {
+      if (end == start) {
+        firstId = id;
+      }
+      lastId = id;
+      ++end;
+    }
+
+    /** Return the record index of the given node id, or -1 if not found. */
+    private long find(long id) {
+      if (end == start || id < firstId || id > lastId) {
+        return -1;
+      }
+      long low = start;
+      long high = end - 1;
+      while (low <= high) {
+        long mid = (low + high) >>> 1;
+        long midId = idAt(mid);
+        if (midId < id) {
+          low = mid + 1;
+        } else if (midId > id) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Allocate the buffers used to store the records.
+   */
+  private interface ChunkAllocator {
+    ByteBuffer allocate(int chunkIndex);
+
+    void close();
+
+    class OffHeap implements ChunkAllocator {
+
+      @Override
+      public ByteBuffer allocate(int chunkIndex) {
+        return ByteBuffer.allocateDirect(CHUNK_SIZE);
+      }
+
+      @Override
+      public void close() {
+        // The direct buffers are freed by the garbage collector
+      }
+    }
+
+    /**
+     * Map each chunk to a new region of a temporary file. The operating system decide what part
+     * of the file is kept in memory, so the store may grow beyond the physical memory.
+     */
+    class MemoryMapped implements ChunkAllocator {
+
+      private Path file;
+      private FileChannel channel;
+
+      @Override
+      public ByteBuffer allocate(int chunkIndex) {
+        try {
+          if (channel == null) {
+            file = Files.createTempFile("otp-osm-nodes-", ".bin");
+            channel =
+              FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE
+              );
+            LOG.info("Storing OSM node coordinates in memory-mapped file: {}", file);
+          }
+          return channel.map(
+            FileChannel.MapMode.READ_WRITE,
+            (long) chunkIndex * CHUNK_SIZE,
+            CHUNK_SIZE
+          );
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        if (channel == null) {
+          return;
+        }
+        try {
+          channel.close();
+        } catch (IOException e) {
+          LOG.warn("Unable to close memory-mapped OSM node file: {}", file, e);
+        }
+        channel = null;
+      }
+    }
+  }
+}
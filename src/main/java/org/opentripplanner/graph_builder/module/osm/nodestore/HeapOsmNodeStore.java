@@ -0,0 +1,34 @@
+package org.opentripplanner.graph_builder.module.osm.nodestore;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * Keep all nodes as {@link OSMNode} objects in a hash map on the heap. This is fast, but uses a
+ * lot of memory for large OSM extracts.
+ */
+class HeapOsmNodeStore implements OsmNodeStore {
+
+  private final TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
+
+  @Override
+  public void add(OSMNode node) {
+    nodesById.put(node.getId(), node);
+  }
+
+  @Override
+  public OSMNode get(long nodeId) {
+    return nodesById.get(nodeId);
+  }
+
+  @Override
+  public boolean contains(long nodeId) {
+    return nodesById.containsKey(nodeId);
+  }
+
+  @Override
+  public long size() {
+    return nodesById.size();
+  }
+}
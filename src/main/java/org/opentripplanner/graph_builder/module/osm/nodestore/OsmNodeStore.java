@@ -0,0 +1,28 @@
+package org.opentripplanner.graph_builder.module.osm.nodestore;
+
+import javax.annotation.Nullable;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * Store the OSM nodes loaded during the graph build, indexed by the node id. The nodes are by far
+ * the most numerous OSM entity, so the store is pluggable. The implementation is selected with
+ * {@link OsmNodeStoreType}.
+ * <p>
+ * An implementation may create a new {@link OSMNode} instance each time a node is retrieved, so
+ * nodes should be compared using equals, not identity.
+ */
+public interface OsmNodeStore {
+  void add(OSMNode node);
+
+  @Nullable
+  OSMNode get(long nodeId);
+
+  boolean contains(long nodeId);
+
+  long size();
+
+  /**
+   * Release any resources held outside the heap. The store can not be used after it is closed.
+   */
+  default void close() {}
+}
@@ -0,0 +1,21 @@
+package org.opentripplanner.graph_builder.module.osm.nodestore;
+
+/**
+ * The available {@link OsmNodeStore} implementations.
+ */
+public enum OsmNodeStoreType {
+  /** Keep all nodes as objects on the heap. */
+  HEAP,
+  /** Keep the coordinates of untagged nodes in direct (off-heap) memory. */
+  OFF_HEAP,
+  /** Keep the coordinates of untagged nodes in a memory-mapped temporary file. */
+  MEMORY_MAPPED;
+
+  public OsmNodeStore create() {
+    return switch (this) {
+      case HEAP -> new HeapOsmNodeStore();
+      case OFF_HEAP -> CompactOsmNodeStore.offHeap();
+      case MEMORY_MAPPED -> CompactOsmNodeStore.memoryMapped();
+    };
+  }
+}
@@ -191,26 +191,7 @@ public class TimetableSnapshot {
       throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
     }
 
-    Timetable tt = resolve(pattern, serviceDate);
-    // we need to perform the copy of Timetable here rather than in Timetable.update()
-    // to avoid repeatedly copying in case several updates are applied to the same timetable
-    if (!dirtyTimetables.contains(tt)) {
-      Timetable old = tt;
-      tt = new Timetable(tt, serviceDate);
-      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
-      if (sortedTimetables == null) {
-        sortedTimetables = new TreeSet<>(new SortedTimetableComparator());
-      } else {
-        SortedSet<Timetable> temp = new TreeSet<>(new SortedTimetableComparator());
-        temp.addAll(sortedTimetables);
-        sortedTimetables = temp;
-      }
-      if (old.getServiceDate() != null) sortedTimetables.remove(old);
-      sortedTimetables.add(tt);
-      timetables.put(pattern, sortedTimetables);
-      dirtyTimetables.add(tt);
-      dirty = true;
-    }
+    Timetable tt = resolveForUpdate(pattern, serviceDate);
 
     // Assume all trips in a pattern are from the same feed, which should be the case.
     // Find trip index
@@ -238,6 +219,32 @@ public class TimetableSnapshot {
     return Result.success();
   }
 
+  /**
+   * Remove the trip times of an added or modified trip from the timetable of the pattern created
+   * for it by the realtime updater, and forget the pattern of the trip. Unlike cancelling the trip,
+   * this leaves no trace of it in the snapshot, the same as clearing the snapshot.
+   *
+   * @return true if the trip had a pattern created by the realtime updater
+   */
+  public boolean removeRealtimeAddedTrip(FeedScopedId tripId, LocalDate serviceDate) {
+    if (readOnly) {
+      throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
+    }
+
+    TripPattern pattern = getRealtimeAddedTripPattern(tripId, serviceDate);
+    if (pattern == null) {
+      return false;
+    }
+    if (resolve(pattern, serviceDate).getTripIndex(tripId) != -1) {
+      resolveForUpdate(pattern, serviceDate)
+        .getTripTimes()
+        .removeIf(tripTimes -> tripTimes.getTrip().getId().equals(tripId));
+    }
+    removeLastAddedTripPattern(tripId, serviceDate);
+    dirty = true;
+    return true;
+  }
+
   /**
    * This produces a small delay of typically around 50ms, which is almost entirely due to the
    * indexing step. Cloning the map is much faster (2ms). It is perhaps better to index timetables
@@ -415,6 +422,34 @@ public class TimetableSnapshot {
       );
   }
 
+  /**
+   * Resolve the timetable of the pattern on the service date, and copy it if it is not modified
+   * since the last commit, so it can be modified without changing the committed snapshots.
+   */
+  private Timetable resolveForUpdate(TripPattern pattern, LocalDate serviceDate) {
+    Timetable tt = resolve(pattern, serviceDate);
+    // we need to perform the copy of Timetable here rather than in Timetable.update()
+    // to avoid repeatedly copying in case several updates are applied to the same timetable
+    if (!dirtyTimetables.contains(tt)) {
+      Timetable old = tt;
+      tt = new Timetable(tt, serviceDate);
+      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
+      if (sortedTimetables == null) {
+        sortedTimetables = new TreeSet<>(new SortedTimetableComparator());
+      } else {
+        SortedSet<Timetable> temp = new TreeSet<>(new SortedTimetableComparator());
+        temp.addAll(sortedTimetables);
+        sortedTimetables = temp;
+      }
+      if (old.getServiceDate() != null) sortedTimetables.remove(old);
+      sortedTimetables.add(tt);
+      timetables.put(pattern, sortedTimetables);
+      dirtyTimetables.add(tt);
+      dirty = true;
+    }
+    return tt;
+  }
+
   /**
    * Add the patterns to the stop index, only if they come from a modified pattern
    */
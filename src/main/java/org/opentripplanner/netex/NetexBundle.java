@@ -1,9 +1,16 @@
 package org.opentripplanner.netex;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.bind.JAXBException;
 import org.opentripplanner.datastore.api.CompositeDataSource;
 import org.opentripplanner.datastore.api.DataSource;
@@ -36,6 +43,11 @@ public class NetexBundle implements Closeable {
 
   private static final Logger LOG = LoggerFactory.getLogger(NetexBundle.class);
 
+  /** The parsers used when parsing files in parallel, one per thread. */
+  private static final ThreadLocal<NetexXmlParser> XML_PARSER = ThreadLocal.withInitial(
+    NetexXmlParser::new
+  );
+
   private final CompositeDataSource source;
 
   private final NetexDataSourceHierarchy hierarchy;
@@ -45,6 +57,7 @@ public class NetexBundle implements Closeable {
   private final double maxStopToShapeSnapDistance;
   private final boolean noTransfersOnIsolatedStops;
   private final boolean ignoreFareFrame;
+  private final boolean parseGroupFilesInParallel;
   /** The NeTEx entities loaded from the input files and passed on to the mapper. */
   private NetexEntityIndex index = new NetexEntityIndex();
   /** Report errors to issue store */
@@ -60,7 +73,8 @@ public class NetexBundle implements Closeable {
     Set<String> ferryIdsNotAllowedForBicycle,
     double maxStopToShapeSnapDistance,
     boolean noTransfersOnIsolatedStops,
-    boolean ignoreFareFrame
+    boolean ignoreFareFrame,
+    boolean parseGroupFilesInParallel
   ) {
     this.feedId = feedId;
     this.source = source;
@@ -69,6 +83,7 @@ public class NetexBundle implements Closeable {
     this.maxStopToShapeSnapDistance = maxStopToShapeSnapDistance;
     this.noTransfersOnIsolatedStops = noTransfersOnIsolatedStops;
     this.ignoreFareFrame = ignoreFareFrame;
+    this.parseGroupFilesInParallel = parseGroupFilesInParallel;
   }
 
   /** load the bundle, map it to the OTP transit model and return */
@@ -117,28 +132,103 @@ public class NetexBundle implements Closeable {
 
   /** Load all files entries in the bundle */
   private void loadFileEntries() {
-    // Load global shared files
-    loadFilesThenMapToOtpTransitModel("shared file", hierarchy.sharedEntries());
-
-    for (GroupEntries group : hierarchy.groups()) {
-      LOG.info("reading group {}", group.name());
-
-      scopeInputData(() -> {
-        // Load shared group files
-        loadFilesThenMapToOtpTransitModel("shared group file", group.sharedEntries());
-
-        for (DataSource entry : group.independentEntries()) {
-          scopeInputData(() -> {
-            // Load each independent file in group
-            loadFilesThenMapToOtpTransitModel("group file", List.of(entry));
-          });
-        }
-      });
+    ExecutorService parserPool = parseGroupFilesInParallel ? createParserPool() : null;
+    try {
+      // Load global shared files
+      loadFilesThenMapToOtpTransitModel("shared file", hierarchy.sharedEntries());
+
+      for (GroupEntries group : hierarchy.groups()) {
+        LOG.info("reading group {}", group.name());
+
+        scopeInputData(() -> {
+          // Load shared group files
+          loadFilesThenMapToOtpTransitModel("shared group file", group.sharedEntries());
+
+          if (parserPool != null) {
+            loadIndependentFilesInParallel(parserPool, group.independentEntries());
+          } else {
+            for (DataSource entry : group.independentEntries()) {
+              scopeInputData(() -> {
+                // Load each independent file in group
+                loadFilesThenMapToOtpTransitModel("group file", List.of(entry));
+              });
+            }
+          }
+        });
+      }
+    } finally {
+      if (parserPool != null) {
+        parserPool.shutdownNow();
+      }
     }
     mapper.finishUp();
     NetexDocumentParser.finnishUp();
   }
 
+  /**
+   * Parse the independent files of a group in parallel, each into its own index on top of the
+   * group index. The group index is not changed while the files are parsed. The indexes are
+   * validated and mapped one by one, in the same order as the files are listed, so the result is
+   * the same as when the files are loaded in sequence. At most two files per thread are parsed
+   * ahead of the mapping, to limit the memory used.
+   */
+  private void loadIndependentFilesInParallel(
+    ExecutorService parserPool,
+    Iterable<DataSource> entries
+  ) {
+    final NetexEntityIndex groupIndex = index;
+    final int maxParsedAhead = 2 * parserThreadCount();
+    Deque<Future<NetexEntityIndex>> parsed = new ArrayDeque<>();
+
+    for (DataSource entry : entries) {
+      if (parsed.size() == maxParsedAhead) {
+        mapParsedEntry(parsed.poll());
+      }
+      parsed.add(
+        parserPool.submit(() -> {
+          var entryIndex = groupIndex.push();
+          loadSingeFileEntry("group file", entry, XML_PARSER.get(), entryIndex);
+          return entryIndex;
+        })
+      );
+    }
+    while (!parsed.isEmpty()) {
+      mapParsedEntry(parsed.poll());
+    }
+  }
+
+  /** Wait for the entry to be parsed, then validate it and map it to the OTP Transit model. */
+  private void mapParsedEntry(Future<NetexEntityIndex> parsedEntry) {
+    NetexEntityIndex entryIndex;
+    try {
+      entryIndex = parsedEntry.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e.getMessage(), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+    }
+    index = entryIndex;
+    mapper = mapper.push();
+    validateThenMapToOtpTransitModel();
+    mapper = mapper.pop();
+    index = index.pop();
+  }
+
+  private static ExecutorService createParserPool() {
+    return Executors.newFixedThreadPool(
+      parserThreadCount(),
+      new ThreadFactoryBuilder().setNameFormat("NetexParser-%d").setDaemon(true).build()
+    );
+  }
+
+  private static int parserThreadCount() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
   /**
    * make a new index and pushes it on the index stack, before executing the task and at the end pop
    * of the index.
@@ -163,9 +253,12 @@ public class NetexBundle implements Closeable {
   ) {
     for (DataSource entry : entries) {
       // Load entry and store it in the index
-      loadSingeFileEntry(fileDescription, entry);
+      loadSingeFileEntry(fileDescription, entry, xmlParser, index);
     }
+    validateThenMapToOtpTransitModel();
+  }
 
+  private void validateThenMapToOtpTransitModel() {
     // Validate input data, and remove invalid data
     Validator.validate(index, issueStore);
 
@@ -173,13 +266,21 @@ public class NetexBundle implements Closeable {
     mapper.mapNetexToOtp(index.readOnlyView());
   }
 
-  /** Load a single entry and store it in the index for later */
-  private void loadSingeFileEntry(String fileDescription, DataSource entry) {
+  /** Load a single entry and store it in the given index for later */
+  private void loadSingeFileEntry(
+    String fileDescription,
+    DataSource entry,
+    NetexXmlParser xmlParser,
+    NetexEntityIndex targetIndex
+  ) {
     try {
       LOG.info("reading entity {}: {}", fileDescription, entry.name());
 
-      PublicationDeliveryStructure doc = xmlParser.parseXmlDoc(entry.asInputStream());
-      NetexDocumentParser.parseAndPopulateIndex(index, doc, ignoreFareFrame);
+      PublicationDeliveryStructure doc = xmlParser.parseXmlDoc(
+        entry.asInputStream(),
+        NetexDocumentParser.streamedJourneyHandler(targetIndex)
+      );
+      NetexDocumentParser.parseAndPopulateIndex(targetIndex, doc, ignoreFareFrame);
     } catch (JAXBException e) {
       throw new RuntimeException(e.getMessage(), e);
     }
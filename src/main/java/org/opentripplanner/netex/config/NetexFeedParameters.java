@@ -30,6 +30,7 @@ public class NetexFeedParameters implements DataSourceConfig {
   private static final String GROUP_FILE_PATTERN = "(\\w{3})-.*\\.xml";
   private static final boolean NO_TRANSFERS_ON_ISOLATED_STOPS = false;
   private static final boolean IGNORE_FARE_FRAME = false;
+  private static final boolean PARSE_GROUP_FILES_IN_PARALLEL = false;
 
   private static final Set<String> FERRY_IDS_NOT_ALLOWED_FOR_BICYCLE = Collections.emptySet();
 
@@ -49,6 +50,7 @@ public class NetexFeedParameters implements DataSourceConfig {
   private final Set<String> ferryIdsNotAllowedForBicycle;
   private final boolean noTransfersOnIsolatedStops;
   private final boolean ignoreFareFrame;
+  private final boolean parseGroupFilesInParallel;
 
   private NetexFeedParameters() {
     this.source = null;
@@ -64,6 +66,7 @@ public class NetexFeedParameters implements DataSourceConfig {
     this.ferryIdsNotAllowedForBicycle = FERRY_IDS_NOT_ALLOWED_FOR_BICYCLE;
     this.noTransfersOnIsolatedStops = NO_TRANSFERS_ON_ISOLATED_STOPS;
     this.ignoreFareFrame = IGNORE_FARE_FRAME;
+    this.parseGroupFilesInParallel = PARSE_GROUP_FILES_IN_PARALLEL;
   }
 
   private NetexFeedParameters(Builder builder) {
@@ -76,6 +79,7 @@ public class NetexFeedParameters implements DataSourceConfig {
     this.ferryIdsNotAllowedForBicycle = Set.copyOf(builder.ferryIdsNotAllowedForBicycle);
     this.noTransfersOnIsolatedStops = builder.noTransfersOnIsolatedStops;
     this.ignoreFareFrame = builder.ignoreFareFrame;
+    this.parseGroupFilesInParallel = builder.parseGroupFilesInParallel;
   }
 
   public static Builder of() {
@@ -130,6 +134,11 @@ public class NetexFeedParameters implements DataSourceConfig {
     return ignoreFareFrame;
   }
 
+  /** See {@link org.opentripplanner.standalone.config.buildconfig.NetexConfig}. */
+  public boolean parseGroupFilesInParallel() {
+    return parseGroupFilesInParallel;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -143,6 +152,7 @@ public class NetexFeedParameters implements DataSourceConfig {
       sharedGroupFilePattern.equals(that.sharedGroupFilePattern) &&
       groupFilePattern.equals(that.groupFilePattern) &&
       ignoreFareFrame == that.ignoreFareFrame &&
+      parseGroupFilesInParallel == that.parseGroupFilesInParallel &&
       ferryIdsNotAllowedForBicycle.equals(that.ferryIdsNotAllowedForBicycle)
     );
   }
@@ -157,6 +167,7 @@ public class NetexFeedParameters implements DataSourceConfig {
       sharedGroupFilePattern,
       groupFilePattern,
       ignoreFareFrame,
+      parseGroupFilesInParallel,
       ferryIdsNotAllowedForBicycle
     );
   }
@@ -172,6 +183,7 @@ public class NetexFeedParameters implements DataSourceConfig {
       .addStr("groupFilePattern", groupFilePattern, DEFAULT.groupFilePattern)
       .addStr("ignoreFilePattern", ignoreFilePattern, DEFAULT.ignoreFilePattern)
       .addBoolIfTrue("ignoreFareFrame", ignoreFareFrame)
+      .addBoolIfTrue("parseGroupFilesInParallel", parseGroupFilesInParallel)
       .addCol("ferryIdsNotAllowedForBicycle", ferryIdsNotAllowedForBicycle, Set.of())
       .toString();
   }
@@ -188,6 +200,7 @@ public class NetexFeedParameters implements DataSourceConfig {
     private final Set<String> ferryIdsNotAllowedForBicycle = new HashSet<>();
     private boolean noTransfersOnIsolatedStops;
     private boolean ignoreFareFrame;
+    private boolean parseGroupFilesInParallel;
 
     private Builder(NetexFeedParameters original) {
       this.original = original;
@@ -200,6 +213,7 @@ public class NetexFeedParameters implements DataSourceConfig {
       this.ferryIdsNotAllowedForBicycle.addAll(original.ferryIdsNotAllowedForBicycle);
       this.noTransfersOnIsolatedStops = original.noTransfersOnIsolatedStops;
       this.ignoreFareFrame = original.ignoreFareFrame;
+      this.parseGroupFilesInParallel = original.parseGroupFilesInParallel;
     }
 
     public URI source() {
@@ -251,6 +265,11 @@ public class NetexFeedParameters implements DataSourceConfig {
       return this;
     }
 
+    public Builder withParseGroupFilesInParallel(boolean parseGroupFilesInParallel) {
+      this.parseGroupFilesInParallel = parseGroupFilesInParallel;
+      return this;
+    }
+
     public NetexFeedParameters build() {
       var value = new NetexFeedParameters(this);
       return original.equals(value) ? original : value;
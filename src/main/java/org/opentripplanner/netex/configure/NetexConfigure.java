@@ -35,9 +35,13 @@ public class NetexConfigure {
     this.buildParams = builderParams;
   }
 
-  public static NetexBundle netexBundleForTest(BuildConfig builderParams, File netexZipFile) {
+  public static NetexBundle netexBundleForTest(
+    BuildConfig builderParams,
+    NetexFeedParameters netexParams,
+    File netexZipFile
+  ) {
     ZipFileDataSource dataSource = new ZipFileDataSource(netexZipFile, FileType.NETEX);
-    var configuredDataSource = new ConfiguredDataSource<>(dataSource, builderParams.netexDefaults);
+    var configuredDataSource = new ConfiguredDataSource<>(dataSource, netexParams);
     return new NetexConfigure(builderParams).netexBundle(configuredDataSource);
   }
 
@@ -75,7 +79,8 @@ public class NetexConfigure {
       config.ferryIdsNotAllowedForBicycle(),
       buildParams.maxStopToShapeSnapDistance,
       config.noTransfersOnIsolatedStops(),
-      config.ignoreFareFrame()
+      config.ignoreFareFrame(),
+      config.parseGroupFilesInParallel()
     );
   }
 
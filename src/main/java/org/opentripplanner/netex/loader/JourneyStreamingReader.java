@@ -0,0 +1,121 @@
+package org.opentripplanner.netex.loader;
+
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import org.rutebanken.netex.model.DatedServiceJourney;
+import org.rutebanken.netex.model.Journey_VersionStructure;
+import org.rutebanken.netex.model.ServiceJourney;
+
+/**
+ * A StAX reader which takes the ServiceJourneys and DatedServiceJourneys out of the
+ * {@code vehicleJourneys} of a timetable frame, while the rest of the document is read by the
+ * document unmarshaller. Each journey is unmarshalled on its own and passed on to the journey
+ * handler, the document unmarshaller only sees the other elements. This way the document tree
+ * never holds the journeys, which is most of the content of a large timetable file.
+ * <p>
+ * Other types of journeys are left in the document, so they are reported by the frame parser as
+ * before.
+ */
+class JourneyStreamingReader extends StreamReaderDelegate {
+
+  private static final String NETEX_NAMESPACE = "http://www.netex.org.uk/netex";
+  private static final QName VEHICLE_JOURNEYS = new QName(NETEX_NAMESPACE, "vehicleJourneys");
+
+  private static final QName SERVICE_JOURNEY = new QName(NETEX_NAMESPACE, "ServiceJourney");
+  private static final QName DATED_SERVICE_JOURNEY = new QName(
+    NETEX_NAMESPACE,
+    "DatedServiceJourney"
+  );
+
+  private final Unmarshaller journeyUnmarshaller;
+  private final Consumer<Journey_VersionStructure> journeyHandler;
+
+  /** The element depth inside the current {@code vehicleJourneys}, -1 if not inside one. */
+  private int journeysDepth = -1;
+
+  JourneyStreamingReader(
+    XMLStreamReader reader,
+    Unmarshaller journeyUnmarshaller,
+    Consumer<Journey_VersionStructure> journeyHandler
+  ) {
+    super(reader);
+    this.journeyUnmarshaller = journeyUnmarshaller;
+    this.journeyHandler = journeyHandler;
+  }
+
+  @Override
+  public int next() throws XMLStreamException {
+    int event = super.next();
+    while (isStreamedJourney(event)) {
+      // The unmarshaller leaves the reader at the event after the end of the journey
+      unmarshalJourney();
+      event = getEventType();
+    }
+    trackDepth(event);
+    return event;
+  }
+
+  @Override
+  public int nextTag() throws XMLStreamException {
+    int event = next();
+    while (
+      (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()) ||
+      event == XMLStreamConstants.SPACE ||
+      event == XMLStreamConstants.COMMENT ||
+      event == XMLStreamConstants.PROCESSING_INSTRUCTION
+    ) {
+      event = next();
+    }
+    if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+      throw new XMLStreamException("Expected start or end tag", getLocation());
+    }
+    return event;
+  }
+
+  private boolean isStreamedJourney(int event) {
+    return (
+      event == XMLStreamConstants.START_ELEMENT &&
+      journeysDepth == 0 &&
+      journeyType(getName()) != null
+    );
+  }
+
+  @Nullable
+  private static Class<? extends Journey_VersionStructure> journeyType(QName name) {
+    if (SERVICE_JOURNEY.equals(name)) {
+      return ServiceJourney.class;
+    }
+    if (DATED_SERVICE_JOURNEY.equals(name)) {
+      return DatedServiceJourney.class;
+    }
+    return null;
+  }
+
+  private void unmarshalJourney() throws XMLStreamException {
+    try {
+      var type = journeyType(getName());
+      journeyHandler.accept(journeyUnmarshaller.unmarshal(getParent(), type).getValue());
+    } catch (JAXBException e) {
+      throw new XMLStreamException(e.getMessage(), getLocation(), e);
+    }
+  }
+
+  private void trackDepth(int event) {
+    if (event == XMLStreamConstants.START_ELEMENT) {
+      if (journeysDepth >= 0) {
+        ++journeysDepth;
+      } else if (VEHICLE_JOURNEYS.equals(getName())) {
+        journeysDepth = 0;
+      }
+    } else if (event == XMLStreamConstants.END_ELEMENT && journeysDepth >= 0) {
+      --journeysDepth;
+    }
+  }
+}
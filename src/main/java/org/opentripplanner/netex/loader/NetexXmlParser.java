@@ -1,38 +1,90 @@
 package org.opentripplanner.netex.loader;
 
 import java.io.InputStream;
+import java.util.function.Consumer;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.rutebanken.netex.model.Journey_VersionStructure;
 import org.rutebanken.netex.model.PublicationDeliveryStructure;
 
-/** Simple wrapper to perform typesafe xml parsing and simple error handling. */
+/**
+ * Simple wrapper to perform typesafe xml parsing and simple error handling.
+ * <p>
+ * The parser is not thread-safe, use one parser per thread. The JAXB context is shared by all
+ * parsers, since it is expensive to create.
+ */
 public class NetexXmlParser {
 
+  private static JAXBContext jaxbContext;
+
   /** used to parse the XML. */
   private final Unmarshaller unmarshaller;
 
+  /** used to parse the journeys streamed out of the document. */
+  private final Unmarshaller journeyUnmarshaller;
+
+  private final XMLInputFactory inputFactory;
+
   public NetexXmlParser() {
     this.unmarshaller = createUnmarshaller();
+    this.journeyUnmarshaller = createUnmarshaller();
+    this.inputFactory = XMLInputFactory.newFactory();
+    // The NeTEx documents do not use DTDs, do not resolve external entities
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
   }
 
   /**
    * Parse an input stream and return the root document type for the given xml file (stream).
+   * <p>
+   * The ServiceJourneys and DatedServiceJourneys of the timetable frames are not part of the
+   * returned document. They are parsed one by one while the document is read, and passed on to the
+   * given journey handler. See {@link JourneyStreamingReader}.
    */
-  public PublicationDeliveryStructure parseXmlDoc(InputStream stream) throws JAXBException {
-    JAXBElement<PublicationDeliveryStructure> root;
+  public PublicationDeliveryStructure parseXmlDoc(
+    InputStream stream,
+    Consumer<Journey_VersionStructure> journeyHandler
+  ) throws JAXBException {
+    XMLStreamReader reader = null;
+    try {
+      reader =
+        new JourneyStreamingReader(
+          inputFactory.createXMLStreamReader(stream),
+          journeyUnmarshaller,
+          journeyHandler
+        );
 
-    //noinspection unchecked
-    root = (JAXBElement<PublicationDeliveryStructure>) unmarshaller.unmarshal(stream);
+      //noinspection unchecked
+      var root = (JAXBElement<PublicationDeliveryStructure>) unmarshaller.unmarshal(reader);
 
-    return root.getValue();
+      return root.getValue();
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e.getMessage(), e);
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  private static void closeQuietly(XMLStreamReader reader) {
+    if (reader == null) {
+      return;
+    }
+    try {
+      reader.close();
+    } catch (XMLStreamException ignore) {
+      // The document is read, or the parsing already failed
+    }
   }
 
   /** factory method for unmarshaller */
   private static Unmarshaller createUnmarshaller() {
     try {
-      return JAXBContext.newInstance(PublicationDeliveryStructure.class).createUnmarshaller();
+      return jaxbContext().createUnmarshaller();
     } catch (JAXBException e) {
       // This is a programming error - not expected!
       // We abort early and also allow for this to happen in the constructor;
@@ -40,4 +92,12 @@ public class NetexXmlParser {
       throw new RuntimeException(e);
     }
   }
+
+  /** The JAXB context is thread-safe, and created once. */
+  private static synchronized JAXBContext jaxbContext() throws JAXBException {
+    if (jaxbContext == null) {
+      jaxbContext = JAXBContext.newInstance(PublicationDeliveryStructure.class);
+    }
+    return jaxbContext;
+  }
 }
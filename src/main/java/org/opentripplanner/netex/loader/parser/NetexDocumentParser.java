@@ -2,6 +2,7 @@ package org.opentripplanner.netex.loader.parser;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.xml.bind.JAXBElement;
 import org.opentripplanner.netex.index.NetexEntityIndex;
 import org.rutebanken.netex.model.Common_VersionFrameStructure;
@@ -9,6 +10,7 @@ import org.rutebanken.netex.model.CompositeFrame;
 import org.rutebanken.netex.model.FareFrame;
 import org.rutebanken.netex.model.GeneralFrame;
 import org.rutebanken.netex.model.InfrastructureFrame;
+import org.rutebanken.netex.model.Journey_VersionStructure;
 import org.rutebanken.netex.model.PublicationDeliveryStructure;
 import org.rutebanken.netex.model.ResourceFrame;
 import org.rutebanken.netex.model.ServiceCalendarFrame;
@@ -49,6 +51,15 @@ public class NetexDocumentParser {
     new NetexDocumentParser(index, ignoreFareFrame).parse(doc);
   }
 
+  /**
+   * Return a handler adding the journeys streamed out of the document by the xml parser to the
+   * given index. The journeys are added as they are read, before the rest of the document is
+   * parsed.
+   */
+  public static Consumer<Journey_VersionStructure> streamedJourneyHandler(NetexEntityIndex index) {
+    return journey -> TimeTableFrameParser.addStreamedJourney(index, journey);
+  }
+
   public static void finnishUp() {
     ServiceFrameParser.logSummary();
   }
@@ -24,6 +24,20 @@ class TimeTableFrameParser extends NetexParser<Timetable_VersionFrameStructure>
 
   private final NoticeParser noticeParser = new NoticeParser();
 
+  /**
+   * Add a ServiceJourney or DatedServiceJourney to the index. This is used for the journeys
+   * streamed out of the document by the xml parser, they are not part of the parsed frame.
+   */
+  static void addStreamedJourney(NetexEntityIndex netexIndex, Journey_VersionStructure journey) {
+    if (journey instanceof ServiceJourney serviceJourney) {
+      netexIndex.serviceJourneyById.add(serviceJourney);
+    } else if (journey instanceof DatedServiceJourney datedServiceJourney) {
+      netexIndex.datedServiceJourneys.add(datedServiceJourney);
+    } else {
+      warnOnMissingMapping(LOG, journey);
+    }
+  }
+
   @Override
   void parse(Timetable_VersionFrameStructure frame) {
     parseJourneys(frame.getVehicleJourneys());
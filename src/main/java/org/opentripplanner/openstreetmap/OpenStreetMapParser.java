@@ -1,9 +1,10 @@
 package org.opentripplanner.openstreetmap;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.LongPredicate;
 import org.openstreetmap.osmosis.osmbinary.BinaryParser;
 import org.openstreetmap.osmosis.osmbinary.Osmformat;
 import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
@@ -17,19 +18,42 @@ import org.opentripplanner.openstreetmap.model.OSMWay;
 
 /**
  * Parser for the OpenStreetMap PBF Format.
+ * <p>
+ * One parser instance is used for each PBF block, so the blocks can be parsed in parallel. The
+ * entities of the current phase are collected by the parser, and added to the {@link OSMDatabase}
+ * with {@link #addTo(OSMDatabase)}. This must be done in the same order as the blocks appear in
+ * the file, and by one thread at the time.
  *
  * @since 0.4
  */
 public class OpenStreetMapParser extends BinaryParser {
 
-  private final OSMDatabase osmdb;
-  private final Map<String, String> stringTable = new HashMap<>();
   private final OSMProvider provider;
-  private OsmParserPhase parsePhase;
+  private final OsmParserPhase parsePhase;
+  private final Map<String, String> stringTable;
+  private final LongPredicate isNodeReferenced;
 
-  public OpenStreetMapParser(OSMDatabase osmdb, OSMProvider provider) {
-    this.osmdb = Objects.requireNonNull(osmdb);
+  private final List<OSMRelation> parsedRelations = new ArrayList<>();
+  private final List<OSMWay> parsedWays = new ArrayList<>();
+  private final List<OSMNode> parsedNodes = new ArrayList<>();
+
+  /**
+   * @param stringTable      Table used to internalize strings, must be thread-safe if shared
+   *                         by parsers running in parallel.
+   * @param isNodeReferenced Return {@code true} if a node is used by a way or an area loaded in
+   *                         the previous phases. Untagged nodes not referenced are dropped
+   *                         without creating an {@link OSMNode}.
+   */
+  OpenStreetMapParser(
+    OSMProvider provider,
+    OsmParserPhase parsePhase,
+    Map<String, String> stringTable,
+    LongPredicate isNodeReferenced
+  ) {
     this.provider = Objects.requireNonNull(provider);
+    this.parsePhase = Objects.requireNonNull(parsePhase);
+    this.stringTable = Objects.requireNonNull(stringTable);
+    this.isNodeReferenced = Objects.requireNonNull(isNodeReferenced);
   }
 
   // The strings are already being pulled from a string table in the PBF file,
@@ -37,12 +61,17 @@ public class OpenStreetMapParser extends BinaryParser {
   // String.intern grinds to a halt on large PBF files (as it did on GTFS import), so
   // we implement our own.
   public String internalize(String s) {
-    String fromTable = stringTable.get(s);
-    if (fromTable == null) {
-      stringTable.put(s, s);
-      return s;
-    }
-    return fromTable;
+    String fromTable = stringTable.putIfAbsent(s, s);
+    return fromTable == null ? s : fromTable;
+  }
+
+  /**
+   * Add the entities parsed from the block to the database.
+   */
+  public void addTo(OSMDatabase osmdb) {
+    parsedRelations.forEach(osmdb::addRelation);
+    parsedWays.forEach(osmdb::addWay);
+    parsedNodes.forEach(osmdb::addNode);
   }
 
   @Override
@@ -50,13 +79,6 @@ public class OpenStreetMapParser extends BinaryParser {
     // Jump in circles
   }
 
-  /**
-   * Set the phase to be parsed
-   */
-  public void setPhase(OsmParserPhase phase) {
-    this.parsePhase = phase;
-  }
-
   @Override
   protected void parseRelations(List<Osmformat.Relation> rels) {
     if (parsePhase != OsmParserPhase.Relations) {
@@ -100,7 +122,7 @@ public class OpenStreetMapParser extends BinaryParser {
         tmp.addMember(relMember);
       }
 
-      osmdb.addRelation(tmp);
+      parsedRelations.add(tmp);
     }
   }
 
@@ -114,14 +136,26 @@ public class OpenStreetMapParser extends BinaryParser {
     }
 
     for (int i = 0; i < nodes.getIdCount(); i++) {
-      OSMNode tmp = new OSMNode();
-
       long lat = nodes.getLat(i) + lastLat;
       lastLat = lat;
       long lon = nodes.getLon(i) + lastLon;
       lastLon = lon;
       long id = nodes.getId(i) + lastId;
       lastId = id;
+
+      // If empty, assume that nothing here has keys or vals.
+      boolean hasKeysVals = nodes.getKeysValsCount() > 0;
+
+      boolean hasTags = hasKeysVals && nodes.getKeysVals(j) != 0;
+
+      if (!hasTags && !isNodeReferenced.test(id)) {
+        if (hasKeysVals) {
+          j++; // Skip over the '0' delimiter.
+        }
+        continue;
+      }
+
+      OSMNode tmp = new OSMNode();
       double latf = parseLat(lat), lonf = parseLon(lon);
 
       tmp.setId(id);
@@ -129,8 +163,7 @@ public class OpenStreetMapParser extends BinaryParser {
       tmp.lat = latf;
       tmp.lon = lonf;
 
-      // If empty, assume that nothing here has keys or vals.
-      if (nodes.getKeysValsCount() > 0) {
+      if (hasKeysVals) {
         while (nodes.getKeysVals(j) != 0) {
           int keyid = nodes.getKeysVals(j++);
           int valid = nodes.getKeysVals(j++);
@@ -145,7 +178,7 @@ public class OpenStreetMapParser extends BinaryParser {
         j++; // Skip over the '0' delimiter.
       }
 
-      osmdb.addNode(tmp);
+      parsedNodes.add(tmp);
     }
   }
 
@@ -156,6 +189,9 @@ public class OpenStreetMapParser extends BinaryParser {
     }
 
     for (Osmformat.Node i : nodes) {
+      if (i.getKeysCount() == 0 && !isNodeReferenced.test(i.getId())) {
+        continue;
+      }
       OSMNode tmp = new OSMNode();
       tmp.setId(i.getId());
       tmp.setOsmProvider(provider);
@@ -172,7 +208,7 @@ public class OpenStreetMapParser extends BinaryParser {
         tmp.addTag(tag);
       }
 
-      osmdb.addNode(tmp);
+      parsedNodes.add(tmp);
     }
   }
 
@@ -205,7 +241,7 @@ public class OpenStreetMapParser extends BinaryParser {
         lastId = j + lastId;
       }
 
-      osmdb.addWay(tmp);
+      parsedWays.add(tmp);
     }
   }
 
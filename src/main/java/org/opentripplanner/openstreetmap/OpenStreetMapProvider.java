@@ -1,11 +1,15 @@
 package org.opentripplanner.openstreetmap;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.ZoneId;
-import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.datastore.api.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -24,12 +28,17 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Parser for the OpenStreetMap PBF format. Parses files in three passes: First the relations, then
- * the ways, then the nodes are also loaded.
+ * the ways, then the nodes are also loaded. In each pass the PBF blocks are decoded in parallel,
+ * see {@link OsmPbfBlockReader}. In the last pass only the nodes with tags or nodes used by the
+ * ways and areas loaded are kept.
  */
 public class OpenStreetMapProvider implements OSMProvider {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpenStreetMapProvider.class);
 
+  /** The number of blocks each thread may have in progress, before the result is consumed. */
+  private static final int BLOCKS_IN_PROGRESS_PER_THREAD = 4;
+
   private final DataSource source;
   private final boolean cacheDataInMem;
 
@@ -77,19 +86,27 @@ public class OpenStreetMapProvider implements OSMProvider {
   }
 
   public void readOSM(OSMDatabase osmdb) {
+    int nThreads = Runtime.getRuntime().availableProcessors();
+    ExecutorService threadPool = Executors.newFixedThreadPool(
+      nThreads,
+      new ThreadFactoryBuilder().setNameFormat("OsmParser-%d").setDaemon(true).build()
+    );
     try {
-      OpenStreetMapParser parser = new OpenStreetMapParser(osmdb, this);
+      var reader = new OsmPbfBlockReader(threadPool, nThreads * BLOCKS_IN_PROGRESS_PER_THREAD);
+      Map<String, String> stringTable = new ConcurrentHashMap<>();
 
-      parsePhase(parser, OsmParserPhase.Relations);
+      parsePhase(reader, osmdb, OsmParserPhase.Relations, stringTable);
       osmdb.doneFirstPhaseRelations();
 
-      parsePhase(parser, OsmParserPhase.Ways);
+      parsePhase(reader, osmdb, OsmParserPhase.Ways, stringTable);
       osmdb.doneSecondPhaseWays();
 
-      parsePhase(parser, OsmParserPhase.Nodes);
+      parsePhase(reader, osmdb, OsmParserPhase.Nodes, stringTable);
       osmdb.doneThirdPhaseNodes();
     } catch (Exception ex) {
       throw new IllegalStateException("error loading OSM from path " + source.path(), ex);
+    } finally {
+      threadPool.shutdownNow();
     }
   }
 
@@ -115,21 +132,18 @@ public class OpenStreetMapProvider implements OSMProvider {
     return ProgressTracker.track("Parse OSM " + phase, 1000, size, inputStream, m -> LOG.info(m));
   }
 
-  private void parsePhase(OpenStreetMapParser parser, OsmParserPhase phase) throws IOException {
-    parser.setPhase(phase);
-    BlockInputStream in = null;
-    try {
-      in = new BlockInputStream(createInputStream(phase), parser);
-      in.process();
-    } finally {
-      // Close
-      try {
-        if (in != null) {
-          in.close();
-        }
-      } catch (Exception e) {
-        LOG.error(e.getMessage(), e);
-      }
+  private void parsePhase(
+    OsmPbfBlockReader reader,
+    OSMDatabase osmdb,
+    OsmParserPhase phase,
+    Map<String, String> stringTable
+  ) throws IOException {
+    try (InputStream in = createInputStream(phase)) {
+      reader.read(
+        in,
+        () -> new OpenStreetMapParser(this, phase, stringTable, osmdb::isNodeReferenced),
+        parser -> parser.addTo(osmdb)
+      );
     }
   }
 
@@ -0,0 +1,160 @@
+package org.opentripplanner.openstreetmap;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+
+/**
+ * Read the blocks of an OSM PBF file and decode them in parallel. The file is read in sequence by
+ * the calling thread, while the decompression and parsing of each data block is done on the given
+ * thread pool. The parsed blocks are passed to the consumer in the calling thread, in the same
+ * order as they appear in the file. Hence, the result is the same as when reading the file in one
+ * thread.
+ * <p>
+ * The number of blocks in progress is limited, so the memory used does not depend on the file
+ * size.
+ */
+class OsmPbfBlockReader {
+
+  private static final String OSM_HEADER = "OSMHeader";
+  private static final String OSM_DATA = "OSMData";
+
+  /** The max size of a blob header, see the PBF format specification. */
+  private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+
+  /** The max size of a blob, see the PBF format specification. */
+  private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+  private final ExecutorService threadPool;
+  private final int maxBlocksInProgress;
+
+  OsmPbfBlockReader(ExecutorService threadPool, int maxBlocksInProgress) {
+    this.threadPool = threadPool;
+    this.maxBlocksInProgress = maxBlocksInProgress;
+  }
+
+  /**
+   * Read all blocks in the given input stream. A new parser is created for each block, and passed
+   * to the consumer when the block is parsed.
+   */
+  void read(
+    InputStream input,
+    Supplier<OpenStreetMapParser> parserFactory,
+    Consumer<OpenStreetMapParser> consumer
+  ) throws IOException {
+    var in = new DataInputStream(input);
+    Deque<Future<OpenStreetMapParser>> blocksInProgress = new ArrayDeque<>();
+
+    try {
+      Fileformat.BlobHeader header;
+      while ((header = readBlobHeader(in)) != null) {
+        byte[] blob = readBytes(in, header.getDatasize(), MAX_BLOB_SIZE);
+
+        if (OSM_HEADER.equals(header.getType())) {
+          var headerBlock = Osmformat.HeaderBlock.parseFrom(decompress(blob));
+          parserFactory.get().parse(headerBlock);
+        } else if (OSM_DATA.equals(header.getType())) {
+          blocksInProgress.add(threadPool.submit(() -> parseDataBlock(blob, parserFactory)));
+
+          if (blocksInProgress.size() >= maxBlocksInProgress) {
+            consumer.accept(await(blocksInProgress.removeFirst()));
+          }
+        }
+        // Other block types are skipped, like in the osmosis BinaryParser
+      }
+
+      while (!blocksInProgress.isEmpty()) {
+        consumer.accept(await(blocksInProgress.removeFirst()));
+      }
+    } finally {
+      // Only pending blocks are left if something failed
+      blocksInProgress.forEach(it -> it.cancel(true));
+    }
+  }
+
+  private static OpenStreetMapParser parseDataBlock(
+    byte[] blob,
+    Supplier<OpenStreetMapParser> parserFactory
+  ) throws IOException {
+    var parser = parserFactory.get();
+    parser.parse(Osmformat.PrimitiveBlock.parseFrom(decompress(blob)));
+    return parser;
+  }
+
+  /**
+   * @return {@code null} if the end of the file is reached.
+   */
+  private static Fileformat.BlobHeader readBlobHeader(DataInputStream in) throws IOException {
+    int headerSize;
+    try {
+      headerSize = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    return Fileformat.BlobHeader.parseFrom(readBytes(in, headerSize, MAX_BLOB_HEADER_SIZE));
+  }
+
+  private static byte[] readBytes(DataInputStream in, int size, int maxSize) throws IOException {
+    if (size < 0 || size > maxSize) {
+      throw new IOException("Invalid PBF block size: " + size);
+    }
+    byte[] buf = new byte[size];
+    in.readFully(buf);
+    return buf;
+  }
+
+  private static byte[] decompress(byte[] data) throws IOException {
+    var blob = Fileformat.Blob.parseFrom(data);
+
+    if (blob.hasRaw()) {
+      return blob.getRaw().toByteArray();
+    }
+    if (!blob.hasZlibData()) {
+      throw new IOException("Unsupported PBF block compression, only zlib is supported.");
+    }
+
+    byte[] buf = new byte[blob.getRawSize()];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(blob.getZlibData().toByteArray());
+      inflater.inflate(buf);
+      if (!inflater.finished()) {
+        throw new IOException("PBF block is larger than the declared size: " + buf.length);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(e);
+    } finally {
+      inflater.end();
+    }
+    return buf;
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioe) {
+        throw ioe;
+      }
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -141,7 +141,8 @@ public class RoutingWorker {
       request.preferences().wheelchair().maxSlope(),
       serverContext.graph().getFareService(),
       serverContext.transitService().getTransitAlertService(),
-      serverContext.transitService()::getMultiModalStationForStation
+      serverContext.transitService()::getMultiModalStationForStation,
+      request.cancellationToken()
     );
 
     List<Itinerary> filteredItineraries = filterChain.filter(itineraries);
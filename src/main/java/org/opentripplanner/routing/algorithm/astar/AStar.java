@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.routing.algorithm.astar.strategies.RemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.SkipEdgeStrategy;
@@ -40,6 +41,7 @@ public class AStar {
   private final SearchTerminationStrategy terminationStrategy;
   private final TraverseVisitor traverseVisitor;
   private final Duration timeout;
+  private final CancellationToken cancellationToken;
 
   private final ShortestPathTree spt;
   private final BinHeap<State> pq;
@@ -58,6 +60,7 @@ public class AStar {
     SearchTerminationStrategy terminationStrategy,
     DominanceFunction dominanceFunction,
     Duration timeout,
+    CancellationToken cancellationToken,
     Collection<State> initialStates
   ) {
     this.heuristic = heuristic;
@@ -68,6 +71,7 @@ public class AStar {
     this.arriveBy = arriveBy;
     this.terminationStrategy = terminationStrategy;
     this.timeout = timeout;
+    this.cancellationToken = cancellationToken;
 
     this.spt = new ShortestPathTree(dominanceFunction);
 
@@ -195,6 +199,13 @@ public class AStar {
         break;
       }
 
+      // The request is cancelled(deadline exceeded or client gone), return the partial result
+      if (nVisited % 100 == 0 && cancellationToken.isCancelled()) {
+        LOG.debug("Search cancelled. origin={} target={}", fromVertices, toVertices);
+        spt.setAborted();
+        break;
+      }
+
       /*
        * Get next best state and, if it hasn't already been dominated, add adjacent states to queue.
        * If it has been dominated, the iteration is over; don't bother checking for termination condition.
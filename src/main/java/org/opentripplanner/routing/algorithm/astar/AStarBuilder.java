@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.opentripplanner.ext.dataoverlay.routing.DataOverlayContext;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.routing.algorithm.astar.strategies.DurationSkipEdgeStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.EuclideanRemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.astar.strategies.RemainingWeightHeuristic;
@@ -39,6 +40,7 @@ public class AStarBuilder {
   private SearchTerminationStrategy terminationStrategy;
   private DominanceFunction dominanceFunction;
   private Duration timeout;
+  private CancellationToken cancellationToken = CancellationToken.NONE;
   private Edge originBackEdge;
   private Collection<State> initialStates;
   private IntersectionTraversalCalculator intersectionTraversalCalculator;
@@ -80,6 +82,7 @@ public class AStarBuilder {
   public AStarBuilder setRequest(RouteRequest request) {
     this.routeRequest = request;
     this.arriveBy = request.arriveBy();
+    this.cancellationToken = request.cancellationToken();
     return this;
   }
 
@@ -135,6 +138,15 @@ public class AStarBuilder {
     return this;
   }
 
+  /**
+   * Abort the search and return the partial result if the token is cancelled. By default the
+   * token of the request set with {@link #setRequest(RouteRequest)} is used.
+   */
+  public AStarBuilder setCancellationToken(CancellationToken cancellationToken) {
+    this.cancellationToken = cancellationToken;
+    return this;
+  }
+
   public AStarBuilder setIntersectionTraversalCalculator(
     IntersectionTraversalCalculator intersectionTraversalCalculator
   ) {
@@ -221,6 +233,7 @@ public class AStarBuilder {
       terminationStrategy,
       Optional.ofNullable(dominanceFunction).orElseGet(DominanceFunction.Pareto::new),
       timeout,
+      cancellationToken,
       initialStates
     );
   }
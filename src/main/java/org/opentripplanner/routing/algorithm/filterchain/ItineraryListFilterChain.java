@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.algorithm.filterchain.deletionflagger.LatestDepartureTimeFilter;
 import org.opentripplanner.routing.algorithm.filterchain.deletionflagger.RemoveTransitIfStreetOnlyIsBetterFilter;
@@ -19,16 +20,24 @@ public class ItineraryListFilterChain {
 
   private final boolean debug;
 
+  private final CancellationToken cancellationToken;
+
   private final List<RoutingError> routingErrors = new ArrayList<>();
 
-  public ItineraryListFilterChain(List<ItineraryListFilter> filters, boolean debug) {
+  public ItineraryListFilterChain(
+    List<ItineraryListFilter> filters,
+    boolean debug,
+    CancellationToken cancellationToken
+  ) {
     this.filters = filters;
     this.debug = debug;
+    this.cancellationToken = cancellationToken;
   }
 
   public List<Itinerary> filter(List<Itinerary> itineraries) {
     List<Itinerary> result = itineraries;
     for (ItineraryListFilter filter : filters) {
+      cancellationToken.checkForCancellation();
       result = filter.filter(result);
     }
 
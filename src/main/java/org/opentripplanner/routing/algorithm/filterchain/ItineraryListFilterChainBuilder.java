@@ -10,6 +10,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import org.opentripplanner.ext.accessibilityscore.AccessibilityScoreFilter;
 import org.opentripplanner.ext.fares.FaresFilter;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.model.plan.SortOrder;
 import org.opentripplanner.routing.algorithm.filterchain.api.TransitGeneralizedCostFilterParams;
@@ -66,6 +67,7 @@ public class ItineraryListFilterChainBuilder {
   private TransitAlertService transitAlertService;
   private Function<Station, MultiModalStation> getMultiModalStation;
   private boolean removeItinerariesWithSameRoutesAndStops;
+  private CancellationToken cancellationToken = CancellationToken.NONE;
 
   public ItineraryListFilterChainBuilder(SortOrder sortOrder) {
     this.sortOrder = sortOrder;
@@ -199,6 +201,17 @@ public class ItineraryListFilterChainBuilder {
     return this;
   }
 
+  /**
+   * Abort the filtering if the token is cancelled. The token is checked before each filter is
+   * applied.
+   */
+  public ItineraryListFilterChainBuilder withCancellationToken(
+    CancellationToken cancellationToken
+  ) {
+    this.cancellationToken = cancellationToken;
+    return this;
+  }
+
   /**
    * Max departure time. This is a absolute filter on the itinerary departure time from the origin.
    * The filter is ignored if the value is {@code null}.
@@ -369,7 +382,7 @@ public class ItineraryListFilterChainBuilder {
     // Do the final itineraries sort
     filters.add(new SortingFilter(SortOrderComparator.comparator(sortOrder)));
 
-    return new ItineraryListFilterChain(filters, debug);
+    return new ItineraryListFilterChain(filters, debug, cancellationToken);
   }
 
   /**
@@ -3,6 +3,7 @@ package org.opentripplanner.routing.algorithm.mapping;
 import java.time.Instant;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.model.plan.SortOrder;
 import org.opentripplanner.routing.algorithm.filterchain.GroupBySimilarity;
@@ -35,7 +36,8 @@ public class RouteRequestToFilterChainMapper {
     double wheelchairMaxSlope,
     FareService fareService,
     TransitAlertService transitAlertService,
-    Function<Station, MultiModalStation> getMultiModalStation
+    Function<Station, MultiModalStation> getMultiModalStation,
+    CancellationToken cancellationToken
   ) {
     var builder = new ItineraryListFilterChainBuilder(sortOrder);
 
@@ -81,6 +83,7 @@ public class RouteRequestToFilterChainMapper {
       .withLatestDepartureTimeLimit(filterOnLatestDepartureTime)
       .withMaxLimitReachedSubscriber(maxLimitReachedSubscriber)
       .withRemoveWalkAllTheWayResults(removeWalkAllTheWayResults)
+      .withCancellationToken(cancellationToken)
       .withDebugEnabled(params.debug());
 
     return builder.build();
@@ -120,6 +120,7 @@ public class TransitRouter {
     Collection<Path<TripSchedule>> paths = transitResponse.paths();
 
     if (OTPFeature.OptimizeTransfers.isOn()) {
+      debugTimingAggregator.startedTransferOptimization();
       paths =
         TransferOptimizationServiceConfigurator
           .createOptimizeTransferService(
@@ -129,9 +130,11 @@ public class TransitRouter {
             requestTransitDataProvider,
             transitLayer.getStopBoardAlightCosts(),
             raptorRequest,
-            request.preferences().transfer().optimization()
+            request.preferences().transfer().optimization(),
+            serverContext.raptorConfig().threadPool()
           )
           .optimize(transitResponse.paths());
+      debugTimingAggregator.finishedTransferOptimization();
     }
 
     // Create itineraries
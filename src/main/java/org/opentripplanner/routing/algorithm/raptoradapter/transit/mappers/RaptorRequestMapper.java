@@ -149,6 +149,8 @@ public class RaptorRequestMapper {
       builder.searchParams().preferLateArrival(true);
     }
 
+    builder.cancellationToken(request.cancellationToken());
+
     // Add this last, it depends on generating an alias from the set values
     builder.performanceTimers(
       new PerformanceTimersForRaptor(
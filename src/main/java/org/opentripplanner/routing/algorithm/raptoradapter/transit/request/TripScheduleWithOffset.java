@@ -103,6 +103,28 @@ public final class TripScheduleWithOffset implements TripSchedule {
     return secondsOffset;
   }
 
+  /**
+   * Two instances are equal if they represent the same trip in the same request scoped pattern.
+   * The instances are created on demand, so the same trip is often represented by more than one
+   * instance.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TripScheduleWithOffset that = (TripScheduleWithOffset) o;
+    return tripIndexForDates == that.tripIndexForDates && pattern == that.pattern;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * System.identityHashCode(pattern) + tripIndexForDates;
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder
@@ -3,6 +3,11 @@ package org.opentripplanner.routing.algorithm.transferoptimization;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.routing.algorithm.raptoradapter.path.PathDiff;
 import org.opentripplanner.routing.algorithm.transferoptimization.api.OptimizedPath;
 import org.opentripplanner.routing.algorithm.transferoptimization.model.MinSafeTransferTimeCalculator;
@@ -15,6 +20,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Optimize the transfers for each path returned by Raptor. If a thread pool is provided the paths
+ * are optimized in parallel, the order of the paths is kept.
+ *
  * @param <T> The TripSchedule type defined by the user of the raptor API.
  */
 public class OptimizeTransferService<T extends RaptorTripSchedule> {
@@ -26,20 +34,35 @@ public class OptimizeTransferService<T extends RaptorTripSchedule> {
   private final MinSafeTransferTimeCalculator<T> minSafeTransferTimeCalculator;
   private final TransferWaitTimeCostCalculator transferWaitTimeCostCalculator;
 
+  @Nullable
+  private final ExecutorService threadPool;
+
+  private final CancellationToken cancellationToken;
+
   public OptimizeTransferService(
     OptimizePathDomainService<T> optimizePathDomainService,
     MinSafeTransferTimeCalculator<T> minSafeTransferTimeCalculator,
-    TransferWaitTimeCostCalculator transferWaitTimeCostCalculator
+    TransferWaitTimeCostCalculator transferWaitTimeCostCalculator,
+    @Nullable ExecutorService threadPool,
+    CancellationToken cancellationToken
   ) {
     this.optimizePathDomainService = optimizePathDomainService;
     this.minSafeTransferTimeCalculator = minSafeTransferTimeCalculator;
     this.transferWaitTimeCostCalculator = transferWaitTimeCostCalculator;
+    this.threadPool = threadPool;
+    this.cancellationToken = cancellationToken;
   }
 
-  public OptimizeTransferService(OptimizePathDomainService<T> optimizePathDomainService) {
+  public OptimizeTransferService(
+    OptimizePathDomainService<T> optimizePathDomainService,
+    @Nullable ExecutorService threadPool,
+    CancellationToken cancellationToken
+  ) {
     this.optimizePathDomainService = optimizePathDomainService;
     this.minSafeTransferTimeCalculator = null;
     this.transferWaitTimeCostCalculator = null;
+    this.threadPool = threadPool;
+    this.cancellationToken = cancellationToken;
   }
 
   public List<Path<T>> optimize(Collection<Path<T>> paths) {
@@ -47,15 +70,58 @@ public class OptimizeTransferService<T extends RaptorTripSchedule> {
 
     long start = LOG.isDebugEnabled() ? System.currentTimeMillis() : 0;
 
+    List<Path<T>> results = threadPool == null || paths.size() < 2
+      ? optimizeInSequence(paths)
+      : optimizeInParallel(paths);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Optimized transfers done in {} ms.", System.currentTimeMillis() - start);
+      PathDiff.logDiff("RAPTOR", paths, "OPT", results, false, false, LOG::debug);
+    }
+    return results;
+  }
+
+  private List<Path<T>> optimizeInSequence(Collection<Path<T>> paths) {
     List<Path<T>> results = new ArrayList<>();
 
     for (Path<T> path : paths) {
+      cancellationToken.checkForCancellation();
       results.addAll(optimize(path));
     }
+    return results;
+  }
 
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("Optimized transfers done in {} ms.", System.currentTimeMillis() - start);
-      PathDiff.logDiff("RAPTOR", paths, "OPT", results, false, false, LOG::debug);
+  /**
+   * Submit one task for each path to the thread pool. The results are collected in the same order
+   * as the paths are given.
+   */
+  private List<Path<T>> optimizeInParallel(Collection<Path<T>> paths) {
+    List<Future<Collection<OptimizedPath<T>>>> tasks = new ArrayList<>();
+
+    for (Path<T> path : paths) {
+      tasks.add(
+        threadPool.submit(() -> {
+          cancellationToken.checkForCancellation();
+          return optimize(path);
+        })
+      );
+    }
+
+    List<Path<T>> results = new ArrayList<>();
+    try {
+      for (Future<Collection<OptimizedPath<T>>> task : tasks) {
+        results.addAll(task.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      tasks.forEach(it -> it.cancel(false));
     }
     return results;
   }
@@ -1,6 +1,8 @@
 package org.opentripplanner.routing.algorithm.transferoptimization.configure;
 
+import java.util.concurrent.ExecutorService;
 import java.util.function.IntFunction;
+import javax.annotation.Nullable;
 import org.opentripplanner.model.transfer.TransferService;
 import org.opentripplanner.routing.algorithm.transferoptimization.OptimizeTransferService;
 import org.opentripplanner.routing.algorithm.transferoptimization.api.TransferOptimizationParameters;
@@ -32,6 +34,9 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
   private final RaptorRequest<T> raptorRequest;
   private final TransferOptimizationParameters config;
 
+  @Nullable
+  private final ExecutorService threadPool;
+
   private TransferOptimizationServiceConfigurator(
     IntFunction<StopLocation> stopLookup,
     RaptorStopNameResolver stopNameResolver,
@@ -39,7 +44,8 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
     RaptorTransitDataProvider<T> transitDataProvider,
     int[] stopBoardAlightCosts,
     RaptorRequest<T> raptorRequest,
-    TransferOptimizationParameters config
+    TransferOptimizationParameters config,
+    @Nullable ExecutorService threadPool
   ) {
     this.stopLookup = stopLookup;
     this.stopNameResolver = stopNameResolver;
@@ -48,10 +54,14 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
     this.stopBoardAlightCosts = stopBoardAlightCosts;
     this.raptorRequest = raptorRequest;
     this.config = config;
+    this.threadPool = threadPool;
   }
 
   /**
    * Scope: Request
+   *
+   * @param threadPool used to optimize the paths in parallel, if {@code null} the paths are
+   *                   optimized in the calling thread.
    */
   public static <
     T extends RaptorTripSchedule
@@ -62,7 +72,8 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
     RaptorTransitDataProvider<T> transitDataProvider,
     int[] stopBoardAlightCosts,
     RaptorRequest<T> raptorRequest,
-    TransferOptimizationParameters config
+    TransferOptimizationParameters config,
+    @Nullable ExecutorService threadPool
   ) {
     return new TransferOptimizationServiceConfigurator<T>(
       stopLookup,
@@ -71,7 +82,8 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
       transitDataProvider,
       stopBoardAlightCosts,
       raptorRequest,
-      config
+      config,
+      threadPool
     )
       .createOptimizeTransferService();
   }
@@ -96,7 +108,9 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
       return new OptimizeTransferService<>(
         transfersPermutationService,
         createMinSafeTxTimeService(),
-        transferWaitTimeCalculator
+        transferWaitTimeCalculator,
+        threadPool,
+        raptorRequest.cancellationToken()
       );
     } else {
       var transfersPermutationService = createOptimizePathService(
@@ -105,7 +119,11 @@ public class TransferOptimizationServiceConfigurator<T extends RaptorTripSchedul
         null,
         transitDataProvider.multiCriteriaCostCalculator()
       );
-      return new OptimizeTransferService<>(transfersPermutationService);
+      return new OptimizeTransferService<>(
+        transfersPermutationService,
+        threadPool,
+        raptorRequest.cancellationToken()
+      );
     }
   }
 
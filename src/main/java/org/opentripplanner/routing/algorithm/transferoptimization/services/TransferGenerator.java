@@ -5,6 +5,8 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.opentripplanner.model.transfer.ConstrainedTransfer;
@@ -29,6 +31,10 @@ import org.opentripplanner.transit.raptor.api.transit.SearchDirection;
  * <p>
  * This service does NOT combine transfers between various trips to form full paths. There are
  * potentially millions of permutations, so we do that later when we can prune the result.
+ * <p>
+ * The transfers between a pair of trips are cached. The paths returned by Raptor often share the
+ * same trips, so the cache is reused when optimizing each path. The generator is request scoped,
+ * and safe to use from more than one thread at the time.
  *
  * @param <T> The TripSchedule type defined by the user of the raptor API.
  */
@@ -39,9 +45,8 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
   private final TransferServiceAdaptor<T> transferServiceAdaptor;
   private final RaptorSlackProvider slackProvider;
   private final RaptorTransitDataProvider<T> stdTransfers;
-
-  private T fromTrip;
-  private T toTrip;
+  private final Map<TripPair<T>, List<TripToTripTransfer<T>>> transfersCache =
+    new ConcurrentHashMap<>();
 
   public TransferGenerator(
     TransferServiceAdaptor<T> transferServiceAdaptor,
@@ -87,11 +92,25 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
     StopTime fromTripDeparture,
     T toTrip
   ) {
-    this.fromTrip = fromTrip;
-    this.toTrip = toTrip;
-
     int firstStopPos = firstPossibleArrivalStopPos(fromTrip, fromTripDeparture);
-    return findAllTransfers(firstStopPos);
+
+    // The cached list contains all transfers between the two trips, so we need to remove the
+    // transfers before the first possible place to alight
+    var result = new ArrayList<TripToTripTransfer<T>>();
+    for (TripToTripTransfer<T> tx : findAllTransfers(fromTrip, toTrip)) {
+      if (tx.from().stopPosition() >= firstStopPos) {
+        result.add(tx);
+      }
+    }
+    return result;
+  }
+
+  private List<TripToTripTransfer<T>> findAllTransfers(T fromTrip, T toTrip) {
+    return transfersCache.computeIfAbsent(
+      new TripPair<>(fromTrip, toTrip),
+      // Alighting is not possible at the first stop position
+      it -> List.copyOf(findAllTransfers(fromTrip, toTrip, 1))
+    );
   }
 
   /** Given the trip and departure, find the first possible stop position to alight. */
@@ -99,7 +118,7 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
     return 1 + trip.findDepartureStopPosition(departure.time(), departure.stop());
   }
 
-  private List<TripToTripTransfer<T>> findAllTransfers(int stopPos) {
+  private List<TripToTripTransfer<T>> findAllTransfers(T fromTrip, T toTrip, int stopPos) {
     final List<TripToTripTransfer<T>> result = new ArrayList<>();
 
     while (stopPos < fromTrip.pattern().numberOfStopsInPattern()) {
@@ -108,8 +127,8 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
         var from = TripStopTime.arrival(fromTrip, stopPos);
 
         // First add high priority transfers
-        result.addAll(transferFromSameStop(from));
-        result.addAll(findStandardTransfers(from));
+        result.addAll(transferFromSameStop(from, toTrip));
+        result.addAll(findStandardTransfers(from, toTrip));
       }
 
       ++stopPos;
@@ -120,7 +139,10 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
   /**
    * Find potential transfers where traveller does not have to "walk" between stops
    */
-  private Collection<TripToTripTransfer<T>> transferFromSameStop(TripStopTime<T> from) {
+  private Collection<TripToTripTransfer<T>> transferFromSameStop(
+    TripStopTime<T> from,
+    T toTrip
+  ) {
     var result = new ArrayList<TripToTripTransfer<T>>();
 
     final int stop = from.stop();
@@ -133,14 +155,19 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
       // Find transfer constraint for stop position
       var tx = transferServiceAdaptor.findTransfer(from, toTrip, stop, stopPos);
 
-      if (!isAllowedTransfer(stopPos, tx)) {
+      if (!isAllowedTransfer(toTrip, stopPos, tx)) {
         continue;
       }
 
       // Check whether traveller will have enough time to do the transfer
       // We have to do it here because every stop position may have unique transfer constraint
       // So it may be possible to transfer at stop position 2 but not on 1...
-      final int earliestBoardTime = calculateEarliestBoardTime(from, tx, SAME_STOP_TRANSFER_TIME);
+      final int earliestBoardTime = calculateEarliestBoardTime(
+        from,
+        toTrip,
+        tx,
+        SAME_STOP_TRANSFER_TIME
+      );
 
       if (earliestBoardTime > toTrip.departure(stopPos)) {
         continue;
@@ -156,7 +183,10 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
   /**
    * Find potential transfers where traveller has to "walk" between stops
    */
-  private Collection<? extends TripToTripTransfer<T>> findStandardTransfers(TripStopTime<T> from) {
+  private Collection<? extends TripToTripTransfer<T>> findStandardTransfers(
+    TripStopTime<T> from,
+    T toTrip
+  ) {
     final List<TripToTripTransfer<T>> result = new ArrayList<>();
     Iterator<? extends RaptorTransfer> transfers = stdTransfers.getTransfersFromStop(from.stop());
 
@@ -172,14 +202,19 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
         // Find transfer constraint for stop position
         var tx = transferServiceAdaptor.findTransfer(from, toTrip, toStop, stopPos);
 
-        if (!isAllowedTransfer(stopPos, tx)) {
+        if (!isAllowedTransfer(toTrip, stopPos, tx)) {
           continue;
         }
 
         // Check whether traveller will have enough time to do the transfer
         // We have to do it here because every stopPos may have unique transfer constraint
         // So it may be possible to transfer at stop position 2 but not on 1 etc...
-        int earliestBoardTime = calculateEarliestBoardTime(from, tx, it.durationInSeconds());
+        int earliestBoardTime = calculateEarliestBoardTime(
+          from,
+          toTrip,
+          tx,
+          it.durationInSeconds()
+        );
 
         if (earliestBoardTime > toTrip.departure(stopPos)) {
           continue;
@@ -201,11 +236,12 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
    */
   private int calculateEarliestBoardTime(
     TripStopTime<T> from,
+    T toTrip,
     @Nullable ConstrainedTransfer tx,
     int regularTransferDurationInSec
   ) {
     if (tx == null) {
-      return calcRegularTransferEarliestBoardTime(from, regularTransferDurationInSec);
+      return calcRegularTransferEarliestBoardTime(from, toTrip, regularTransferDurationInSec);
     }
 
     return tx
@@ -213,18 +249,19 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
       .calculateTransferTargetTime(
         from.time(),
         slackProvider.transferSlack(),
-        () -> calcRegularTransferEarliestBoardTime(from, regularTransferDurationInSec),
+        () -> calcRegularTransferEarliestBoardTime(from, toTrip, regularTransferDurationInSec),
         SearchDirection.FORWARD
       );
   }
 
   private int calcRegularTransferEarliestBoardTime(
     TripStopTime<T> from,
+    T toTrip,
     int transferDurationInSeconds
   ) {
     int transferDuration = slackProvider.calcRegularTransferDuration(
       transferDurationInSeconds,
-      fromTrip.pattern().slackIndex(),
+      from.trip().pattern().slackIndex(),
       toTrip.pattern().slackIndex()
     );
     return from.time() + transferDuration;
@@ -266,11 +303,12 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
 
   /**
    * Based on trip pattern and transfer constraint check whether transfer at this point is possible
+   * @param toTrip destination trip
    * @param stopPosition stop position in destination trip pattern
    * @param tx optional transfer constraint
    * @return whether this transfer is possible
    */
-  private boolean isAllowedTransfer(int stopPosition, ConstrainedTransfer tx) {
+  private boolean isAllowedTransfer(T toTrip, int stopPosition, ConstrainedTransfer tx) {
     // Check in trip pattern whether boarding is possible
     if (!toTrip.pattern().boardingPossibleAt(stopPosition)) {
       return false;
@@ -281,4 +319,10 @@ public class TransferGenerator<T extends RaptorTripSchedule> {
     }
     return !tx.getTransferConstraint().isNotAllowed();
   }
+
+  /**
+   * The trip schedules are used as keys, so the equals/hashCode of the trip schedule decide if
+   * the cached transfers can be reused for another path.
+   */
+  private record TripPair<T>(T fromTrip, T toTrip) {}
 }
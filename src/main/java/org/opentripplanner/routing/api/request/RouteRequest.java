@@ -9,6 +9,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Locale;
 import java.util.function.Consumer;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.model.plan.SortOrder;
 import org.opentripplanner.model.plan.pagecursor.PageCursor;
@@ -67,6 +68,8 @@ public class RouteRequest implements Cloneable, Serializable {
 
   private boolean wheelchair = false;
 
+  private transient CancellationToken cancellationToken = CancellationToken.NONE;
+
   /* CONSTRUCTORS */
 
   /** Constructor for options; modes defaults to walk and transit */
@@ -113,6 +116,20 @@ public class RouteRequest implements Cloneable, Serializable {
     this.wheelchair = wheelchair;
   }
 
+  /**
+   * The token used to abort the search if the request deadline is exceeded or the client
+   * disconnects. This is not part of the search criteria, it is set by the API layer and shared
+   * by all copies of the request. Never {@code null}.
+   */
+  public CancellationToken cancellationToken() {
+    // The field is transient, the value is lost if the request is deserialized
+    return cancellationToken == null ? CancellationToken.NONE : cancellationToken;
+  }
+
+  public void setCancellationToken(CancellationToken cancellationToken) {
+    this.cancellationToken = cancellationToken;
+  }
+
   /**
    * The epoch date/time in seconds that the trip should depart (or arrive, for requests where
    * arriveBy is true)
@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.fares;
 
 import java.io.Serializable;
+import java.util.List;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.core.ItineraryFares;
 
@@ -13,4 +14,15 @@ public interface FareService extends Serializable {
    * @param itinerary the OTP2 Itinerary for which we want to compute a fare
    */
   ItineraryFares getCost(Itinerary itinerary);
+
+  /**
+   * Compute the fares of the itineraries of one routing request. A fare service may reuse the fares
+   * of the rides shared by several itineraries while doing so.
+   *
+   * @return the fare of each itinerary, in the same order as the itineraries. A fare is
+   * {@code null} if it could not be computed, like in {@link #getCost(Itinerary)}.
+   */
+  default List<ItineraryFares> getCosts(List<Itinerary> itineraries) {
+    return itineraries.stream().map(this::getCost).toList();
+  }
 }
@@ -40,6 +40,7 @@ public class DebugTimingAggregator {
   private final Timer tripPatternFilterTimer;
   private final Timer accessEgressTimer;
   private final Timer raptorSearchTimer;
+  private final Timer transferOptimizationTimer;
   private final Timer itineraryCreationTimer;
   private final Timer transitRouterTimer;
   private final Timer filteringTimer;
@@ -60,6 +61,7 @@ public class DebugTimingAggregator {
   private Timer.Sample finishedFiltering;
   private Timer.Sample startedAccessCalculating;
   private Timer.Sample startedEgressCalculating;
+  private Timer.Sample startedTransferOptimization;
   private long accessTime;
   private long egressTime;
   private int numAccesses;
@@ -69,6 +71,7 @@ public class DebugTimingAggregator {
   private long tripPatternFilterTime;
   private long accessEgressTime;
   private long raptorSearchTime;
+  private long transferOptimizationTime;
   private long itineraryCreationTime;
   private long transitRouterTime;
   private long filteringTime;
@@ -92,6 +95,8 @@ public class DebugTimingAggregator {
     itineraryCreationTimer =
       Timer.builder("routing.itineraryCreation").tags(tags).register(registry);
     raptorSearchTimer = Timer.builder(ROUTING_RAPTOR).tags(tags).register(registry);
+    transferOptimizationTimer =
+      Timer.builder("routing.transferOptimization").tags(tags).register(registry);
     accessEgressTimer = Timer.builder("routing.accessEgress").tags(tags).register(registry);
     tripPatternFilterTimer =
       Timer.builder("routing.tripPatternFiltering").tags(tags).register(registry);
@@ -213,6 +218,22 @@ public class DebugTimingAggregator {
     raptorSearchTime = finishedAccessEgress.stop(raptorSearchTimer);
   }
 
+  public void startedTransferOptimization() {
+    startedTransferOptimization = Timer.start(clock);
+  }
+
+  /**
+   * Record the time when we are finished with the transfer optimization. The itinerary creation
+   * is timed from here, not from the end of the raptor search.
+   */
+  public void finishedTransferOptimization() {
+    if (startedTransferOptimization == null) {
+      return;
+    }
+    transferOptimizationTime = startedTransferOptimization.stop(transferOptimizationTimer);
+    finishedRaptorSearch = Timer.start(clock);
+  }
+
   /**
    * Record the time when we have created internal itinerary objects from the raptor responses.
    */
@@ -251,6 +272,9 @@ public class DebugTimingAggregator {
       log("│├ Egress routing (" + numEgresses + " egresses)", egressTime);
       log("││ Access/Egress routing", accessEgressTime);
       log("│├ Main routing", raptorSearchTime);
+      if (transferOptimizationTime > 0) {
+        log("│├ Transfer optimization", transferOptimizationTime);
+      }
       log("│├ Creating itineraries", itineraryCreationTime);
       log("├┴ Transit routing total", transitRouterTime);
     }
@@ -295,6 +319,7 @@ public class DebugTimingAggregator {
         tripPatternFilterTime,
         accessEgressTime,
         raptorSearchTime,
+        transferOptimizationTime,
         itineraryCreationTime
       )
     );
@@ -19,6 +19,12 @@ public abstract class Edge implements Serializable {
 
   protected Vertex tov;
 
+  /**
+   * The dense index of the edge in the graph, or -1 if the edge has no index. The index is assigned
+   * when the graph is indexed and never changes.
+   */
+  private int index = -1;
+
   protected Edge(Vertex v1, Vertex v2) {
     if (v1 == null || v2 == null) {
       String err = String.format(
@@ -43,6 +49,19 @@ public abstract class Edge implements Serializable {
     return tov;
   }
 
+  /**
+   * The dense index of the edge in the graph, see {@link Graph#getEdgeByIndex(int)}. Edges added
+   * after the graph is indexed, like temporary and realtime edges, have no index and {@code -1} is
+   * returned.
+   */
+  public final int getIndex() {
+    return index;
+  }
+
+  final void setIndex(int index) {
+    this.index = index;
+  }
+
   /**
    * Checks equivalency to another edge. Default implementation is trivial equality, but subclasses
    * may want to do something more tricky.
@@ -3,14 +3,10 @@ package org.opentripplanner.routing.graph;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.prefs.Preferences;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -22,6 +18,10 @@ import org.opentripplanner.common.geometry.CompactElevationProfile;
 import org.opentripplanner.common.geometry.GraphUtils;
 import org.opentripplanner.ext.dataoverlay.configuration.DataOverlayParameterBindings;
 import org.opentripplanner.ext.geocoder.LuceneIndex;
+import org.opentripplanner.ext.traveltime.TravelTimeRasterCache;
+import org.opentripplanner.ext.traveltime.egress.StopEgressTable;
+import org.opentripplanner.ext.vectortiles.VectorTileArchive;
+import org.opentripplanner.ext.vectortiles.VectorTileCache;
 import org.opentripplanner.model.calendar.openinghours.OpeningHoursCalendarService;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.fares.FareService;
@@ -50,8 +50,16 @@ public class Graph implements Serializable {
 
   public final StreetNotesService streetNotesService = new StreetNotesService();
 
-  /* Ideally we could just get rid of vertex labels, but they're used in tests and graph building. */
-  private final Map<String, Vertex> vertices = new ConcurrentHashMap<>();
+  /**
+   * The vertices by their dense index. Ideally we could just get rid of vertex labels, but they're
+   * used in tests and graph building, so the store keeps a label index as well.
+   */
+  private final VertexStore vertices = new VertexStore();
+
+  /** The permanent edges by their dense index, created when the graph is indexed. */
+  private transient Edge[] edgesByIndex = new Edge[0];
+
+  private int nextEdgeIndex = 0;
 
   public final transient Deduplicator deduplicator;
 
@@ -121,7 +129,34 @@ public class Graph implements Serializable {
    * creating the data overlay context when routing.
    */
   public DataOverlayParameterBindings dataOverlayParameterBindings;
-  private LuceneIndex luceneIndex;
+
+  /**
+   * TravelTime Sandbox walk times from the stops to the street vertices, precomputed if configured
+   * in the build-config. Stored with the graph, since it refers to the vertices by index.
+   */
+  private StopEgressTable stopEgressTable;
+
+  /**
+   * The geocoder index is stored in a separate file and loaded together with the graph, or built
+   * when the server starts.
+   */
+  private transient volatile LuceneIndex luceneIndex;
+
+  /**
+   * The pre-rendered vector tiles are stored in a separate file, and loaded together with the
+   * graph.
+   */
+  private transient VectorTileArchive vectorTileArchive;
+
+  /**
+   * The vector tiles rendered by the server, created when the first tile is requested.
+   */
+  private transient volatile VectorTileCache vectorTileCache;
+
+  /**
+   * The travel time rasters computed by the server, created when the first raster is requested.
+   */
+  private transient volatile TravelTimeRasterCache travelTimeRasterCache;
 
   @Inject
   public Graph(
@@ -152,14 +187,7 @@ public class Graph implements Serializable {
    *           - and create factory methods for each type of Vertex in the VertexCollection.
    */
   public void addVertex(Vertex v) {
-    Vertex old = vertices.put(v.getLabel(), v);
-    if (old != null) {
-      if (old == v) {
-        LOG.error("repeatedly added the same vertex: {}", v);
-      } else {
-        LOG.error("duplicate vertex label in graph (added vertex to graph anyway): {}", v);
-      }
-    }
+    vertices.add(v);
   }
 
   /**
@@ -197,6 +225,13 @@ public class Graph implements Serializable {
         e.tov.removeIncoming(e);
         e.tov = null;
       }
+
+      Edge[] byIndex = edgesByIndex;
+      if (byIndex != null && e.getIndex() >= 0 && e.getIndex() < byIndex.length) {
+        if (byIndex[e.getIndex()] == e) {
+          byIndex[e.getIndex()] = null;
+        }
+      }
     }
   }
 
@@ -210,15 +245,50 @@ public class Graph implements Serializable {
    * Get all the vertices in the graph.
    */
   public Collection<Vertex> getVertices() {
-    return this.vertices.values();
+    return this.vertices.all();
   }
 
+  /**
+   * Get all the vertices of the given type, using an index of the vertices by type.
+   */
   public <T extends Vertex> List<T> getVerticesOfType(Class<T> cls) {
-    return this.getVertices()
-      .stream()
-      .filter(cls::isInstance)
-      .map(cls::cast)
-      .collect(Collectors.toList());
+    return this.vertices.allOfType(cls);
+  }
+
+  /**
+   * @return the vertex with the given dense index, or {@code null} if the vertex is removed.
+   * @see Vertex#getIndex()
+   */
+  @Nullable
+  public Vertex getVertexByIndex(int index) {
+    return vertices.get(index);
+  }
+
+  /**
+   * The number of vertex indexes in use, including the indexes of removed vertices. Use this to
+   * size arrays indexed by the vertex index.
+   */
+  public int countVertexIndexes() {
+    return vertices.indexSize();
+  }
+
+  /**
+   * @return the edge with the given dense index, or {@code null} if the edge is removed or the
+   * graph is not indexed.
+   * @see Edge#getIndex()
+   */
+  @Nullable
+  public Edge getEdgeByIndex(int index) {
+    Edge[] byIndex = edgesByIndex;
+    return byIndex != null && index < byIndex.length ? byIndex[index] : null;
+  }
+
+  /**
+   * The number of edge indexes in use when the graph was indexed, including the indexes of removed
+   * edges. Use this to size arrays indexed by the edge index.
+   */
+  public int countEdgeIndexes() {
+    return nextEdgeIndex;
   }
 
   public TransitStopVertex getStopVertexForStopId(FeedScopedId id) {
@@ -226,10 +296,11 @@ public class Graph implements Serializable {
   }
 
   /**
-   * Return all the edges in the graph. Derived from vertices on demand.
+   * Return all the edges in the graph. Derived from vertices on demand, each edge is in the
+   * outgoing edges of exactly one vertex.
    */
   public Collection<Edge> getEdges() {
-    Set<Edge> edges = new HashSet<>();
+    List<Edge> edges = new ArrayList<>();
     for (Vertex v : this.getVertices()) {
       edges.addAll(v.getOutgoing());
     }
@@ -237,11 +308,15 @@ public class Graph implements Serializable {
   }
 
   public <T extends Edge> List<T> getEdgesOfType(Class<T> cls) {
-    return this.getEdges()
-      .stream()
-      .filter(cls::isInstance)
-      .map(cls::cast)
-      .collect(Collectors.toList());
+    List<T> edges = new ArrayList<>();
+    for (Vertex v : this.getVertices()) {
+      for (Edge e : v.getOutgoing()) {
+        if (cls.isInstance(e)) {
+          edges.add(cls.cast(e));
+        }
+      }
+    }
+    return edges;
   }
 
   /**
@@ -252,11 +327,11 @@ public class Graph implements Serializable {
   }
 
   public boolean containsVertex(Vertex v) {
-    return (v != null) && vertices.get(v.getLabel()) == v;
+    return vertices.contains(v);
   }
 
   public void remove(Vertex vertex) {
-    vertices.remove(vertex.getLabel());
+    vertices.remove(vertex);
   }
 
   public void removeIfUnconnected(Vertex v) {
@@ -302,10 +377,29 @@ public class Graph implements Serializable {
    */
   public void index(StopModel stopModel) {
     LOG.info("Index street model...");
+    indexEdges();
     streetIndex = new StreetIndex(this, stopModel);
     LOG.info("Index street model complete.");
   }
 
+  /**
+   * Give each edge without an index a new dense index, and create the edge-by-index array. The
+   * edges keep their index when the graph is serialized.
+   */
+  private synchronized void indexEdges() {
+    Collection<Edge> edges = getEdges();
+    for (Edge e : edges) {
+      if (e.getIndex() < 0) {
+        e.setIndex(nextEdgeIndex++);
+      }
+    }
+    Edge[] byIndex = new Edge[nextEdgeIndex];
+    for (Edge e : edges) {
+      byIndex[e.getIndex()] = e;
+    }
+    this.edgesByIndex = byIndex;
+  }
+
   @Nullable
   public OpeningHoursCalendarService getOpeningHoursCalendarService() {
     return this.openingHoursCalendarService;
@@ -447,14 +541,51 @@ public class Graph implements Serializable {
     this.fareService = fareService;
   }
 
+  @Nullable
+  public StopEgressTable getStopEgressTable() {
+    return stopEgressTable;
+  }
+
+  public void setStopEgressTable(@Nullable StopEgressTable stopEgressTable) {
+    this.stopEgressTable = stopEgressTable;
+  }
+
+  @Nullable
   public LuceneIndex getLuceneIndex() {
     return luceneIndex;
   }
 
-  public void setLuceneIndex(LuceneIndex luceneIndex) {
+  public void setLuceneIndex(@Nullable LuceneIndex luceneIndex) {
     this.luceneIndex = luceneIndex;
   }
 
+  @Nullable
+  public VectorTileArchive getVectorTileArchive() {
+    return vectorTileArchive;
+  }
+
+  public void setVectorTileArchive(@Nullable VectorTileArchive vectorTileArchive) {
+    this.vectorTileArchive = vectorTileArchive;
+  }
+
+  @Nullable
+  public VectorTileCache getVectorTileCache() {
+    return vectorTileCache;
+  }
+
+  public void setVectorTileCache(@Nullable VectorTileCache vectorTileCache) {
+    this.vectorTileCache = vectorTileCache;
+  }
+
+  @Nullable
+  public TravelTimeRasterCache getTravelTimeRasterCache() {
+    return travelTimeRasterCache;
+  }
+
+  public void setTravelTimeRasterCache(@Nullable TravelTimeRasterCache travelTimeRasterCache) {
+    this.travelTimeRasterCache = travelTimeRasterCache;
+  }
+
   private void indexIfNotIndexed(StopModel stopModel) {
     if (streetIndex == null) {
       index(stopModel);
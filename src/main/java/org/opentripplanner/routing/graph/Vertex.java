@@ -35,6 +35,12 @@ public abstract class Vertex implements Serializable, Cloneable {
   private final double y;
   /* Longer human-readable name for the client */
   private I18NString name;
+  /**
+   * The dense index of the vertex in the graph, or -1 if the vertex is not part of a graph. The
+   * index is assigned when the vertex is added to the graph and never changes.
+   */
+  private int index = -1;
+
   private transient Edge[] incoming = new Edge[0];
 
   private transient Edge[] outgoing = new Edge[0];
@@ -71,6 +77,19 @@ public abstract class Vertex implements Serializable, Cloneable {
     return sb.toString();
   }
 
+  /**
+   * The dense index of the vertex in the graph, see {@link Graph#getVertexByIndex(int)}. Can be
+   * used to store data about vertices in arrays. Temporary vertices have no index, {@code -1} is
+   * returned.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  void setIndex(int index) {
+    this.index = index;
+  }
+
   public void initEdgeLists() {
     this.outgoing = new Edge[0];
     this.incoming = new Edge[0];
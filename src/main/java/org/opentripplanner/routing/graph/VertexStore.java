@@ -0,0 +1,192 @@
+package org.opentripplanner.routing.graph;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The vertices of a graph, stored in an array indexed by the vertex index. Each vertex gets a dense
+ * index when added, which is kept when the graph is serialized. The slot of a removed vertex is
+ * not reused, so the index of a vertex never changes.
+ * <p>
+ * Lookup by label and by type is done with side indexes, which are created the first time they
+ * are used and then kept up to date. The vertex array is all that is serialized.
+ * <p>
+ * THREAD-SAFETY: Write operations are synchronized. The vertices can be read while vertices are
+ * added by the graph writer thread, a reader sees all vertices added before it started.
+ */
+class VertexStore implements Serializable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VertexStore.class);
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private volatile Vertex[] vertices = new Vertex[INITIAL_CAPACITY];
+
+  /**
+   * The next index to assign, the number of slots in use. This is written after the vertex is
+   * stored, so readers see a complete slot.
+   */
+  private volatile int nextIndex = 0;
+
+  private int size = 0;
+
+  private transient Map<String, Vertex> labelIndex;
+
+  /** The indexes of the vertices by their concrete type. */
+  private transient Map<Class<? extends Vertex>, TIntList> typeIndex;
+
+  synchronized void add(Vertex v) {
+    if (contains(v)) {
+      LOG.error("repeatedly added the same vertex: {}", v);
+      return;
+    }
+    if (labelIndex != null) {
+      Vertex old = labelIndex.put(v.getLabel(), v);
+      if (old != null) {
+        LOG.error("duplicate vertex label in graph (added vertex to graph anyway): {}", v);
+      }
+    }
+    int index = nextIndex;
+    if (index == vertices.length) {
+      vertices = Arrays.copyOf(vertices, vertices.length * 2);
+    }
+    v.setIndex(index);
+    vertices[index] = v;
+    if (typeIndex != null) {
+      typeIndex.computeIfAbsent(v.getClass(), c -> new TIntArrayList()).add(index);
+    }
+    ++size;
+    nextIndex = index + 1;
+  }
+
+  synchronized void remove(Vertex v) {
+    if (!contains(v)) {
+      return;
+    }
+    vertices[v.getIndex()] = null;
+    --size;
+    if (labelIndex != null && labelIndex.get(v.getLabel()) == v) {
+      labelIndex.remove(v.getLabel());
+    }
+    // The type index is not updated, removed vertices are skipped when it is read
+  }
+
+  boolean contains(Vertex v) {
+    if (v == null) {
+      return false;
+    }
+    int index = v.getIndex();
+    return index >= 0 && index < nextIndex && vertices[index] == v;
+  }
+
+  @Nullable
+  Vertex get(int index) {
+    return index < nextIndex ? vertices[index] : null;
+  }
+
+  @Nullable
+  synchronized Vertex get(String label) {
+    if (labelIndex == null) {
+      labelIndex = new HashMap<>();
+      for (Vertex v : all()) {
+        labelIndex.put(v.getLabel(), v);
+      }
+    }
+    return labelIndex.get(label);
+  }
+
+  /** The number of vertices in the store. */
+  int size() {
+    return size;
+  }
+
+  /** The number of vertex indexes in use, including the indexes of removed vertices. */
+  int indexSize() {
+    return nextIndex;
+  }
+
+  /**
+   * A read-only view of the vertices, in index order. The view does not include vertices added
+   * after it is created.
+   */
+  Collection<Vertex> all() {
+    final int n = nextIndex;
+    final Vertex[] snapshot = vertices;
+    final int count = size;
+
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<Vertex> iterator() {
+        return new Iterator<>() {
+          private int i = skipRemoved(0);
+
+          @Override
+          public boolean hasNext() {
+            return i < n;
+          }
+
+          @Override
+          public Vertex next() {
+            if (i >= n) {
+              throw new NoSuchElementException();
+            }
+            Vertex v = snapshot[i];
+            i = skipRemoved(i + 1);
+            return v;
+          }
+
+          private int skipRemoved(int index) {
+            while (index < n && snapshot[index] == null) {
+              ++index;
+            }
+            return index;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return count;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  synchronized <T extends Vertex> List<T> allOfType(Class<T> cls) {
+    if (typeIndex == null) {
+      typeIndex = new HashMap<>();
+      for (int i = 0; i < nextIndex; ++i) {
+        if (vertices[i] != null) {
+          typeIndex.computeIfAbsent(vertices[i].getClass(), c -> new TIntArrayList()).add(i);
+        }
+      }
+    }
+    List<T> result = new ArrayList<>();
+    for (Map.Entry<Class<? extends Vertex>, TIntList> it : typeIndex.entrySet()) {
+      if (cls.isAssignableFrom(it.getKey())) {
+        it
+          .getValue()
+          .forEach(index -> {
+            if (vertices[index] != null) {
+              result.add((T) vertices[index]);
+            }
+            return true;
+          });
+      }
+    }
+    return result;
+  }
+}
@@ -1,8 +1,14 @@
 package org.opentripplanner.routing.graph.index;
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.CopyOnWriteHashGridSpatialIndex;
 import org.opentripplanner.common.geometry.HashGridSpatialIndex;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.linking.Scope;
@@ -14,14 +20,15 @@ import org.opentripplanner.routing.linking.Scope;
  * the permanent index and inserts into the realtime index REQUEST: Looks at both the permanent and
  * realtime indexes and does not insert into any index
  * <p>
- * NOTES ON CONCURRENCY: It is possible that an A Star search would find an edge in the
- * realTimeIndex which is then removed before the actual routing starts. This could result in a
- * NullPointerException on the from/to vertex of the Edge being routed on. This happens seldom
- * enough that we have not accounted for it.
+ * NOTES ON CONCURRENCY: The realtime index is updated by the graph writer thread while request
+ * threads query it. It is a {@link CopyOnWriteHashGridSpatialIndex}, so a query never sees a bin in
+ * the middle of an update. The permanent index is only updated when the graph is built and is read
+ * without locking.
  * <p>
- * A simple way to solve this, if needed, would be to just rerun the search in case on an exception.
- * A more complete solution would have to take into account concurrency not only for the spatial
- * index, but for the entire street graph, as an edge could be removed in the middle of routing.
+ * An edge returned from the realtime index may still be removed from the graph by an updater right
+ * after the query, the client must check that the edge is still connected before using it. A more
+ * complete solution would have to take into account concurrency for the entire street graph, as an
+ * edge could be removed in the middle of routing.
  * <p>
  * It is also worth noting that the entire reason we have the realTimeIndex in the first place is so
  * that the origin/destination coordinates of a search can connect directly to the edges being split
@@ -34,12 +41,13 @@ public class EdgeSpatialIndex {
 
   private final HashGridSpatialIndex<Edge> permanentEdgeIndex = new HashGridSpatialIndex<>();
 
-  private final HashGridSpatialIndex<Edge> realTimeEdgeIndex = new HashGridSpatialIndex<>();
+  private final CopyOnWriteHashGridSpatialIndex<Edge> realTimeEdgeIndex =
+    new CopyOnWriteHashGridSpatialIndex<>();
 
-  public void insert(LineString lineString, Object obj, Scope scope) {
+  public void insert(LineString lineString, Edge edge, Scope scope) {
     switch (scope) {
-      case PERMANENT -> permanentEdgeIndex.insert(lineString, obj);
-      case REALTIME -> realTimeEdgeIndex.insert(lineString, obj);
+      case PERMANENT -> permanentEdgeIndex.insert(lineString, edge);
+      case REALTIME -> realTimeEdgeIndex.insert(lineString, edge);
       case REQUEST -> throw new IllegalArgumentException();
     }
   }
@@ -62,7 +70,52 @@ public class EdgeSpatialIndex {
     };
   }
 
+  /**
+   * Visit the edges in the index bins touching the envelope, see {@link #query(Envelope, Scope)}.
+   * The edges are not collected, so this is cheaper when most edges are filtered out.
+   */
+  public void visitEdges(Envelope envelope, Scope scope, Consumer<Edge> visitor) {
+    permanentEdgeIndex.visitItems(envelope, visitor);
+    if (scope == Scope.REQUEST) {
+      realTimeEdgeIndex.visitItems(envelope, visitor);
+    }
+  }
+
+  /**
+   * Find the edge closest to the center, searching the indexes visible in the given scope in
+   * expanding rings.
+   *
+   * @param maxDistance the max distance in degrees latitude
+   * @param distance    the distance to an edge in degrees latitude, or {@link Double#NaN} to skip
+   *                    the edge
+   * @return the closest edge, or {@code null} if no edge is found within the max distance.
+   */
+  @Nullable
+  public Edge findClosest(
+    Coordinate center,
+    double maxDistance,
+    Scope scope,
+    ToDoubleFunction<Edge> distance
+  ) {
+    Edge closest = first(permanentEdgeIndex.findNearest(center, maxDistance, 1, distance));
+    if (scope == Scope.REQUEST) {
+      Edge realTime = first(realTimeEdgeIndex.findNearest(center, maxDistance, 1, distance));
+      if (
+        realTime != null &&
+        (closest == null || distance.applyAsDouble(realTime) < distance.applyAsDouble(closest))
+      ) {
+        closest = realTime;
+      }
+    }
+    return closest;
+  }
+
   public void compact() {
     permanentEdgeIndex.compact();
   }
+
+  @Nullable
+  private static Edge first(List<Edge> edges) {
+    return edges.isEmpty() ? null : edges.get(0);
+  }
 }
@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.graph.index;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -145,9 +146,15 @@ public class StreetIndex {
    * Returns the vertices intersecting with the specified envelope.
    */
   public List<Vertex> getVerticesForEnvelope(Envelope envelope) {
-    List<Vertex> vertices = verticesTree.query(envelope);
-    // Here we assume vertices list modifiable
-    vertices.removeIf(v -> !envelope.contains(new Coordinate(v.getLon(), v.getLat())));
+    List<Vertex> vertices = new ArrayList<>();
+    verticesTree.visitItems(
+      envelope,
+      v -> {
+        if (envelope.contains(v.getLon(), v.getLat())) {
+          vertices.add(v);
+        }
+      }
+    );
     return vertices;
   }
 
@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.linking;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -138,7 +139,12 @@ public class VertexLinker {
    * returning edges that have been disconnected from the graph.
    */
   private static boolean edgeReachableFromGraph(Edge edge) {
-    boolean edgeReachableFromGraph = edge.getToVertex().getIncoming().contains(edge);
+    Vertex toVertex = edge.getToVertex();
+    if (toVertex == null) {
+      // A realtime edge removed by the graph writer after the spatial index was queried
+      return false;
+    }
+    boolean edgeReachableFromGraph = toVertex.getIncoming().contains(edge);
     if (!edgeReachableFromGraph) {
       LOG.error(
         "Edge returned from spatial index is no longer reachable from graph. That is not expected."
@@ -177,8 +183,9 @@ public class VertexLinker {
    * <p>
    * In OTP2 where the transit search can be quite fast, searching for a good linking point can be a
    * significant fraction of response time. Hannes Junnila has reported >70% speedups in searches by
-   * making the search radius smaller. Therefore we use an expanding-envelope search, which is more
-   * efficient in dense areas.
+   * making the search radius smaller. Therefore we first search a small envelope, which is more
+   * efficient in dense areas. If no edge is found, the closest edge for each mode is found by
+   * searching the spatial index in expanding rings, and the edges are linked within that radius.
    *
    * @param vertex        Vertex to be linked into the street graph
    * @param traverseModes Only street edges allowing one of these modes will be linked
@@ -205,19 +212,15 @@ public class VertexLinker {
         traverseModes,
         direction,
         scope,
-        INITIAL_SEARCH_RADIUS_METERS,
+        SphericalDistanceLibrary.metersToDegrees(INITIAL_SEARCH_RADIUS_METERS),
         tempEdges
       );
       if (streetVertices.isEmpty()) {
-        streetVertices =
-          linkToStreetEdges(
-            vertex,
-            traverseModes,
-            direction,
-            scope,
-            MAX_SEARCH_RADIUS_METERS,
-            tempEdges
-          );
+        double radiusDeg = findSearchRadius(vertex, traverseModes, scope);
+        if (!Double.isNaN(radiusDeg)) {
+          streetVertices =
+            linkToStreetEdges(vertex, traverseModes, direction, scope, radiusDeg, tempEdges);
+        }
       }
 
       for (StreetVertex streetVertex : streetVertices) {
@@ -243,11 +246,9 @@ public class VertexLinker {
     TraverseModeSet traverseModes,
     LinkingDirection direction,
     Scope scope,
-    int radiusMeters,
+    double radiusDeg,
     DisposableEdgeCollection tempEdges
   ) {
-    final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
-
     Envelope env = new Envelope(vertex.getCoordinate());
 
     // Perform a simple local equirectangular projection, so distances are expressed in degrees latitude.
@@ -256,18 +257,26 @@ public class VertexLinker {
     // Expand more in the longitude direction than the latitude direction to account for converging meridians.
     env.expandBy(radiusDeg / xscale, radiusDeg);
 
-    // Perform several transformations at once on the edges returned by the index. Only consider
-    // street edges traversable by at least one of the given modes and are still present in the
-    // graph. Calculate a distance to each of those edges, and keep only the ones within the search
-    // radius.
-    List<DistanceTo<StreetEdge>> candidateEdges = edgeSpatialIndex
-      .query(env, scope)
-      .filter(StreetEdge.class::isInstance)
-      .map(StreetEdge.class::cast)
-      .filter(e -> e.canTraverse(traverseModes) && edgeReachableFromGraph(e))
-      .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale)))
-      .filter(ead -> ead.distanceDegreesLat < radiusDeg)
-      .collect(Collectors.toList());
+    // Only consider street edges traversable by at least one of the given modes and are still
+    // present in the graph. Calculate a distance to each of those edges, and keep only the ones
+    // within the search radius.
+    List<DistanceTo<StreetEdge>> candidateEdges = new ArrayList<>();
+    edgeSpatialIndex.visitEdges(
+      env,
+      scope,
+      e -> {
+        if (
+          e instanceof StreetEdge streetEdge &&
+          streetEdge.canTraverse(traverseModes) &&
+          edgeReachableFromGraph(streetEdge)
+        ) {
+          double distance = distance(vertex, streetEdge, xscale);
+          if (distance < radiusDeg) {
+            candidateEdges.add(new DistanceTo<>(streetEdge, distance));
+          }
+        }
+      }
+    );
 
     if (candidateEdges.isEmpty()) {
       return Set.of();
@@ -281,6 +290,43 @@ public class VertexLinker {
       .collect(Collectors.toSet());
   }
 
+  /**
+   * Find the search radius including the closest edge traversable by each of the modes, within
+   * {@link #MAX_SEARCH_RADIUS_METERS}. The spatial index is searched in expanding rings, so only
+   * the bins up to the closest edge are visited.
+   *
+   * @return the radius in degrees latitude, or {@link Double#NaN} if no edge is found.
+   */
+  private double findSearchRadius(Vertex vertex, TraverseModeSet traverseModes, Scope scope) {
+    final double maxRadiusDeg = SphericalDistanceLibrary.metersToDegrees(MAX_SEARCH_RADIUS_METERS);
+    final double xscale = Math.cos(vertex.getLat() * Math.PI / 180);
+    double radiusDeg = Double.NaN;
+
+    for (TraverseMode mode : traverseModes.getModes()) {
+      TraverseModeSet modeSet = new TraverseModeSet(mode);
+      Edge closest = edgeSpatialIndex.findClosest(
+        vertex.getCoordinate(),
+        maxRadiusDeg,
+        scope,
+        e ->
+          e instanceof StreetEdge streetEdge &&
+            streetEdge.canTraverse(modeSet) &&
+            edgeReachableFromGraph(streetEdge)
+            ? distance(vertex, streetEdge, xscale)
+            : Double.NaN
+      );
+      if (closest != null) {
+        double distance = distance(vertex, (StreetEdge) closest, xscale);
+        radiusDeg = Double.isNaN(radiusDeg) ? distance : Math.max(radiusDeg, distance);
+      }
+    }
+    // Include the edges within the duplicate way epsilon of the closest edges
+    return Math.min(
+      radiusDeg + 2 * SphericalDistanceLibrary.metersToDegrees(DUPLICATE_WAY_EPSILON_METERS),
+      maxRadiusDeg
+    );
+  }
+
   /**
    * We need to get the closest edges per mode to be sure that we are linking to edges traversable
    * by all the specified modes. We use a set here to avoid duplicates in the case that edges are
@@ -1,14 +1,36 @@
 package org.opentripplanner.routing.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.locationtech.jts.geom.Envelope;
+import org.opentripplanner.common.geometry.HashGridSpatialIndex;
 import org.opentripplanner.model.vehicle_position.RealtimeVehiclePosition;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.network.TripPattern;
 
+/**
+ * The realtime vehicle positions, indexed by pattern, by trip and by location.
+ * <p>
+ * The positions and their indexes are replaced as a whole on each update: a new immutable snapshot
+ * is built by the updater thread and published atomically. The queries read the current snapshot
+ * without locking, so they are cheap and never see a partial update.
+ * <p>
+ * THIS CLASS IS THREAD-SAFE
+ */
 public class RealtimeVehiclePositionService {
 
-  private final Map<TripPattern, List<RealtimeVehiclePosition>> positions = new ConcurrentHashMap<>();
+  /**
+   * The bin size of the spatial index in degrees. The vehicles are sparse compared to the street
+   * network, so the bins are much larger than the default.
+   */
+  private static final double BIN_SIZE_DEGREES = 0.1;
+
+  private volatile Snapshot snapshot = Snapshot.of(Map.of());
 
   /**
    * For the given pattern set all realtime vehicle positions.
@@ -19,7 +41,7 @@ public class RealtimeVehiclePositionService {
    * overwrite each other.
    */
   public void setVehiclePositions(TripPattern pattern, List<RealtimeVehiclePosition> updates) {
-    positions.put(pattern, List.copyOf(updates));
+    updateVehiclePositions(Map.of(pattern, updates), Set.of());
   }
 
   /**
@@ -29,14 +51,125 @@ public class RealtimeVehiclePositionService {
    * they have stopped their trip.
    */
   public void clearVehiclePositions(TripPattern pattern) {
-    positions.remove(pattern);
+    updateVehiclePositions(Map.of(), Set.of(pattern));
+  }
+
+  /**
+   * Set the vehicle positions of several patterns and clear the positions of other patterns in one
+   * update, see {@link #setVehiclePositions(TripPattern, List)} and
+   * {@link #clearVehiclePositions(TripPattern)}. The indexes are rebuilt once for the whole update.
+   */
+  public synchronized void updateVehiclePositions(
+    Map<TripPattern, List<RealtimeVehiclePosition>> updates,
+    Collection<TripPattern> clearedPatterns
+  ) {
+    var positions = new HashMap<>(snapshot.positionsByPattern);
+    clearedPatterns.forEach(positions::remove);
+    updates.forEach((pattern, list) -> positions.put(pattern, List.copyOf(list)));
+    snapshot = Snapshot.of(positions);
   }
 
   /**
-   * Get the vehicle positions for a certain trip.
+   * Get the vehicle positions for a certain pattern.
    */
   public List<RealtimeVehiclePosition> getVehiclePositions(TripPattern pattern) {
     // the list is made immutable during insertion, so we can safely return them
-    return positions.getOrDefault(pattern, List.of());
+    return snapshot.positionsByPattern.getOrDefault(pattern, List.of());
+  }
+
+  /**
+   * Get the vehicle positions for a certain trip. There is usually only one, unless the trip is
+   * run on several service dates at the same time.
+   */
+  public List<RealtimeVehiclePosition> getVehiclePositionsForTrip(FeedScopedId tripId) {
+    return snapshot.positionsByTripId.getOrDefault(tripId, List.of());
+  }
+
+  /**
+   * Get the vehicle positions within the envelope, in degrees longitude (x) and latitude (y).
+   * Positions without coordinates are not included.
+   * <p>
+   * If the envelope covers more bins of the spatial index than there are positions, all positions
+   * are scanned instead, so a large envelope costs no more than the number of positions.
+   */
+  public List<RealtimeVehiclePosition> getVehiclePositions(Envelope envelope) {
+    var snapshot = this.snapshot;
+    var result = new ArrayList<RealtimeVehiclePosition>();
+    Consumer<RealtimeVehiclePosition> visitor = it -> {
+      var c = it.coordinates();
+      if (c != null && envelope.contains(c.longitude(), c.latitude())) {
+        result.add(it);
+      }
+    };
+
+    if (countBins(envelope) > snapshot.size) {
+      snapshot.positionsByPattern.values().forEach(list -> list.forEach(visitor));
+    } else {
+      snapshot.spatialIndex.visitItems(envelope, visitor);
+    }
+    return result;
+  }
+
+  /** The number of vehicle positions of all patterns. */
+  public int countVehiclePositions() {
+    return snapshot.size;
+  }
+
+  /** The number of bins of the spatial index the envelope covers, at least. */
+  private static double countBins(Envelope envelope) {
+    if (envelope.isNull()) {
+      return 0;
+    }
+    return (
+      (Math.floor(envelope.getWidth() / BIN_SIZE_DEGREES) + 1) *
+      (Math.floor(envelope.getHeight() / BIN_SIZE_DEGREES) + 1)
+    );
+  }
+
+  private static final class Snapshot {
+
+    private final Map<TripPattern, List<RealtimeVehiclePosition>> positionsByPattern;
+    private final Map<FeedScopedId, List<RealtimeVehiclePosition>> positionsByTripId;
+    private final HashGridSpatialIndex<RealtimeVehiclePosition> spatialIndex;
+    private final int size;
+
+    private Snapshot(
+      Map<TripPattern, List<RealtimeVehiclePosition>> positionsByPattern,
+      Map<FeedScopedId, List<RealtimeVehiclePosition>> positionsByTripId,
+      HashGridSpatialIndex<RealtimeVehiclePosition> spatialIndex,
+      int size
+    ) {
+      this.positionsByPattern = positionsByPattern;
+      this.positionsByTripId = positionsByTripId;
+      this.spatialIndex = spatialIndex;
+      this.size = size;
+    }
+
+    private static Snapshot of(Map<TripPattern, List<RealtimeVehiclePosition>> positions) {
+      var positionsByTripId = new HashMap<FeedScopedId, List<RealtimeVehiclePosition>>();
+      var spatialIndex = new HashGridSpatialIndex<RealtimeVehiclePosition>(
+        BIN_SIZE_DEGREES,
+        BIN_SIZE_DEGREES
+      );
+      int size = 0;
+
+      for (List<RealtimeVehiclePosition> list : positions.values()) {
+        for (RealtimeVehiclePosition position : list) {
+          if (position.trip() != null) {
+            positionsByTripId
+              .computeIfAbsent(position.trip().getId(), id -> new ArrayList<>(1))
+              .add(position);
+          }
+          var c = position.coordinates();
+          if (c != null) {
+            spatialIndex.insert(new Envelope(c.asJtsCoordinate()), position);
+          }
+          ++size;
+        }
+      }
+      positionsByTripId.replaceAll((id, list) -> List.copyOf(list));
+
+      return new Snapshot(Map.copyOf(positions), positionsByTripId, spatialIndex, size);
+    }
   }
 }
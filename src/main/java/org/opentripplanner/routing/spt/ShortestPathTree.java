@@ -190,6 +190,11 @@ public class ShortestPathTree {
     return stateSets.keySet().size();
   }
 
+  /** @return the vertices referenced in this SPT */
+  public Set<Vertex> getVertices() {
+    return Collections.unmodifiableSet(stateSets.keySet());
+  }
+
   /**
    * The visit method should be called upon extracting a State from a priority queue. It checks
    * whether the State is still worth visiting (i.e. whether it has been dominated since it was
@@ -31,6 +31,11 @@ public class VehicleParkingService implements Serializable {
    */
   private ImmutableListMultimap<VehicleParkingGroup, VehicleParking> vehicleParkingGroups = ImmutableListMultimap.of();
 
+  /**
+   * Incremented after each update, see {@link #getVersion()}.
+   */
+  private volatile long version = 0;
+
   /**
    * Does atomic update of {@link VehicleParking} and index of {@link VehicleParkingGroup} in this
    * service by replacing the existing with a new copy that includes old ones that were not removed
@@ -61,6 +66,15 @@ public class VehicleParkingService implements Serializable {
     updatedVehicleParkings.removeAll(parkingToRemove);
     updatedVehicleParkings.addAll(parkingToAdd);
     vehicleParkings = Set.copyOf(updatedVehicleParkings);
+    ++version;
+  }
+
+  /**
+   * A number that changes each time the vehicle parking is updated. This can be used to
+   * invalidate data derived from the vehicle parking, like cached vector tiles.
+   */
+  public long getVersion() {
+    return version;
   }
 
   public Stream<VehicleParking> getBikeParks() {
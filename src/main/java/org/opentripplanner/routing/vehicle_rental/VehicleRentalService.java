@@ -15,6 +15,12 @@ public class VehicleRentalService implements Serializable {
 
   private final Map<FeedScopedId, VehicleRentalPlace> rentalPlaces = new HashMap<>();
 
+  /**
+   * Incremented each time a rental place is added, updated or removed. Only the updater thread
+   * modifies the service, so volatile is enough to make the change visible to readers.
+   */
+  private volatile long version = 0;
+
   public Collection<VehicleRentalPlace> getVehicleRentalPlaces() {
     return rentalPlaces.values();
   }
@@ -59,10 +65,20 @@ public class VehicleRentalService implements Serializable {
     // Remove old reference first, as adding will be a no-op if already present
     rentalPlaces.remove(vehicleRentalStation.getId());
     rentalPlaces.put(vehicleRentalStation.getId(), vehicleRentalStation);
+    ++version;
   }
 
   public void removeVehicleRentalStation(FeedScopedId vehicleRentalStationId) {
     rentalPlaces.remove(vehicleRentalStationId);
+    ++version;
+  }
+
+  /**
+   * A number that changes each time the rental places are modified. This can be used to
+   * invalidate data derived from the rental places, like cached vector tiles.
+   */
+  public long getVersion() {
+    return version;
   }
 
   public boolean hasRentalBikes() {
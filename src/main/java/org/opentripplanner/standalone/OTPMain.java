@@ -6,6 +6,8 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
 import org.geotools.referencing.factory.DeferredAuthorityFactory;
 import org.geotools.util.WeakCollectionCleaner;
+import org.opentripplanner.ext.geocoder.LuceneIndex;
+import org.opentripplanner.ext.vectortiles.VectorTileArchive;
 import org.opentripplanner.graph_builder.GraphBuilder;
 import org.opentripplanner.routing.graph.SerializedGraphObject;
 import org.opentripplanner.standalone.config.CommandLineParameters;
@@ -13,8 +15,10 @@ import org.opentripplanner.standalone.configure.ConstructApplication;
 import org.opentripplanner.standalone.configure.LoadApplication;
 import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.transit.raptor.configure.RaptorConfig;
+import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.configure.UpdaterConfigurator;
+import org.opentripplanner.util.OTPFeature;
 import org.opentripplanner.util.OtpAppException;
 import org.opentripplanner.util.ThrowableUtils;
 import org.slf4j.Logger;
@@ -122,6 +126,24 @@ public class OTPMain {
       SerializedGraphObject obj = SerializedGraphObject.load(loadApp.getInputGraphDataStore());
       app = loadApp.appConstruction(obj);
       config.updateConfigFromSerializedGraph(obj.buildConfig, obj.routerConfig);
+      if (cli.doLoadGraph() && OTPFeature.SandboxAPIMapboxVectorTilesApi.isOn()) {
+        app
+          .graph()
+          .setVectorTileArchive(
+            VectorTileArchive.load(loadApp.getInputVectorTilesDataStore(), app.graph())
+          );
+      }
+      if (cli.doLoadGraph() && OTPFeature.SandboxAPIGeocoder.isOn()) {
+        app
+          .graph()
+          .setLuceneIndex(
+            LuceneIndex.load(
+              loadApp.getInputGeocoderIndexDataStore(),
+              app.graph(),
+              new DefaultTransitService(app.transitModel())
+            )
+          );
+      }
       graphAvailable = true;
     } else {
       app = loadApp.appConstruction();
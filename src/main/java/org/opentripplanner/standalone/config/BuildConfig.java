@@ -4,6 +4,7 @@ import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V1
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_0;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_1;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_2;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
@@ -19,7 +20,10 @@ import org.opentripplanner.common.geometry.CompactElevationProfile;
 import org.opentripplanner.datastore.api.OtpDataStoreConfig;
 import org.opentripplanner.ext.dataoverlay.configuration.DataOverlayConfig;
 import org.opentripplanner.ext.fares.FaresConfiguration;
+import org.opentripplanner.ext.traveltime.egress.StopEgressTableParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilePyramidParameters;
 import org.opentripplanner.graph_builder.module.ned.parameter.DemExtractParametersList;
+import org.opentripplanner.graph_builder.module.osm.nodestore.OsmNodeStoreType;
 import org.opentripplanner.graph_builder.module.osm.parameters.OsmDefaultParameters;
 import org.opentripplanner.graph_builder.module.osm.parameters.OsmExtractParametersList;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
@@ -36,6 +40,8 @@ import org.opentripplanner.standalone.config.buildconfig.TransitFeedConfig;
 import org.opentripplanner.standalone.config.buildconfig.TransitFeeds;
 import org.opentripplanner.standalone.config.framework.json.NodeAdapter;
 import org.opentripplanner.standalone.config.sandbox.DataOverlayConfigMapper;
+import org.opentripplanner.standalone.config.sandbox.StopEgressTableConfigMapper;
+import org.opentripplanner.standalone.config.sandbox.VectorTilePyramidConfigMapper;
 import org.opentripplanner.util.lang.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -141,11 +147,13 @@ public class BuildConfig implements OtpDataStoreConfig {
   public final CustomNamer customNamer;
 
   public final boolean osmCacheDataInMem;
+  public final OsmNodeStoreType osmNodeStore;
   public final int pruningThresholdIslandWithoutStops;
   public final int pruningThresholdIslandWithStops;
   public final boolean banDiscouragedWalking;
   public final boolean banDiscouragedBiking;
   public final double maxTransferDurationSeconds;
+  public final boolean cacheTransfers;
   public final Boolean extraEdgesStopPlatformLink;
   public final NetexFeedParameters netexDefaults;
 
@@ -156,6 +164,8 @@ public class BuildConfig implements OtpDataStoreConfig {
   public final int maxAreaNodes;
 
   public final DataOverlayConfig dataOverlay;
+  public final VectorTilePyramidParameters vectorTiles;
+  public final StopEgressTableParameters travelTimeEgress;
   public final double maxStopToShapeSnapDistance;
   public final Set<String> boardingLocationTags;
   public final DemExtractParametersList dem;
@@ -364,6 +374,25 @@ all of the elevation values in the street edges.
           "Transfers up to this duration with the default walk speed value will be pre-calculated and included in the Graph."
         )
         .asDouble((double) Duration.ofMinutes(30).toSeconds());
+    cacheTransfers =
+      root
+        .of("cacheTransfers")
+        .since(V2_3)
+        .summary("Reuse the transfers of the previous build where the streets are unchanged.")
+        .description(
+          """
+When set to true, the nearby stops found for each stop when the transfers are generated are
+written to the file `cached_transfers.bin` in the cache directory. The next graph build reads the
+file, and reuses the nearby stops of each stop if the stop, and the stops within reach of the
+transfer search, are at the same locations as before. Only the transfers around new or moved
+stops are searched for in the street network.
+
+This is meant for building new transit data on an unchanged street graph, loaded with
+`--loadStreet`. The cache is not used if the street graph, the OSM or elevation input files, or
+the build config change. The cache is not used if `FlexRouting` is enabled.
+"""
+        )
+        .asBoolean(false);
     maxStopToShapeSnapDistance =
       root
         .of("maxStopToShapeSnapDistance")
@@ -406,6 +435,24 @@ all of the elevation values in the street edges.
       """
         )
         .asBoolean(false);
+    osmNodeStore =
+      root
+        .of("osmNodeStore")
+        .since(V2_3)
+        .summary("Where to store the OSM nodes during the graph build.")
+        .description(
+          """
+          The OSM nodes are by far the most numerous entities in the OSM data, and keeping them as
+          objects on the heap (`heap`) require a lot of memory when building large regions. With
+          `off-heap` only the id and coordinate of untagged nodes is kept, packed in direct memory
+          outside the Java heap. `memory-mapped` does the same, but the data is kept in a temporary
+          file mapped into memory, so the operating system can page it out. The compact stores use
+          less memory and reduce the time spent on garbage collection, at the cost of somewhat
+          slower node lookups. Note! The direct memory used by `off-heap` is limited by the JVM
+          option `-XX:MaxDirectMemorySize`.
+          """
+        )
+        .asEnum(OsmNodeStoreType.HEAP);
     platformEntriesLinking =
       root
         .of("platformEntriesLinking")
@@ -522,22 +569,24 @@ Use an empty string to make it unbounded.
 When set to true, the elevation module will create a file cache for calculated elevation data.
 Subsequent graph builds can reuse the data in this file.
   
-After building the graph, a file called `cached_elevations.obj` will be written to the cache
+After building the graph, a file called `cached_elevations.bin` will be written to the cache
 directory. By default, this file is not written during graph builds. There is also a graph build
 parameter called `readCachedElevations` which is set to `true` by default.
 
-In graph builds, the elevation module will attempt to read the `cached_elevations.obj` file from
+In graph builds, the elevation module will attempt to read the `cached_elevations.bin` file from
 the cache directory. The cache directory defaults to `/var/otp/cache`, but this can be overridden
 via the CLI argument `--cache <directory>`. For the same graph build for multiple Northeast US
 states, the time it took with using this pre-downloaded and precalculated data became roughly 9
 minutes.
 
-The cached data is a lookup table where the coordinate sequences of respective street edges are
-used as keys for calculated data. It is assumed that all of the other input data except for the
-OpenStreetMap data remains the same between graph builds. Therefore, if the underlying elevation
-data is changed, or different configuration values for `elevationUnitMultiplier` or
-`includeEllipsoidToGeoidDifference` are used, then this data becomes invalid and all elevation data
-should be recalculated. Over time, various edits to OpenStreetMap will cause this cached data to
+The cached data is a compact binary lookup table where a hash of the coordinate sequences of
+respective street edges are used as keys for calculated data. The elevations are stored with
+centimeter precision. The file is memory mapped, so it is not read into memory when the build
+starts. The cache is not used if `distanceBetweenElevationSamples` is changed. It is assumed
+that all of the other input data except for the OpenStreetMap data remains the same between graph
+builds. Therefore, if the underlying elevation data is changed, or different configuration values
+for `elevationUnitMultiplier` or `includeEllipsoidToGeoidDifference` are used, then this data
+becomes invalid and all elevation data should be recalculated. Over time, various edits to OpenStreetMap will cause this cached data to
 become stale and not include new OSM ways. Therefore, periodic update of this cached data is
 recommended.
 """
@@ -700,6 +749,8 @@ Netex data is also often supplied in a ZIP file.
     fareServiceFactory = FaresConfiguration.fromConfig(root, "fares");
     customNamer = CustomNamer.CustomNamerFactory.fromConfig(root, "osmNaming");
     dataOverlay = DataOverlayConfigMapper.map(root, "dataOverlay");
+    vectorTiles = VectorTilePyramidConfigMapper.map(root, "vectorTiles");
+    travelTimeEgress = StopEgressTableConfigMapper.map(root, "travelTimeEgress");
 
     transferRequests = TransferRequestConfig.map(root, "transferRequests");
 
@@ -3,6 +3,7 @@ package org.opentripplanner.standalone.config;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.NA;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_0;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_1;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
@@ -45,6 +46,7 @@ public class RouterConfig implements Serializable {
   private final NodeAdapter root;
   private final String configVersion;
   private final String requestLogFile;
+  private final Duration requestTimeout;
   private final TransmodelAPIConfig transmodelApi;
   private final Duration streetRoutingTimeout;
   private final RouteRequest routingRequestDefaults;
@@ -100,6 +102,22 @@ number of transit vehicles used in that itinerary.
           """
         )
         .asString(null);
+    this.requestTimeout =
+      root
+        .of("requestTimeout")
+        .since(V2_3)
+        .summary("The maximum time a trip planning request is allowed to take.")
+        .description(
+          """
+When the timeout is exceeded the street searches return the paths found so far, while the transit
+search, the transfer optimization and the itinerary filtering are aborted, and the client receives
+an error. The timeout applies to the REST `/plan` endpoint and to the trip planning
+queries of the GraphQL and Transmodel APIs. The REST search is also aborted if the client closes
+the connection. This frees the server resources used by abandoned requests. If not set, no timeout
+is applied, but the `streetRoutingTimeout` still limits each street search.
+"""
+        )
+        .asDuration(null);
     this.transmodelApi =
       new TransmodelAPIConfig(
         root
@@ -145,6 +163,13 @@ number of transit vehicles used in that itinerary.
     return requestLogFile;
   }
 
+  /**
+   * The maximum time a plan request is allowed to take, {@code null} if not limited.
+   */
+  public Duration requestTimeout() {
+    return requestTimeout;
+  }
+
   /**
    * The preferred way to limit the search is to limit the distance for each street mode(WALK, BIKE,
    * CAR). So the default timeout for a street search is set quite high. This is used to abort the
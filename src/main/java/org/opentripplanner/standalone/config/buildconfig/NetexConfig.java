@@ -156,6 +156,22 @@ public class NetexConfig {
           .since(V2_3)
           .summary("Ignore contents of the FareFrame")
           .asBoolean(original.ignoreFareFrame())
+      )
+      .withParseGroupFilesInParallel(
+        config
+          .of("parseGroupFilesInParallel")
+          .since(V2_3)
+          .summary("Parse the independent group files in parallel.")
+          .description(
+            """
+            The *group files* of a group does not depend on each other, so they can be parsed in
+            parallel. The parsed files are mapped one by one, in the same order as when the files
+            are parsed in sequence, so the result is the same. This speeds up the loading of large
+            NeTEx datasets with many group files, but the parsed content of several files is kept
+            in memory at the same time.
+            """
+          )
+          .asBoolean(original.parseGroupFilesInParallel())
       );
   }
 
@@ -85,7 +85,7 @@ public class VectorTileConfig implements VectorTilesResource.LayersParameters {
     );
   }
 
-  record Layer(
+  public record Layer(
     String name,
     VectorTilesResource.LayerType type,
     String mapper,
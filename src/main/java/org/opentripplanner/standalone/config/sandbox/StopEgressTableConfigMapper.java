@@ -0,0 +1,28 @@
+package org.opentripplanner.standalone.config.sandbox;
+
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
+
+import org.opentripplanner.ext.traveltime.egress.StopEgressTableParameters;
+import org.opentripplanner.standalone.config.framework.json.NodeAdapter;
+
+public class StopEgressTableConfigMapper {
+
+  public static StopEgressTableParameters map(NodeAdapter root, String parameterName) {
+    var node = root
+      .of(parameterName)
+      .since(V2_3)
+      .summary("Precompute the walk times from the stops to the streets for the travel time API.")
+      .asObject();
+
+    if (node.isEmpty()) {
+      return null;
+    }
+    return new StopEgressTableParameters(
+      node
+        .of("maxWalkDuration")
+        .since(V2_3)
+        .summary("The walk times from each stop are included up to this duration.")
+        .asDuration(StopEgressTableParameters.MAX_WALK_DURATION)
+    );
+  }
+}
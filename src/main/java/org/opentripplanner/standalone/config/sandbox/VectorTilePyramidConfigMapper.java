@@ -0,0 +1,49 @@
+package org.opentripplanner.standalone.config.sandbox;
+
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
+
+import java.util.List;
+import org.opentripplanner.ext.vectortiles.VectorTilePyramidParameters;
+import org.opentripplanner.ext.vectortiles.VectorTilesResource.LayerParameters;
+import org.opentripplanner.standalone.config.framework.json.NodeAdapter;
+import org.opentripplanner.standalone.config.routerconfig.VectorTileConfig;
+
+public class VectorTilePyramidConfigMapper {
+
+  public static VectorTilePyramidParameters map(NodeAdapter root, String parameterName) {
+    var node = root
+      .of(parameterName)
+      .since(V2_3)
+      .summary("Pre-render the static vector tile layers when the graph is built.")
+      .asObject();
+
+    if (node.isEmpty()) {
+      return null;
+    }
+    return new VectorTilePyramidParameters(
+      node
+        .of("minZoom")
+        .since(V2_3)
+        .summary("The lowest zoom level to pre-render.")
+        .asInt(VectorTilePyramidParameters.MIN_ZOOM),
+      node
+        .of("maxZoom")
+        .since(V2_3)
+        .summary("The highest zoom level to pre-render.")
+        .asInt(VectorTilePyramidParameters.MAX_ZOOM),
+      node
+        .of("languages")
+        .since(V2_3)
+        .summary("The tiles are pre-rendered once for each of these languages.")
+        .asStringList(VectorTilePyramidParameters.LANGUAGES)
+        .stream()
+        .map(String::toLowerCase)
+        .toList(),
+      node
+        .of("layers")
+        .since(V2_3)
+        .summary("The layers to pre-render, only `Stop` and `Station` layers are supported.")
+        .<LayerParameters>asObjects(List.of(), VectorTileConfig::mapLayer)
+    );
+  }
+}
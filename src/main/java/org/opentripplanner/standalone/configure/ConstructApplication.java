@@ -145,8 +145,8 @@ public class ConstructApplication {
     }
 
     if (OTPFeature.SandboxAPIGeocoder.isOn()) {
-      LOG.info("Creating debug client geocoder lucene index");
-      LuceneIndex.forServer(createServerContext());
+      LOG.info("Preparing debug client geocoder lucene index");
+      LuceneIndex.forServer(createServerContext()).warmUp();
     }
   }
 
@@ -44,6 +44,14 @@ public class LoadApplication {
       : factory.datastore().getStreetGraph();
   }
 
+  public DataSource getInputVectorTilesDataStore() {
+    return factory.datastore().getVectorTiles();
+  }
+
+  public DataSource getInputGeocoderIndexDataStore() {
+    return factory.datastore().getGeocoderIndex();
+  }
+
   /** Construct application from serialized graph */
   public ConstructApplication appConstruction(SerializedGraphObject obj) {
     return createAppConstruction(obj.graph, obj.transitModel);
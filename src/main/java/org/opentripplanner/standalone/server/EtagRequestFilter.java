@@ -29,9 +29,13 @@ public class EtagRequestFilter implements ContainerResponseFilter {
       bytes.length > 0
     ) {
       var clientEtag = request.getHeaderString(HEADER_IF_NONE_MATCH);
-      var etag = generateETagHeaderValue(bytes);
       var headers = response.getHeaders();
-      headers.add(HEADER_ETAG, etag);
+      // the resource may already have set the etag, for example from a cached response
+      var etag = response.getHeaderString(HEADER_ETAG);
+      if (etag == null) {
+        etag = generateETagHeaderValue(bytes);
+        headers.add(HEADER_ETAG, etag);
+      }
 
       // if the client's etag matches the generated one then send an empty response
       if (clientEtag != null && clientEtag.equals(etag)) {
@@ -55,7 +59,11 @@ public class EtagRequestFilter implements ContainerResponseFilter {
     return false;
   }
 
-  private static String generateETagHeaderValue(byte[] input) {
+  /**
+   * Generate the value of the ETag header for the given response body. This is public so that
+   * resources caching their responses can store the ETag together with the response.
+   */
+  public static String generateETagHeaderValue(byte[] input) {
     StringBuilder builder = new StringBuilder(10);
     builder.append('"');
     // according to https://softwareengineering.stackexchange.com/questions/49550
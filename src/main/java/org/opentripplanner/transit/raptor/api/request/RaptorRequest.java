@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.transit.raptor.api.debug.RaptorTimers;
 import org.opentripplanner.transit.raptor.api.transit.RaptorSlackProvider;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTransitDataProvider;
@@ -31,6 +32,7 @@ public class RaptorRequest<T extends RaptorTripSchedule> {
   private final DebugRequest debug;
   private final RaptorSlackProvider slackProvider;
   private final RaptorTimers performanceTimers;
+  private final CancellationToken cancellationToken;
 
   private RaptorRequest() {
     searchParams = SearchParams.defaults();
@@ -40,6 +42,7 @@ public class RaptorRequest<T extends RaptorTripSchedule> {
     // Slack defaults: 1 minute for transfer-slack, 0 minutes for board- and alight-slack.
     slackProvider = RaptorSlackProvider.defaultSlackProvider(60, 0, 0);
     performanceTimers = RaptorTimers.NOOP;
+    cancellationToken = CancellationToken.NONE;
     debug = DebugRequest.defaults();
     alias = RaptorRequestBuilder.generateRequestAlias(profile, searchDirection, optimizations);
   }
@@ -52,6 +55,7 @@ public class RaptorRequest<T extends RaptorTripSchedule> {
     this.optimizations = Set.copyOf(builder.optimizations());
     this.slackProvider = builder.slackProvider();
     this.performanceTimers = builder.performanceTimers();
+    this.cancellationToken = builder.cancellationToken();
     this.debug = builder.debug().build();
     verify();
   }
@@ -140,6 +144,15 @@ public class RaptorRequest<T extends RaptorTripSchedule> {
     return performanceTimers;
   }
 
+  /**
+   * The search is aborted with a
+   * {@link org.opentripplanner.framework.concurrent.RequestCancelledException} when this token is
+   * cancelled. The token is checked between each Raptor round.
+   */
+  public CancellationToken cancellationToken() {
+    return cancellationToken;
+  }
+
   /**
    * Specify what to debug in the debug request.
    * <p/>
@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Set;
 import javax.annotation.Nonnull;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.transit.raptor.api.debug.RaptorTimers;
 import org.opentripplanner.transit.raptor.api.transit.RaptorSlackProvider;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
@@ -37,6 +38,8 @@ public class RaptorRequestBuilder<T extends RaptorTripSchedule> {
   // Performance monitoring
   private RaptorTimers performanceTimers;
 
+  private CancellationToken cancellationToken;
+
   // Algorithm
   private RaptorProfile profile;
 
@@ -61,6 +64,8 @@ public class RaptorRequestBuilder<T extends RaptorTripSchedule> {
     // Timer
     this.performanceTimers = defaults.performanceTimers();
 
+    this.cancellationToken = defaults.cancellationToken();
+
     // Debug
     this.debug = new DebugRequestBuilder(defaults.debug());
   }
@@ -126,6 +131,15 @@ public class RaptorRequestBuilder<T extends RaptorTripSchedule> {
     return this;
   }
 
+  public CancellationToken cancellationToken() {
+    return cancellationToken;
+  }
+
+  public RaptorRequestBuilder<T> cancellationToken(@Nonnull CancellationToken cancellationToken) {
+    this.cancellationToken = cancellationToken;
+    return this;
+  }
+
   public DebugRequestBuilder debug() {
     return this.debug;
   }
@@ -2,6 +2,7 @@ package org.opentripplanner.transit.raptor.rangeraptor;
 
 import java.util.Collection;
 import javax.annotation.Nonnull;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.TripScheduleBoardSearch;
 import org.opentripplanner.transit.raptor.api.debug.RaptorTimers;
 import org.opentripplanner.transit.raptor.api.path.Path;
@@ -81,6 +82,8 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule> implements Wo
 
   private final RaptorTimers timers;
 
+  private final CancellationToken cancellationToken;
+
   private final AccessPaths accessPaths;
 
   private final LifeCycleEventPublisher lifeCycle;
@@ -105,6 +108,7 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule> implements Wo
     TransitCalculator<T> calculator,
     LifeCycleEventPublisher lifeCyclePublisher,
     RaptorTimers timers,
+    CancellationToken cancellationToken,
     boolean enableTransferConstraints
   ) {
     this.transitWorker = transitWorker;
@@ -113,6 +117,7 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule> implements Wo
     this.slackProvider = slackProvider;
     this.calculator = calculator;
     this.timers = timers;
+    this.cancellationToken = cancellationToken;
     this.accessPaths = accessPaths;
     this.minNumberOfRounds = accessPaths.calculateMaxNumberOfRides();
     this.enableTransferConstraints = enableTransferConstraints;
@@ -172,6 +177,9 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule> implements Wo
     findAccessOnStreetForRound();
 
     while (hasMoreRounds()) {
+      // Abort the search if the request is cancelled, the state is discarded
+      cancellationToken.checkForCancellation();
+
       lifeCycle.prepareForNextRound(roundTracker.nextRound());
 
       // NB since we have transfer limiting not bothering to cut off search when there are no
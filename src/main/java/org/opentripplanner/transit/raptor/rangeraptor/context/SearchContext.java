@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.ToIntFunction;
 import javax.annotation.Nullable;
+import org.opentripplanner.framework.concurrent.CancellationToken;
 import org.opentripplanner.transit.raptor.api.debug.RaptorTimers;
 import org.opentripplanner.transit.raptor.api.request.DebugRequest;
 import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
@@ -158,6 +159,10 @@ public class SearchContext<T extends RaptorTripSchedule> {
     return request.performanceTimers();
   }
 
+  public CancellationToken cancellationToken() {
+    return request.cancellationToken();
+  }
+
   /** Number of stops in transit graph. */
   public int nStops() {
     return transit.numberOfStops();
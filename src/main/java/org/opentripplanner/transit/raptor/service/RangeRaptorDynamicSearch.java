@@ -11,6 +11,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
+import org.opentripplanner.framework.concurrent.RequestCancelledException;
 import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
 import org.opentripplanner.transit.raptor.api.request.SearchParams;
 import org.opentripplanner.transit.raptor.api.request.SearchParamsBuilder;
@@ -174,6 +175,9 @@ public class RangeRaptorDynamicSearch<T extends RaptorTripSchedule> {
       if (e.getCause() instanceof DestinationNotReachedException) {
         throw new DestinationNotReachedException();
       }
+      if (e.getCause() instanceof RequestCancelledException cancelled) {
+        throw cancelled;
+      }
       LOG.error(e.getMessage() + ". Request: " + originalRequest, e);
       throw new IllegalStateException(
         "Failed to run FORWARD/REVERSE heuristic search in parallel. Details: " + e.getMessage()
@@ -0,0 +1,133 @@
+package org.opentripplanner.updater;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+import com.google.transit.realtime.GtfsRealtime.FeedEntity;
+import com.google.transit.realtime.GtfsRealtime.FeedHeader;
+import com.google.transit.realtime.GtfsRealtime.FeedMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.opentripplanner.util.HttpUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load a GTFS-RT feed from a URL, and decode it one entity at a time.
+ * <p>
+ * The feed message is never decoded as a whole. Each entity is decoded on its own and passed on to
+ * the entity handler, so only the parts of the feed kept by the handler stay in memory.
+ * <p>
+ * HTTP feeds are downloaded with conditional requests: the ETag and Last-Modified headers of the
+ * last response are sent back, and a feed which is not modified is not downloaded again. Other
+ * URLs, like local files, are read every time. An instance is used by one updater, and is not
+ * thread-safe.
+ */
+public class GtfsRealtimeFeedLoader {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GtfsRealtimeFeedLoader.class);
+
+  private static final Map<String, String> DEFAULT_HEADERS = Map.of(
+    "Accept",
+    "application/x-google-protobuf, application/x-protobuf, application/protobuf, application/octet-stream, */*"
+  );
+
+  private final URI url;
+
+  /** The ETag of the last feed loaded, {@code null} if the server sent none. */
+  private String eTag = null;
+
+  /** The Last-Modified date of the last feed loaded, {@code null} if the server sent none. */
+  private String lastModified = null;
+
+  public GtfsRealtimeFeedLoader(URI url) {
+    this.url = url;
+  }
+
+  /**
+   * Load the feed, and pass each entity to the entity handler.
+   *
+   * @return the header of the feed, or {@code null} if the feed is not modified since it was last
+   * loaded. In that case the entity handler is not called.
+   * @throws IOException if the feed could not be downloaded or decoded.
+   */
+  @Nullable
+  public FeedHeader load(Consumer<FeedEntity> entityHandler) throws IOException {
+    String protocol = url.getScheme();
+    if (!"http".equals(protocol) && !"https".equals(protocol)) {
+      try (InputStream is = HttpUtils.openInputStream(url, DEFAULT_HEADERS)) {
+        return readFeed(is, entityHandler);
+      }
+    }
+
+    Map<String, String> headers = new HashMap<>(DEFAULT_HEADERS);
+    if (eTag != null) {
+      headers.put("If-None-Match", eTag);
+    }
+    if (lastModified != null) {
+      headers.put("If-Modified-Since", lastModified);
+    }
+
+    var response = HttpUtils.getResponse(url, headers);
+    int statusCode = response.getStatusLine().getStatusCode();
+    if (statusCode == HttpStatus.SC_NOT_MODIFIED) {
+      LOG.debug("GTFS-RT feed at {} is not modified", url);
+      return null;
+    }
+    if (statusCode != HttpStatus.SC_OK || response.getEntity() == null) {
+      throw new IOException("GTFS-RT feed at " + url + " returned HTTP status " + statusCode);
+    }
+
+    // Forget the validators until the new feed is read, so a feed which failed is loaded again
+    eTag = null;
+    lastModified = null;
+    FeedHeader header;
+    try (InputStream is = response.getEntity().getContent()) {
+      header = readFeed(is, entityHandler);
+    }
+    eTag = headerValue(response.getFirstHeader("ETag"));
+    lastModified = headerValue(response.getFirstHeader("Last-Modified"));
+    return header;
+  }
+
+  /**
+   * Decode a feed message from the input stream, one entity at a time, and pass each entity to the
+   * entity handler.
+   *
+   * @return the header of the feed, the default instance if the feed has no header.
+   */
+  public static FeedHeader readFeed(InputStream is, Consumer<FeedEntity> entityHandler)
+    throws IOException {
+    var input = CodedInputStream.newInstance(is);
+    var extensionRegistry = ExtensionRegistryLite.getEmptyRegistry();
+    FeedHeader header = FeedHeader.getDefaultInstance();
+
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      boolean message = WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+      int fieldNumber = WireFormat.getTagFieldNumber(tag);
+      if (message && fieldNumber == FeedMessage.ENTITY_FIELD_NUMBER) {
+        entityHandler.accept(input.readMessage(FeedEntity.parser(), extensionRegistry));
+      } else if (message && fieldNumber == FeedMessage.HEADER_FIELD_NUMBER) {
+        header = input.readMessage(FeedHeader.parser(), extensionRegistry);
+      } else {
+        input.skipField(tag);
+      }
+      // The size limit applies to each entity, not to the whole feed
+      input.resetSizeCounter();
+    }
+    return header;
+  }
+
+  @Nullable
+  private static String headerValue(@Nullable Header header) {
+    return header == null ? null : header.getValue();
+  }
+}
@@ -1,17 +1,14 @@
 package org.opentripplanner.updater;
 
 import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
-import gnu.trove.set.TIntSet;
 import java.text.ParseException;
 import java.time.LocalDate;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.gtfs.mapping.DirectionMapper;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.network.Route;
-import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.timetable.Direction;
 import org.opentripplanner.transit.model.timetable.Trip;
-import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.transit.service.TransitService;
 import org.opentripplanner.util.time.ServiceDateUtils;
 import org.opentripplanner.util.time.TimeUtils;
@@ -22,10 +19,14 @@ import org.opentripplanner.util.time.TimeUtils;
  * <p>
  * The class should only be used if we know that the feed producer is unable to produce trip_ids in
  * the GTFS-RT feed.
+ * <p>
+ * The trips are looked up in a {@link TripMatcherIndex} built when the matcher is created, so the
+ * matcher can be used from several threads without locking.
  */
 public class GtfsRealtimeFuzzyTripMatcher {
 
   private final TransitService transitService;
+  private final TripMatcherIndex index;
 
   // TODO: replace this with a runtime solution
   private final DirectionMapper directionMapper = new DirectionMapper(
@@ -34,6 +35,7 @@ public class GtfsRealtimeFuzzyTripMatcher {
 
   public GtfsRealtimeFuzzyTripMatcher(TransitService transitService) {
     this.transitService = transitService;
+    this.index = TripMatcherIndex.of(transitService);
   }
 
   public TripDescriptor match(String feedId, TripDescriptor trip) {
@@ -80,24 +82,12 @@ public class GtfsRealtimeFuzzyTripMatcher {
     return trip.toBuilder().setTripId(matchedTrip.getId().getId()).build();
   }
 
-  public synchronized Trip getTrip(
-    Route route,
-    Direction direction,
-    int startTime,
-    LocalDate date
-  ) {
-    TIntSet servicesRunningForDate = transitService.getServiceCodesRunningForDate(date);
-    for (TripPattern pattern : transitService.getPatternsForRoute(route)) {
-      if (pattern.getDirection() != direction) continue;
-      for (TripTimes times : pattern.getScheduledTimetable().getTripTimes()) {
-        if (
-          times.getScheduledDepartureTime(0) == startTime &&
-          servicesRunningForDate.contains(times.getServiceCode())
-        ) {
-          return times.getTrip();
-        }
-      }
-    }
-    return null;
+  public Trip getTrip(Route route, Direction direction, int startTime, LocalDate date) {
+    return index.findTripByStartTime(
+      route,
+      direction,
+      startTime,
+      transitService.getServiceCodesRunningForDate(date)
+    );
   }
 }
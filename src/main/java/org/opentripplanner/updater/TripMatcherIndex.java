@@ -0,0 +1,149 @@
+package org.opentripplanner.updater;
+
+import gnu.trove.set.TIntSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.network.Route;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.Direction;
+import org.opentripplanner.transit.model.timetable.Trip;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.transit.service.TransitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index of the scheduled trips by the values used to match realtime updates without a trip id
+ * to a trip. It is used by the GTFS-RT and the SIRI fuzzy trip matchers.
+ * <p>
+ * The index is built from the scheduled timetables when the matcher is created, and is not
+ * changed afterwards. It is safe to use from several threads without locking. Trips added by
+ * realtime updates are not in the index, they are always referred to by their trip id.
+ */
+public class TripMatcherIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TripMatcherIndex.class);
+
+  private final Map<RouteDirectionAndTime, List<TripTimes>> tripTimesByStartTime;
+  private final Map<StopAndTime, Set<Trip>> tripsByLastStopArrival;
+  private final Map<String, Set<Trip>> railTripsByInternalPlanningCode;
+
+  private TripMatcherIndex(
+    Map<RouteDirectionAndTime, List<TripTimes>> tripTimesByStartTime,
+    Map<StopAndTime, Set<Trip>> tripsByLastStopArrival,
+    Map<String, Set<Trip>> railTripsByInternalPlanningCode
+  ) {
+    this.tripTimesByStartTime = tripTimesByStartTime;
+    this.tripsByLastStopArrival = tripsByLastStopArrival;
+    this.railTripsByInternalPlanningCode = railTripsByInternalPlanningCode;
+  }
+
+  public static TripMatcherIndex of(TransitService transitService) {
+    Map<RouteDirectionAndTime, List<TripTimes>> tripTimesByStartTime = new HashMap<>();
+    Map<StopAndTime, Set<Trip>> tripsByLastStopArrival = new HashMap<>();
+    Map<String, Set<Trip>> railTripsByInternalPlanningCode = new HashMap<>();
+
+    // The patterns are visited in the same order as the patterns of a route in the transit index,
+    // so the first matching trip is the same as when the patterns of the route are searched
+    for (TripPattern pattern : transitService.getAllTripPatterns()) {
+      String lastStopId = pattern.lastStop().getId().getId();
+      boolean rail = pattern.getRoute().getMode() == TransitMode.RAIL;
+
+      for (TripTimes times : pattern.getScheduledTimetable().getTripTimes()) {
+        Trip trip = times.getTrip();
+        var startKey = new RouteDirectionAndTime(
+          pattern.getRoute(),
+          pattern.getDirection(),
+          times.getScheduledDepartureTime(0)
+        );
+        tripTimesByStartTime.computeIfAbsent(startKey, k -> new ArrayList<>()).add(times);
+
+        int lastStopArrival = times.getArrivalTime(times.getNumStops() - 1);
+        tripsByLastStopArrival
+          .computeIfAbsent(new StopAndTime(lastStopId, lastStopArrival), k -> new HashSet<>())
+          .add(trip);
+
+        String internalPlanningCode = trip.getNetexInternalPlanningCode();
+        if (rail && internalPlanningCode != null) {
+          railTripsByInternalPlanningCode
+            .computeIfAbsent(internalPlanningCode, k -> new HashSet<>())
+            .add(trip);
+        }
+      }
+    }
+
+    tripTimesByStartTime.replaceAll((k, v) -> List.copyOf(v));
+    tripsByLastStopArrival.replaceAll((k, v) -> Set.copyOf(v));
+    railTripsByInternalPlanningCode.replaceAll((k, v) -> Set.copyOf(v));
+
+    LOG.info(
+      "Built trip matcher index [{} start times, {} last stop arrivals, {} planning codes].",
+      tripTimesByStartTime.size(),
+      tripsByLastStopArrival.size(),
+      railTripsByInternalPlanningCode.size()
+    );
+    return new TripMatcherIndex(
+      Map.copyOf(tripTimesByStartTime),
+      Map.copyOf(tripsByLastStopArrival),
+      Map.copyOf(railTripsByInternalPlanningCode)
+    );
+  }
+
+  /**
+   * Find the first scheduled trip of the route and direction which departs from its first stop at
+   * the given time, and runs on one of the given services.
+   *
+   * @param startTime the departure time from the first stop, in seconds since the start of the
+   *                  service day
+   */
+  @Nullable
+  public Trip findTripByStartTime(
+    Route route,
+    Direction direction,
+    int startTime,
+    TIntSet servicesRunning
+  ) {
+    var candidates = tripTimesByStartTime.get(
+      new RouteDirectionAndTime(route, direction, startTime)
+    );
+    if (candidates == null) {
+      return null;
+    }
+    for (TripTimes times : candidates) {
+      if (servicesRunning.contains(times.getServiceCode())) {
+        return times.getTrip();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the scheduled trips which arrive at the given last stop at the given time.
+   *
+   * @param stopId       the id of the last stop, without the feed id
+   * @param arrivalTime  the arrival time, in seconds since the start of the service day
+   * @return an immutable set, empty if no trip matches
+   */
+  public Set<Trip> findTripsByLastStopArrival(String stopId, int arrivalTime) {
+    return tripsByLastStopArrival.getOrDefault(new StopAndTime(stopId, arrivalTime), Set.of());
+  }
+
+  /**
+   * Find the scheduled rail trips with the given NeTEx internal planning code.
+   *
+   * @return an immutable set, empty if no trip matches
+   */
+  public Set<Trip> findRailTripsByInternalPlanningCode(String internalPlanningCode) {
+    return railTripsByInternalPlanningCode.getOrDefault(internalPlanningCode, Set.of());
+  }
+
+  private record RouteDirectionAndTime(Route route, Direction direction, int time) {}
+
+  private record StopAndTime(String stopId, int time) {}
+}
@@ -1,15 +1,12 @@
 package org.opentripplanner.updater.trip;
 
 import com.google.transit.realtime.GtfsRealtime;
-import com.google.transit.realtime.GtfsRealtime.FeedEntity;
-import com.google.transit.realtime.GtfsRealtime.FeedMessage;
+import com.google.transit.realtime.GtfsRealtime.FeedHeader;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate;
-import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import org.opentripplanner.util.HttpUtils;
+import org.opentripplanner.updater.GtfsRealtimeFeedLoader;
 import org.opentripplanner.util.lang.ToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +19,7 @@ public class GtfsRealtimeHttpTripUpdateSource implements TripUpdateSource {
    */
   private final String feedId;
   private final String url;
+  private final GtfsRealtimeFeedLoader feedLoader;
   /**
    * True iff the last list with updates represent all updates that are active right now, i.e. all
    * previous updates should be disregarded
@@ -31,51 +29,38 @@ public class GtfsRealtimeHttpTripUpdateSource implements TripUpdateSource {
   public GtfsRealtimeHttpTripUpdateSource(Parameters config) {
     this.feedId = config.getFeedId();
     this.url = config.getUrl();
+    this.feedLoader = new GtfsRealtimeFeedLoader(URI.create(url));
   }
 
+  /**
+   * @return the trip updates of the feed, or {@code null} if the feed is not modified since the
+   * last update or could not be loaded.
+   */
   @Override
   public List<TripUpdate> getUpdates() {
-    FeedMessage feedMessage;
-    List<FeedEntity> feedEntityList;
-    List<TripUpdate> updates = null;
+    List<TripUpdate> updates = new ArrayList<>();
     fullDataset = true;
     try {
-      InputStream is = HttpUtils.getData(
-        URI.create(url),
-        Map.of(
-          "Accept",
-          "application/x-google-protobuf, application/x-protobuf, application/protobuf, application/octet-stream, */*"
-        )
-      );
-      if (is != null) {
-        // Decode message
-        feedMessage = FeedMessage.parseFrom(is);
-        feedEntityList = feedMessage.getEntityList();
-
-        // Change fullDataset value if this is an incremental update
-        if (
-          feedMessage.hasHeader() &&
-          feedMessage.getHeader().hasIncrementality() &&
-          feedMessage
-            .getHeader()
-            .getIncrementality()
-            .equals(GtfsRealtime.FeedHeader.Incrementality.DIFFERENTIAL)
-        ) {
-          fullDataset = false;
-        }
+      // Decode the entities one at a time, and keep only the trip updates
+      FeedHeader header = feedLoader.load(feedEntity -> {
+        if (feedEntity.hasTripUpdate()) updates.add(feedEntity.getTripUpdate());
+      });
+      if (header == null) {
+        return null;
+      }
 
-        // Create List of TripUpdates
-        updates = new ArrayList<>(feedEntityList.size());
-        for (FeedEntity feedEntity : feedEntityList) {
-          if (feedEntity.hasTripUpdate()) updates.add(feedEntity.getTripUpdate());
-        }
-      } else {
-        LOG.error("GTFS-RT feed at {} did not return usable data", url);
+      // Change fullDataset value if this is an incremental update
+      if (
+        header.hasIncrementality() &&
+        header.getIncrementality().equals(GtfsRealtime.FeedHeader.Incrementality.DIFFERENTIAL)
+      ) {
+        fullDataset = false;
       }
+      return updates;
     } catch (Exception e) {
       LOG.error("Failed to parse GTFS-RT feed from {}", url, e);
+      return null;
     }
-    return updates;
   }
 
   @Override
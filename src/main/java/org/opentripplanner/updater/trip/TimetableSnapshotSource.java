@@ -15,6 +15,8 @@ import static org.opentripplanner.model.UpdateError.UpdateErrorType.TRIP_ALREADY
 import static org.opentripplanner.model.UpdateError.UpdateErrorType.TRIP_NOT_FOUND;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
@@ -23,17 +25,25 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.opentripplanner.model.StopTime;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.model.TimetableSnapshot;
 import org.opentripplanner.model.TimetableSnapshotProvider;
+import org.opentripplanner.model.TripTimesPatch;
 import org.opentripplanner.model.UpdateError;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.transit.model.basic.I18NString;
@@ -49,6 +59,7 @@ import org.opentripplanner.transit.model.organization.Agency;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.model.timetable.RealTimeState;
 import org.opentripplanner.transit.model.timetable.Trip;
+import org.opentripplanner.transit.model.timetable.TripIdAndServiceDate;
 import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitModel;
@@ -75,6 +86,12 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
    */
   private static final long MAX_ARRIVAL_DEPARTURE_TIME = 48 * 60 * 60;
 
+  /**
+   * The minimum number of scheduled trip updates in a message for the updated trip times to be
+   * created in parallel. Smaller messages are not worth the overhead of the thread pool.
+   */
+  static final int MIN_PARALLEL_SCHEDULED_UPDATES = 100;
+
   /**
    * The working copy of the timetable snapshot. Should not be visible to routing threads. Should
    * only be modified by a thread that holds a lock on {@link #bufferLock}. All public methods that
@@ -121,6 +138,13 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
   private final Deduplicator deduplicator;
 
+  /**
+   * The trip updates of the last full dataset of each feed, used to skip unchanged trip updates in
+   * the next full dataset. Should only be accessed by a thread that holds the {@link #bufferLock}.
+   */
+  private final Map<String, Map<TripIdAndServiceDate, AppliedTripUpdate>> fullDatasetUpdates =
+    new HashMap<>();
+
   private final Map<FeedScopedId, Integer> serviceCodes;
 
   /**
@@ -129,6 +153,12 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
    */
   private final Supplier<LocalDate> localDateNow;
 
+  /**
+   * The thread pool used to create the updated trip times of large messages, created when it is
+   * first needed. Should only be accessed by a thread that holds the {@link #bufferLock}.
+   */
+  private ExecutorService tripTimesExecutor = null;
+
   public TimetableSnapshotSource(
     TimetableSnapshotSourceParameters parameters,
     TransitModel transitModel
@@ -190,6 +220,12 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
    * <p>
    * However, multi-feed support is not completed and we currently assume there is only one static
    * feed when matching IDs.
+   * <p>
+   * Most of the trip updates of a full dataset are usually the same as in the previous full
+   * dataset of the feed. Each trip update is fingerprinted per trip and service date, and only the
+   * new and changed trip updates are applied. The trips of changed and removed trip updates are
+   * reverted to the schedule first, so the result is the same as clearing the buffer and applying
+   * all trip updates.
    *
    * @param backwardsDelayPropagationType Defines when delays are propagated to previous stops and
    *                                     if these stops are given the NO_DATA flag.
@@ -214,52 +250,53 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
     Map<TripDescriptor.ScheduleRelationship, Integer> failuresByRelationship = new HashMap<>();
     List<Result<?, UpdateError>> results = new ArrayList<>();
+    int skipped = 0;
 
     try {
-      if (fullDataset) {
-        // Remove all updates from the buffer
-        buffer.clear(feedId);
-      }
-
       LOG.debug("message contains {} trip updates", updates.size());
-      int uIndex = 0;
-      for (TripUpdate tripUpdate : updates) {
-        if (!tripUpdate.hasTrip()) {
-          debug(feedId, "", "Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
-          continue;
-        }
-
-        if (fuzzyTripMatcher != null) {
-          final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
-          tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
-        }
+      List<ResolvedTripUpdate> resolvedUpdates = resolveTripUpdates(
+        fuzzyTripMatcher,
+        updates,
+        feedId
+      );
 
-        final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+      var previousUpdates = fullDatasetUpdates.get(feedId);
+      Map<TripIdAndServiceDate, AppliedTripUpdate> appliedUpdates = null;
+      boolean skipUnchanged = false;
 
-        if (!tripDescriptor.hasTripId() || tripDescriptor.getTripId().isBlank()) {
-          debug(feedId, "", "No trip id found for gtfs-rt trip update: \n{}", tripUpdate);
-          continue;
+      if (fullDataset) {
+        appliedUpdates = fingerprintByTrip(resolvedUpdates);
+        skipUnchanged = previousUpdates != null && appliedUpdates != null;
+        if (skipUnchanged) {
+          revertChangedTrips(previousUpdates, appliedUpdates);
+        } else {
+          // Remove all updates from the buffer
+          buffer.clear(feedId);
         }
+      } else if (previousUpdates != null) {
+        // The trips are changed after the full dataset, they must be reverted by the next one
+        for (ResolvedTripUpdate update : resolvedUpdates) {
+          previousUpdates.put(update.key(), AppliedTripUpdate.MODIFIED);
+        }
+      }
 
-        FeedScopedId tripId = new FeedScopedId(feedId, tripUpdate.getTrip().getTripId());
-
-        LocalDate serviceDate;
-        if (tripDescriptor.hasStartDate()) {
-          try {
-            serviceDate = ServiceDateUtils.parseString(tripDescriptor.getStartDate());
-          } catch (final ParseException e) {
-            debug(
-              tripId,
-              "Failed to parse start date in gtfs-rt trip update: {}",
-              tripDescriptor.getStartDate()
-            );
-            continue;
-          }
+      List<ResolvedTripUpdate> changedUpdates = new ArrayList<>(resolvedUpdates.size());
+      for (ResolvedTripUpdate update : resolvedUpdates) {
+        var previousUpdate = skipUnchanged ? previousUpdates.get(update.key()) : null;
+        if (previousUpdate != null && previousUpdate.isSameAs(update.fingerprint())) {
+          ++skipped;
         } else {
-          // TODO: figure out the correct service date. For the special case that a trip
-          // starts for example at 40:00, yesterday would probably be a better guess.
-          serviceDate = LocalDate.now(timeZone);
+          changedUpdates.add(update);
         }
+      }
+
+      var tripTimesPatches = createTripTimesPatches(changedUpdates, backwardsDelayPropagationType);
+
+      int uIndex = 0;
+      for (ResolvedTripUpdate update : changedUpdates) {
+        TripUpdate tripUpdate = update.tripUpdate();
+        FeedScopedId tripId = update.tripId();
+        LocalDate serviceDate = update.serviceDate();
 
         uIndex += 1;
         LOG.debug("trip update #{} ({} updates) :", uIndex, tripUpdate.getStopTimeUpdateCount());
@@ -267,7 +304,7 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
         // Determine what kind of trip update this is
         final TripDescriptor.ScheduleRelationship tripScheduleRelationship = determineTripScheduleRelationship(
-          tripDescriptor
+          tripUpdate.getTrip()
         );
 
         Result<?, UpdateError> result =
@@ -276,18 +313,19 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
               tripUpdate,
               tripId,
               serviceDate,
-              backwardsDelayPropagationType
+              backwardsDelayPropagationType,
+              tripTimesPatches.get(update)
             );
             case ADDED -> validateAndHandleAddedTrip(
               tripUpdate,
-              tripDescriptor,
+              tripUpdate.getTrip(),
               tripId,
               serviceDate
             );
             case CANCELED -> handleCanceledTrip(tripId, serviceDate);
             case REPLACEMENT -> validateAndHandleModifiedTrip(
               tripUpdate,
-              tripDescriptor,
+              tripUpdate.getTrip(),
               tripId,
               serviceDate
             );
@@ -305,6 +343,17 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
           } else {
             failuresByRelationship.put(tripScheduleRelationship, 1);
           }
+          if (appliedUpdates != null) {
+            appliedUpdates.put(update.key(), AppliedTripUpdate.MODIFIED);
+          }
+        }
+      }
+
+      if (fullDataset) {
+        if (appliedUpdates == null) {
+          fullDatasetUpdates.remove(feedId);
+        } else {
+          fullDatasetUpdates.put(feedId, appliedUpdates);
         }
       }
 
@@ -322,15 +371,19 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
       bufferLock.unlock();
     }
 
-    var updateResult = UpdateResult.ofResults(results);
+    var updateResult = UpdateResult.ofResults(results, skipped);
 
     if (fullDataset) {
       LOG.info(
-        "[feedId: {}] {} of {} update messages were applied successfully (success rate: {}%)",
+        "[feedId: {}] {} of {} update messages were applied successfully, {} were unchanged " +
+        "(success rate: {}%)",
         feedId,
         updateResult.successful(),
         updates.size(),
-        DoubleUtils.roundTo2Decimals((double) updateResult.successful() / updates.size() * 100)
+        updateResult.skipped(),
+        DoubleUtils.roundTo2Decimals(
+          (double) (updateResult.successful() + updateResult.skipped()) / updates.size() * 100
+        )
       );
 
       var errorIndex = updateResult.failures();
@@ -354,6 +407,116 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     return updateResult;
   }
 
+  /**
+   * Match the trip of each trip update, and find the service date. Trip updates without a trip are
+   * dropped.
+   */
+  private List<ResolvedTripUpdate> resolveTripUpdates(
+    GtfsRealtimeFuzzyTripMatcher fuzzyTripMatcher,
+    List<TripUpdate> updates,
+    String feedId
+  ) {
+    List<ResolvedTripUpdate> resolvedUpdates = new ArrayList<>(updates.size());
+    for (TripUpdate tripUpdate : updates) {
+      if (!tripUpdate.hasTrip()) {
+        debug(feedId, "", "Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
+        continue;
+      }
+
+      // Fingerprint the trip update as received, before it is matched
+      long fingerprint = Hashing.murmur3_128().hashBytes(tripUpdate.toByteArray()).asLong();
+
+      if (fuzzyTripMatcher != null) {
+        final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
+        tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
+      }
+
+      final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+
+      if (!tripDescriptor.hasTripId() || tripDescriptor.getTripId().isBlank()) {
+        debug(feedId, "", "No trip id found for gtfs-rt trip update: \n{}", tripUpdate);
+        continue;
+      }
+
+      FeedScopedId tripId = new FeedScopedId(feedId, tripUpdate.getTrip().getTripId());
+
+      LocalDate serviceDate;
+      if (tripDescriptor.hasStartDate()) {
+        try {
+          serviceDate = ServiceDateUtils.parseString(tripDescriptor.getStartDate());
+        } catch (final ParseException e) {
+          debug(
+            tripId,
+            "Failed to parse start date in gtfs-rt trip update: {}",
+            tripDescriptor.getStartDate()
+          );
+          continue;
+        }
+      } else {
+        // TODO: figure out the correct service date. For the special case that a trip
+        // starts for example at 40:00, yesterday would probably be a better guess.
+        serviceDate = LocalDate.now(timeZone);
+      }
+
+      resolvedUpdates.add(new ResolvedTripUpdate(tripUpdate, tripId, serviceDate, fingerprint));
+    }
+    return resolvedUpdates;
+  }
+
+  /**
+   * The fingerprint of the trip update of each trip, or {@code null} if a trip has more than one
+   * trip update.
+   */
+  @Nullable
+  private static Map<TripIdAndServiceDate, AppliedTripUpdate> fingerprintByTrip(
+    List<ResolvedTripUpdate> updates
+  ) {
+    Map<TripIdAndServiceDate, AppliedTripUpdate> fingerprints = new HashMap<>();
+    for (ResolvedTripUpdate update : updates) {
+      var applied = new AppliedTripUpdate(update.fingerprint(), true);
+      if (fingerprints.put(update.key(), applied) != null) {
+        return null;
+      }
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Revert the trips of the previous full dataset which are changed or removed in the new one.
+   */
+  private void revertChangedTrips(
+    Map<TripIdAndServiceDate, AppliedTripUpdate> previousUpdates,
+    Map<TripIdAndServiceDate, AppliedTripUpdate> updates
+  ) {
+    previousUpdates.forEach((trip, previous) -> {
+      var update = updates.get(trip);
+      if (update == null || !previous.isSameAs(update.fingerprint())) {
+        revertTrip(trip.tripId(), trip.serviceDate());
+      }
+    });
+  }
+
+  /**
+   * Undo the realtime updates of a trip on a service date. The scheduled trip times are restored,
+   * and a previously added or modified trip is removed from its realtime pattern.
+   */
+  private void revertTrip(FeedScopedId tripId, LocalDate serviceDate) {
+    buffer.removeRealtimeAddedTrip(tripId, serviceDate);
+
+    final TripPattern pattern = getPatternForTripId(tripId);
+    if (pattern == null) {
+      return;
+    }
+    final Timetable scheduledTimetable = pattern.getScheduledTimetable();
+    final TripTimes scheduledTripTimes = scheduledTimetable.getTripTimes(tripId);
+    if (
+      scheduledTripTimes != null &&
+      buffer.resolve(pattern, serviceDate).getTripTimes(tripId) != scheduledTripTimes
+    ) {
+      buffer.update(pattern, scheduledTripTimes, serviceDate);
+    }
+  }
+
   private TimetableSnapshot getTimetableSnapshot(final boolean force) {
     final long now = System.currentTimeMillis();
     if (force || now - lastSnapshotTime > maxSnapshotFrequencyMs) {
@@ -391,11 +554,104 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     return tripScheduleRelationship;
   }
 
+  /**
+   * Create the updated trip times of the scheduled trip updates in parallel, when there are enough
+   * of them. The trip updates are grouped by pattern, and the trip updates of each pattern are
+   * handled by one task. The updated trip times are created from the scheduled timetable, which
+   * is not changed by realtime updates, so the tasks do not touch the buffer. The buffer is
+   * updated afterwards, by the thread applying the trip updates in order.
+   *
+   * @return the updated trip times by trip update, empty if the updated trip times should
+   * be created while the trip updates are applied.
+   */
+  private Map<ResolvedTripUpdate, Result<TripTimesPatch, UpdateError>> createTripTimesPatches(
+    List<ResolvedTripUpdate> updates,
+    BackwardsDelayPropagationType backwardsDelayPropagationType
+  ) {
+    Map<TripPattern, List<ResolvedTripUpdate>> updatesByPattern = new HashMap<>();
+    int nScheduledUpdates = 0;
+    for (ResolvedTripUpdate update : updates) {
+      TripUpdate tripUpdate = update.tripUpdate();
+      if (
+        determineTripScheduleRelationship(tripUpdate.getTrip()) !=
+        TripDescriptor.ScheduleRelationship.SCHEDULED ||
+        tripUpdate.getStopTimeUpdateCount() < 1
+      ) {
+        continue;
+      }
+      TripPattern pattern = getPatternForTripId(update.tripId());
+      if (pattern != null) {
+        updatesByPattern.computeIfAbsent(pattern, p -> new ArrayList<>()).add(update);
+        ++nScheduledUpdates;
+      }
+    }
+
+    Map<ResolvedTripUpdate, Result<TripTimesPatch, UpdateError>> patches = new IdentityHashMap<>();
+    if (nScheduledUpdates < MIN_PARALLEL_SCHEDULED_UPDATES) {
+      return patches;
+    }
+
+    var groups = List.copyOf(updatesByPattern.entrySet());
+    List<Callable<List<Result<TripTimesPatch, UpdateError>>>> tasks = new ArrayList<>();
+    for (var group : groups) {
+      var scheduledTimetable = group.getKey().getScheduledTimetable();
+      tasks.add(() ->
+        group
+          .getValue()
+          .stream()
+          .map(update ->
+            scheduledTimetable.createUpdatedTripTimes(
+              update.tripUpdate(),
+              timeZone,
+              update.serviceDate(),
+              backwardsDelayPropagationType
+            )
+          )
+          .toList()
+      );
+    }
+
+    try {
+      List<Future<List<Result<TripTimesPatch, UpdateError>>>> futures = tripTimesExecutor()
+        .invokeAll(tasks);
+      for (int i = 0; i < groups.size(); ++i) {
+        var groupUpdates = groups.get(i).getValue();
+        var groupPatches = futures.get(i).get();
+        for (int j = 0; j < groupUpdates.size(); ++j) {
+          patches.put(groupUpdates.get(j), groupPatches.get(j));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      patches.clear();
+    } catch (ExecutionException e) {
+      LOG.warn("Failed to create updated trip times in parallel: {}", e.getCause().toString());
+      patches.clear();
+    }
+    return patches;
+  }
+
+  private ExecutorService tripTimesExecutor() {
+    if (tripTimesExecutor == null) {
+      tripTimesExecutor =
+        Executors.newFixedThreadPool(
+          Runtime.getRuntime().availableProcessors(),
+          new ThreadFactoryBuilder().setNameFormat("TripTimesUpdater-%d").setDaemon(true).build()
+        );
+    }
+    return tripTimesExecutor;
+  }
+
+  /**
+   * @param tripTimesPatch the updated trip times, if they are created in advance by
+   *                       {@link #createTripTimesPatches(List, BackwardsDelayPropagationType)}
+   */
   private Result<?, UpdateError> handleScheduledTrip(
     TripUpdate tripUpdate,
     FeedScopedId tripId,
     LocalDate serviceDate,
-    BackwardsDelayPropagationType backwardsDelayPropagationType
+    BackwardsDelayPropagationType backwardsDelayPropagationType,
+    @Nullable Result<TripTimesPatch, UpdateError> tripTimesPatch
   ) {
     final TripPattern pattern = getPatternForTripId(tripId);
 
@@ -414,19 +670,19 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     cancelPreviouslyAddedTrip(tripId, serviceDate);
 
     // Get new TripTimes based on scheduled timetable
-    var result = pattern
-      .getScheduledTimetable()
-      .createUpdatedTripTimes(tripUpdate, timeZone, serviceDate, backwardsDelayPropagationType);
+    var result = tripTimesPatch != null
+      ? tripTimesPatch
+      : pattern
+        .getScheduledTimetable()
+        .createUpdatedTripTimes(tripUpdate, timeZone, serviceDate, backwardsDelayPropagationType);
 
     if (result.isFailure()) {
       return result;
     }
 
-    var tripTimesPatch = result.successValue();
+    List<Integer> skippedStopIndices = result.successValue().getSkippedStopIndices();
 
-    List<Integer> skippedStopIndices = tripTimesPatch.getSkippedStopIndices();
-
-    var updatedTripTimes = tripTimesPatch.getTripTimes();
+    var updatedTripTimes = result.successValue().getTripTimes();
 
     // Make sure that updated trip times have the correct real time state
     updatedTripTimes.setRealTimeState(RealTimeState.UPDATED);
@@ -1063,4 +1319,28 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     String m = "[feedId: %s, tripId: %s] %s".formatted(feedId, tripId, message);
     LOG.debug(m, params);
   }
+
+  /** A trip update with the trip matched and the service date resolved. */
+  private record ResolvedTripUpdate(
+    TripUpdate tripUpdate,
+    FeedScopedId tripId,
+    LocalDate serviceDate,
+    long fingerprint
+  ) {
+    TripIdAndServiceDate key() {
+      return new TripIdAndServiceDate(tripId, serviceDate);
+    }
+  }
+
+  /**
+   * The fingerprint of a trip update of a full dataset, and whether it was applied successfully.
+   */
+  private record AppliedTripUpdate(long fingerprint, boolean success) {
+    /** The trip is changed by a failed or differential update, it must be applied again. */
+    static final AppliedTripUpdate MODIFIED = new AppliedTripUpdate(0, false);
+
+    boolean isSameAs(long fingerprint) {
+      return success && this.fingerprint == fingerprint;
+    }
+  }
 }
@@ -7,19 +7,28 @@ import java.util.List;
 import org.opentripplanner.model.UpdateError;
 import org.opentripplanner.transit.model.framework.Result;
 
+/**
+ * @param skipped the number of updates which were not applied because they were unchanged since
+ *                the previous update.
+ */
 public record UpdateResult(
   int successful,
   int failed,
+  int skipped,
   Multimap<UpdateError.UpdateErrorType, UpdateError> failures
 ) {
   public static UpdateResult empty() {
-    return new UpdateResult(0, 0, ArrayListMultimap.create());
+    return new UpdateResult(0, 0, 0, ArrayListMultimap.create());
   }
 
   public static UpdateResult ofResults(List<Result<?, UpdateError>> results) {
+    return ofResults(results, 0);
+  }
+
+  public static UpdateResult ofResults(List<Result<?, UpdateError>> results, int skipped) {
     var errors = results.stream().filter(Result::isFailure).map(Result::failureValue).toList();
     var successfullyApplied = results.stream().filter(Result::isSuccess).count();
     var errorIndex = Multimaps.index(errors, UpdateError::errorType);
-    return new UpdateResult((int) successfullyApplied, errors.size(), errorIndex);
+    return new UpdateResult((int) successfullyApplied, errors.size(), skipped, errorIndex);
   }
 }
@@ -25,6 +25,7 @@ public class BatchTripUpdateMetrics extends TripUpdateMetrics {
   protected static final String METRICS_PREFIX = "batch_trip_updates";
   private final AtomicInteger successfulGauge;
   private final AtomicInteger failureGauge;
+  private final AtomicInteger skippedGauge;
   private final Map<UpdateError.UpdateErrorType, AtomicInteger> failuresByType = new HashMap<>();
 
   public BatchTripUpdateMetrics(UrlUpdaterParameters parameters) {
@@ -36,11 +37,17 @@ public class BatchTripUpdateMetrics extends TripUpdateMetrics {
       );
     this.failureGauge =
       getGauge("failed", "Trip updates that failed to apply at the most recent update");
+    this.skippedGauge =
+      getGauge(
+        "skipped",
+        "Trip updates that were unchanged and not applied again at the most recent update"
+      );
   }
 
   public void setGauges(UpdateResult result) {
     this.successfulGauge.set(result.successful());
     this.failureGauge.set(result.failed());
+    this.skippedGauge.set(result.skipped());
 
     for (var errorType : result.failures().keySet()) {
       var counter = failuresByType.get(errorType);
@@ -26,17 +26,21 @@ public class StreamingTripUpdateMetrics extends TripUpdateMetrics {
   protected static final String METRICS_PREFIX = "streaming_trip_updates";
   private final Counter successfulCounter;
   private final Counter failureCounter;
+  private final Counter skippedCounter;
   private final Map<UpdateError.UpdateErrorType, Counter> failuresByType = new HashMap<>();
 
   public StreamingTripUpdateMetrics(UrlUpdaterParameters parameters) {
     super(parameters);
     this.successfulCounter = getCounter("successful", "Total successfully applied trip updates");
     this.failureCounter = getCounter("failed", "Total failed trip updates");
+    this.skippedCounter =
+      getCounter("skipped", "Total trip updates that were unchanged and not applied again");
   }
 
   public void setCounters(UpdateResult result) {
     this.successfulCounter.increment(result.successful());
     this.failureCounter.increment(result.failed());
+    this.skippedCounter.increment(result.skipped());
 
     for (var errorType : result.failures().keySet()) {
       var counter = failuresByType.get(errorType);
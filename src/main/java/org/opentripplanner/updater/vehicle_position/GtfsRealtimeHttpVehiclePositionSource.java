@@ -2,11 +2,10 @@ package org.opentripplanner.updater.vehicle_position;
 
 import com.google.transit.realtime.GtfsRealtime.VehiclePosition;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import org.opentripplanner.util.HttpUtils;
+import org.opentripplanner.updater.GtfsRealtimeFeedLoader;
 import org.opentripplanner.util.lang.ToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,25 +24,28 @@ public class GtfsRealtimeHttpVehiclePositionSource implements VehiclePositionSou
    */
   private final URI url;
 
-  private final Map<String, String> defaultHeaders = Map.of(
-    "Accept",
-    "application/x-google-protobuf, application/x-protobuf, application/protobuf, application/octet-stream, */*"
-  );
+  private final GtfsRealtimeFeedLoader feedLoader;
 
   public GtfsRealtimeHttpVehiclePositionSource(URI url) {
     this.url = url;
+    this.feedLoader = new GtfsRealtimeFeedLoader(url);
   }
 
   /**
    * Parses raw GTFS-RT data into vehicle positions
+   *
+   * @return the vehicle positions, or {@code null} if the feed is not modified since the last
+   * update.
    */
   public List<VehiclePosition> getPositions() {
-    try (InputStream is = HttpUtils.openInputStream(url.toString(), defaultHeaders)) {
-      if (is == null) {
-        LOG.warn("Failed to get data from url {}", url);
-        return List.of();
-      }
-      return this.getPositions(is);
+    try {
+      List<VehiclePosition> positions = new ArrayList<>();
+      var header = feedLoader.load(feedEntity -> {
+        if (feedEntity.hasVehicle()) {
+          positions.add(feedEntity.getVehicle());
+        }
+      });
+      return header == null ? null : positions;
     } catch (IOException e) {
       LOG.warn("Error reading vehicle positions from {}", url, e);
     }
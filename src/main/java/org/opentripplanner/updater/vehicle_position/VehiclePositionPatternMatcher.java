@@ -10,15 +10,14 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.opentripplanner.common.model.T2;
 import org.opentripplanner.model.vehicle_position.RealtimeVehiclePosition;
@@ -78,27 +77,20 @@ public class VehiclePositionPatternMatcher {
     // that map makes it very easy to update the positions in the service
     // it also enables the bookkeeping about which pattern previously had positions but no longer do
     // these need to be removed from the service as we assume that the vehicle has stopped
-    var positions = vehiclePositions
-      .stream()
-      .map(vehiclePosition -> toRealtimeVehiclePosition(feedId, vehiclePosition))
-      .filter(Objects::nonNull)
-      .collect(Collectors.groupingBy(t -> t.first))
-      .entrySet()
-      .stream()
-      .collect(
-        Collectors.toMap(
-          Entry::getKey,
-          e -> e.getValue().stream().map(t -> t.second).collect(Collectors.toList())
-        )
-      );
-
-    positions.forEach(service::setVehiclePositions);
+    var positions = new HashMap<TripPattern, List<RealtimeVehiclePosition>>();
+    for (VehiclePosition vehiclePosition : vehiclePositions) {
+      var t = toRealtimeVehiclePosition(feedId, vehiclePosition);
+      if (t != null) {
+        positions.computeIfAbsent(t.first, p -> new ArrayList<>()).add(t.second);
+      }
+    }
     Set<TripPattern> patternsInCurrentUpdate = positions.keySet();
 
     // if there was a position in the previous update but not in the current one, we assume
     // that the pattern has no more vehicle positions.
     var toDelete = Sets.difference(patternsInPreviousUpdate, patternsInCurrentUpdate);
-    toDelete.forEach(service::clearVehiclePositions);
+    // the service rebuilds its indexes once for the whole update
+    service.updateVehiclePositions(positions, toDelete);
     patternsInPreviousUpdate = patternsInCurrentUpdate;
 
     if (!vehiclePositions.isEmpty() && patternsInCurrentUpdate.isEmpty()) {
@@ -1,11 +1,11 @@
 package org.opentripplanner.updater.vehicle_position;
 
-import com.google.transit.realtime.GtfsRealtime;
 import com.google.transit.realtime.GtfsRealtime.VehiclePosition;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import org.opentripplanner.updater.GtfsRealtimeFeedLoader;
 
 public interface VehiclePositionSource {
   /**
@@ -15,21 +15,19 @@ public interface VehiclePositionSource {
 
   default List<VehiclePosition> getPositions(InputStream is) throws IOException {
     List<VehiclePosition> positions = null;
-    List<GtfsRealtime.FeedEntity> feedEntityList;
-    GtfsRealtime.FeedMessage feedMessage;
 
     if (is != null) {
-      // Decode message
-      feedMessage = GtfsRealtime.FeedMessage.parseFrom(is);
-      feedEntityList = feedMessage.getEntityList();
-
-      // Create List of TripUpdates
-      positions = new ArrayList<>(feedEntityList.size());
-      for (GtfsRealtime.FeedEntity feedEntity : feedEntityList) {
-        if (feedEntity.hasVehicle()) {
-          positions.add(feedEntity.getVehicle());
+      // Decode the entities one at a time, and keep only the vehicle positions
+      List<VehiclePosition> feedPositions = new ArrayList<>();
+      GtfsRealtimeFeedLoader.readFeed(
+        is,
+        feedEntity -> {
+          if (feedEntity.hasVehicle()) {
+            feedPositions.add(feedEntity.getVehicle());
+          }
         }
-      }
+      );
+      positions = feedPositions;
     }
 
     return positions;
@@ -57,6 +57,15 @@ public class HttpUtils {
     return getData(uri, DEFAULT_TIMEOUT, requestHeaderValues);
   }
 
+  /**
+   * Send a GET request, and return the response whatever the status code is. The caller must
+   * consume the content of the response entity.
+   */
+  public static HttpResponse getResponse(URI uri, Map<String, String> requestHeaderValues)
+    throws IOException {
+    return getResponse(new HttpGet(uri), DEFAULT_TIMEOUT, requestHeaderValues);
+  }
+
   public static List<Header> getHeaders(URI uri) {
     return getHeaders(uri, DEFAULT_TIMEOUT, null);
   }
@@ -114,9 +114,14 @@ public class ConstantsForTests {
     return instance;
   }
 
-  public static NetexBundle createMinimalNetexBundle() {
+  public static NetexBundle createMinimalNetexBundle(boolean parseGroupFilesInParallel) {
+    var buildConfig = createNetexBuilderParameters();
     return NetexConfigure.netexBundleForTest(
-      createNetexBuilderParameters(),
+      buildConfig,
+      buildConfig.netexDefaults
+        .copyOf()
+        .withParseGroupFilesInParallel(parseGroupFilesInParallel)
+        .build(),
       new File(ConstantsForTests.NETEX_DIR, ConstantsForTests.NETEX_FILENAME)
     );
   }
@@ -0,0 +1,59 @@
+package org.opentripplanner.common.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.util.geometry.GeometryUtils;
+
+class CopyOnWriteHashGridSpatialIndexTest {
+
+  private static final LineString LINE = GeometryUtils.makeLineString(10.0, 59.0, 10.02, 59.01);
+  private static final Envelope QUERY = new Envelope(new Coordinate(10.01, 59.005));
+
+  @Test
+  void insertQueryAndRemove() {
+    var subject = new CopyOnWriteHashGridSpatialIndex<String>();
+
+    subject.insert(LINE, "A");
+    subject.insert(LINE, "B");
+    subject.insert(new Envelope(new Coordinate(11.0, 60.0)), "C");
+
+    assertEquals(List.of("A", "B"), subject.query(QUERY).stream().sorted().toList());
+    assertEquals(3, subject.size());
+
+    assertTrue(subject.remove(LINE.getEnvelopeInternal(), "A"));
+    assertFalse(subject.remove(LINE.getEnvelopeInternal(), "A"));
+
+    assertEquals(List.of("B"), subject.query(QUERY));
+    assertEquals(2, subject.size());
+  }
+
+  @Test
+  void queryWhileUpdated() {
+    var subject = new CopyOnWriteHashGridSpatialIndex<Integer>();
+    subject.insert(LINE, -1);
+
+    var writer = CompletableFuture.runAsync(() -> {
+      for (int i = 0; i < 10_000; ++i) {
+        subject.insert(LINE, i);
+        subject.remove(LINE.getEnvelopeInternal(), i);
+      }
+    });
+
+    while (!writer.isDone()) {
+      // The permanent item is always found, and the bins are never seen half updated
+      var result = subject.query(QUERY);
+      assertTrue(result.contains(-1));
+      assertTrue(result.size() <= 2);
+    }
+    writer.join();
+    assertEquals(List.of(-1), subject.query(QUERY));
+  }
+}
@@ -1,9 +1,12 @@
 package org.opentripplanner.common.geometry;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.ToDoubleFunction;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
@@ -62,6 +65,58 @@ public class HashGridTest {
     }
   }
 
+  @Test
+  public void testVisitItemsWithoutDuplicates() {
+    HashGridSpatialIndex<String> hashGrid = new HashGridSpatialIndex<>();
+    // Spans several bins
+    hashGrid.insert(new Envelope(10.0, 10.02, 59.0, 59.02), "A");
+    hashGrid.insert(new Envelope(new Coordinate(10.01, 59.01)), "B");
+
+    List<String> visited = new ArrayList<>();
+    hashGrid.visitItems(new Envelope(10.0, 10.02, 59.0, 59.02), visited::add);
+
+    Assertions.assertEquals(List.of("A", "B"), visited.stream().sorted().toList());
+  }
+
+  /**
+   * Compare the k nearest items found by searching the hash grid in rings, with the items found by
+   * sorting all items by distance.
+   */
+  @Test
+  public void testFindNearestRandom() {
+    final double X0 = 10.0;
+    final double Y0 = 59.0;
+    final double D = 0.05;
+    final double MAX_DISTANCE = 0.02;
+    final int K = 5;
+
+    Random rand = new Random(42);
+    HashGridSpatialIndex<Coordinate> hashGrid = new HashGridSpatialIndex<>();
+    List<Coordinate> all = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      Coordinate c = new Coordinate(rand.nextDouble() * D + X0, rand.nextDouble() * D + Y0);
+      hashGrid.insert(new Envelope(c), c);
+      all.add(c);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      Coordinate center = new Coordinate(rand.nextDouble() * D + X0, rand.nextDouble() * D + Y0);
+      double xScale = Math.cos(Math.toRadians(center.y));
+      ToDoubleFunction<Coordinate> distance = c ->
+        Math.hypot((c.x - center.x) * xScale, c.y - center.y);
+
+      List<Coordinate> expected = all
+        .stream()
+        .filter(c -> distance.applyAsDouble(c) <= MAX_DISTANCE)
+        .sorted(Comparator.comparingDouble(distance))
+        .limit(K)
+        .toList();
+
+      Assertions.assertEquals(expected, hashGrid.findNearest(center, MAX_DISTANCE, K, distance));
+    }
+  }
+
   private static class DummyObject {
 
     Envelope envelope;
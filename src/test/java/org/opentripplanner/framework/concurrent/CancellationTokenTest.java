@@ -0,0 +1,52 @@
+package org.opentripplanner.framework.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class CancellationTokenTest {
+
+  @Test
+  void noneIsNeverCancelled() {
+    CancellationToken.NONE.cancel("Ignored");
+    assertFalse(CancellationToken.NONE.isCancelled());
+    assertDoesNotThrow(CancellationToken.NONE::checkForCancellation);
+  }
+
+  @Test
+  void cancel() {
+    var subject = CancellationToken.of(null);
+    assertFalse(subject.isCancelled());
+
+    subject.cancel("Client gone");
+    subject.cancel("Second reason is ignored");
+
+    assertTrue(subject.isCancelled());
+    var ex = assertThrows(RequestCancelledException.class, subject::checkForCancellation);
+    assertEquals("Client gone", ex.getMessage());
+  }
+
+  @Test
+  void deadlineExceeded() {
+    var subject = CancellationToken.of(Duration.ofMillis(-1));
+    // A negative timeout is the same as no timeout
+    assertFalse(subject.isCancelled());
+
+    subject = CancellationToken.of(Duration.ofHours(1));
+    assertFalse(subject.isCancelled());
+
+    subject = CancellationToken.of(Duration.ofNanos(1));
+    // Wait for the clock to move past the deadline
+    long start = System.currentTimeMillis();
+    while (System.currentTimeMillis() <= start + 1) {
+      Thread.onSpinWait();
+    }
+    assertTrue(subject.isCancelled());
+    assertThrows(RequestCancelledException.class, subject::checkForCancellation);
+  }
+}
@@ -33,6 +33,8 @@ public class BuildConfigurationDocTest {
     .add("dataOverlay", "sandbox/DataOverlay.md")
     .add("fares", "sandbox/Fares.md")
     .add("transferRequests", "RouteRequest.md")
+    .add("travelTimeEgress", "sandbox/TravelTime.md")
+    .add("vectorTiles", "sandbox/MapboxVectorTilesApi.md")
     .build();
 
   /**
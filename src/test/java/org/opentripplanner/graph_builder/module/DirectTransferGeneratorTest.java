@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.opentripplanner.graph_builder.DataImportIssueStore.noopIssueStore;
 
+import java.io.File;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
@@ -17,6 +18,7 @@ import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
 import org.opentripplanner.TestOtpModel;
 import org.opentripplanner.model.PathTransfer;
 import org.opentripplanner.routing.algorithm.GraphRoutingTest;
@@ -32,6 +34,7 @@ import org.opentripplanner.transit.model.network.StopPattern;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.RegularStopBuilder;
 import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.util.OTPFeature;
 import org.opentripplanner.util.lang.ToStringBuilder;
 
@@ -193,6 +196,84 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     );
   }
 
+  @Test
+  public void testSingleRequestWithTransferCache(@TempDir File dir) {
+    var req = new RouteRequest();
+    req.journey().transfer().setMode(StreetMode.WALK);
+    var transferRequests = List.of(req);
+    var file = new File(dir, "cached_transfers.bin");
+
+    var cache = buildWithTransferCache(new TransferCache(file, "streets"), transferRequests);
+    assertEquals(0, cache.countReused());
+    assertEquals(7, cache.countSearched());
+
+    // A new build on the same streets reuses the nearby stops of all stops
+    cache = buildWithTransferCache(new TransferCache(file, "streets"), transferRequests);
+    assertEquals(7, cache.countReused());
+    assertEquals(0, cache.countSearched());
+
+    // The cache is not used if the streets are changed
+    cache = buildWithTransferCache(new TransferCache(file, "other streets"), transferRequests);
+    assertEquals(0, cache.countReused());
+  }
+
+  @Test
+  public void testTransferCacheWithNewPathway(@TempDir File dir) {
+    var req = new RouteRequest();
+    req.journey().transfer().setMode(StreetMode.WALK);
+    var transferRequests = List.of(req);
+    var file = new File(dir, "cached_transfers.bin");
+
+    buildWithTransferCache(new TransferCache(file, "streets"), transferRequests);
+
+    // A pathway added by the transit data changes the neighbourhood of the stops around it
+    var cache = new TransferCache(file, "streets");
+    build(cache, transferRequests, model(true, false, false, true));
+    assertEquals(0, cache.countReused());
+    assertEquals(7, cache.countSearched());
+
+    cache = new TransferCache(file, "streets");
+    build(cache, transferRequests, model(true, false, false, true));
+    assertEquals(7, cache.countReused());
+    assertEquals(0, cache.countSearched());
+  }
+
+  private TransferCache buildWithTransferCache(
+    TransferCache cache,
+    List<RouteRequest> transferRequests
+  ) {
+    var transitModel = build(cache, transferRequests, model(true));
+
+    assertTransfers(
+      transitModel.getAllPathTransfers(),
+      tr(S0, 100, List.of(V0, V11), S11),
+      tr(S0, 100, List.of(V0, V21), S21),
+      tr(S11, 100, List.of(V11, V21), S21)
+    );
+    return cache;
+  }
+
+  private TransitModel build(
+    TransferCache cache,
+    List<RouteRequest> transferRequests,
+    TestOtpModel otpModel
+  ) {
+    var graph = otpModel.graph();
+    graph.hasStreets = true;
+    var transitModel = otpModel.transitModel();
+
+    new DirectTransferGenerator(
+      graph,
+      transitModel,
+      noopIssueStore(),
+      MAX_TRANSFER_DURATION,
+      transferRequests,
+      cache
+    )
+      .buildGraph();
+    return transitModel;
+  }
+
   @Test
   public void testMultipleRequestsWithoutPatterns() {
     var reqWalk = new RouteRequest();
@@ -288,6 +369,15 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     boolean addPatterns,
     boolean withBoardingConstraint,
     boolean withNoTransfersOnStations
+  ) {
+    return model(addPatterns, withBoardingConstraint, withNoTransfersOnStations, false);
+  }
+
+  private TestOtpModel model(
+    boolean addPatterns,
+    boolean withBoardingConstraint,
+    boolean withNoTransfersOnStations,
+    boolean withPathway
   ) {
     return modelOf(
       new Builder() {
@@ -329,6 +419,11 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
           street(V11, V21, 100, StreetTraversalPermission.PEDESTRIAN);
           street(V11, V22, 110, StreetTraversalPermission.PEDESTRIAN_AND_BICYCLE);
 
+          if (withPathway) {
+            pathway(S12, S22, 60, 80);
+            pathway(S22, S12, 60, 80);
+          }
+
           if (addPatterns) {
             var agency = TransitModelForTest.agency("Agency");
 
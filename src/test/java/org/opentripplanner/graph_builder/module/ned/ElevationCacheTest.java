@@ -0,0 +1,91 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.opentripplanner.util.geometry.GeometryUtils;
+
+class ElevationCacheTest {
+
+  private static final double SAMPLE_DISTANCE = 10;
+
+  private static final LineString A = GeometryUtils.makeLineString(10.0, 59.0, 10.0003, 59.0);
+  private static final LineString B = GeometryUtils.makeLineString(10.0, 59.0, 10.0, 59.0003);
+  private static final LineString NOT_CACHED = GeometryUtils.makeLineString(10.0, 59.0, 11.0, 59.0);
+
+  /** A regular profile, with samples every 10 meters and at the end of the edge. */
+  private static final PackedCoordinateSequence PROFILE_A = profile(
+    0,
+    -3.21,
+    10,
+    -2.5,
+    20,
+    4.123,
+    27.4,
+    5.0
+  );
+
+  /** An irregular profile, with a large elevation difference. */
+  private static final PackedCoordinateSequence PROFILE_B = profile(0, 100, 7.5, 1100, 33.3, 1500);
+
+  @Test
+  void writeAndLoad(@TempDir File dir) throws Exception {
+    var file = new File(dir, "cached_elevations.bin");
+
+    var writer = new ElevationCache.Writer(SAMPLE_DISTANCE);
+    writer.add(A, PROFILE_A);
+    writer.add(B, PROFILE_B);
+    writer.write(file);
+
+    var subject = ElevationCache.load(file, SAMPLE_DISTANCE);
+
+    assertNotNull(subject);
+    assertEquals(2, subject.size());
+    // Elevations are stored in centimeters, or in decimeters for large elevation differences
+    assertProfileEquals(PROFILE_A, subject.get(A), 0.005);
+    assertProfileEquals(PROFILE_B, subject.get(B), 0.05);
+    assertNull(subject.get(NOT_CACHED));
+  }
+
+  @Test
+  void loadWithOtherSampleDistance(@TempDir File dir) throws Exception {
+    var file = new File(dir, "cached_elevations.bin");
+    var writer = new ElevationCache.Writer(SAMPLE_DISTANCE);
+    writer.add(A, PROFILE_A);
+    writer.write(file);
+
+    assertNull(ElevationCache.load(file, 5));
+  }
+
+  @Test
+  void loadOtherFormat(@TempDir File dir) throws Exception {
+    var file = new File(dir, "cached_elevations.obj");
+    Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 });
+
+    assertNull(ElevationCache.load(file, SAMPLE_DISTANCE));
+  }
+
+  private static PackedCoordinateSequence profile(double... coordinates) {
+    return new PackedCoordinateSequence.Double(coordinates, 2, 0);
+  }
+
+  private static void assertProfileEquals(
+    PackedCoordinateSequence expected,
+    PackedCoordinateSequence actual,
+    double delta
+  ) {
+    assertNotNull(actual);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals(expected.getX(i), actual.getX(i), 0.001);
+      assertEquals(expected.getY(i), actual.getY(i), delta);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.opentripplanner.graph_builder.module.osm.nodestore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+class OsmNodeStoreTest {
+
+  private static final double DELTA = 0.00000005;
+
+  private OsmNodeStore subject;
+
+  @AfterEach
+  void tearDown() {
+    subject.close();
+  }
+
+  @ParameterizedTest
+  @EnumSource(OsmNodeStoreType.class)
+  void addAndGetNodes(OsmNodeStoreType type) {
+    subject = type.create();
+
+    subject.add(node(1, 59.9138687, 10.7522454));
+    subject.add(node(7, -33.8567844, 151.2152967));
+    // Out of order
+    subject.add(node(3, 0.0000001, -0.0000001));
+
+    var tagged = node(5, 60.0, 11.0);
+    tagged.addTag("highway", "traffic_signals");
+    subject.add(tagged);
+
+    assertEquals(4, subject.size());
+    assertTrue(subject.contains(3));
+    assertFalse(subject.contains(2));
+    assertNull(subject.get(8));
+
+    assertNode(1, 59.9138687, 10.7522454, subject.get(1));
+    assertNode(7, -33.8567844, 151.2152967, subject.get(7));
+    assertNode(3, 0.0000001, -0.0000001, subject.get(3));
+
+    // Tagged nodes are kept as is
+    assertSame(tagged, subject.get(5));
+
+    // Nodes are compared on id, not identity
+    assertEquals(subject.get(7), subject.get(7));
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = OsmNodeStoreType.class, names = { "OFF_HEAP", "MEMORY_MAPPED" })
+  void manyNodes(OsmNodeStoreType type) {
+    subject = type.create();
+
+    // Fill more than one chunk
+    int n = 1_500_000;
+    for (int i = 0; i < n; ++i) {
+      subject.add(node(2L * i, i * 0.00001, -i * 0.00001));
+    }
+
+    assertEquals(n, subject.size());
+    assertNode(0, 0.0, 0.0, subject.get(0));
+    assertNode(2_000_000, 10.0, -10.0, subject.get(2_000_000));
+    assertNode(2L * (n - 1), (n - 1) * 0.00001, -(n - 1) * 0.00001, subject.get(2L * (n - 1)));
+    assertFalse(subject.contains(1_000_001));
+  }
+
+  private static OSMNode node(long id, double lat, double lon) {
+    var node = new OSMNode();
+    node.setId(id);
+    node.lat = lat;
+    node.lon = lon;
+    return node;
+  }
+
+  private static void assertNode(long id, double lat, double lon, OSMNode node) {
+    assertEquals(id, node.getId());
+    assertEquals(lat, node.lat, DELTA);
+    assertEquals(lon, node.lon, DELTA);
+  }
+}
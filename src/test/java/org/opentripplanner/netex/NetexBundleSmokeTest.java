@@ -15,7 +15,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.opentripplanner.ConstantsForTests;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.model.OtpTransitService;
@@ -49,10 +50,13 @@ public class NetexBundleSmokeTest {
    * type. This is not a replacement for unit tests on mappers. Try to focus on relation between
    * entities and Netex import integration.
    */
-  @Test
-  public void smokeTestOfNetexLoadData() {
+  @ParameterizedTest(name = "parseGroupFilesInParallel: {0}")
+  @ValueSource(booleans = { false, true })
+  public void smokeTestOfNetexLoadData(boolean parseGroupFilesInParallel) {
     // Given
-    NetexBundle netexBundle = ConstantsForTests.createMinimalNetexBundle();
+    NetexBundle netexBundle = ConstantsForTests.createMinimalNetexBundle(
+      parseGroupFilesInParallel
+    );
 
     // Run the check to make sure it does not throw an exception
     netexBundle.checkInputs();
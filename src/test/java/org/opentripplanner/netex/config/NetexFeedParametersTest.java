@@ -1,8 +1,10 @@
 package org.opentripplanner.netex.config;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.opentripplanner.netex.config.NetexFeedParameters.DEFAULT;
 
 import java.net.URI;
@@ -29,6 +31,7 @@ class NetexFeedParametersTest {
     .withGroupFilePattern(Pattern.compile(GROUP_FILE))
     .withIgnoreFilePattern(Pattern.compile(IGNORE_FILE))
     .addFerryIdsNotAllowedForBicycle(FERRY_IDS)
+    .withParseGroupFilesInParallel(true)
     .build();
 
   NetexFeedParametersTest() throws Exception {}
@@ -63,6 +66,12 @@ class NetexFeedParametersTest {
     assertEquals(FERRY_IDS, subject.ferryIdsNotAllowedForBicycle());
   }
 
+  @Test
+  void parseGroupFilesInParallel() {
+    assertTrue(subject.parseGroupFilesInParallel());
+    assertFalse(DEFAULT.parseGroupFilesInParallel());
+  }
+
   @Test
   void source() {
     assertEquals(SOURCE_URI, subject.source().toASCIIString());
@@ -98,6 +107,7 @@ class NetexFeedParametersTest {
       "sharedGroupFilePattern: '[sharedGoupFil]+', " +
       "groupFilePattern: '[groupFile]+', " +
       "ignoreFilePattern: '[ignoreFl]+', " +
+      "parseGroupFilesInParallel, " +
       "ferryIdsNotAllowedForBicycle: [Ferry:Id]" +
       "}",
       subject.toString()
@@ -0,0 +1,80 @@
+package org.opentripplanner.netex.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.CompositeFrame;
+import org.rutebanken.netex.model.DatedServiceJourney;
+import org.rutebanken.netex.model.Journey_VersionStructure;
+import org.rutebanken.netex.model.ServiceCalendarFrame;
+import org.rutebanken.netex.model.ServiceJourney;
+import org.rutebanken.netex.model.TimetableFrame;
+
+class NetexXmlParserTest {
+
+  private static final String DOC =
+    """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <PublicationDelivery xmlns="http://www.netex.org.uk/netex" version="1.0">
+      <PublicationTimestamp>2022-01-01T00:00:00</PublicationTimestamp>
+      <ParticipantRef>RB</ParticipantRef>
+      <dataObjects>
+        <CompositeFrame id="RUT:CompositeFrame:1" version="1">
+          <frames>
+            <TimetableFrame id="RUT:TimetableFrame:1" version="1">
+              <vehicleJourneys>
+                <ServiceJourney id="RUT:ServiceJourney:1" version="1">
+                  <Name>First</Name>
+                </ServiceJourney>
+                <DatedServiceJourney id="RUT:DatedServiceJourney:1" version="1"/>
+                <ServiceJourney id="RUT:ServiceJourney:2" version="1"/>
+              </vehicleJourneys>
+            </TimetableFrame>
+            <ServiceCalendarFrame id="RUT:ServiceCalendarFrame:1" version="1"/>
+          </frames>
+        </CompositeFrame>
+      </dataObjects>
+    </PublicationDelivery>
+    """;
+
+  @Test
+  void streamJourneysOutOfTheDocument() throws Exception {
+    List<Journey_VersionStructure> journeys = new ArrayList<>();
+
+    var doc = new NetexXmlParser()
+      .parseXmlDoc(new ByteArrayInputStream(DOC.getBytes(StandardCharsets.UTF_8)), journeys::add);
+
+    // The journeys are passed on to the handler, in the document order
+    assertEquals(
+      List.of("RUT:ServiceJourney:1", "RUT:DatedServiceJourney:1", "RUT:ServiceJourney:2"),
+      journeys.stream().map(Journey_VersionStructure::getId).toList()
+    );
+    assertInstanceOf(ServiceJourney.class, journeys.get(0));
+    assertInstanceOf(DatedServiceJourney.class, journeys.get(1));
+    assertEquals("First", ((ServiceJourney) journeys.get(0)).getName().getValue());
+
+    // The rest of the document is parsed, without the journeys
+    var composite = (CompositeFrame) doc
+      .getDataObjects()
+      .getCompositeFrameOrCommonFrame()
+      .get(0)
+      .getValue();
+    var frames = composite.getFrames().getCommonFrame();
+    assertEquals(2, frames.size());
+
+    var timetableFrame = assertInstanceOf(TimetableFrame.class, frames.get(0).getValue());
+    assertTrue(
+      timetableFrame
+        .getVehicleJourneys()
+        .getVehicleJourneyOrDatedVehicleJourneyOrNormalDatedVehicleJourney()
+        .isEmpty()
+    );
+    assertInstanceOf(ServiceCalendarFrame.class, frames.get(1).getValue());
+  }
+}
@@ -0,0 +1,177 @@
+package org.opentripplanner.openstreetmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+
+class OsmPbfBlockReaderTest {
+
+  private static final String COLUMBUS =
+    "/org/opentripplanner/graph_builder/module/columbus.osm.pbf";
+
+  private static final OpenStreetMapProvider PROVIDER = new OpenStreetMapProvider(
+    new File("columbus.osm.pbf"),
+    false
+  );
+
+  private static byte[] columbus;
+
+  private final List<ExecutorService> threadPools = new ArrayList<>();
+
+  @BeforeAll
+  static void readFixture() throws IOException {
+    try (var in = OsmPbfBlockReaderTest.class.getResourceAsStream(COLUMBUS)) {
+      columbus = in.readAllBytes();
+    }
+  }
+
+  @AfterEach
+  void shutdown() {
+    threadPools.forEach(ExecutorService::shutdownNow);
+  }
+
+  @Test
+  void parallelReadGivesTheSameEntitiesInTheSameOrder() throws IOException {
+    var singleThread = read(columbus, threadPool(1), 1);
+    var parallel = read(columbus, threadPool(4), 8);
+
+    assertFalse(singleThread.isEmpty());
+    assertTrue(singleThread.stream().anyMatch(it -> it.startsWith("way")));
+    assertEquals(singleThread, parallel);
+  }
+
+  @Test
+  void corruptBlockFailsAndCancelsThePendingBlocks() throws IOException {
+    var corruptBlob = Fileformat.Blob
+      .newBuilder()
+      .setZlibData(ByteString.copyFrom(new byte[] { 1, 2, 3, 4, 5 }))
+      .setRawSize(100)
+      .build()
+      .toByteArray();
+
+    var out = new ByteArrayOutputStream();
+    writeBlock(out, "OSMData", corruptBlob.length, corruptBlob);
+    out.write(columbus);
+
+    var threadPool = threadPool(2);
+    assertThrows(IOException.class, () -> read(out.toByteArray(), threadPool, 16));
+    assertNoPendingTasks(threadPool);
+  }
+
+  @Test
+  void oversizedBlockFailsAndCancelsThePendingBlocks() throws IOException {
+    var out = new ByteArrayOutputStream();
+    out.write(columbus);
+    writeBlock(out, "OSMData", 64 * 1024 * 1024, new byte[0]);
+
+    var threadPool = threadPool(2);
+    assertThrows(IOException.class, () -> read(out.toByteArray(), threadPool, 1000));
+    assertNoPendingTasks(threadPool);
+  }
+
+  /**
+   * Read the PBF data and return the ids of the ways and the number of nodes of each dense block,
+   * in the order they are consumed.
+   */
+  private static List<String> read(byte[] pbf, ExecutorService threadPool, int maxBlocks)
+    throws IOException {
+    var entities = new ArrayList<String>();
+    var stringTable = new ConcurrentHashMap<String, String>();
+    new OsmPbfBlockReader(threadPool, maxBlocks)
+      .read(
+        new ByteArrayInputStream(pbf),
+        () -> new RecordingParser(stringTable),
+        parser -> entities.addAll(((RecordingParser) parser).entities)
+      );
+    return entities;
+  }
+
+  private RecordingExecutor threadPool(int nThreads) {
+    var threadPool = new RecordingExecutor(nThreads);
+    threadPools.add(threadPool);
+    return threadPool;
+  }
+
+  private static void assertNoPendingTasks(ExecutorService threadPool) {
+    var executor = (RecordingExecutor) threadPool;
+    assertFalse(executor.futures.isEmpty());
+    assertTrue(executor.futures.stream().allMatch(Future::isDone));
+  }
+
+  private static void writeBlock(ByteArrayOutputStream out, String type, int size, byte[] blob)
+    throws IOException {
+    var header = Fileformat.BlobHeader
+      .newBuilder()
+      .setType(type)
+      .setDatasize(size)
+      .build()
+      .toByteArray();
+    var data = new DataOutputStream(out);
+    data.writeInt(header.length);
+    data.write(header);
+    data.write(blob);
+    data.flush();
+  }
+
+  /** Record the entities of the block, as they are parsed. */
+  private static class RecordingParser extends OpenStreetMapParser {
+
+    private final List<String> entities = new ArrayList<>();
+
+    RecordingParser(ConcurrentHashMap<String, String> stringTable) {
+      super(PROVIDER, OsmParserPhase.Ways, stringTable, id -> true);
+    }
+
+    @Override
+    protected void parseWays(List<Osmformat.Way> ways) {
+      ways.forEach(it -> entities.add("way " + it.getId()));
+      super.parseWays(ways);
+    }
+
+    @Override
+    protected void parseDense(Osmformat.DenseNodes nodes) {
+      entities.add("dense nodes " + nodes.getIdCount());
+      super.parseDense(nodes);
+    }
+  }
+
+  /** A thread pool which keeps the futures of all submitted tasks. */
+  private static class RecordingExecutor extends ThreadPoolExecutor {
+
+    private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+
+    RecordingExecutor(int nThreads) {
+      super(nThreads, nThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+      var future = super.submit(task);
+      futures.add(future);
+      return future;
+    }
+  }
+}
@@ -106,6 +106,38 @@ public class TransferGeneratorTest implements RaptorTestConstants {
     );
   }
 
+  @Test
+  void findTransfersForPathsWithTheSameTripsReusingTheGenerator() {
+    data.withRoutes(
+      route("L1", STOP_A, STOP_B, STOP_C, STOP_D)
+        .withTimetable(schedule("10:02 10:10 10:20 10:30"), schedule("10:04 10:12 10:22 10:32"))
+    );
+
+    // The same generator is used for all paths, the transfers between the two trips are cached
+    var subject = new TransferGenerator<>(TS_ADAPTOR, SLACK_PROVIDER, data);
+
+    var transitLegs = transitLegsSameRoute(STOP_A, STOP_C, STOP_D);
+    assertEquals(
+      "[[TripToTripTransfer{from: [2 10:10 BUS L1], to: [2 10:12 BUS L1]}, " +
+      "TripToTripTransfer{from: [3 10:20 BUS L1], to: [3 10:22 BUS L1]}]]",
+      subject.findAllPossibleTransfers(transitLegs).toString()
+    );
+
+    // Boarding at B, the cached transfer at B must not be used
+    transitLegs = transitLegsSameRoute(STOP_B, STOP_C, STOP_D);
+    assertEquals(
+      "[[TripToTripTransfer{from: [3 10:20 BUS L1], to: [3 10:22 BUS L1]}]]",
+      subject.findAllPossibleTransfers(transitLegs).toString()
+    );
+
+    // Alighting at C, the cached transfer at C must not be used
+    transitLegs = transitLegsSameRoute(STOP_A, STOP_B, STOP_C);
+    assertEquals(
+      "[[TripToTripTransfer{from: [2 10:10 BUS L1], to: [2 10:12 BUS L1]}]]",
+      subject.findAllPossibleTransfers(transitLegs).toString()
+    );
+  }
+
   @Test
   void findGuaranteedTransferWithNoSlack() {
     data.withRoutes(
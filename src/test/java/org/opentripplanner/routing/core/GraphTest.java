@@ -1,7 +1,11 @@
 package org.opentripplanner.routing.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -15,9 +19,11 @@ import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.transit.service.StopModel;
 import org.opentripplanner.util.geometry.GeometryUtils;
 
 public class GraphTest {
@@ -131,6 +137,60 @@ public class GraphTest {
     allEdges.add(edge(c, a, 1.0));
   }
 
+  @Test
+  public void testVertexIndex() {
+    Graph g = new Graph();
+    Vertex a = new IntersectionVertex(g, "A", 5, 5);
+    Vertex b = new SimpleConcreteVertex(g, "B", 6, 6);
+    Vertex c = new IntersectionVertex(g, "C", 3, 2);
+
+    assertEquals(0, a.getIndex());
+    assertEquals(1, b.getIndex());
+    assertEquals(2, c.getIndex());
+    assertSame(b, g.getVertexByIndex(1));
+
+    g.remove(b);
+
+    // The index of a removed vertex is not reused
+    Vertex d = new IntersectionVertex(g, "D", 4, 4);
+    assertEquals(3, d.getIndex());
+    assertNull(g.getVertexByIndex(1));
+    assertNull(g.getVertex("B"));
+    assertEquals(3, g.countVertices());
+    assertEquals(4, g.countVertexIndexes());
+    assertEquals(List.of(a, c, d), List.copyOf(g.getVertices()));
+    assertEquals(List.of(a, c, d), g.getVerticesOfType(IntersectionVertex.class));
+    assertTrue(g.containsVertex(d));
+    assertFalse(g.containsVertex(b));
+  }
+
+  @Test
+  public void testEdgeIndex() {
+    Graph g = new Graph();
+    StreetVertex a = new IntersectionVertex(g, "A", 5, 5);
+    StreetVertex b = new IntersectionVertex(g, "B", 6, 6);
+    Edge ab = edge(a, b, 1.0);
+    Edge ba = edge(b, a, 1.0);
+
+    assertEquals(-1, ab.getIndex());
+
+    g.index(new StopModel());
+
+    assertEquals(0, ab.getIndex());
+    assertEquals(1, ba.getIndex());
+    assertSame(ba, g.getEdgeByIndex(1));
+    assertEquals(2, g.countEdgeIndexes());
+
+    g.removeEdge(ab);
+    assertNull(g.getEdgeByIndex(0));
+
+    // New edges get the next index, existing edges keep their index
+    Edge ab2 = edge(a, b, 2.0);
+    g.index(new StopModel());
+    assertEquals(1, ba.getIndex());
+    assertEquals(2, ab2.getIndex());
+  }
+
   /**
    * Create an edge. If twoWay, create two edges (back and forth).
    */
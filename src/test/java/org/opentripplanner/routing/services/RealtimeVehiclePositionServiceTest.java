@@ -0,0 +1,126 @@
+package org.opentripplanner.routing.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.stopTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.opentripplanner.model.vehicle_position.RealtimeVehiclePosition;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.WgsCoordinate;
+import org.opentripplanner.transit.model.network.Route;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.Trip;
+
+class RealtimeVehiclePositionServiceTest {
+
+  private static final Route ROUTE = TransitModelForTest.route("1").build();
+
+  private static final Trip TRIP_1 = TransitModelForTest.trip("trip1").build();
+  private static final Trip TRIP_2 = TransitModelForTest.trip("trip2").build();
+
+  private static final TripPattern PATTERN_1 = pattern(TRIP_1);
+  private static final TripPattern PATTERN_2 = pattern(TRIP_2);
+
+  private static final RealtimeVehiclePosition POS_1 = position(TRIP_1, 59.91, 10.75);
+  private static final RealtimeVehiclePosition POS_2 = position(TRIP_2, 60.39, 5.32);
+  private static final RealtimeVehiclePosition POS_WITHOUT_COORDINATES = RealtimeVehiclePosition
+    .builder()
+    .setTrip(TRIP_2)
+    .build();
+
+  @Test
+  void setAndClearVehiclePositions() {
+    var service = new RealtimeVehiclePositionService();
+    assertEquals(0, service.countVehiclePositions());
+
+    service.setVehiclePositions(PATTERN_1, List.of(POS_1));
+    service.setVehiclePositions(PATTERN_2, List.of(POS_2, POS_WITHOUT_COORDINATES));
+
+    assertEquals(List.of(POS_1), service.getVehiclePositions(PATTERN_1));
+    assertEquals(3, service.countVehiclePositions());
+
+    service.clearVehiclePositions(PATTERN_2);
+
+    assertEquals(List.of(), service.getVehiclePositions(PATTERN_2));
+    assertEquals(List.of(), service.getVehiclePositionsForTrip(TRIP_2.getId()));
+    assertEquals(List.of(), service.getVehiclePositions(new Envelope(5, 6, 60, 61)));
+    assertEquals(1, service.countVehiclePositions());
+  }
+
+  @Test
+  void updateVehiclePositions() {
+    var service = new RealtimeVehiclePositionService();
+    service.setVehiclePositions(PATTERN_1, List.of(POS_1));
+
+    service.updateVehiclePositions(Map.of(PATTERN_2, List.of(POS_2)), Set.of(PATTERN_1));
+
+    assertEquals(List.of(), service.getVehiclePositions(PATTERN_1));
+    assertEquals(List.of(POS_2), service.getVehiclePositions(PATTERN_2));
+    assertEquals(1, service.countVehiclePositions());
+  }
+
+  @Test
+  void getVehiclePositionsForTrip() {
+    var service = new RealtimeVehiclePositionService();
+    service.setVehiclePositions(PATTERN_1, List.of(POS_1));
+    service.setVehiclePositions(PATTERN_2, List.of(POS_2, POS_WITHOUT_COORDINATES));
+
+    assertEquals(List.of(POS_1), service.getVehiclePositionsForTrip(TRIP_1.getId()));
+    assertEquals(
+      List.of(POS_2, POS_WITHOUT_COORDINATES),
+      service.getVehiclePositionsForTrip(TRIP_2.getId())
+    );
+    assertEquals(List.of(), service.getVehiclePositionsForTrip(TransitModelForTest.id("other")));
+  }
+
+  @Test
+  void getVehiclePositionsInEnvelope() {
+    var service = new RealtimeVehiclePositionService();
+    service.setVehiclePositions(PATTERN_1, List.of(POS_1));
+    service.setVehiclePositions(PATTERN_2, List.of(POS_2, POS_WITHOUT_COORDINATES));
+
+    assertEquals(List.of(POS_1), service.getVehiclePositions(new Envelope(10, 11, 59, 60)));
+    assertEquals(List.of(POS_2), service.getVehiclePositions(new Envelope(5, 6, 60, 61)));
+    assertEquals(List.of(), service.getVehiclePositions(new Envelope(10.76, 11, 59, 60)));
+    assertEquals(2, service.getVehiclePositions(new Envelope(0, 20, 50, 70)).size());
+  }
+
+  @Test
+  void getVehiclePositionsInLargeEnvelope() {
+    var service = new RealtimeVehiclePositionService();
+    service.setVehiclePositions(PATTERN_1, List.of(POS_1));
+    service.setVehiclePositions(PATTERN_2, List.of(POS_2, POS_WITHOUT_COORDINATES));
+
+    // The whole world covers far more bins than there are positions, so they are scanned
+    var positions = service.getVehiclePositions(new Envelope(-180, 180, -90, 90));
+    assertEquals(2, positions.size());
+    assertTrue(positions.containsAll(List.of(POS_1, POS_2)));
+
+    assertEquals(List.of(POS_1), service.getVehiclePositions(new Envelope(-180, 180, -90, 60)));
+  }
+
+  private static TripPattern pattern(Trip trip) {
+    var stopPattern = new StopPattern(
+      List.of(stopTime(trip, 0), stopTime(trip, 1), stopTime(trip, 2))
+    );
+    return TripPattern
+      .of(trip.getId())
+      .withStopPattern(stopPattern)
+      .withRoute(ROUTE)
+      .build();
+  }
+
+  private static RealtimeVehiclePosition position(Trip trip, double lat, double lon) {
+    return RealtimeVehiclePosition
+      .builder()
+      .setTrip(trip)
+      .setCoordinates(new WgsCoordinate(lat, lon))
+      .build();
+  }
+}
@@ -15,6 +15,7 @@ import org.glassfish.jersey.message.internal.Statuses;
 import org.glassfish.jersey.server.ContainerRequest;
 import org.glassfish.jersey.server.ContainerResponse;
 import org.jets3t.service.utils.Mimetypes;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.opentripplanner.test.support.VariableSource;
@@ -80,6 +81,23 @@ class EtagRequestFilterTest {
     assertArrayEquals(expectedEntity, (byte[]) response.getEntity());
   }
 
+  @Test
+  void keepEtagSetByResource() throws IOException {
+    var request = request("GET");
+    request.header(EtagRequestFilter.HEADER_IF_NONE_MATCH, "\"cached\"");
+    var response = response(200, request);
+    var headers = response.getHeaders();
+    headers.add(EtagRequestFilter.HEADER_CONTENT_TYPE, APPLICATION_X_PROTOBUF);
+    headers.add(EtagRequestFilter.HEADER_ETAG, "\"cached\"");
+    response.setEntity(bytes(vectorTilesResponse));
+
+    var filter = new EtagRequestFilter();
+    filter.filter(request, response);
+
+    assertEquals("\"cached\"", response.getHeaderString(EtagRequestFilter.HEADER_ETAG));
+    assertEquals(304, response.getStatus());
+  }
+
   @Nonnull
   private static ContainerResponse response(int status, ContainerRequest request) {
     return new ContainerResponse(
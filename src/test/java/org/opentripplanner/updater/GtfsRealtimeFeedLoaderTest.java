@@ -0,0 +1,62 @@
+package org.opentripplanner.updater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.google.transit.realtime.GtfsRealtime.FeedEntity;
+import com.google.transit.realtime.GtfsRealtime.FeedHeader;
+import com.google.transit.realtime.GtfsRealtime.FeedMessage;
+import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
+import com.google.transit.realtime.GtfsRealtime.TripUpdate;
+import com.google.transit.realtime.GtfsRealtime.VehiclePosition;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GtfsRealtimeFeedLoaderTest {
+
+  @Test
+  public void readFeedOneEntityAtATime() throws Exception {
+    var trip = TripDescriptor.newBuilder().setTripId("1.1");
+    var feedMessage = FeedMessage
+      .newBuilder()
+      .setHeader(
+        FeedHeader
+          .newBuilder()
+          .setGtfsRealtimeVersion("2.0")
+          .setIncrementality(FeedHeader.Incrementality.DIFFERENTIAL)
+      )
+      .addEntity(
+        FeedEntity.newBuilder().setId("1").setTripUpdate(TripUpdate.newBuilder().setTrip(trip))
+      )
+      .addEntity(
+        FeedEntity.newBuilder().setId("2").setVehicle(VehiclePosition.newBuilder().setTrip(trip))
+      )
+      .build();
+
+    List<FeedEntity> entities = new ArrayList<>();
+    var header = GtfsRealtimeFeedLoader.readFeed(
+      new ByteArrayInputStream(feedMessage.toByteArray()),
+      entities::add
+    );
+
+    assertEquals(feedMessage.getHeader(), header);
+    assertEquals(feedMessage.getEntityList(), entities);
+  }
+
+  @Test
+  public void loadFileFeed() throws Exception {
+    var subject = new GtfsRealtimeFeedLoader(
+      URI.create("file:src/test/resources/vehicle-positions/king-county-metro-1.pb")
+    );
+
+    for (int i = 0; i < 2; ++i) {
+      List<FeedEntity> entities = new ArrayList<>();
+      // Files are not downloaded with conditional requests, they are read every time
+      assertNotNull(subject.load(entities::add));
+      assertEquals(627, entities.stream().filter(FeedEntity::hasVehicle).count());
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.opentripplanner.updater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.GtfsTest;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.service.DefaultTransitService;
+
+public class TripMatcherIndexTest extends GtfsTest {
+
+  @Test
+  public void testFindTrips() {
+    var transitService = new DefaultTransitService(transitModel);
+    var subject = TripMatcherIndex.of(transitService);
+
+    String feedId = transitModel.getFeedIds().iterator().next();
+    var trip = transitService.getTripForId(new FeedScopedId(feedId, "10W1020"));
+    var pattern = transitService.getPatternForTrip(trip);
+    var times = pattern.getScheduledTimetable().getTripTimes(trip);
+    var services = new TIntHashSet(new int[] { times.getServiceCode() });
+
+    assertEquals(
+      trip,
+      subject.findTripByStartTime(
+        pattern.getRoute(),
+        pattern.getDirection(),
+        times.getScheduledDepartureTime(0),
+        services
+      )
+    );
+    // The trip is not found if its service is not running
+    assertNull(
+      subject.findTripByStartTime(
+        pattern.getRoute(),
+        pattern.getDirection(),
+        times.getScheduledDepartureTime(0),
+        new TIntHashSet()
+      )
+    );
+
+    String lastStopId = pattern.lastStop().getId().getId();
+    int arrivalTime = times.getArrivalTime(times.getNumStops() - 1);
+    assertTrue(subject.findTripsByLastStopArrival(lastStopId, arrivalTime).contains(trip));
+    assertTrue(subject.findTripsByLastStopArrival(lastStopId, arrivalTime + 1).isEmpty());
+
+    // There are no rail trips with NeTEx planning codes in a GTFS feed
+    assertTrue(subject.findRailTripsByInternalPlanningCode("10W1020").isEmpty());
+  }
+
+  @Override
+  public String getFeedName() {
+    return "portland/portland.gtfs.zip";
+  }
+}
@@ -18,6 +18,7 @@ import com.google.transit.realtime.GtfsRealtime.TripUpdate;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeEvent;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
@@ -159,6 +160,54 @@ public class TimetableSnapshotSourceTest {
     assertEquals(RealTimeState.CANCELED, tripTimes.getRealTimeState());
   }
 
+  @Test
+  public void testSkipUnchangedTripInFullDataset() throws InvalidProtocolBufferException {
+    final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
+    final Trip trip = transitModel.getTransitModelIndex().getTripForId().get(tripId);
+    final TripPattern pattern = transitModel.getTransitModelIndex().getPatternForTrip().get(trip);
+    final int tripIndex = pattern.getScheduledTimetable().getTripIndex(tripId);
+
+    var updater = new TimetableSnapshotSource(
+      TimetableSnapshotSourceParameters.DEFAULT.withMaxSnapshotFrequencyMs(-1),
+      transitModel
+    );
+
+    var result = updater.applyTripUpdates(
+      TRIP_MATCHER_NOOP,
+      REQUIRED_NO_DATA,
+      true,
+      List.of(TripUpdate.parseFrom(cancellation)),
+      feedId
+    );
+    assertEquals(1, result.successful());
+    assertEquals(0, result.skipped());
+
+    // The same cancellation in the next full dataset is not applied again
+    result =
+      updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        true,
+        List.of(TripUpdate.parseFrom(cancellation)),
+        feedId
+      );
+    assertEquals(0, result.successful());
+    assertEquals(1, result.skipped());
+
+    var tripTimes = updater
+      .getTimetableSnapshot()
+      .resolve(pattern, serviceDate)
+      .getTripTimes(tripIndex);
+    assertEquals(RealTimeState.CANCELED, tripTimes.getRealTimeState());
+
+    // A trip which is not in the next full dataset is reverted to the schedule
+    updater.applyTripUpdates(TRIP_MATCHER_NOOP, REQUIRED_NO_DATA, true, List.of(), feedId);
+
+    tripTimes =
+      updater.getTimetableSnapshot().resolve(pattern, serviceDate).getTripTimes(tripIndex);
+    assertEquals(RealTimeState.SCHEDULED, tripTimes.getRealTimeState());
+  }
+
   @Test
   public void testHandleDelayedTrip() {
     final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
@@ -219,6 +268,64 @@ public class TimetableSnapshotSourceTest {
     assertEquals(RealTimeState.SCHEDULED, forToday.getTripTimes(tripIndex2).getRealTimeState());
   }
 
+  /**
+   * The updated trip times of a large message are created in parallel, but the trip updates must
+   * still be applied in order.
+   */
+  @Test
+  public void testHandleManyDelayedTrips() {
+    final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
+    final FeedScopedId tripId2 = new FeedScopedId(feedId, "1.2");
+    final Trip trip = transitModel.getTransitModelIndex().getTripForId().get(tripId);
+    final TripPattern pattern = transitModel.getTransitModelIndex().getPatternForTrip().get(trip);
+    final int tripIndex = pattern.getScheduledTimetable().getTripIndex(tripId);
+    final int tripIndex2 = pattern.getScheduledTimetable().getTripIndex(tripId2);
+
+    final int n = TimetableSnapshotSource.MIN_PARALLEL_SCHEDULED_UPDATES;
+    List<TripUpdate> tripUpdates = new ArrayList<>();
+    for (int delay = 1; delay <= n; ++delay) {
+      tripUpdates.add(delayedTripUpdate(delay % 2 == 0 ? "1.2" : "1.1", delay));
+    }
+
+    var updater = new TimetableSnapshotSource(
+      TimetableSnapshotSourceParameters.DEFAULT,
+      transitModel
+    );
+
+    var result = updater.applyTripUpdates(
+      TRIP_MATCHER_NOOP,
+      REQUIRED_NO_DATA,
+      fullDataset,
+      tripUpdates,
+      feedId
+    );
+    assertEquals(n, result.successful());
+
+    final Timetable forToday = updater.getTimetableSnapshot().resolve(pattern, serviceDate);
+    assertEquals(n - 1, forToday.getTripTimes(tripIndex).getArrivalDelay(1));
+    assertEquals(n, forToday.getTripTimes(tripIndex2).getArrivalDelay(1));
+    assertEquals(RealTimeState.UPDATED, forToday.getTripTimes(tripIndex).getRealTimeState());
+    assertEquals(RealTimeState.UPDATED, forToday.getTripTimes(tripIndex2).getRealTimeState());
+  }
+
+  private static TripUpdate delayedTripUpdate(String tripId, int delay) {
+    final TripUpdate.Builder tripUpdateBuilder = TripUpdate.newBuilder();
+    tripUpdateBuilder.setTrip(
+      TripDescriptor
+        .newBuilder()
+        .setTripId(tripId)
+        .setScheduleRelationship(TripDescriptor.ScheduleRelationship.SCHEDULED)
+    );
+
+    final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
+    stopTimeUpdateBuilder.setScheduleRelationship(StopTimeUpdate.ScheduleRelationship.SCHEDULED);
+    stopTimeUpdateBuilder.setStopSequence(2);
+    stopTimeUpdateBuilder.getArrivalBuilder().setDelay(delay);
+    stopTimeUpdateBuilder.getDepartureBuilder().setDelay(delay);
+
+    return tripUpdateBuilder.build();
+  }
+
   /**
    * This test just asserts that invalid trip ids don't throw an exception and are ignored instead
    */
@@ -264,84 +371,7 @@ public class TimetableSnapshotSourceTest {
 
     final String addedTripId = "added_trip";
 
-    TripUpdate tripUpdate;
-    {
-      final TripDescriptor.Builder tripDescriptorBuilder = TripDescriptor.newBuilder();
-
-      tripDescriptorBuilder.setTripId(addedTripId);
-      tripDescriptorBuilder.setScheduleRelationship(TripDescriptor.ScheduleRelationship.ADDED);
-      tripDescriptorBuilder.setStartDate(ServiceDateUtils.asCompactString(serviceDate));
-
-      final long midnightSecondsSinceEpoch = ServiceDateUtils
-        .asStartOfService(serviceDate, transitModel.getTimeZone())
-        .toEpochSecond();
-
-      final TripUpdate.Builder tripUpdateBuilder = TripUpdate.newBuilder();
-
-      tripUpdateBuilder.setTrip(tripDescriptorBuilder);
-
-      { // Stop A
-        final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
-        stopTimeUpdateBuilder.setScheduleRelationship(
-          StopTimeUpdate.ScheduleRelationship.SCHEDULED
-        );
-        stopTimeUpdateBuilder.setStopId("A");
-
-        { // Arrival
-          final StopTimeEvent.Builder arrivalBuilder = stopTimeUpdateBuilder.getArrivalBuilder();
-          arrivalBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (30 * 60));
-          arrivalBuilder.setDelay(0);
-        }
-
-        { // Departure
-          final StopTimeEvent.Builder departureBuilder = stopTimeUpdateBuilder.getDepartureBuilder();
-          departureBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (30 * 60));
-          departureBuilder.setDelay(0);
-        }
-      }
-
-      { // Stop C
-        final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
-        stopTimeUpdateBuilder.setScheduleRelationship(
-          StopTimeUpdate.ScheduleRelationship.SCHEDULED
-        );
-        stopTimeUpdateBuilder.setStopId("C");
-
-        { // Arrival
-          final StopTimeEvent.Builder arrivalBuilder = stopTimeUpdateBuilder.getArrivalBuilder();
-          arrivalBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (40 * 60));
-          arrivalBuilder.setDelay(0);
-        }
-
-        { // Departure
-          final StopTimeEvent.Builder departureBuilder = stopTimeUpdateBuilder.getDepartureBuilder();
-          departureBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (45 * 60));
-          departureBuilder.setDelay(0);
-        }
-      }
-
-      { // Stop E
-        final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
-        stopTimeUpdateBuilder.setScheduleRelationship(
-          StopTimeUpdate.ScheduleRelationship.SCHEDULED
-        );
-        stopTimeUpdateBuilder.setStopId("E");
-
-        { // Arrival
-          final StopTimeEvent.Builder arrivalBuilder = stopTimeUpdateBuilder.getArrivalBuilder();
-          arrivalBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (55 * 60));
-          arrivalBuilder.setDelay(0);
-        }
-
-        { // Departure
-          final StopTimeEvent.Builder departureBuilder = stopTimeUpdateBuilder.getDepartureBuilder();
-          departureBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (55 * 60));
-          departureBuilder.setDelay(0);
-        }
-      }
-
-      tripUpdate = tripUpdateBuilder.build();
-    }
+    TripUpdate tripUpdate = addedTripUpdate(addedTripId, serviceDate);
 
     var updater = new TimetableSnapshotSource(
       TimetableSnapshotSourceParameters.DEFAULT,
@@ -387,6 +417,38 @@ public class TimetableSnapshotSourceTest {
     assertEquals(-1, scheduleTripIndex, "Added trip should not be found in scheduled time table");
   }
 
+  @Test
+  public void testRemoveAddedTripMissingFromFullDataset() {
+    final LocalDate serviceDate = LocalDate.now(transitModel.getTimeZone());
+    final String addedTripId = "added_trip";
+    final FeedScopedId addedTripScopedId = new FeedScopedId(feedId, addedTripId);
+
+    var updater = new TimetableSnapshotSource(
+      TimetableSnapshotSourceParameters.DEFAULT.withMaxSnapshotFrequencyMs(-1),
+      transitModel
+    );
+
+    updater.applyTripUpdates(
+      TRIP_MATCHER_NOOP,
+      REQUIRED_NO_DATA,
+      true,
+      List.of(addedTripUpdate(addedTripId, serviceDate)),
+      feedId
+    );
+
+    var snapshot = updater.getTimetableSnapshot();
+    var tripPattern = snapshot.getRealtimeAddedTripPattern(addedTripScopedId, serviceDate);
+    assertNotNull(tripPattern);
+    assertTrue(snapshot.resolve(tripPattern, serviceDate).getTripIndex(addedTripId) > -1);
+
+    // The added trip is not in the next full dataset, it is removed and not cancelled
+    updater.applyTripUpdates(TRIP_MATCHER_NOOP, REQUIRED_NO_DATA, true, List.of(), feedId);
+
+    snapshot = updater.getTimetableSnapshot();
+    assertNull(snapshot.getRealtimeAddedTripPattern(addedTripScopedId, serviceDate));
+    assertEquals(-1, snapshot.resolve(tripPattern, serviceDate).getTripIndex(addedTripId));
+  }
+
   @Test
   public void testHandleModifiedTrip() {
     // GIVEN
@@ -1131,4 +1193,76 @@ public class TimetableSnapshotSourceTest {
     assertNotSame(snapshotA.resolve(pattern, null), snapshotA.resolve(pattern, yesterday));
     assertSame(snapshotA.resolve(pattern, null), snapshotB.resolve(pattern, null));
   }
+
+  private TripUpdate addedTripUpdate(String addedTripId, LocalDate serviceDate) {
+    final TripDescriptor.Builder tripDescriptorBuilder = TripDescriptor.newBuilder();
+
+    tripDescriptorBuilder.setTripId(addedTripId);
+    tripDescriptorBuilder.setScheduleRelationship(TripDescriptor.ScheduleRelationship.ADDED);
+    tripDescriptorBuilder.setStartDate(ServiceDateUtils.asCompactString(serviceDate));
+
+    final long midnightSecondsSinceEpoch = ServiceDateUtils
+      .asStartOfService(serviceDate, transitModel.getTimeZone())
+      .toEpochSecond();
+
+    final TripUpdate.Builder tripUpdateBuilder = TripUpdate.newBuilder();
+
+    tripUpdateBuilder.setTrip(tripDescriptorBuilder);
+
+    { // Stop A
+      final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
+      stopTimeUpdateBuilder.setScheduleRelationship(StopTimeUpdate.ScheduleRelationship.SCHEDULED);
+      stopTimeUpdateBuilder.setStopId("A");
+
+      { // Arrival
+        final StopTimeEvent.Builder arrivalBuilder = stopTimeUpdateBuilder.getArrivalBuilder();
+        arrivalBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (30 * 60));
+        arrivalBuilder.setDelay(0);
+      }
+
+      { // Departure
+        final StopTimeEvent.Builder departureBuilder = stopTimeUpdateBuilder.getDepartureBuilder();
+        departureBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (30 * 60));
+        departureBuilder.setDelay(0);
+      }
+    }
+
+    { // Stop C
+      final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
+      stopTimeUpdateBuilder.setScheduleRelationship(StopTimeUpdate.ScheduleRelationship.SCHEDULED);
+      stopTimeUpdateBuilder.setStopId("C");
+
+      { // Arrival
+        final StopTimeEvent.Builder arrivalBuilder = stopTimeUpdateBuilder.getArrivalBuilder();
+        arrivalBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (40 * 60));
+        arrivalBuilder.setDelay(0);
+      }
+
+      { // Departure
+        final StopTimeEvent.Builder departureBuilder = stopTimeUpdateBuilder.getDepartureBuilder();
+        departureBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (45 * 60));
+        departureBuilder.setDelay(0);
+      }
+    }
+
+    { // Stop E
+      final StopTimeUpdate.Builder stopTimeUpdateBuilder = tripUpdateBuilder.addStopTimeUpdateBuilder();
+      stopTimeUpdateBuilder.setScheduleRelationship(StopTimeUpdate.ScheduleRelationship.SCHEDULED);
+      stopTimeUpdateBuilder.setStopId("E");
+
+      { // Arrival
+        final StopTimeEvent.Builder arrivalBuilder = stopTimeUpdateBuilder.getArrivalBuilder();
+        arrivalBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (55 * 60));
+        arrivalBuilder.setDelay(0);
+      }
+
+      { // Departure
+        final StopTimeEvent.Builder departureBuilder = stopTimeUpdateBuilder.getDepartureBuilder();
+        departureBuilder.setTime(midnightSecondsSinceEpoch + (8 * 3600) + (55 * 60));
+        departureBuilder.setDelay(0);
+      }
+    }
+
+    return tripUpdateBuilder.build();
+  }
 }